@@ -10,25 +10,40 @@ rm -rf build out
 mkdir -p build out
 
 # 编译
-echo "[1/3] Compiling..."
+echo "[1/4] Compiling..."
 find src -name "*.java" > sources.txt
 javac -d build @sources.txt
 rm sources.txt
 echo "  Compiled successfully."
 
 # 打包JAR
-echo "[2/3] Packaging JAR..."
+echo "[2/4] Packaging JAR..."
 jar cfm out/AimLabs.jar MANIFEST.MF -C build .
 echo "  Created out/AimLabs.jar"
 
+# 生成AppCDS归档: 训练运行跑完预热和常用界面后退出，退出时把加载过的类写入归档
+# 与启动脚本一样用jar的绝对路径(CDS会校验类路径)，在临时目录运行以免配置/历史文件写进out；没有图形环境时跳过
+echo "[3/4] Generating CDS archive..."
+rm -f out/AimLabs.jsa
+TRAIN_DIR=$(mktemp -d)
+if (cd "$TRAIN_DIR" && java -XX:ArchiveClassesAtExit="$OLDPWD/out/AimLabs.jsa" -jar "$OLDPWD/out/AimLabs.jar" --cds-training); then
+    echo "  Created out/AimLabs.jsa"
+else
+    rm -f out/AimLabs.jsa
+    echo "  Skipped (no display), launching without CDS archive."
+fi
+rm -rf "$TRAIN_DIR"
+
 # 创建可执行启动脚本
-echo "[3/3] Creating launcher scripts..."
+echo "[4/4] Creating launcher scripts..."
 
 # Windows .bat
 cat > out/AimLabs.bat << 'BAT'
 @echo off
 title AimLabs
-java -jar AimLabs.jar
+set CDS=
+if exist "%~dp0AimLabs.jsa" set CDS=-XX:SharedArchiveFile="%~dp0AimLabs.jsa"
+java %CDS% -jar "%~dp0AimLabs.jar" %*
 if errorlevel 1 (
     echo.
     echo Java is required to run AimLabs.
@@ -40,11 +55,14 @@ BAT
 # Linux/Mac .sh
 cat > out/AimLabs.sh << 'SH'
 #!/bin/bash
-java -jar AimLabs.jar
+DIR="$(cd "$(dirname "$0")" && pwd)"
+CDS=()
+[ -f "$DIR/AimLabs.jsa" ] && CDS=(-XX:SharedArchiveFile="$DIR/AimLabs.jsa")
+exec java "${CDS[@]}" -jar "$DIR/AimLabs.jar" "$@"
 SH
 chmod +x out/AimLabs.sh
 
 echo ""
 echo "=== Build Complete ==="
 echo "Output: out/AimLabs.jar"
-echo "Run: java -jar out/AimLabs.jar"
+echo "Run: out/AimLabs.sh  (启动计时: out/AimLabs.sh --startup-trace)"
@@ -11,7 +11,9 @@ fi
 cat > out/AimLabs.bat << 'BAT'
 @echo off
 title AimLabs
-java -jar "%~dp0AimLabs.jar" %*
+set CDS=
+if exist "%~dp0AimLabs.jsa" set CDS=-XX:SharedArchiveFile="%~dp0AimLabs.jsa"
+java %CDS% -jar "%~dp0AimLabs.jar" %*
 if errorlevel 1 (
     echo.
     echo ERROR: Java 17+ is required.
@@ -25,6 +27,7 @@ echo "=== Packaging Complete ==="
 echo "  out/AimLabs.jar   - 可执行JAR"
 echo "  out/AimLabs.bat   - Windows启动器(双击运行)"
 echo "  out/AimLabs.sh    - Linux/Mac启动器"
+echo "  out/AimLabs.jsa   - CDS归档(有图形环境时生成，启动器自动使用)"
 echo ""
 echo "要生成真正的exe，在Windows上运行:"
 echo "  jpackage --input out --main-jar AimLabs.jar --name AimLabs --type app-image"
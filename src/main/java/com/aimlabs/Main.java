@@ -1,21 +1,39 @@
 package com.aimlabs;
 
+import com.aimlabs.perf.StartupTrace;
 import com.aimlabs.ui.MainFrame;
 
 import javax.swing.*;
+import java.awt.GraphicsEnvironment;
 
 /**
  * 程序入口
+ * --startup-trace: 输出启动各阶段耗时；--cds-training: 构建时生成CDS归档用的训练运行，跑完常用路径后自动退出
  */
 public class Main {
     public static void main(String[] args) {
+        boolean cdsTraining = false;
+        for (String arg : args) {
+            if (arg.equals("--startup-trace")) StartupTrace.enable();
+            else if (arg.equals("--cds-training")) cdsTraining = true;
+        }
+        if (cdsTraining && GraphicsEnvironment.isHeadless()) {
+            System.err.println("CDS训练运行需要图形环境");
+            System.exit(1);
+        }
+        StartupTrace.mark("main");
+
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception ignored) {}
+        StartupTrace.mark("外观(LookAndFeel)");
 
+        boolean training = cdsTraining;
         SwingUtilities.invokeLater(() -> {
             MainFrame frame = new MainFrame();
             frame.setVisible(true);
+            StartupTrace.mark("窗口显示");
+            if (training) frame.runCdsTraining();
         });
     }
 }
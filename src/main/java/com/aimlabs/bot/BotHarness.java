@@ -0,0 +1,124 @@
+package com.aimlabs.bot;
+
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.LagCompensator;
+import com.aimlabs.game.LogHistogram;
+import com.aimlabs.sim.AimBot;
+import com.aimlabs.sim.SimResult;
+import com.aimlabs.sim.SimSession;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 无界面批量对局 - 用模拟瞄准者跑完整局，远快于实时，用于校准计分/难度和批量回归
+ * 用法: java -cp AimLabs.jar com.aimlabs.bot.BotHarness
+ *        [--mode FLICK|all] [--bot perfect|human|fitts|all] [--sessions N] [--seed S]
+ *        [--duration 秒] [--tick Hz] [--config] [--csv 文件]
+ * 默认使用出厂配置(--config改用aimlabs_config.properties)，同一参数得到同一结果
+ */
+public class BotHarness {
+
+    public static void main(String[] args) throws IOException {
+        String modeArg = "all", botArg = "all", csv = null;
+        int sessions = 20, tickHz = 120;
+        long seed = 1;
+        Integer duration = null;
+        boolean userConfig = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode" -> modeArg = args[++i];
+                case "--bot" -> botArg = args[++i];
+                case "--sessions" -> sessions = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--duration" -> duration = Integer.parseInt(args[++i]);
+                case "--tick" -> tickHz = Integer.parseInt(args[++i]);
+                case "--config" -> userConfig = true;
+                case "--csv" -> csv = args[++i];
+                default -> {
+                    System.err.println("未知参数: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        GameConfig config = new GameConfig();
+        if (userConfig) config.load();
+        if (duration != null) config.setGameDuration(duration);
+        long tickNanos = 1_000_000_000L / Math.max(1, tickHz);
+        // 瞄准者按过去的位置估计靶标速度: 不论延迟补偿是否开启都保留完整的位置历史
+        SessionSettings settings = config.snapshot().withPoseHistoryMs(LagCompensator.MAX_REWIND_MS);
+
+        List<GameMode> modes = new ArrayList<>();
+        for (GameMode m : GameMode.values()) {
+            if (m == GameMode.STRESS) continue; // 压力测试不计分
+            if (modeArg.equalsIgnoreCase("all") || m.name().equalsIgnoreCase(modeArg)) modes.add(m);
+        }
+        List<Supplier<AimBot>> bots = new ArrayList<>();
+        if (botArg.equals("all") || botArg.equals("perfect")) bots.add(PerfectBot::new);
+        if (botArg.equals("all") || botArg.equals("human")) bots.add(HumanNoiseBot::new);
+        if (botArg.equals("all") || botArg.equals("fitts")) bots.add(FittsBot::new);
+        if (modes.isEmpty() || bots.isEmpty()) {
+            System.err.println("没有匹配的模式或瞄准者");
+            System.exit(2);
+        }
+
+        List<SimResult> all = new ArrayList<>();
+        System.out.printf("%-10s %-8s %5s %10s %8s %8s %10s %8s %8s %8s %9s%n",
+            "mode", "bot", "n", "score", "sd", "acc%", "react_ms", "p50_ms", "p90_ms", "track%", "speedup");
+        for (GameMode mode : modes) {
+            for (Supplier<AimBot> factory : bots) {
+                List<SimResult> results = new ArrayList<>();
+                for (int i = 0; i < sessions; i++) {
+                    SimSession session = new SimSession(settings, mode, seed + i, tickNanos, 1280, 720);
+                    results.add(session.run(factory.get()));
+                }
+                all.addAll(results);
+                printSummary(results);
+            }
+        }
+        if (csv != null) writeCsv(csv, all);
+    }
+
+    private static void printSummary(List<SimResult> results) {
+        int n = results.size();
+        double score = 0, score2 = 0, acc = 0, react = 0, track = 0;
+        long sim = 0, wall = 0;
+        LogHistogram reactions = new LogHistogram();   // 全部局的反应时间合并后取百分位
+        for (SimResult r : results) {
+            reactions.add(r.getReactionHistogram());
+            score += r.getScore();
+            score2 += (double) r.getScore() * r.getScore();
+            acc += r.getAccuracy();
+            react += r.getAvgReactionMs();
+            track += r.getTrackAccuracy();
+            sim += r.getSimNanos();
+            wall += r.getWallNanos();
+        }
+        double mean = score / n;
+        double sd = Math.sqrt(Math.max(0, score2 / n - mean * mean));
+        SimResult first = results.get(0);
+        System.out.printf("%-10s %-8s %5d %10.1f %8.1f %8.1f %10.1f %8.1f %8.1f %8.1f %8.0fx%n",
+            first.getMode().name(), first.getBot(), n, mean, sd, acc / n, react / n,
+            reactions.percentileMs(50), reactions.percentileMs(90), track / n,
+            wall > 0 ? sim / (double) wall : 0);
+    }
+
+    private static void writeCsv(String path, List<SimResult> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("mode,bot,seed,score,hits,shots,accuracy,avg_reaction_ms,track_accuracy,sim_ms,wall_ms");
+            for (SimResult r : results) {
+                out.printf("%s,%s,%d,%d,%d,%d,%.2f,%.2f,%.2f,%.1f,%.1f%n",
+                    r.getMode().name(), r.getBot(), r.getSeed(), r.getScore(), r.getHits(), r.getShots(),
+                    r.getAccuracy(), r.getAvgReactionMs(), r.getTrackAccuracy(),
+                    r.getSimNanos() / 1e6, r.getWallNanos() / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.aimlabs.bot;
+
+import com.aimlabs.game.Target;
+import com.aimlabs.sim.SimSession;
+
+/**
+ * Fitts定律瞄准者 - 每次移动耗时 MT = a + b·log2(D/W + 1)
+ * D为角距离，W为靶标角直径；轨迹取最小加加速度曲线，终点按有效宽度散布(σ = W/4.133)，
+ * 到达终点即点击；没打中则在修正延迟后再做一次子移动。
+ * 追踪时连续做子移动并保持按下，终点取按当前速度外推到移动结束时的位置
+ */
+public class FittsBot extends TargetingBot {
+    private static final double EFFECTIVE_WIDTH_SIGMAS = 4.133;
+
+    private final double a;              // 秒
+    private final double b;              // 秒/bit
+    private final double reactionMs;
+    private final double correctionMs;
+
+    private Target current;
+    private long currentSpawn;
+    private long readyAt;
+    private boolean moving;
+    private long moveStart;
+    private double moveSeconds;
+    private double startYaw, startPitch, endYaw, endPitch;
+    private final double[] pose = new double[3];
+
+    public FittsBot() {
+        this(0.08, 0.12, 220, 120);
+    }
+
+    public FittsBot(double a, double b, double reactionMs, double correctionMs) {
+        super("fitts");
+        this.a = a;
+        this.b = b;
+        this.reactionMs = reactionMs;
+        this.correctionMs = correctionMs;
+    }
+
+    @Override
+    protected void onReset(SimSession session) {
+        current = null;
+        moving = false;
+    }
+
+    @Override
+    public void act(SimSession session, double dt) {
+        Target t = selectTarget(session);
+        if (t == null) return;
+        long now = session.getNowNanos();
+        boolean tracking = isTracking(session);
+        if (!isSameSpawn(t, current, currentSpawn)) {
+            current = t;
+            currentSpawn = t.getSpawnNanos();
+            readyAt = now + (long) (reactionMs * 1_000_000);
+            moving = false;
+        }
+        if (now < readyAt) return;
+        if (tracking && !session.isMouseDown()) session.press();
+
+        if (!moving) plan(session, t, now);
+        double tau = Math.min(1, (now - moveStart) / 1e9 / moveSeconds);
+        double s = tau * tau * tau * (10 - 15 * tau + 6 * tau * tau);
+        session.look(startYaw + (endYaw - startYaw) * s, startPitch + (endPitch - startPitch) * s);
+        if (tau < 1) return;
+
+        moving = false;
+        if (!tracking) {
+            session.click();
+            readyAt = now + (long) (correctionMs * 1_000_000);
+        }
+    }
+
+    /** 规划一次子移动: 按Fitts定律定时长，终点带有效宽度散布 */
+    private void plan(SimSession session, Target t, long now) {
+        double x = t.getX(), y = t.getY(), z = t.getZ();
+        double w = 2 * angularRadius(t);
+        double d = angleTo(session, x, y, z);
+        moveSeconds = Math.max(session.getTickNanos() / 1e9, a + b * (Math.log(d / w + 1) / Math.log(2)));
+        if (isTracking(session)) {
+            predict(t, now, (long) (moveSeconds * 1e9), pose);
+            x = pose[0]; y = pose[1]; z = pose[2];
+        }
+        double sigma = w / EFFECTIVE_WIDTH_SIGMAS;
+        startYaw = session.getYaw();
+        startPitch = session.getPitch();
+        endYaw = startYaw + wrap(yawTo(x, y, z) - startYaw) + sigma * random.nextGaussian();
+        endPitch = pitchTo(x, y, z) + sigma * random.nextGaussian();
+        moveStart = now;
+        moving = true;
+    }
+}
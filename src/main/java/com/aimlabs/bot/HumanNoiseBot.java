@@ -0,0 +1,103 @@
+package com.aimlabs.bot;
+
+import com.aimlabs.game.Target;
+import com.aimlabs.sim.SimSession;
+
+/**
+ * 人类噪声模型 - 反应延迟 + 一阶趋近控制 + 与移动幅度成正比的运动噪声和生理震颤
+ * 靶标呈现后经过一段反应时间才开始移动(已看到的靶标之间只有短暂停顿)；准星稳定在靶标角半径内才点击；
+ * 追踪时看到的是平滑追随延迟之前的靶标位置，并按感知到的速度部分预判
+ */
+public class HumanNoiseBot extends TargetingBot {
+    private static final double SWITCH_FRACTION = 0.5;   // 已看到的靶标之间转移的停顿 / 反应时间
+
+    private final double reactionMeanMs;
+    private final double reactionSdMs;
+    private final double gain;          // 趋近速率(1/秒)
+    private final double motorNoise;    // 噪声标准差 / 本tick移动量
+    private final double tremorRad;     // 静止时的震颤标准差(弧度)
+    private final double clickTolerance; // 点击时误差需小于角半径的比例
+    private final double pursuitLagMs;   // 追踪时的感知延迟
+    private final double prediction;     // 对延迟的补偿比例(0=不预判, 1=完全补偿)
+
+    private Target current;
+    private long currentSpawn;
+    private long readyAt;
+    private long reactionNanos;
+    private final double[] pose = new double[3];
+
+    public HumanNoiseBot() {
+        this(200, 30, 24, 0.08, 0.0006, 0.8, 120, 0.8);
+    }
+
+    public HumanNoiseBot(double reactionMeanMs, double reactionSdMs, double gain,
+                         double motorNoise, double tremorRad, double clickTolerance,
+                         double pursuitLagMs, double prediction) {
+        super("human");
+        this.reactionMeanMs = reactionMeanMs;
+        this.reactionSdMs = reactionSdMs;
+        this.gain = gain;
+        this.motorNoise = motorNoise;
+        this.tremorRad = tremorRad;
+        this.clickTolerance = clickTolerance;
+        this.pursuitLagMs = pursuitLagMs;
+        this.prediction = prediction;
+    }
+
+    @Override
+    protected void onReset(SimSession session) {
+        current = null;
+        reactionNanos = sampleReaction();
+    }
+
+    private long sampleReaction() {
+        double ms = Math.max(120, reactionMeanMs + reactionSdMs * random.nextGaussian());
+        return (long) (ms * 1_000_000);
+    }
+
+    @Override
+    public void act(SimSession session, double dt) {
+        Target t = selectTarget(session);
+        if (t == null) return;
+        long now = session.getNowNanos();
+        if (!isSameSpawn(t, current, currentSpawn)) {
+            current = t;
+            currentSpawn = t.getSpawnNanos();
+            reactionNanos = sampleReaction();
+            // 反应从靶标呈现时算起: 处理上一个靶标时已看到的靶标不用重新反应，只要一次短的转移
+            readyAt = Math.max(t.getReactionStartNanos() + reactionNanos, now + (long) (reactionNanos * SWITCH_FRACTION));
+        }
+        if (now < readyAt) return;
+
+        boolean tracking = isTracking(session);
+        double x, y, z;
+        if (tracking) {
+            long lag = (long) (pursuitLagMs * 1_000_000);
+            predict(t, now - lag, (long) (lag * prediction), pose);
+            x = pose[0]; y = pose[1]; z = pose[2];
+        } else {
+            x = t.getX(); y = t.getY(); z = t.getZ();
+        }
+
+        double errYaw = wrap(yawTo(x, y, z) - session.getYaw());
+        double errPitch = pitchTo(x, y, z) - session.getPitch();
+        double k = 1 - Math.exp(-gain * dt);
+        double moveYaw = errYaw * k, movePitch = errPitch * k;
+        double move = Math.hypot(moveYaw, movePitch);
+        double sd = motorNoise * move + tremorRad;
+        session.look(session.getYaw() + moveYaw + sd * random.nextGaussian(),
+                     session.getPitch() + movePitch + sd * random.nextGaussian());
+
+        if (tracking) {
+            if (!session.isMouseDown()) session.press();
+            return;
+        }
+        double radius = angularRadius(t);
+        double error = angleTo(session, t.getX(), t.getY(), t.getZ());
+        if (error < radius * clickTolerance && move < radius * 0.5) {
+            session.click();
+            // 没打中(靶标仍在)时需要一次短的修正反应
+            readyAt = now + reactionNanos / 3;
+        }
+    }
+}
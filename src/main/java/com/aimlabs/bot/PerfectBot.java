@@ -0,0 +1,103 @@
+package com.aimlabs.bot;
+
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.HitShape;
+import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.sim.SimSession;
+
+/**
+ * 完美瞄准者 - 零反应时间、零误差，每个tick直接对准并点击
+ * 只在射线打得到的靶标中选角距离最小的: 先试中心，被挡住时再试包围轮廓内的几圈点；
+ * 挡在前面的靶标同样是有效命中，所以射线打到任何可选靶标都点击，给出每个模式在当前tick频率下的得分上限
+ */
+public class PerfectBot extends TargetingBot {
+    // 中心被挡住时试探的点: 包围半径的比例 × 12个方向(人形的四肢和头在球半径之外，要按包围半径铺开)
+    private static final double[] RINGS = {0.3, 0.55, 0.8, 0.95};
+    private static final int DIRECTIONS = 12;
+
+    private final AimRay probe = new AimRay();
+    private double aimYaw, aimPitch;
+
+    public PerfectBot() {
+        super("perfect");
+    }
+
+    @Override
+    public void act(SimSession session, double dt) {
+        if (selectReachable(session) == null) {
+            Target t = selectTarget(session);
+            if (t == null) return;
+            aimYaw = yawTo(t.getX(), t.getY(), t.getZ());
+            aimPitch = pitchTo(t.getX(), t.getY(), t.getZ());
+        }
+        session.look(aimYaw, aimPitch);
+        if (isTracking(session)) {
+            if (!session.isMouseDown()) session.press();
+        } else {
+            int hit = session.pickIndex();
+            if (hit >= 0 && selectable(session, session.getTargets().get(hit))) session.click();
+        }
+    }
+
+    /**
+     * 只瞄准不开火(分配预算等需要单独测量点击时用): 对准射线打得到的最近可选靶标
+     * @return 没有打得到的可选靶标时返回false，朝向不变
+     */
+    public boolean aimReachable(SimSession session) {
+        if (selectReachable(session) == null) return false;
+        session.look(aimYaw, aimPitch);
+        return true;
+    }
+
+    /** 射线打得到的可选靶标中离准星最近的一个，瞄准角写入aimYaw/aimPitch；没有返回null */
+    private Target selectReachable(SimSession session) {
+        TargetList targets = session.getTargets();
+        double fov = session.getSettings().getFov();
+        Target best = null;
+        double bestAngle = Double.MAX_VALUE;
+        for (int i = 0, n = targets.size(); i < n; i++) {
+            Target t = targets.get(i);
+            if (!selectable(session, t)) continue;
+            double a = angleTo(session, t.getX(), t.getY(), t.getZ());
+            if (a >= bestAngle || !findAimPoint(targets, i, fov)) continue;
+            bestAngle = a;
+            best = t;
+        }
+        return best;
+    }
+
+    /** 找一个最先打到第i个靶标的瞄准角(中心优先)，找到时写入aimYaw/aimPitch */
+    private boolean findAimPoint(TargetList targets, int i, double fov) {
+        Target t = targets.get(i);
+        double yaw = yawTo(t.getX(), t.getY(), t.getZ());
+        double pitch = pitchTo(t.getX(), t.getY(), t.getZ());
+        if (probe.set(yaw, pitch, fov).pickIndex(targets) == i) {
+            aimYaw = yaw;
+            aimPitch = pitch;
+            return true;
+        }
+        HitShape shape = t.getShape();
+        double radius = angularRadius(t) * (shape == null ? 1 : 2 * shape.getBoundRadius());
+        double cos = Math.max(0.05, Math.cos(pitch));
+        for (double ring : RINGS) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                double angle = Math.PI * 2 * d / DIRECTIONS;
+                double y = yaw + radius * ring * Math.cos(angle) / cos;
+                double p = pitch + radius * ring * Math.sin(angle);
+                if (probe.set(y, p, fov).pickIndex(targets) == i) {
+                    aimYaw = y;
+                    aimPitch = p;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** 与selectTarget的规则一致: Switch只有高亮靶标可选 */
+    private static boolean selectable(SimSession session, Target t) {
+        return t.isAlive() && (session.getMode() != GameMode.SWITCH || t.isHighlighted());
+    }
+}
@@ -0,0 +1,108 @@
+package com.aimlabs.bot;
+
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.sim.AimBot;
+import com.aimlabs.sim.SimSession;
+
+import java.util.SplittableRandom;
+
+/**
+ * 模拟瞄准者的公共部分: 选靶、视角换算和种子随机流
+ * 视角与AimRay一致: 方向 = (-cosP·sinY, sinP, cosP·cosY)，射线经过原点，
+ * 所以看向靶标只需让方向平行于靶标位置向量
+ */
+public abstract class TargetingBot implements AimBot {
+    private static final long VELOCITY_WINDOW_NANOS = 50_000_000L;
+
+    protected SplittableRandom random;
+    private final String name;
+
+    protected TargetingBot(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public void reset(SimSession session) {
+        random = new SplittableRandom(session.getSeed() * 31 + name.hashCode());
+        onReset(session);
+    }
+
+    protected void onReset(SimSession session) {}
+
+    /** Switch只选高亮靶标；其他模式选离准星角距离最小的靶标，没有可选的返回null */
+    protected Target selectTarget(SimSession session) {
+        TargetList targets = session.getTargets();
+        boolean highlightOnly = session.getMode() == GameMode.SWITCH;
+        Target best = null;
+        double bestAngle = Double.MAX_VALUE;
+        for (int i = 0, n = targets.size(); i < n; i++) {
+            Target t = targets.get(i);
+            if (!t.isAlive() || (highlightOnly && !t.isHighlighted())) continue;
+            double a = angleTo(session, t.getX(), t.getY(), t.getZ());
+            if (a < bestAngle) {
+                bestAngle = a;
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    protected static boolean isTracking(SimSession session) {
+        return session.getMode() == GameMode.TRACKING;
+    }
+
+    protected static double yawTo(double x, double y, double z) {
+        return Math.atan2(-x, z);
+    }
+
+    protected static double pitchTo(double x, double y, double z) {
+        double len = Math.sqrt(x * x + y * y + z * z);
+        return len > 0 ? Math.asin(y / len) : 0;
+    }
+
+    /** 角度差归一化到[-π, π] */
+    protected static double wrap(double a) {
+        return Math.IEEEremainder(a, Math.PI * 2);
+    }
+
+    /** 当前视线到世界点的角距离(弧度) */
+    protected static double angleTo(SimSession session, double x, double y, double z) {
+        double dy = wrap(yawTo(x, y, z) - session.getYaw()) * Math.cos(session.getPitch());
+        double dp = pitchTo(x, y, z) - session.getPitch();
+        return Math.hypot(dy, dp);
+    }
+
+    /**
+     * 靶标的角半径，与AimRay的命中判定一致: 视点在视线反方向fov处，射线所在直线仍经过原点，
+     * 球心到射线的距离为|c|·sin(夹角)，所以夹角小于asin(r/|c|)即命中
+     */
+    protected static double angularRadius(Target t) {
+        double x = t.getX(), y = t.getY(), z = t.getZ();
+        double len = Math.sqrt(x * x + y * y + z * z);
+        return Math.asin(Math.min(1, t.getSize() / 2 / Math.max(len, 1e-9)));
+    }
+
+    /**
+     * 外推靶标位置: 用sampleNanos时刻与其前VELOCITY_WINDOW的历史位姿估计速度，
+     * 再向前推aheadNanos，结果写入out[0..2]
+     */
+    protected void predict(Target t, long sampleNanos, long aheadNanos, double[] out) {
+        t.poseAt(sampleNanos - VELOCITY_WINDOW_NANOS, out);
+        double px = out[0], py = out[1], pz = out[2];
+        t.poseAt(sampleNanos, out);
+        double k = (double) aheadNanos / VELOCITY_WINDOW_NANOS;
+        out[0] += (out[0] - px) * k;
+        out[1] += (out[1] - py) * k;
+        out[2] += (out[2] - pz) * k;
+    }
+
+    /** 靶标是否仍是同一次生成(对象池会复用同一个Target实例) */
+    protected static boolean isSameSpawn(Target t, Target current, long currentSpawn) {
+        return t == current && t.getSpawnNanos() == currentSpawn;
+    }
+}
@@ -0,0 +1,90 @@
+package com.aimlabs.config;
+
+/**
+ * GameConfig中可监听的设置项，与配置文件中的属性名一一对应(运动模式按模式拆成多个属性)
+ */
+public enum ConfigKey {
+    WINDOW_WIDTH("windowWidth"),
+    WINDOW_HEIGHT("windowHeight"),
+    FULLSCREEN("fullscreen"),
+    TARGET_MIN_SIZE("targetMinSize"),
+    TARGET_MAX_SIZE("targetMaxSize"),
+    TARGET_DEFAULT_SIZE("targetDefaultSize"),
+    TARGET_COLOR("targetColor"),
+    TARGET_BORDER_COLOR("targetBorderColor"),
+    TARGET_HIT_COLOR("targetHitColor"),
+    CROSSHAIR_SIZE("crosshairSize"),
+    CROSSHAIR_THICKNESS("crosshairThickness"),
+    CROSSHAIR_COLOR("crosshairColor"),
+    SHOW_CROSSHAIR("showCrosshair"),
+    CROSSHAIR_GAP("crosshairGap"),
+    CROSSHAIR_DOT("crosshairDot"),
+    CROSSHAIR_OUTLINE("crosshairOutline"),
+    BACKGROUND_COLOR("backgroundColor"),
+    GRID_COLOR("gridColor"),
+    SHOW_GRID("showGrid"),
+    GAME_DURATION("gameDuration"),
+    TARGET_DENSITY("targetDensity"),
+    TARGET_SEPARATION("targetSeparation"),
+    TARGET_SHAPE("targetShape"),
+    FOV("fov"),
+    MAX_DEPTH("maxDepth"),
+    WORLD_WIDTH("worldWidth"),
+    WORLD_HEIGHT("worldHeight"),
+    Z_SPREAD("zSpread"),
+    FLICK_TARGET_COUNT("flickTargetCount"),
+    FLICK_SPAWN_DELAY("flickSpawnDelay"),
+    TRACK_SPEED("trackSpeed"),
+    TRACK_TARGET_SIZE("trackTargetSize"),
+    TRACK_TARGET_COUNT("trackTargetCount"),
+    TRACK_TICK_RATE("trackTickRate"),
+    TRACK_SUB_TICK_INPUT("trackSubTickInput"),
+    SPEED_TARGET_LIFETIME("speedTargetLifetime"),
+    SPEED_TARGET_SIZE("speedTargetSize"),
+    SPEED_TARGET_COUNT("speedTargetCount"),
+    PRECISION_MIN_SIZE("precisionMinSize"),
+    PRECISION_MAX_SIZE("precisionMaxSize"),
+    PRECISION_TARGET_COUNT("precisionTargetCount"),
+    REACTION_MIN_DELAY("reactionMinDelay"),
+    REACTION_MAX_DELAY("reactionMaxDelay"),
+    REACTION_TARGET_SIZE("reactionTargetSize"),
+    REACTION_TARGET_COUNT("reactionTargetCount"),
+    SWITCH_TARGET_COUNT("switchTargetCount"),
+    SWITCH_TARGET_SIZE("switchTargetSize"),
+    STRESS_MAX_TARGETS("stressMaxTargets"),
+    STRESS_STEP_SECONDS("stressStepSeconds"),
+    STRESS_TARGET_SIZE("stressTargetSize"),
+    LAG_COMPENSATION("lagCompensation"),
+    LAG_COMP_MAX_REWIND_MS("lagCompMaxRewindMs"),
+    EDT_STALL_THRESHOLD_MS("edtStallThresholdMs"),
+    LATENCY_PROBE("latencyProbe"),
+    LATENCY_FLASH_MARKER("latencyFlashMarker"),
+    SPAWN_SEED("spawnSeed"),
+    MOTION_PATTERN("motionPattern."),   // 各模式一项: motionPattern.<模式名>
+    SENSITIVITY("sensitivity"),
+    SOUND_ENABLED("soundEnabled"),
+    SOUND_VOLUME("soundVolume"),
+    SHOW_ACCURACY("showAccuracy"),
+    SHOW_SCORE("showScore"),
+    SHOW_TIMER("showTimer");
+
+    private static final String MOTION_PREFIX = "motionPattern.";
+
+    private final String property;
+
+    ConfigKey(String property) {
+        this.property = property;
+    }
+
+    /** 配置文件中的属性名(MOTION_PATTERN为前缀) */
+    public String getProperty() { return property; }
+
+    /** 属性名对应的设置项，未知属性返回null */
+    public static ConfigKey forProperty(String name) {
+        if (name.startsWith(MOTION_PREFIX)) return MOTION_PATTERN;
+        for (ConfigKey key : values()) {
+            if (key.property.equals(name)) return key;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.aimlabs.config;
+
+import java.util.Set;
+
+/**
+ * 设置变化回调，在修改设置的线程上(通常是EDT)同步调用
+ */
+@FunctionalInterface
+public interface ConfigListener {
+    /** @param changed 本次变化且在订阅范围内的设置项(不为空) */
+    void configChanged(Set<ConfigKey> changed);
+}
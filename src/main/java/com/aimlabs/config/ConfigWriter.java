@@ -0,0 +1,110 @@
+package com.aimlabs.config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 配置文件的后台写入 - 合并短时间内的多次保存，只写最后一份
+ * 先写同目录的临时文件并刷盘，再原子替换目标文件，崩溃时磁盘上要么是旧文件要么是新文件，不会出现截断的配置
+ * 进程退出时(关闭钩子)立即写出尚未落盘的一份
+ */
+final class ConfigWriter {
+    private static final long DEBOUNCE_NANOS = 300_000_000L;
+
+    private final File file;
+    private Properties pending;     // 等待写入的快照，null表示没有
+    private long dueNanos;
+    private boolean writing = false;
+    private Thread worker;
+
+    ConfigWriter(File file) {
+        this.file = file;
+    }
+
+    /** 提交一份快照，安静DEBOUNCE_NANOS后写入；期间再提交则替换并重新计时 */
+    synchronized void submit(Properties snapshot) {
+        pending = snapshot;
+        dueNanos = System.nanoTime() + DEBOUNCE_NANOS;
+        if (worker == null) {
+            worker = new Thread(this::workLoop, "Config-Writer");
+            worker.setDaemon(true);
+            worker.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "Config-Flush"));
+        }
+        notifyAll();
+    }
+
+    /** 立即写出尚未落盘的快照并等待正在进行的写入完成 */
+    void flush() {
+        Properties props;
+        synchronized (this) {
+            while (writing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            props = pending;
+            pending = null;
+            if (props == null) return;
+            writing = true;
+        }
+        write(props);
+    }
+
+    private void workLoop() {
+        while (true) {
+            Properties props;
+            synchronized (this) {
+                try {
+                    while (true) {
+                        // flush可能正在本线程之外写同一个临时文件，等它写完
+                        if (pending == null || writing) {
+                            wait();
+                            continue;
+                        }
+                        long remaining = dueNanos - System.nanoTime();
+                        if (remaining <= 0) break;
+                        wait(Math.max(1, remaining / 1_000_000L));
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                props = pending;
+                pending = null;
+                writing = true;
+            }
+            write(props);
+        }
+    }
+
+    private void write(Properties props) {
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                props.store(fos, "AimLabs Configuration");
+                fos.getFD().sync();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to save config: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                writing = false;
+                notifyAll();
+            }
+        }
+    }
+}
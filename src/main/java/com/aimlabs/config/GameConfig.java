@@ -1,14 +1,40 @@
 package com.aimlabs.config;
 
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.MotionPattern;
+import com.aimlabs.game.TargetShape;
+
 import java.awt.Color;
 import java.io.*;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 高度自定义的游戏配置
+ * 设置变化时按ConfigKey通知订阅者(渲染缓存等据此精确失效)；save在后台合并写入
  */
 public class GameConfig implements Serializable {
     private static final String CONFIG_FILE = "aimlabs_config.properties";
+    private static final ConfigWriter WRITER = new ConfigWriter(new File(CONFIG_FILE));
+
+    /** 一个订阅: 只关心keys中的设置项 */
+    private static final class Subscription {
+        final Set<ConfigKey> keys;
+        final ConfigListener listener;
+
+        Subscription(Set<ConfigKey> keys, ConfigListener listener) {
+            this.keys = keys;
+            this.listener = listener;
+        }
+    }
+
+    private transient List<Subscription> listeners = new CopyOnWriteArrayList<>();
 
     // 窗口设置
     private int windowWidth = 1200;
@@ -42,6 +68,8 @@ public class GameConfig implements Serializable {
 
     // 全局靶标分布密度 (1=紧密 10=稀疏，控制靶标间最小距离倍率)
     private double targetDensity = 5.0;
+    private boolean targetSeparation = true; // 移动靶标之间也保持该间距
+    private TargetShape targetShape = TargetShape.SPHERE; // 人形靶按部位计分(精准/压力测试始终为球体)
 
     // 3D透视设置
     private double fov = 280.0;        // 视野距离(越大越平，越小透视越强)
@@ -59,6 +87,8 @@ public class GameConfig implements Serializable {
     private double trackSpeed = 3.0;
     private int trackTargetSize = 50;
     private int trackTargetCount = 6;
+    private int trackTickRate = 120;          // 追踪判定的固定模拟频率(Hz)
+    private boolean trackSubTickInput = true;  // tick内按输入时刻分段积分
 
     // Speed
     private double speedTargetLifetime = 1.0;
@@ -80,6 +110,28 @@ public class GameConfig implements Serializable {
     private int switchTargetCount = 6;
     private int switchTargetSize = 35;
 
+    // Stress
+    private int stressMaxTargets = 10000;   // 逐级10倍增加直到该数量
+    private double stressStepSeconds = 5.0;  // 每级保持时间
+    private int stressTargetSize = 30;
+
+    // 延迟补偿: 按输入时刻呈现的那一帧回溯移动靶标位置
+    private boolean lagCompensation = true;
+    private int lagCompMaxRewindMs = 100;
+
+    // 调试: EDT单次事件分发超过该阈值记为卡顿并抓取堆栈
+    private int edtStallThresholdMs = 50;
+
+    // 输入到显示延迟测量 + 光电二极管校验用的帧标记
+    private boolean latencyProbe = false;
+    private boolean latencyFlashMarker = false;
+
+    // 靶标生成种子: 0 = 每局随机，非0 = 固定序列(可复现训练)
+    private long spawnSeed = 0;
+
+    // 各模式的靶标运动模式(追踪默认直线反弹，其余静止)
+    private final EnumMap<GameMode, MotionPattern> motionPatterns = defaultMotionPatterns();
+
     // 灵敏度 (鼠标倍率)
     private double sensitivity = 1.0;
 
@@ -97,122 +149,277 @@ public class GameConfig implements Serializable {
     // ====== Getters and Setters ======
 
     public int getWindowWidth() { return windowWidth; }
-    public void setWindowWidth(int v) { this.windowWidth = v; }
+    public void setWindowWidth(int v) { if (windowWidth != v) { this.windowWidth = v; changed(ConfigKey.WINDOW_WIDTH); } }
     public int getWindowHeight() { return windowHeight; }
-    public void setWindowHeight(int v) { this.windowHeight = v; }
+    public void setWindowHeight(int v) { if (windowHeight != v) { this.windowHeight = v; changed(ConfigKey.WINDOW_HEIGHT); } }
     public boolean isFullscreen() { return fullscreen; }
-    public void setFullscreen(boolean v) { this.fullscreen = v; }
+    public void setFullscreen(boolean v) { if (fullscreen != v) { this.fullscreen = v; changed(ConfigKey.FULLSCREEN); } }
 
     public int getTargetMinSize() { return targetMinSize; }
-    public void setTargetMinSize(int v) { this.targetMinSize = v; }
+    public void setTargetMinSize(int v) { if (targetMinSize != v) { this.targetMinSize = v; changed(ConfigKey.TARGET_MIN_SIZE); } }
     public int getTargetMaxSize() { return targetMaxSize; }
-    public void setTargetMaxSize(int v) { this.targetMaxSize = v; }
+    public void setTargetMaxSize(int v) { if (targetMaxSize != v) { this.targetMaxSize = v; changed(ConfigKey.TARGET_MAX_SIZE); } }
     public int getTargetDefaultSize() { return targetDefaultSize; }
-    public void setTargetDefaultSize(int v) { this.targetDefaultSize = v; }
+    public void setTargetDefaultSize(int v) { if (targetDefaultSize != v) { this.targetDefaultSize = v; changed(ConfigKey.TARGET_DEFAULT_SIZE); } }
     public Color getTargetColor() { return targetColor; }
-    public void setTargetColor(Color v) { this.targetColor = v; }
+    /** 靶标颜色(ARGB)，供不依赖AWT的模拟层使用 */
+    public int getTargetRgb() { return targetColor.getRGB(); }
+    public void setTargetColor(Color v) { if (!v.equals(targetColor)) { this.targetColor = v; changed(ConfigKey.TARGET_COLOR); } }
     public Color getTargetBorderColor() { return targetBorderColor; }
-    public void setTargetBorderColor(Color v) { this.targetBorderColor = v; }
+    public void setTargetBorderColor(Color v) { if (!v.equals(targetBorderColor)) { this.targetBorderColor = v; changed(ConfigKey.TARGET_BORDER_COLOR); } }
     public Color getTargetHitColor() { return targetHitColor; }
-    public void setTargetHitColor(Color v) { this.targetHitColor = v; }
+    public void setTargetHitColor(Color v) { if (!v.equals(targetHitColor)) { this.targetHitColor = v; changed(ConfigKey.TARGET_HIT_COLOR); } }
 
     public int getCrosshairSize() { return crosshairSize; }
-    public void setCrosshairSize(int v) { this.crosshairSize = v; }
+    public void setCrosshairSize(int v) { if (crosshairSize != v) { this.crosshairSize = v; changed(ConfigKey.CROSSHAIR_SIZE); } }
     public int getCrosshairThickness() { return crosshairThickness; }
-    public void setCrosshairThickness(int v) { this.crosshairThickness = v; }
+    public void setCrosshairThickness(int v) { if (crosshairThickness != v) { this.crosshairThickness = v; changed(ConfigKey.CROSSHAIR_THICKNESS); } }
     public Color getCrosshairColor() { return crosshairColor; }
-    public void setCrosshairColor(Color v) { this.crosshairColor = v; }
+    public void setCrosshairColor(Color v) { if (!v.equals(crosshairColor)) { this.crosshairColor = v; changed(ConfigKey.CROSSHAIR_COLOR); } }
     public boolean isShowCrosshair() { return showCrosshair; }
-    public void setShowCrosshair(boolean v) { this.showCrosshair = v; }
+    public void setShowCrosshair(boolean v) { if (showCrosshair != v) { this.showCrosshair = v; changed(ConfigKey.SHOW_CROSSHAIR); } }
     public int getCrosshairGap() { return crosshairGap; }
-    public void setCrosshairGap(int v) { this.crosshairGap = v; }
+    public void setCrosshairGap(int v) { if (crosshairGap != v) { this.crosshairGap = v; changed(ConfigKey.CROSSHAIR_GAP); } }
     public boolean isCrosshairDot() { return crosshairDot; }
-    public void setCrosshairDot(boolean v) { this.crosshairDot = v; }
+    public void setCrosshairDot(boolean v) { if (crosshairDot != v) { this.crosshairDot = v; changed(ConfigKey.CROSSHAIR_DOT); } }
     public int getCrosshairOutline() { return crosshairOutline; }
-    public void setCrosshairOutline(int v) { this.crosshairOutline = v; }
+    public void setCrosshairOutline(int v) { if (crosshairOutline != v) { this.crosshairOutline = v; changed(ConfigKey.CROSSHAIR_OUTLINE); } }
 
     public Color getBackgroundColor() { return backgroundColor; }
-    public void setBackgroundColor(Color v) { this.backgroundColor = v; }
+    public void setBackgroundColor(Color v) { if (!v.equals(backgroundColor)) { this.backgroundColor = v; changed(ConfigKey.BACKGROUND_COLOR); } }
     public Color getGridColor() { return gridColor; }
-    public void setGridColor(Color v) { this.gridColor = v; }
+    public void setGridColor(Color v) { if (!v.equals(gridColor)) { this.gridColor = v; changed(ConfigKey.GRID_COLOR); } }
     public boolean isShowGrid() { return showGrid; }
-    public void setShowGrid(boolean v) { this.showGrid = v; }
+    public void setShowGrid(boolean v) { if (showGrid != v) { this.showGrid = v; changed(ConfigKey.SHOW_GRID); } }
 
     public int getGameDuration() { return gameDuration; }
-    public void setGameDuration(int v) { this.gameDuration = v; }
+    public void setGameDuration(int v) { if (gameDuration != v) { this.gameDuration = v; changed(ConfigKey.GAME_DURATION); } }
 
     public double getTargetDensity() { return targetDensity; }
-    public void setTargetDensity(double v) { this.targetDensity = v; }
+    public void setTargetDensity(double v) { if (targetDensity != v) { this.targetDensity = v; changed(ConfigKey.TARGET_DENSITY); } }
+    public boolean isTargetSeparation() { return targetSeparation; }
+    public void setTargetSeparation(boolean v) { if (targetSeparation != v) { this.targetSeparation = v; changed(ConfigKey.TARGET_SEPARATION); } }
+    public TargetShape getTargetShape() { return targetShape; }
+    public void setTargetShape(TargetShape v) { if (targetShape != v) { this.targetShape = v; changed(ConfigKey.TARGET_SHAPE); } }
 
     public double getFov() { return fov; }
-    public void setFov(double v) { this.fov = v; }
+    public void setFov(double v) { if (fov != v) { this.fov = v; changed(ConfigKey.FOV); } }
     public double getMaxDepth() { return maxDepth; }
-    public void setMaxDepth(double v) { this.maxDepth = v; }
+    public void setMaxDepth(double v) { if (maxDepth != v) { this.maxDepth = v; changed(ConfigKey.MAX_DEPTH); } }
     public double getWorldWidth() { return worldWidth; }
-    public void setWorldWidth(double v) { this.worldWidth = v; }
+    public void setWorldWidth(double v) { if (worldWidth != v) { this.worldWidth = v; changed(ConfigKey.WORLD_WIDTH); } }
     public double getWorldHeight() { return worldHeight; }
-    public void setWorldHeight(double v) { this.worldHeight = v; }
+    public void setWorldHeight(double v) { if (worldHeight != v) { this.worldHeight = v; changed(ConfigKey.WORLD_HEIGHT); } }
     public double getZSpread() { return zSpread; }
-    public void setZSpread(double v) { this.zSpread = v; }
+    public void setZSpread(double v) { if (zSpread != v) { this.zSpread = v; changed(ConfigKey.Z_SPREAD); } }
 
     public int getFlickTargetCount() { return flickTargetCount; }
-    public void setFlickTargetCount(int v) { this.flickTargetCount = v; }
+    public void setFlickTargetCount(int v) { if (flickTargetCount != v) { this.flickTargetCount = v; changed(ConfigKey.FLICK_TARGET_COUNT); } }
     public double getFlickSpawnDelay() { return flickSpawnDelay; }
-    public void setFlickSpawnDelay(double v) { this.flickSpawnDelay = v; }
+    public void setFlickSpawnDelay(double v) { if (flickSpawnDelay != v) { this.flickSpawnDelay = v; changed(ConfigKey.FLICK_SPAWN_DELAY); } }
 
     public double getTrackSpeed() { return trackSpeed; }
-    public void setTrackSpeed(double v) { this.trackSpeed = v; }
+    public void setTrackSpeed(double v) { if (trackSpeed != v) { this.trackSpeed = v; changed(ConfigKey.TRACK_SPEED); } }
     public int getTrackTargetSize() { return trackTargetSize; }
-    public void setTrackTargetSize(int v) { this.trackTargetSize = v; }
+    public void setTrackTargetSize(int v) { if (trackTargetSize != v) { this.trackTargetSize = v; changed(ConfigKey.TRACK_TARGET_SIZE); } }
     public int getTrackTargetCount() { return trackTargetCount; }
-    public void setTrackTargetCount(int v) { this.trackTargetCount = v; }
+    public void setTrackTargetCount(int v) { if (trackTargetCount != v) { this.trackTargetCount = v; changed(ConfigKey.TRACK_TARGET_COUNT); } }
+    public int getTrackTickRate() { return trackTickRate; }
+    public void setTrackTickRate(int v) { if (trackTickRate != v) { this.trackTickRate = v; changed(ConfigKey.TRACK_TICK_RATE); } }
+    public boolean isTrackSubTickInput() { return trackSubTickInput; }
+    public void setTrackSubTickInput(boolean v) { if (trackSubTickInput != v) { this.trackSubTickInput = v; changed(ConfigKey.TRACK_SUB_TICK_INPUT); } }
 
     public double getSpeedTargetLifetime() { return speedTargetLifetime; }
-    public void setSpeedTargetLifetime(double v) { this.speedTargetLifetime = v; }
+    public void setSpeedTargetLifetime(double v) { if (speedTargetLifetime != v) { this.speedTargetLifetime = v; changed(ConfigKey.SPEED_TARGET_LIFETIME); } }
     public int getSpeedTargetSize() { return speedTargetSize; }
-    public void setSpeedTargetSize(int v) { this.speedTargetSize = v; }
+    public void setSpeedTargetSize(int v) { if (speedTargetSize != v) { this.speedTargetSize = v; changed(ConfigKey.SPEED_TARGET_SIZE); } }
     public int getSpeedTargetCount() { return speedTargetCount; }
-    public void setSpeedTargetCount(int v) { this.speedTargetCount = v; }
+    public void setSpeedTargetCount(int v) { if (speedTargetCount != v) { this.speedTargetCount = v; changed(ConfigKey.SPEED_TARGET_COUNT); } }
 
     public int getPrecisionMinSize() { return precisionMinSize; }
-    public void setPrecisionMinSize(int v) { this.precisionMinSize = v; }
+    public void setPrecisionMinSize(int v) { if (precisionMinSize != v) { this.precisionMinSize = v; changed(ConfigKey.PRECISION_MIN_SIZE); } }
     public int getPrecisionMaxSize() { return precisionMaxSize; }
-    public void setPrecisionMaxSize(int v) { this.precisionMaxSize = v; }
+    public void setPrecisionMaxSize(int v) { if (precisionMaxSize != v) { this.precisionMaxSize = v; changed(ConfigKey.PRECISION_MAX_SIZE); } }
     public int getPrecisionTargetCount() { return precisionTargetCount; }
-    public void setPrecisionTargetCount(int v) { this.precisionTargetCount = v; }
+    public void setPrecisionTargetCount(int v) { if (precisionTargetCount != v) { this.precisionTargetCount = v; changed(ConfigKey.PRECISION_TARGET_COUNT); } }
 
     public double getReactionMinDelay() { return reactionMinDelay; }
-    public void setReactionMinDelay(double v) { this.reactionMinDelay = v; }
+    public void setReactionMinDelay(double v) { if (reactionMinDelay != v) { this.reactionMinDelay = v; changed(ConfigKey.REACTION_MIN_DELAY); } }
     public double getReactionMaxDelay() { return reactionMaxDelay; }
-    public void setReactionMaxDelay(double v) { this.reactionMaxDelay = v; }
+    public void setReactionMaxDelay(double v) { if (reactionMaxDelay != v) { this.reactionMaxDelay = v; changed(ConfigKey.REACTION_MAX_DELAY); } }
     public int getReactionTargetSize() { return reactionTargetSize; }
-    public void setReactionTargetSize(int v) { this.reactionTargetSize = v; }
+    public void setReactionTargetSize(int v) { if (reactionTargetSize != v) { this.reactionTargetSize = v; changed(ConfigKey.REACTION_TARGET_SIZE); } }
     public int getReactionTargetCount() { return reactionTargetCount; }
-    public void setReactionTargetCount(int v) { this.reactionTargetCount = v; }
+    public void setReactionTargetCount(int v) { if (reactionTargetCount != v) { this.reactionTargetCount = v; changed(ConfigKey.REACTION_TARGET_COUNT); } }
 
     public int getSwitchTargetCount() { return switchTargetCount; }
-    public void setSwitchTargetCount(int v) { this.switchTargetCount = v; }
+    public void setSwitchTargetCount(int v) { if (switchTargetCount != v) { this.switchTargetCount = v; changed(ConfigKey.SWITCH_TARGET_COUNT); } }
     public int getSwitchTargetSize() { return switchTargetSize; }
-    public void setSwitchTargetSize(int v) { this.switchTargetSize = v; }
+    public void setSwitchTargetSize(int v) { if (switchTargetSize != v) { this.switchTargetSize = v; changed(ConfigKey.SWITCH_TARGET_SIZE); } }
+
+    public int getStressMaxTargets() { return stressMaxTargets; }
+    public void setStressMaxTargets(int v) { if (stressMaxTargets != v) { this.stressMaxTargets = v; changed(ConfigKey.STRESS_MAX_TARGETS); } }
+    public double getStressStepSeconds() { return stressStepSeconds; }
+    public void setStressStepSeconds(double v) { if (stressStepSeconds != v) { this.stressStepSeconds = v; changed(ConfigKey.STRESS_STEP_SECONDS); } }
+    public int getStressTargetSize() { return stressTargetSize; }
+    public void setStressTargetSize(int v) { if (stressTargetSize != v) { this.stressTargetSize = v; changed(ConfigKey.STRESS_TARGET_SIZE); } }
+
+    public boolean isLagCompensation() { return lagCompensation; }
+    public void setLagCompensation(boolean v) { if (lagCompensation != v) { this.lagCompensation = v; changed(ConfigKey.LAG_COMPENSATION); } }
+    public int getLagCompMaxRewindMs() { return lagCompMaxRewindMs; }
+    public void setLagCompMaxRewindMs(int v) { if (lagCompMaxRewindMs != v) { this.lagCompMaxRewindMs = v; changed(ConfigKey.LAG_COMP_MAX_REWIND_MS); } }
+
+    public int getEdtStallThresholdMs() { return edtStallThresholdMs; }
+    public void setEdtStallThresholdMs(int v) { if (edtStallThresholdMs != v) { this.edtStallThresholdMs = v; changed(ConfigKey.EDT_STALL_THRESHOLD_MS); } }
+
+    public boolean isLatencyProbe() { return latencyProbe; }
+    public void setLatencyProbe(boolean v) { if (latencyProbe != v) { this.latencyProbe = v; changed(ConfigKey.LATENCY_PROBE); } }
+    public boolean isLatencyFlashMarker() { return latencyFlashMarker; }
+    public void setLatencyFlashMarker(boolean v) { if (latencyFlashMarker != v) { this.latencyFlashMarker = v; changed(ConfigKey.LATENCY_FLASH_MARKER); } }
+
+    public long getSpawnSeed() { return spawnSeed; }
+    public void setSpawnSeed(long v) { if (spawnSeed != v) { this.spawnSeed = v; changed(ConfigKey.SPAWN_SEED); } }
+
+    private static EnumMap<GameMode, MotionPattern> defaultMotionPatterns() {
+        EnumMap<GameMode, MotionPattern> map = new EnumMap<>(GameMode.class);
+        for (GameMode m : GameMode.values()) map.put(m, MotionPattern.NONE);
+        map.put(GameMode.TRACKING, MotionPattern.LINEAR);
+        map.put(GameMode.STRESS, MotionPattern.LINEAR);
+        return map;
+    }
+
+    public MotionPattern getMotionPattern(GameMode mode) { return motionPatterns.get(mode); }
+    public void setMotionPattern(GameMode mode, MotionPattern p) {
+        if (motionPatterns.put(mode, p) != p) changed(ConfigKey.MOTION_PATTERN);
+    }
+
+    /** 当前玩法设置的不可变快照，开局(或预先准备一局)时调用 */
+    public SessionSettings snapshot() {
+        return new SessionSettings(this);
+    }
+
+    /**
+     * 某模式玩法相关设置的指纹(不含窗口/颜色/准星/音效等外观设置)
+     * 写入历史记录，指纹相同的两局成绩才可直接比较
+     */
+    public long fingerprint(GameMode mode) {
+        long h = mix(0x9E3779B97F4A7C15L, mode.ordinal());
+        h = mix(h, gameDuration);
+        h = mix(h, Double.doubleToLongBits(targetDensity));
+        h = mix(h, targetSeparation ? 1 : 0);
+        h = mix(h, targetShape.ordinal());
+        h = mix(h, Double.doubleToLongBits(fov));
+        h = mix(h, Double.doubleToLongBits(maxDepth));
+        h = mix(h, Double.doubleToLongBits(worldWidth));
+        h = mix(h, Double.doubleToLongBits(worldHeight));
+        h = mix(h, Double.doubleToLongBits(zSpread));
+        h = mix(h, Double.doubleToLongBits(sensitivity));
+        h = mix(h, getMotionPattern(mode).ordinal());
+        h = mix(h, lagCompensation ? lagCompMaxRewindMs : -1);
+        h = mix(h, targetMinSize);
+        h = mix(h, targetMaxSize);
+        h = mix(h, targetDefaultSize);
+        switch (mode) {
+            case FLICK -> {
+                h = mix(h, flickTargetCount);
+                h = mix(h, Double.doubleToLongBits(flickSpawnDelay));
+            }
+            case TRACKING -> {
+                h = mix(h, Double.doubleToLongBits(trackSpeed));
+                h = mix(h, trackTargetSize);
+                h = mix(h, trackTargetCount);
+                h = mix(h, trackTickRate);
+                h = mix(h, trackSubTickInput ? 1 : 0);
+            }
+            case SPEED -> {
+                h = mix(h, Double.doubleToLongBits(speedTargetLifetime));
+                h = mix(h, speedTargetSize);
+                h = mix(h, speedTargetCount);
+            }
+            case PRECISION -> {
+                h = mix(h, precisionMinSize);
+                h = mix(h, precisionMaxSize);
+                h = mix(h, precisionTargetCount);
+            }
+            case REACTION -> {
+                h = mix(h, Double.doubleToLongBits(reactionMinDelay));
+                h = mix(h, Double.doubleToLongBits(reactionMaxDelay));
+                h = mix(h, reactionTargetSize);
+                h = mix(h, reactionTargetCount);
+            }
+            case SWITCH -> {
+                h = mix(h, switchTargetCount);
+                h = mix(h, switchTargetSize);
+            }
+            case STRESS -> {
+                h = mix(h, stressMaxTargets);
+                h = mix(h, Double.doubleToLongBits(stressStepSeconds));
+                h = mix(h, stressTargetSize);
+            }
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        h ^= v + 0x9E3779B97F4A7C15L + (h << 6) + (h >>> 2);
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 31);
+    }
 
     public double getSensitivity() { return sensitivity; }
-    public void setSensitivity(double v) { this.sensitivity = v; }
+    public void setSensitivity(double v) { if (sensitivity != v) { this.sensitivity = v; changed(ConfigKey.SENSITIVITY); } }
 
     public boolean isSoundEnabled() { return soundEnabled; }
-    public void setSoundEnabled(boolean v) { this.soundEnabled = v; }
+    public void setSoundEnabled(boolean v) { if (soundEnabled != v) { this.soundEnabled = v; changed(ConfigKey.SOUND_ENABLED); } }
     public float getSoundVolume() { return soundVolume; }
-    public void setSoundVolume(float v) { this.soundVolume = v; }
+    public void setSoundVolume(float v) { if (soundVolume != v) { this.soundVolume = v; changed(ConfigKey.SOUND_VOLUME); } }
 
     public boolean isShowAccuracy() { return showAccuracy; }
-    public void setShowAccuracy(boolean v) { this.showAccuracy = v; }
+    public void setShowAccuracy(boolean v) { if (showAccuracy != v) { this.showAccuracy = v; changed(ConfigKey.SHOW_ACCURACY); } }
     public boolean isShowScore() { return showScore; }
-    public void setShowScore(boolean v) { this.showScore = v; }
+    public void setShowScore(boolean v) { if (showScore != v) { this.showScore = v; changed(ConfigKey.SHOW_SCORE); } }
     public boolean isShowTimer() { return showTimer; }
-    public void setShowTimer(boolean v) { this.showTimer = v; }
+    public void setShowTimer(boolean v) { if (showTimer != v) { this.showTimer = v; changed(ConfigKey.SHOW_TIMER); } }
+
+    // ====== 变化通知 ======
+
+    /** 订阅keys中任一设置的变化，回调参数只包含订阅范围内的项 */
+    public void addListener(Set<ConfigKey> keys, ConfigListener listener) {
+        if (listeners == null) listeners = new CopyOnWriteArrayList<>();
+        listeners.add(new Subscription(EnumSet.copyOf(keys), listener));
+    }
+
+    public void removeListener(ConfigListener listener) {
+        if (listeners != null) listeners.removeIf(s -> s.listener == listener);
+    }
+
+    private void changed(ConfigKey key) {
+        if (listeners != null && !listeners.isEmpty()) fire(EnumSet.of(key));
+    }
+
+    private void fire(EnumSet<ConfigKey> changed) {
+        if (listeners == null) return;
+        for (Subscription s : listeners) {
+            if (Collections.disjoint(s.keys, changed)) continue;
+            EnumSet<ConfigKey> relevant = EnumSet.copyOf(changed);
+            relevant.retainAll(s.keys);
+            s.listener.configChanged(Collections.unmodifiableSet(relevant));
+        }
+    }
 
     // ====== Save / Load ======
 
+    /** 在后台保存到配置文件: 当前线程只生成快照，短时间内的多次保存合并为一次原子替换 */
     public void save() {
+        WRITER.submit(toProperties());
+    }
+
+    /** 立即写出尚未落盘的保存(退出前调用；关闭钩子也会做) */
+    public static void flushSaves() {
+        WRITER.flush();
+    }
+
+    private Properties toProperties() {
         Properties props = new Properties();
         props.setProperty("windowWidth", String.valueOf(windowWidth));
         props.setProperty("windowHeight", String.valueOf(windowHeight));
@@ -235,11 +442,15 @@ public class GameConfig implements Serializable {
         props.setProperty("showGrid", String.valueOf(showGrid));
         props.setProperty("gameDuration", String.valueOf(gameDuration));
         props.setProperty("targetDensity", String.valueOf(targetDensity));
+        props.setProperty("targetSeparation", String.valueOf(targetSeparation));
+        props.setProperty("targetShape", targetShape.name());
         props.setProperty("flickTargetCount", String.valueOf(flickTargetCount));
         props.setProperty("flickSpawnDelay", String.valueOf(flickSpawnDelay));
         props.setProperty("trackSpeed", String.valueOf(trackSpeed));
         props.setProperty("trackTargetSize", String.valueOf(trackTargetSize));
         props.setProperty("trackTargetCount", String.valueOf(trackTargetCount));
+        props.setProperty("trackTickRate", String.valueOf(trackTickRate));
+        props.setProperty("trackSubTickInput", String.valueOf(trackSubTickInput));
         props.setProperty("speedTargetLifetime", String.valueOf(speedTargetLifetime));
         props.setProperty("speedTargetSize", String.valueOf(speedTargetSize));
         props.setProperty("speedTargetCount", String.valueOf(speedTargetCount));
@@ -252,6 +463,18 @@ public class GameConfig implements Serializable {
         props.setProperty("reactionTargetCount", String.valueOf(reactionTargetCount));
         props.setProperty("switchTargetCount", String.valueOf(switchTargetCount));
         props.setProperty("switchTargetSize", String.valueOf(switchTargetSize));
+        props.setProperty("stressMaxTargets", String.valueOf(stressMaxTargets));
+        props.setProperty("stressStepSeconds", String.valueOf(stressStepSeconds));
+        props.setProperty("stressTargetSize", String.valueOf(stressTargetSize));
+        props.setProperty("lagCompensation", String.valueOf(lagCompensation));
+        props.setProperty("lagCompMaxRewindMs", String.valueOf(lagCompMaxRewindMs));
+        props.setProperty("edtStallThresholdMs", String.valueOf(edtStallThresholdMs));
+        props.setProperty("latencyProbe", String.valueOf(latencyProbe));
+        props.setProperty("latencyFlashMarker", String.valueOf(latencyFlashMarker));
+        props.setProperty("spawnSeed", String.valueOf(spawnSeed));
+        for (GameMode m : GameMode.values()) {
+            props.setProperty("motionPattern." + m.name(), motionPatterns.get(m).name());
+        }
         props.setProperty("sensitivity", String.valueOf(sensitivity));
         props.setProperty("fov", String.valueOf(fov));
         props.setProperty("maxDepth", String.valueOf(maxDepth));
@@ -263,18 +486,15 @@ public class GameConfig implements Serializable {
         props.setProperty("showAccuracy", String.valueOf(showAccuracy));
         props.setProperty("showScore", String.valueOf(showScore));
         props.setProperty("showTimer", String.valueOf(showTimer));
-
-        try (FileOutputStream fos = new FileOutputStream(CONFIG_FILE)) {
-            props.store(fos, "AimLabs Configuration");
-        } catch (IOException e) {
-            System.err.println("Failed to save config: " + e.getMessage());
-        }
+        return props;
     }
 
+    /** 从配置文件读取；值有变化的设置项在读取完成后一次性通知 */
     public void load() {
         File file = new File(CONFIG_FILE);
         if (!file.exists()) return;
 
+        Properties before = toProperties();
         Properties props = new Properties();
         try (FileInputStream fis = new FileInputStream(file)) {
             props.load(fis);
@@ -299,11 +519,19 @@ public class GameConfig implements Serializable {
             showGrid = Boolean.parseBoolean(props.getProperty("showGrid", "true"));
             gameDuration = Integer.parseInt(props.getProperty("gameDuration", "60"));
             targetDensity = Double.parseDouble(props.getProperty("targetDensity", "5.0"));
+            targetSeparation = Boolean.parseBoolean(props.getProperty("targetSeparation", "true"));
+            try {
+                targetShape = TargetShape.valueOf(props.getProperty("targetShape", "SPHERE"));
+            } catch (IllegalArgumentException e) {
+                targetShape = TargetShape.SPHERE;
+            }
             flickTargetCount = Integer.parseInt(props.getProperty("flickTargetCount", "6"));
             flickSpawnDelay = Double.parseDouble(props.getProperty("flickSpawnDelay", "0"));
             trackSpeed = Double.parseDouble(props.getProperty("trackSpeed", "3.0"));
             trackTargetSize = Integer.parseInt(props.getProperty("trackTargetSize", "50"));
             trackTargetCount = Integer.parseInt(props.getProperty("trackTargetCount", "6"));
+            trackTickRate = Integer.parseInt(props.getProperty("trackTickRate", "120"));
+            trackSubTickInput = Boolean.parseBoolean(props.getProperty("trackSubTickInput", "true"));
             speedTargetLifetime = Double.parseDouble(props.getProperty("speedTargetLifetime", "1.0"));
             speedTargetSize = Integer.parseInt(props.getProperty("speedTargetSize", "35"));
             speedTargetCount = Integer.parseInt(props.getProperty("speedTargetCount", "6"));
@@ -316,6 +544,24 @@ public class GameConfig implements Serializable {
             reactionTargetCount = Integer.parseInt(props.getProperty("reactionTargetCount", "6"));
             switchTargetCount = Integer.parseInt(props.getProperty("switchTargetCount", "6"));
             switchTargetSize = Integer.parseInt(props.getProperty("switchTargetSize", "35"));
+            stressMaxTargets = Integer.parseInt(props.getProperty("stressMaxTargets", "10000"));
+            stressStepSeconds = Double.parseDouble(props.getProperty("stressStepSeconds", "5.0"));
+            stressTargetSize = Integer.parseInt(props.getProperty("stressTargetSize", "30"));
+            lagCompensation = Boolean.parseBoolean(props.getProperty("lagCompensation", "true"));
+            lagCompMaxRewindMs = Integer.parseInt(props.getProperty("lagCompMaxRewindMs", "100"));
+            edtStallThresholdMs = Integer.parseInt(props.getProperty("edtStallThresholdMs", "50"));
+            latencyProbe = Boolean.parseBoolean(props.getProperty("latencyProbe", "false"));
+            latencyFlashMarker = Boolean.parseBoolean(props.getProperty("latencyFlashMarker", "false"));
+            spawnSeed = Long.parseLong(props.getProperty("spawnSeed", "0"));
+            EnumMap<GameMode, MotionPattern> defaults = defaultMotionPatterns();
+            for (GameMode m : GameMode.values()) {
+                String name = props.getProperty("motionPattern." + m.name(), defaults.get(m).name());
+                try {
+                    motionPatterns.put(m, MotionPattern.valueOf(name));
+                } catch (IllegalArgumentException e) {
+                    motionPatterns.put(m, defaults.get(m));
+                }
+            }
             sensitivity = Double.parseDouble(props.getProperty("sensitivity", "1.0"));
             fov = Double.parseDouble(props.getProperty("fov", "280.0"));
             maxDepth = Double.parseDouble(props.getProperty("maxDepth", "1200.0"));
@@ -330,6 +576,16 @@ public class GameConfig implements Serializable {
         } catch (IOException e) {
             System.err.println("Failed to load config: " + e.getMessage());
         }
+        // 字段是直接赋值的，按属性快照比较找出变化项
+        Properties after = toProperties();
+        EnumSet<ConfigKey> changed = EnumSet.noneOf(ConfigKey.class);
+        for (String name : after.stringPropertyNames()) {
+            if (!Objects.equals(before.getProperty(name), after.getProperty(name))) {
+                ConfigKey key = ConfigKey.forProperty(name);
+                if (key != null) changed.add(key);
+            }
+        }
+        if (!changed.isEmpty()) fire(changed);
     }
 
     private String colorToHex(Color c) {
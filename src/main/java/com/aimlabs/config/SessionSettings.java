@@ -0,0 +1,182 @@
+package com.aimlabs.config;
+
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.LagCompensator;
+import com.aimlabs.game.MotionPattern;
+import com.aimlabs.game.TargetShape;
+
+import java.util.EnumMap;
+
+/**
+ * 一局的设置快照 - 开局时从GameConfig复制，之后模式、模拟线程和场景渲染只读它
+ * 创建后不再改变，房间范围、生成区域等派生值在这里一次算好；
+ * 对局中修改设置只影响GameConfig，下一局重新快照时才生效
+ * 只包含玩法和投影相关的设置，外观、HUD、输入灵敏度等仍实时读取GameConfig
+ */
+public final class SessionSettings implements Cloneable {
+    // 投影与3D房间
+    private final double fov;
+    private final double maxDepth;
+    private final double worldWidth;
+    private final double worldHeight;
+    private final double zSpread;
+
+    // 派生: 房间范围(X为到靶标墙的距离0..roomMaxX，Y/Z为半尺寸)与生成区域
+    private final double roomMaxX, roomHalfY, roomHalfZ;
+    private final double spawnMinX, spawnMaxX, spawnMinY, spawnMaxY, spawnMinZ, spawnMaxZ;
+
+    // 通用
+    private final int gameDuration;
+    private final long sessionNanos;
+    private final double targetDensity;
+    private final boolean targetSeparation;
+    private final TargetShape targetShape;
+    private final int targetRgb;
+    private final int targetDefaultSize;
+    private final EnumMap<GameMode, MotionPattern> motionPatterns;
+    // 靶标位置历史要覆盖的时长: 延迟补偿的最大回溯，关闭时为0(只在构造和withPoseHistoryMs的副本上写)
+    private int poseHistoryMs;
+
+    // 各模式
+    private final int flickTargetCount;
+    private final double trackSpeed;
+    private final int trackTargetSize;
+    private final int trackTargetCount;
+    private final int trackTickRate;
+    private final boolean trackSubTickInput;
+    private final double speedTargetLifetime;
+    private final int speedTargetSize;
+    private final int speedTargetCount;
+    private final int precisionMinSize;
+    private final int precisionMaxSize;
+    private final int precisionTargetCount;
+    private final double reactionMinDelay;
+    private final double reactionMaxDelay;
+    private final int reactionTargetSize;
+    private final int reactionTargetCount;
+    private final int switchTargetCount;
+    private final int switchTargetSize;
+    private final int stressMaxTargets;
+    private final double stressStepSeconds;
+    private final int stressTargetSize;
+
+    SessionSettings(GameConfig config) {
+        fov = config.getFov();
+        maxDepth = config.getMaxDepth();
+        worldWidth = config.getWorldWidth();
+        worldHeight = config.getWorldHeight();
+        zSpread = config.getZSpread();
+
+        roomMaxX = worldWidth;
+        roomHalfY = worldHeight;
+        roomHalfZ = maxDepth / 2.0;
+        // 与各模式原有分布范围一致: X按zSpread收窄并留出墙边，Y/Z取房间的60%
+        double xCenter = worldWidth * 0.5;
+        double xRange = worldWidth * 0.35 * zSpread;
+        spawnMinX = Math.max(worldWidth * 0.1, xCenter - xRange);
+        spawnMaxX = Math.min(worldWidth * 0.9, xCenter + xRange);
+        spawnMinY = -worldHeight * 0.6;
+        spawnMaxY = worldHeight * 0.6;
+        spawnMinZ = -roomHalfZ * 0.6;
+        spawnMaxZ = roomHalfZ * 0.6;
+
+        gameDuration = config.getGameDuration();
+        sessionNanos = gameDuration * 1_000_000_000L;
+        targetDensity = config.getTargetDensity();
+        targetSeparation = config.isTargetSeparation();
+        targetShape = config.getTargetShape();
+        targetRgb = config.getTargetRgb();
+        targetDefaultSize = config.getTargetDefaultSize();
+        motionPatterns = new EnumMap<>(GameMode.class);
+        for (GameMode mode : GameMode.values()) motionPatterns.put(mode, config.getMotionPattern(mode));
+        poseHistoryMs = config.isLagCompensation()
+            ? Math.max(0, Math.min(LagCompensator.MAX_REWIND_MS, config.getLagCompMaxRewindMs())) : 0;
+
+        flickTargetCount = config.getFlickTargetCount();
+        trackSpeed = config.getTrackSpeed();
+        trackTargetSize = config.getTrackTargetSize();
+        trackTargetCount = config.getTrackTargetCount();
+        trackTickRate = config.getTrackTickRate();
+        trackSubTickInput = config.isTrackSubTickInput();
+        speedTargetLifetime = config.getSpeedTargetLifetime();
+        speedTargetSize = config.getSpeedTargetSize();
+        speedTargetCount = config.getSpeedTargetCount();
+        precisionMinSize = config.getPrecisionMinSize();
+        precisionMaxSize = config.getPrecisionMaxSize();
+        precisionTargetCount = config.getPrecisionTargetCount();
+        reactionMinDelay = config.getReactionMinDelay();
+        reactionMaxDelay = config.getReactionMaxDelay();
+        reactionTargetSize = config.getReactionTargetSize();
+        reactionTargetCount = config.getReactionTargetCount();
+        switchTargetCount = config.getSwitchTargetCount();
+        switchTargetSize = config.getSwitchTargetSize();
+        stressMaxTargets = config.getStressMaxTargets();
+        stressStepSeconds = config.getStressStepSeconds();
+        stressTargetSize = config.getStressTargetSize();
+    }
+
+    /** 只改位置历史时长的副本(无界面模拟的瞄准者要看过去的位置，不随延迟补偿设置) */
+    public SessionSettings withPoseHistoryMs(int ms) {
+        try {
+            SessionSettings copy = (SessionSettings) clone();
+            copy.poseHistoryMs = ms;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** 生成间距: 直径size的靶标按密度和模式间距系数需要的最小中心距 */
+    public double minDistance(double size, double spacing) {
+        return size * targetDensity * spacing;
+    }
+
+    public double getFov() { return fov; }
+    public double getMaxDepth() { return maxDepth; }
+    public double getWorldWidth() { return worldWidth; }
+    public double getWorldHeight() { return worldHeight; }
+    public double getZSpread() { return zSpread; }
+
+    public double getRoomMaxX() { return roomMaxX; }
+    public double getRoomHalfY() { return roomHalfY; }
+    public double getRoomHalfZ() { return roomHalfZ; }
+    public double getSpawnMinX() { return spawnMinX; }
+    public double getSpawnMaxX() { return spawnMaxX; }
+    public double getSpawnMinY() { return spawnMinY; }
+    public double getSpawnMaxY() { return spawnMaxY; }
+    public double getSpawnMinZ() { return spawnMinZ; }
+    public double getSpawnMaxZ() { return spawnMaxZ; }
+
+    public int getGameDuration() { return gameDuration; }
+    /** 训练时长(游戏时钟纳秒) */
+    public long getSessionNanos() { return sessionNanos; }
+    public double getTargetDensity() { return targetDensity; }
+    public boolean isTargetSeparation() { return targetSeparation; }
+    public TargetShape getTargetShape() { return targetShape; }
+    public int getTargetRgb() { return targetRgb; }
+    public int getTargetDefaultSize() { return targetDefaultSize; }
+    public MotionPattern getMotionPattern(GameMode mode) { return motionPatterns.get(mode); }
+
+    public int getFlickTargetCount() { return flickTargetCount; }
+    public double getTrackSpeed() { return trackSpeed; }
+    public int getTrackTargetSize() { return trackTargetSize; }
+    public int getTrackTargetCount() { return trackTargetCount; }
+    public int getTrackTickRate() { return trackTickRate; }
+    public boolean isTrackSubTickInput() { return trackSubTickInput; }
+    public double getSpeedTargetLifetime() { return speedTargetLifetime; }
+    public int getSpeedTargetSize() { return speedTargetSize; }
+    public int getSpeedTargetCount() { return speedTargetCount; }
+    public int getPrecisionMinSize() { return precisionMinSize; }
+    public int getPrecisionMaxSize() { return precisionMaxSize; }
+    public int getPrecisionTargetCount() { return precisionTargetCount; }
+    public double getReactionMinDelay() { return reactionMinDelay; }
+    public double getReactionMaxDelay() { return reactionMaxDelay; }
+    public int getReactionTargetSize() { return reactionTargetSize; }
+    public int getReactionTargetCount() { return reactionTargetCount; }
+    public int getSwitchTargetCount() { return switchTargetCount; }
+    public int getSwitchTargetSize() { return switchTargetSize; }
+    public int getStressMaxTargets() { return stressMaxTargets; }
+    public double getStressStepSeconds() { return stressStepSeconds; }
+    public int getStressTargetSize() { return stressTargetSize; }
+    public int getPoseHistoryMs() { return poseHistoryMs; }
+}
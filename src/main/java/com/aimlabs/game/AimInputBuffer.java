@@ -0,0 +1,59 @@
+package com.aimlabs.game;
+
+/**
+ * 准星输入缓冲 - 按时间顺序保存输入时刻的相机朝向、按键状态和延迟补偿的回溯时刻
+ * 固定频率的模拟tick从中取出落在本tick内的输入，做tick内分段积分
+ * 容量满时最旧的输入被丢弃(调用方应先把它应用到当前状态)
+ */
+public class AimInputBuffer {
+    private final long[] nanos;
+    private final double[] yaw;
+    private final double[] pitch;
+    private final boolean[] down;
+    private final long[] evalNanos;   // 延迟补偿解析出的判定时刻，0为不回溯
+    private int head = 0;  // 最旧元素
+    private int count = 0;
+
+    public AimInputBuffer(int capacity) {
+        nanos = new long[capacity];
+        yaw = new double[capacity];
+        pitch = new double[capacity];
+        down = new boolean[capacity];
+        evalNanos = new long[capacity];
+    }
+
+    /** 追加一个输入；已满返回false，调用方需先poll掉最旧的输入 */
+    public boolean offer(long t, double y, double p, boolean d, long eval) {
+        if (count == nanos.length) return false;
+        int i = (head + count) % nanos.length;
+        nanos[i] = t;
+        yaw[i] = y;
+        pitch[i] = p;
+        down[i] = d;
+        evalNanos[i] = eval;
+        count++;
+        return true;
+    }
+
+    public boolean isEmpty() { return count == 0; }
+    public boolean isFull() { return count == nanos.length; }
+    public int size() { return count; }
+
+    /** 最旧输入的时刻(缓冲为空时返回Long.MAX_VALUE) */
+    public long peekNanos() { return count == 0 ? Long.MAX_VALUE : nanos[head]; }
+    public double peekYaw() { return yaw[head]; }
+    public double peekPitch() { return pitch[head]; }
+    public boolean peekDown() { return down[head]; }
+    public long peekEvalNanos() { return evalNanos[head]; }
+
+    public void poll() {
+        if (count == 0) return;
+        head = (head + 1) % nanos.length;
+        count--;
+    }
+
+    public void clear() {
+        head = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,212 @@
+package com.aimlabs.game;
+
+import java.util.List;
+
+/**
+ * 准星射线 - 在世界空间做射线求交判定命中
+ * 由输入时刻的相机yaw/pitch构建，不依赖上一帧缓存的屏幕投影；
+ * 先用包围球粗筛，组合形状再走部件BVH精确求交，并记录最先击中的部件及其得分倍率
+ */
+public class AimRay {
+    // 视点(世界坐标): 透视投影的视点在相机空间(0,0,-fov)
+    private double ox, oy, oz;
+    // 单位方向: 相机空间(0,0,1)，即屏幕中心准星
+    private double dx, dy, dz;
+    private double yaw, pitch, fov;
+    // 判定时刻: 0 = 按靶标当前位置；否则回溯到该时刻的位置(延迟补偿)
+    private long evalNanos;
+    private final double[] pose = new double[3];
+    private final double[] partHit = new double[2];
+    // 最近一次拾取/求交命中的形状和部件(球体为null/-1)，以及循环中的候选
+    private HitShape hitShape, candShape;
+    private int hitPart = -1, candPart = -1;
+
+    /**
+     * 按相机朝向重建射线
+     * 与Target.project的旋转互逆: 先绕X轴(pitch)再绕Y轴(yaw)逆变换
+     */
+    public AimRay set(double yaw, double pitch, double fov) {
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.fov = fov;
+        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
+        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
+        dx = -cosP * sinY;
+        dy = sinP;
+        dz = cosP * cosY;
+        ox = -fov * dx;
+        oy = -fov * dy;
+        oz = -fov * dz;
+        evalNanos = 0;
+        return this;
+    }
+
+    /** 设置判定时刻，0表示使用靶标当前位置 */
+    public AimRay atTime(long nanos) {
+        this.evalNanos = nanos;
+        return this;
+    }
+
+    /** 与球心(cx,cy,cz)半径r的球体求交，返回最近交点沿射线距离，未命中返回-1 */
+    public double intersectSphere(double cx, double cy, double cz, double r) {
+        double lx = cx - ox, ly = cy - oy, lz = cz - oz;
+        double tca = lx * dx + ly * dy + lz * dz;
+        double d2 = lx * lx + ly * ly + lz * lz - tca * tca;
+        double r2 = r * r;
+        if (d2 > r2) return -1;
+        double thc = Math.sqrt(r2 - d2);
+        double t0 = tca - thc;
+        if (t0 >= 0) return t0;
+        double t1 = tca + thc;
+        return t1 >= 0 ? t1 : -1;
+    }
+
+    /**
+     * 与放置在(cx,cy,cz)、尺寸为size的形状求交(shape为null时是直径size的球体)
+     * 返回世界距离，未命中返回-1；命中部件可由getHitPart/getHitMultiplier读取
+     */
+    public double intersectTarget(HitShape shape, double cx, double cy, double cz, double size) {
+        double bound = shape == null ? size / 2 : size * shape.getBoundRadius();
+        double dist = intersectCandidate(shape, cx, cy, cz, size, bound, Double.MAX_VALUE);
+        if (dist >= 0) acceptCandidate(); else clearHit();
+        return dist;
+    }
+
+    /** 与靶标求交，设置了判定时刻时使用回溯位置 */
+    public double intersect(Target t) {
+        if (evalNanos == 0) {
+            return intersectTarget(t.getShape(), t.getX(), t.getY(), t.getZ(), t.getSize());
+        }
+        t.poseAt(evalNanos, pose);
+        return intersectTarget(t.getShape(), pose[0], pose[1], pose[2], t.getSize());
+    }
+
+    /** 包围球粗筛(比limit远则跳过)后精确求交，结果记为候选 */
+    private double intersectCandidate(HitShape shape, double cx, double cy, double cz,
+                                      double size, double bound, double limit) {
+        candShape = shape;
+        candPart = -1;
+        double tb = intersectSphere(cx, cy, cz, bound);
+        if (tb < 0 || tb >= limit) return -1;
+        if (shape == null) return tb;
+        if (!shape.intersect(ox, oy, oz, dx, dy, dz, cx, cy, cz, size, partHit)) return -1;
+        candPart = (int) partHit[1];
+        return partHit[0];
+    }
+
+    /** 场景BVH叶子上的求交: 位置和包围半径已由调用方给出 */
+    double intersectSlot(TargetStore store, int s, double cx, double cy, double cz, double bound, double limit) {
+        return intersectCandidate(store.shape[s], cx, cy, cz, store.size[s], bound, limit);
+    }
+
+    /** 把最近一次候选记为命中 */
+    void acceptCandidate() {
+        hitShape = candShape;
+        hitPart = candPart;
+    }
+
+    private void clearHit() {
+        hitShape = null;
+        hitPart = -1;
+    }
+
+    public boolean hits(Target t) {
+        return t.isAlive() && intersect(t) >= 0;
+    }
+
+    /** 返回射线最先击中的存活靶标下标，未命中返回-1 */
+    public int pickIndex(List<Target> targets) {
+        if (targets instanceof TargetList list) {
+            TargetStore store = list.wholeStore();
+            if (store != null) {
+                int slot = pickSlot(store);
+                return slot >= 0 ? store.view(slot).listIndex : -1;
+            }
+        }
+        int best = -1;
+        HitShape bestShape = null;
+        int bestPart = -1;
+        double bestDist = Double.MAX_VALUE;
+        for (int i = 0, n = targets.size(); i < n; i++) {
+            Target t = targets.get(i);
+            if (!t.isAlive()) continue;
+            double dist = intersect(t);
+            if (dist >= 0 && dist < bestDist) {
+                bestDist = dist;
+                best = i;
+                bestShape = hitShape;
+                bestPart = hitPart;
+            }
+        }
+        hitShape = bestShape;
+        hitPart = bestPart;
+        return best;
+    }
+
+    /**
+     * 在存储的数组上直接求交，返回最先击中的存活槽位，未命中返回-1
+     * 靶标较多且同一状态被查询到盈亏平衡次数时走场景BVH(共享一次更新)，否则线性扫描；
+     * 两条路径的耗时都交给store，用来估算盈亏平衡点
+     */
+    public int pickSlot(TargetStore store) {
+        if (store.size() < SceneBvh.MIN_TARGETS) return pickSlotLinear(store);
+        SceneBvh bvh = store.sceneBvh(evalNanos);
+        long start = System.nanoTime();
+        int slot;
+        if (bvh == null) {
+            slot = pickSlotLinear(store);
+        } else {
+            clearHit();
+            slot = bvh.pick(this, store);
+        }
+        store.recordQuery(bvh != null, System.nanoTime() - start);
+        return slot;
+    }
+
+    /** 线性扫描全部存活槽位(包围球剔除后精确求交) */
+    public int pickSlotLinear(TargetStore store) {
+        clearHit();
+        int best = -1;
+        double bestDist = Double.MAX_VALUE;
+        double[] xs = store.x, ys = store.y, zs = store.z;
+        byte[] flags = store.flags;
+        for (int i = 0, n = store.size(); i < n; i++) {
+            int s = store.slotAt(i);
+            if ((flags[s] & TargetStore.ALIVE) == 0) continue;
+            double dist;
+            if (evalNanos == 0) {
+                dist = intersectSlot(store, s, xs[s], ys[s], zs[s], store.boundRadius(s), bestDist);
+            } else {
+                store.poseAt(s, evalNanos, pose);
+                dist = intersectSlot(store, s, pose[0], pose[1], pose[2], store.boundRadius(s), bestDist);
+            }
+            if (dist >= 0 && dist < bestDist) {
+                bestDist = dist;
+                best = s;
+                acceptCandidate();
+            }
+        }
+        return best;
+    }
+
+    /** 返回射线最先击中的存活靶标，未命中返回null */
+    public Target pick(List<Target> targets) {
+        int i = pickIndex(targets);
+        return i >= 0 ? targets.get(i) : null;
+    }
+
+    public double getOriginX() { return ox; }
+    public double getOriginY() { return oy; }
+    public double getOriginZ() { return oz; }
+    public double getDirX() { return dx; }
+    public double getDirY() { return dy; }
+    public double getDirZ() { return dz; }
+    public double getYaw() { return yaw; }
+    public double getPitch() { return pitch; }
+    public double getFov() { return fov; }
+    public long getEvalNanos() { return evalNanos; }
+    /** 最近一次拾取/求交命中的部件，球体或未命中为null */
+    public HitShape.Part getHitPart() { return hitPart >= 0 ? hitShape.getPart(hitPart) : null; }
+    /** 命中部件的得分倍率，球体为1 */
+    public double getHitMultiplier() { return hitPart >= 0 ? hitShape.getPart(hitPart).getMultiplier() : 1.0; }
+}
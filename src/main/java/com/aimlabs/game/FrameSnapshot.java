@@ -0,0 +1,107 @@
+package com.aimlabs.game;
+
+/**
+ * 一帧的模拟状态快照 - 靶标、相机和HUD数据打包成基本类型数组，供渲染线程读取
+ * 模拟线程在tick末尾填写后经TripleBuffer发布，发布后直到被回收重填前内容不变；
+ * 数组按需扩容并复用，靶标数稳定后不再分配
+ */
+public class FrameSnapshot {
+    private static final byte HIGHLIGHTED = 1;
+
+    private int count = 0;
+    private double[] x, y, z, size;
+    private int[] rgb;
+    private byte[] flags;
+    private long[] spawnNanos;
+    private long[] lifetimeMs;
+    private HitShape[] shape;    // 不可变，直接共享引用
+
+    private long stateNanos;     // 快照对应的游戏时刻
+    private double yaw, pitch;   // 模拟线程最后处理的相机朝向
+    private long inputSeq;       // 模拟线程已处理到的输入序号(延迟测量用，0为未标记)
+
+    // HUD
+    private int score;
+    private double accuracy;
+    private double trackAccuracy;
+    private int timeRemaining;
+    private final StringBuilder modeInfo = new StringBuilder(64);   // 复制自模式处理器，模式可继续改写自己的缓冲区
+
+    public FrameSnapshot() {
+        this(64);
+    }
+
+    public FrameSnapshot(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    private void allocate(int capacity) {
+        x = new double[capacity]; y = new double[capacity]; z = new double[capacity];
+        size = new double[capacity];
+        rgb = new int[capacity];
+        flags = new byte[capacity];
+        spawnNanos = new long[capacity];
+        lifetimeMs = new long[capacity];
+        shape = new HitShape[capacity];
+    }
+
+    /** 从靶标列表复制世界空间状态 */
+    public void capture(TargetList targets, long stateNanos, double yaw, double pitch) {
+        int n = targets.size();
+        if (x.length < n) allocate(Math.max(n, x.length * 2));
+        for (int i = 0; i < n; i++) {
+            Target t = targets.get(i);
+            TargetStore store = t.getStore();
+            int s = t.getSlot();
+            x[i] = store.x[s];
+            y[i] = store.y[s];
+            z[i] = store.z[s];
+            size[i] = store.size[s];
+            rgb[i] = store.color[s];
+            flags[i] = (store.flags[s] & TargetStore.HIGHLIGHTED) != 0 ? HIGHLIGHTED : 0;
+            spawnNanos[i] = store.spawnNanos[s];
+            lifetimeMs[i] = store.lifetimeMs[s];
+            shape[i] = store.shape[s];
+        }
+        this.count = n;
+        this.stateNanos = stateNanos;
+        this.yaw = yaw;
+        this.pitch = pitch;
+    }
+
+    public void setInputSeq(long inputSeq) {
+        this.inputSeq = inputSeq;
+    }
+
+    public void setHud(GameStats stats, int timeRemaining, CharSequence modeInfo) {
+        this.score = stats.getScore();
+        this.accuracy = stats.getAccuracy();
+        this.trackAccuracy = stats.getTrackAccuracy();
+        this.timeRemaining = timeRemaining;
+        this.modeInfo.setLength(0);
+        this.modeInfo.append(modeInfo);
+    }
+
+    public int getCount() { return count; }
+    public double getX(int i) { return x[i]; }
+    public double getY(int i) { return y[i]; }
+    public double getZ(int i) { return z[i]; }
+    public double getSize(int i) { return size[i]; }
+    /** 命中形状，null为球体 */
+    public HitShape getShape(int i) { return shape[i]; }
+    public int getRgb(int i) { return rgb[i]; }
+    public boolean isHighlighted(int i) { return (flags[i] & HIGHLIGHTED) != 0; }
+    public long getSpawnNanos(int i) { return spawnNanos[i]; }
+    public long getLifetime(int i) { return lifetimeMs[i]; }
+    public float getDepthDim(int i, double maxDist) { return Target.depthDim(x[i], y[i], z[i], maxDist); }
+
+    public long getStateNanos() { return stateNanos; }
+    public long getInputSeq() { return inputSeq; }
+    public double getYaw() { return yaw; }
+    public double getPitch() { return pitch; }
+    public int getScore() { return score; }
+    public double getAccuracy() { return accuracy; }
+    public double getTrackAccuracy() { return trackAccuracy; }
+    public int getTimeRemaining() { return timeRemaining; }
+    public CharSequence getModeInfo() { return modeInfo; }
+}
@@ -0,0 +1,88 @@
+package com.aimlabs.game;
+
+/**
+ * 游戏时钟 - 单调、可暂停的纳秒时间
+ * 游戏时间 = System.nanoTime() - 累计暂停时长；每个tick采样一次，
+ * 同一tick内的生成/过期/倒计时都读取同一个值，暂停期间游戏时间不前进
+ * 手动模式不读系统时间，只由advance推进(无界面运行/回放用)
+ */
+public class GameClock {
+    private static final GameClock REALTIME = new GameClock(false, true);
+
+    private final boolean manual;
+    private final boolean live;     // 每次读取都采样系统时间(独立靶标用)
+    private long now;
+    private long pausedTotal = 0;
+    private long pauseStart = 0;
+    private boolean paused = false;
+
+    public GameClock() {
+        this(false, false);
+    }
+
+    private GameClock(boolean manual, boolean live) {
+        this.manual = manual;
+        this.live = live;
+        this.now = manual ? 1_000_000_000L : System.nanoTime();
+    }
+
+    /** 手动推进的时钟，起点为1秒(0保留为“未设置”) */
+    public static GameClock manual() {
+        return new GameClock(true, false);
+    }
+
+    /** 不暂停、每次读取即采样的实时时钟(不属于任何对局的独立靶标使用) */
+    public static GameClock realtime() {
+        return REALTIME;
+    }
+
+    /** 采样一次系统时间作为本tick的游戏时间 */
+    public long tick() {
+        if (!manual && !paused) {
+            now = System.nanoTime() - pausedTotal;
+        }
+        return now;
+    }
+
+    /** 本tick的游戏时间(纳秒) */
+    public long now() {
+        return live ? System.nanoTime() : now;
+    }
+
+    /** 手动模式: 推进游戏时间 */
+    public void advance(long nanos) {
+        if (!manual) throw new IllegalStateException("advance() requires a manual clock");
+        if (!paused) now += nanos;
+    }
+
+    public void pause() {
+        if (paused) return;
+        tick();
+        paused = true;
+        pauseStart = System.nanoTime();
+    }
+
+    public void resume() {
+        if (!paused) return;
+        paused = false;
+        if (!manual) pausedTotal += System.nanoTime() - pauseStart;
+        tick();
+    }
+
+    /** 把System.nanoTime基准的时刻(如输入事件)换算为游戏时间 */
+    public long toGameNanos(long systemNanos) {
+        if (manual || live) return systemNanos;
+        if (paused) return Math.min(systemNanos, pauseStart) - pausedTotal;
+        return systemNanos - pausedTotal;
+    }
+
+    /** 重新开始: 清除暂停记录并采样 */
+    public void reset() {
+        paused = false;
+        pausedTotal = 0;
+        now = manual ? 1_000_000_000L : System.nanoTime();
+    }
+
+    public boolean isPaused() { return paused; }
+    public boolean isManual() { return manual; }
+}
@@ -9,7 +9,8 @@ public enum GameMode {
     SPEED("Speed 速度", "在靶标消失前尽快点击"),
     PRECISION("Precision 精准", "点击极小的靶标，考验精度"),
     REACTION("Reaction 反应", "靶标随机出现，测试反应速度"),
-    SWITCH("Switch 切换", "在多个靶标间快速切换点击");
+    SWITCH("Switch 切换", "在多个靶标间快速切换点击"),
+    STRESS("Stress 压力测试", "逐级增加移动靶标数量，测量帧时间、模拟时间和GC");
 
     private final String displayName;
     private final String description;
@@ -6,27 +6,45 @@ package com.aimlabs.game;
 public class GameStats {
     private int score = 0;
     private int hits = 0;
+    private int criticalHits = 0;   // 命中倍率>1的部位(人形靶头部)
     private int misses = 0;
     private int totalShots = 0;
     private int targetsSpawned = 0;
     private int targetsExpired = 0;
-    private long totalReactionTime = 0;
+    private long totalReactionNanos = 0;
     private int reactionCount = 0;
-    private long bestReactionTime = Long.MAX_VALUE;
+    private long bestReactionNanos = Long.MAX_VALUE;
     private double totalTrackTime = 0;
     private double onTargetTime = 0;
+    // 反应时间与相邻两次命中间隔的分布(百分位)
+    private final LogHistogram reactionHistogram = new LogHistogram();
+    private final LogHistogram hitIntervalHistogram = new LogHistogram();
+    private long lastHitNanos = Long.MIN_VALUE;
 
-    public void recordHit(long reactionTimeMs) {
+    /**
+     * @param reactionNanos 从靶标呈现到点击的纳秒数(0为同一帧内点中，照常计入), <0 表示不计入反应统计
+     * @param hitNanos 命中时刻(游戏时钟纳秒)，用于统计命中间隔
+     */
+    public void recordHit(long reactionNanos, long hitNanos) {
+        recordHit(reactionNanos, 1.0, hitNanos);
+    }
+
+    /** @param multiplier 命中部位的得分倍率(球体为1) */
+    public void recordHit(long reactionNanos, double multiplier, long hitNanos) {
         hits++;
         totalShots++;
-        score += 100;
-        if (reactionTimeMs > 0) {
-            totalReactionTime += reactionTimeMs;
+        score += (int) Math.round(100 * multiplier);
+        if (multiplier > 1) criticalHits++;
+        if (reactionNanos >= 0) {
+            totalReactionNanos += reactionNanos;
             reactionCount++;
-            if (reactionTimeMs < bestReactionTime) {
-                bestReactionTime = reactionTimeMs;
+            reactionHistogram.record(reactionNanos);
+            if (reactionNanos < bestReactionNanos) {
+                bestReactionNanos = reactionNanos;
             }
         }
+        if (lastHitNanos != Long.MIN_VALUE) hitIntervalHistogram.record(hitNanos - lastHitNanos);
+        lastHitNanos = hitNanos;
     }
 
     public void recordMiss() {
@@ -48,9 +66,10 @@ public class GameStats {
         return (double) hits / totalShots * 100;
     }
 
-    public long getAverageReactionTime() {
+    /** 平均反应时间(毫秒, 保留亚毫秒精度) */
+    public double getAverageReactionMs() {
         if (reactionCount == 0) return 0;
-        return totalReactionTime / reactionCount;
+        return totalReactionNanos / (double) reactionCount / 1_000_000.0;
     }
 
     public double getTrackAccuracy() {
@@ -59,21 +78,29 @@ public class GameStats {
     }
 
     public void reset() {
-        score = 0; hits = 0; misses = 0; totalShots = 0;
+        score = 0; hits = 0; criticalHits = 0; misses = 0; totalShots = 0;
         targetsSpawned = 0; targetsExpired = 0;
-        totalReactionTime = 0; reactionCount = 0;
-        bestReactionTime = Long.MAX_VALUE;
+        totalReactionNanos = 0; reactionCount = 0;
+        bestReactionNanos = Long.MAX_VALUE;
         totalTrackTime = 0; onTargetTime = 0;
+        reactionHistogram.reset();
+        hitIntervalHistogram.reset();
+        lastHitNanos = Long.MIN_VALUE;
     }
 
     public int getScore() { return score; }
     public void setScore(int s) { this.score = s; }
     public int getHits() { return hits; }
+    public int getCriticalHits() { return criticalHits; }
     public int getMisses() { return misses; }
     public int getTotalShots() { return totalShots; }
     public int getTargetsSpawned() { return targetsSpawned; }
     public int getTargetsExpired() { return targetsExpired; }
-    public long getBestReactionTime() { return bestReactionTime == Long.MAX_VALUE ? 0 : bestReactionTime; }
+    public double getBestReactionMs() { return bestReactionNanos == Long.MAX_VALUE ? 0 : bestReactionNanos / 1_000_000.0; }
+    public int getReactionCount() { return reactionCount; }
     public double getTotalTrackTime() { return totalTrackTime; }
     public double getOnTargetTime() { return onTargetTime; }
+    public LogHistogram getReactionHistogram() { return reactionHistogram; }
+    /** 相邻两次命中之间的间隔(第一次命中之后每次命中一个样本) */
+    public LogHistogram getHitIntervalHistogram() { return hitIntervalHistogram; }
 }
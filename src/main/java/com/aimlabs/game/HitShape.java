@@ -0,0 +1,282 @@
+package com.aimlabs.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 组合判定形状 - 由球体、胶囊体和盒子组成，每个部件有自己的得分倍率
+ * 部件定义在局部坐标系: 原点为靶标中心，单位长度 = 靶标size，-Y朝上(与世界一致)，
+ * 局部+Z为背离相机原点的方向(靶标始终绕竖直轴转向玩家)，所以盒子在局部系中轴对齐；
+ * 构造时在部件包围盒上建一棵BVH，同一形状的全部靶标共享(不可变，可跨线程使用)
+ */
+public final class HitShape {
+    public enum PartType { SPHERE, CAPSULE, BOX }
+
+    /** 一个部件: 球体(a为球心)、胶囊体(a-b线段)、盒子(a为中心，b为半边长) */
+    public static final class Part {
+        private final String name;
+        private final PartType type;
+        private final double multiplier;
+        private final double ax, ay, az, bx, by, bz, r;
+
+        private Part(String name, PartType type, double multiplier,
+                     double ax, double ay, double az, double bx, double by, double bz, double r) {
+            this.name = name;
+            this.type = type;
+            this.multiplier = multiplier;
+            this.ax = ax; this.ay = ay; this.az = az;
+            this.bx = bx; this.by = by; this.bz = bz;
+            this.r = r;
+        }
+
+        public static Part sphere(String name, double multiplier, double cx, double cy, double cz, double r) {
+            return new Part(name, PartType.SPHERE, multiplier, cx, cy, cz, 0, 0, 0, r);
+        }
+
+        public static Part capsule(String name, double multiplier,
+                                   double ax, double ay, double az, double bx, double by, double bz, double r) {
+            return new Part(name, PartType.CAPSULE, multiplier, ax, ay, az, bx, by, bz, r);
+        }
+
+        public static Part box(String name, double multiplier,
+                               double cx, double cy, double cz, double hx, double hy, double hz) {
+            return new Part(name, PartType.BOX, multiplier, cx, cy, cz, hx, hy, hz, 0);
+        }
+
+        double minX() { return type == PartType.BOX ? ax - bx : Math.min(ax, type == PartType.CAPSULE ? bx : ax) - r; }
+        double minY() { return type == PartType.BOX ? ay - by : Math.min(ay, type == PartType.CAPSULE ? by : ay) - r; }
+        double minZ() { return type == PartType.BOX ? az - bz : Math.min(az, type == PartType.CAPSULE ? bz : az) - r; }
+        double maxX() { return type == PartType.BOX ? ax + bx : Math.max(ax, type == PartType.CAPSULE ? bx : ax) + r; }
+        double maxY() { return type == PartType.BOX ? ay + by : Math.max(ay, type == PartType.CAPSULE ? by : ay) + r; }
+        double maxZ() { return type == PartType.BOX ? az + bz : Math.max(az, type == PartType.CAPSULE ? bz : az) + r; }
+
+        /** 局部射线(单位方向)求交，返回最近交点的局部距离，未命中返回-1 */
+        double intersect(double ox, double oy, double oz, double dx, double dy, double dz) {
+            return switch (type) {
+                case SPHERE -> raySphere(ox - ax, oy - ay, oz - az, dx, dy, dz, r);
+                case CAPSULE -> rayCapsule(ox, oy, oz, dx, dy, dz);
+                case BOX -> rayBox(ox, oy, oz, dx, dy, dz,
+                    ax - bx, ay - by, az - bz, ax + bx, ay + by, az + bz);
+            };
+        }
+
+        private double rayCapsule(double ox, double oy, double oz, double dx, double dy, double dz) {
+            double bax = bx - ax, bay = by - ay, baz = bz - az;
+            double oax = ox - ax, oay = oy - ay, oaz = oz - az;
+            double baba = bax * bax + bay * bay + baz * baz;
+            double bard = bax * dx + bay * dy + baz * dz;
+            double baoa = bax * oax + bay * oay + baz * oaz;
+            double rdoa = dx * oax + dy * oay + dz * oaz;
+            double oaoa = oax * oax + oay * oay + oaz * oaz;
+            double a = baba - bard * bard;
+            double b = baba * rdoa - baoa * bard;
+            double c = baba * oaoa - baoa * baoa - r * r * baba;
+            double h = b * b - a * c;
+            if (h < 0) return -1;
+            if (a > 1e-12) {
+                double t = (-b - Math.sqrt(h)) / a;
+                double y = baoa + t * bard;
+                if (y > 0 && y < baba) return t >= 0 ? t : -1;
+            }
+            // 圆柱段没命中(或射线平行于轴)，检查两端的半球
+            double ta = raySphere(oax, oay, oaz, dx, dy, dz, r);
+            double tb = raySphere(ox - bx, oy - by, oz - bz, dx, dy, dz, r);
+            if (ta < 0) return tb;
+            if (tb < 0) return ta;
+            return Math.min(ta, tb);
+        }
+
+        public String getName() { return name; }
+        public PartType getType() { return type; }
+        public double getMultiplier() { return multiplier; }
+        public double getAx() { return ax; }
+        public double getAy() { return ay; }
+        public double getAz() { return az; }
+        public double getBx() { return bx; }
+        public double getBy() { return by; }
+        public double getBz() { return bz; }
+        public double getRadius() { return r; }
+    }
+
+    private static final int LEAF_SIZE = 2;
+
+    private final String name;
+    private final Part[] parts;
+    private final double boundRadius;  // 局部包围球半径(以原点为球心)
+
+    // 部件BVH(扁平数组): count>0为叶子，部件为order[start, start+count)；否则左孩子为left，右孩子为left+1
+    private final double[] nodeMin, nodeMax;  // 每节点3个分量
+    private final int[] nodeLeft, nodeStart, nodeCount;
+    private final int[] order;
+    private int nodeUsed = 0;
+
+    public HitShape(String name, List<Part> partList) {
+        if (partList.isEmpty()) throw new IllegalArgumentException("HitShape needs at least one part");
+        this.name = name;
+        this.parts = partList.toArray(new Part[0]);
+        int n = parts.length;
+        double bound = 0;
+        for (Part p : parts) {
+            double ex = Math.max(Math.abs(p.minX()), Math.abs(p.maxX()));
+            double ey = Math.max(Math.abs(p.minY()), Math.abs(p.maxY()));
+            double ez = Math.max(Math.abs(p.minZ()), Math.abs(p.maxZ()));
+            bound = Math.max(bound, Math.sqrt(ex * ex + ey * ey + ez * ez));
+        }
+        this.boundRadius = bound;
+        nodeMin = new double[6 * n];
+        nodeMax = new double[6 * n];
+        nodeLeft = new int[2 * n];
+        nodeStart = new int[2 * n];
+        nodeCount = new int[2 * n];
+        order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        build(nodeUsed++, 0, n);
+    }
+
+    /** 自顶向下: 按部件中心在包围盒最长轴上的中位数二分 */
+    private void build(int node, int start, int count) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int i = start; i < start + count; i++) {
+            Part p = parts[order[i]];
+            minX = Math.min(minX, p.minX()); maxX = Math.max(maxX, p.maxX());
+            minY = Math.min(minY, p.minY()); maxY = Math.max(maxY, p.maxY());
+            minZ = Math.min(minZ, p.minZ()); maxZ = Math.max(maxZ, p.maxZ());
+        }
+        nodeMin[node * 3] = minX; nodeMin[node * 3 + 1] = minY; nodeMin[node * 3 + 2] = minZ;
+        nodeMax[node * 3] = maxX; nodeMax[node * 3 + 1] = maxY; nodeMax[node * 3 + 2] = maxZ;
+        if (count <= LEAF_SIZE) {
+            nodeStart[node] = start;
+            nodeCount[node] = count;
+            return;
+        }
+        int axis = maxX - minX >= maxY - minY
+            ? (maxX - minX >= maxZ - minZ ? 0 : 2)
+            : (maxY - minY >= maxZ - minZ ? 1 : 2);
+        // 部件很少，插入排序即可
+        for (int i = start + 1; i < start + count; i++) {
+            int v = order[i];
+            double key = centerOf(parts[v], axis);
+            int j = i - 1;
+            while (j >= start && centerOf(parts[order[j]], axis) > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = v;
+        }
+        int half = count / 2;
+        int left = nodeUsed;
+        nodeUsed += 2;
+        nodeLeft[node] = left;
+        nodeCount[node] = 0;
+        build(left, start, half);
+        build(left + 1, start + half, count - half);
+    }
+
+    private static double centerOf(Part p, int axis) {
+        return switch (axis) {
+            case 0 -> (p.minX() + p.maxX()) / 2;
+            case 1 -> (p.minY() + p.maxY()) / 2;
+            default -> (p.minZ() + p.maxZ()) / 2;
+        };
+    }
+
+    /**
+     * 世界射线与放置在(cx,cy,cz)、尺寸为size的本形状求交
+     * @param hit 输出: hit[0] = 世界距离，hit[1] = 部件下标(未命中时不修改)
+     * @return 是否命中
+     */
+    public boolean intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+                             double cx, double cy, double cz, double size, double[] hit) {
+        // 转到局部系: 平移 → 绕Y轴转-θ(θ为靶标在XZ平面的方位角) → 除以size；方向保持单位长度
+        double len = Math.sqrt(cx * cx + cz * cz);
+        double sin = len > 1e-9 ? cx / len : 0, cos = len > 1e-9 ? cz / len : 1;
+        double inv = 1 / size;
+        double px = ox - cx, py = oy - cy, pz = oz - cz;
+        double lox = (px * cos - pz * sin) * inv;
+        double loy = py * inv;
+        double loz = (px * sin + pz * cos) * inv;
+        double ldx = dx * cos - dz * sin;
+        double ldz = dx * sin + dz * cos;
+        double best = traverse(0, lox, loy, loz, ldx, dy, ldz, Double.MAX_VALUE, hit);
+        if (best == Double.MAX_VALUE) return false;
+        hit[0] = best * size;
+        return true;
+    }
+
+    /** 递归遍历部件BVH(层数很浅)，返回最近局部距离，hit[1]记录部件下标 */
+    private double traverse(int node, double ox, double oy, double oz, double dx, double dy, double dz,
+                            double best, double[] hit) {
+        double tNode = rayBox(ox, oy, oz, dx, dy, dz,
+            nodeMin[node * 3], nodeMin[node * 3 + 1], nodeMin[node * 3 + 2],
+            nodeMax[node * 3], nodeMax[node * 3 + 1], nodeMax[node * 3 + 2]);
+        if (tNode < 0 || tNode >= best) return best;
+        int count = nodeCount[node];
+        if (count > 0) {
+            for (int i = nodeStart[node], end = i + count; i < end; i++) {
+                double t = parts[order[i]].intersect(ox, oy, oz, dx, dy, dz);
+                if (t >= 0 && t < best) {
+                    best = t;
+                    hit[1] = order[i];
+                }
+            }
+            return best;
+        }
+        best = traverse(nodeLeft[node], ox, oy, oz, dx, dy, dz, best, hit);
+        return traverse(nodeLeft[node] + 1, ox, oy, oz, dx, dy, dz, best, hit);
+    }
+
+    /** 射线(起点相对球心为(lx,ly,lz)，单位方向)与半径r的球求交，返回最近非负距离，未命中返回-1 */
+    static double raySphere(double lx, double ly, double lz, double dx, double dy, double dz, double r) {
+        double b = lx * dx + ly * dy + lz * dz;
+        double c = lx * lx + ly * ly + lz * lz - r * r;
+        double h = b * b - c;
+        if (h < 0) return -1;
+        double s = Math.sqrt(h);
+        double t = -b - s;
+        if (t >= 0) return t;
+        t = -b + s;
+        return t >= 0 ? t : -1;
+    }
+
+    /** 射线与轴对齐盒求交(slab法)，返回进入距离(起点在盒内为0)，未命中返回-1 */
+    static double rayBox(double ox, double oy, double oz, double dx, double dy, double dz,
+                         double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        double tmin = 0, tmax = Double.MAX_VALUE;
+        double inv = 1 / dx;
+        double t1 = (minX - ox) * inv, t2 = (maxX - ox) * inv;
+        tmin = Math.max(tmin, Math.min(t1, t2));
+        tmax = Math.min(tmax, Math.max(t1, t2));
+        inv = 1 / dy;
+        t1 = (minY - oy) * inv; t2 = (maxY - oy) * inv;
+        tmin = Math.max(tmin, Math.min(t1, t2));
+        tmax = Math.min(tmax, Math.max(t1, t2));
+        inv = 1 / dz;
+        t1 = (minZ - oz) * inv; t2 = (maxZ - oz) * inv;
+        tmin = Math.max(tmin, Math.min(t1, t2));
+        tmax = Math.min(tmax, Math.max(t1, t2));
+        return tmin <= tmax ? tmin : -1;
+    }
+
+    public String getName() { return name; }
+    public int getPartCount() { return parts.length; }
+    public Part getPart(int i) { return parts[i]; }
+    public double getBoundRadius() { return boundRadius; }
+
+    /**
+     * 人形: 头(2倍) + 躯干/骨盆(1倍) + 双臂/双腿(0.75倍)
+     * 总高约1.9个size，脚底在+Y(地板方向)
+     */
+    public static HitShape humanoid() {
+        // 列表顺序即绘制顺序(后画的在上层)
+        List<Part> p = new ArrayList<>();
+        p.add(Part.capsule("左腿", 0.75, -0.1, 0.16, 0, -0.12, 0.88, 0, 0.08));
+        p.add(Part.capsule("右腿", 0.75, 0.1, 0.16, 0, 0.12, 0.88, 0, 0.08));
+        p.add(Part.box("骨盆", 1.0, 0, 0.04, 0, 0.17, 0.09, 0.09));
+        p.add(Part.box("躯干", 1.0, 0, -0.33, 0, 0.2, 0.28, 0.1));
+        p.add(Part.capsule("左臂", 0.75, -0.27, -0.55, 0, -0.33, -0.06, 0, 0.06));
+        p.add(Part.capsule("右臂", 0.75, 0.27, -0.55, 0, 0.33, -0.06, 0, 0.06));
+        p.add(Part.sphere("头部", 2.0, 0, -0.78, 0, 0.14));
+        return new HitShape("人形", p);
+    }
+}
@@ -0,0 +1,57 @@
+package com.aimlabs.game;
+
+/**
+ * 延迟补偿 - 把输入映射回玩家当时看到的那一帧
+ * 记录每帧呈现时刻及该帧所显示的模拟状态时刻，输入到达时找出其前最近呈现的帧
+ */
+public class LagCompensator {
+    /** 最大回溯时长上限(设置项范围)，TargetStore按它确定位置历史容量 */
+    public static final int MAX_REWIND_MS = 250;
+    private static final int FRAME_CAPACITY = 64;
+
+    private final long[] presentNanos = new long[FRAME_CAPACITY];
+    private final long[] stateNanos = new long[FRAME_CAPACITY];
+    private int head = 0;
+    private int count = 0;
+
+    private boolean enabled = true;
+    private long maxRewindNanos = 100_000_000L;
+
+    public void configure(boolean enabled, int maxRewindMs) {
+        this.enabled = enabled;
+        this.maxRewindNanos = Math.max(0, Math.min(MAX_REWIND_MS, maxRewindMs)) * 1_000_000L;
+    }
+
+    /** 一帧呈现完成: stateNanos为该帧绘制的模拟状态时刻 */
+    public void onFramePresented(long presentedAt, long stateAt) {
+        presentNanos[head] = presentedAt;
+        stateNanos[head] = stateAt;
+        head = (head + 1) % FRAME_CAPACITY;
+        if (count < FRAME_CAPACITY) count++;
+    }
+
+    /**
+     * 求输入应回溯到的模拟时刻
+     * @return 回溯时刻；关闭补偿或无可用帧时返回0(表示按当前状态判定)
+     */
+    public long resolve(long inputNanos, long currentStateNanos) {
+        if (!enabled || count == 0) return 0;
+        for (int k = 1; k <= count; k++) {
+            int idx = (head - k + FRAME_CAPACITY) % FRAME_CAPACITY;
+            if (presentNanos[idx] <= inputNanos) {
+                long t = stateNanos[idx];
+                if (t >= currentStateNanos) return 0;
+                return Math.max(t, currentStateNanos - maxRewindNanos);
+            }
+        }
+        return 0;
+    }
+
+    public void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public long getMaxRewindNanos() { return maxRewindNanos; }
+}
@@ -0,0 +1,108 @@
+package com.aimlabs.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数分桶直方图(HdrHistogram式) - 固定内存记录纳秒时长，相对误差不超过1/128(<0.8%)
+ * 小于256ns逐个计数；之后每个2的幂区间均分为128个子桶，最大记录约137秒，更大的值计入最后一桶
+ * record可在任意线程并发调用，无锁且不分配对象；查询与记录并发时结果可能差最近几个样本
+ */
+public class LogHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;                 // 128
+    private static final int MAX_MSB = 36;                              // 2^37ns ≈ 137s
+    private static final long MAX_VALUE = (1L << (MAX_MSB + 1)) - 1;
+    private static final int BUCKETS = (MAX_MSB - SUB_BITS + 1) * SUB_COUNT + SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /** 记录一个时长(纳秒)，负值按0计 */
+    public void record(long nanos) {
+        long v = Math.min(MAX_VALUE, Math.max(0, nanos));
+        counts.incrementAndGet(indexOf(v));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(v);
+        long m;
+        while (v < (m = min.get()) && !min.compareAndSet(m, v)) { }
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) { }
+    }
+
+    /** 把other的全部样本并入本直方图(跨局汇总)，跳过空桶 */
+    public void add(LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalNanos.addAndGet(other.totalNanos.get());
+        long v = other.min.get(), m;
+        while (v < (m = min.get()) && !min.compareAndSet(m, v)) { }
+        v = other.max.get();
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) { }
+    }
+
+    /** 当前内容的独立副本 */
+    public LogHistogram copy() {
+        LogHistogram h = new LogHistogram();
+        h.add(this);
+        return h;
+    }
+
+    /** 清空(不可与record并发) */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        totalCount.set(0);
+        totalNanos.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+
+    /**
+     * 第p百分位(0~100)的值(纳秒)，取所在桶的中点并限制在[最小值, 最大值]内；无样本返回0
+     * 与LatencyProbe一致按最近秩: 排在第ceil(p% * n)位的样本
+     */
+    public long valueAtPercentile(double p) {
+        long n = totalCount.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, p)) / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long lo = lowerBound(i), hi = lowerBound(i + 1) - 1;
+                return Math.min(getMaxNanos(), Math.max(getMinNanos(), lo + (hi - lo) / 2));
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public double percentileMs(double p) { return valueAtPercentile(p) / 1e6; }
+
+    public long getCount() { return totalCount.get(); }
+    public long getMinNanos() { long m = min.get(); return m == Long.MAX_VALUE ? 0 : m; }
+    public long getMaxNanos() { return max.get(); }
+
+    public double getMeanMs() {
+        long n = totalCount.get();
+        return n == 0 ? 0 : totalNanos.get() / (double) n / 1e6;
+    }
+
+    private static int indexOf(long v) {
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        if (msb <= SUB_BITS) return (int) v;                  // v < 256
+        int shift = msb - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) (v >>> shift) - SUB_COUNT;
+    }
+
+    /** 第i桶的最小值 */
+    private static long lowerBound(int i) {
+        if (i < 2 * SUB_COUNT) return i;
+        int shift = i / SUB_COUNT - 1;
+        return (long) (i % SUB_COUNT + SUB_COUNT) << shift;
+    }
+}
@@ -0,0 +1,146 @@
+package com.aimlabs.game;
+
+import com.aimlabs.config.SessionSettings;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 运动驱动 - 把一个运动模式应用到TargetStore的全部存活靶标
+ * 每个靶标在生成时记录锚点、相位和镜像方向(按槽位存放)，
+ * 之后每个tick只做查表插值和边界钳制，直接写存储数组
+ */
+public class MotionController {
+    private final MotionPattern pattern;
+    private final MotionTable table;      // LINEAR为null
+    private final SplittableRandom random; // 仅在attach(生成时)使用
+    private final double rate;            // 播放速度倍率
+    private final double ampLateral, ampVertical, ampDepth;
+    private final double maxX, halfY, halfZ;
+    private double time = 0;              // 已播放的表时间(秒)
+    private TargetSeparation separation;  // 靶标间分离(关闭时为null)
+
+    // 按槽位: 锚点、相位、镜像、分离造成的锚点漂移
+    private double[] anchorX = new double[64], anchorY = new double[64], anchorZ = new double[64];
+    private double[] driftX = new double[64], driftY = new double[64], driftZ = new double[64];
+    private double[] phase = new double[64];
+    private double[] mirror = new double[64];
+
+    public MotionController(MotionPattern pattern, SessionSettings settings, double speed, SplittableRandom random) {
+        this.pattern = pattern;
+        this.random = random;
+        this.table = MotionTable.bake(pattern, random);
+        this.rate = speed / 3.0; // 默认速度3.0对应原速播放
+        this.maxX = settings.getRoomMaxX();
+        this.halfY = settings.getRoomHalfY();
+        this.halfZ = settings.getRoomHalfZ();
+        this.ampLateral = halfZ * 0.3;
+        this.ampVertical = halfY * 0.2;
+        this.ampDepth = maxX * 0.08;
+    }
+
+    /** 按本局设置为模式创建运动驱动，静止模式返回null；移动中沿用生成序列的间距 */
+    public static MotionController forMode(SessionSettings settings, GameMode mode, SpawnSchedule schedule) {
+        MotionPattern p = settings.getMotionPattern(mode);
+        if (p == MotionPattern.NONE) return null;
+        MotionController m = new MotionController(p, settings, settings.getTrackSpeed(), schedule.aux());
+        if (settings.isTargetSeparation()) {
+            m.setSeparation(new TargetSeparation(settings.getTargetDensity(), schedule.getSpacing()));
+        }
+        return m;
+    }
+
+    /** 新生成的靶标: 以当前位置为锚点，随机相位/方向(LINEAR则随机初速度) */
+    public void attach(Target t) {
+        int s = t.slot;
+        ensureCapacity(s + 1);
+        anchorX[s] = t.getX();
+        anchorY[s] = t.getY();
+        anchorZ[s] = t.getZ();
+        driftX[s] = 0;
+        driftY[s] = 0;
+        driftZ[s] = 0;
+        if (table != null) {
+            phase[s] = random.nextDouble() * table.getPeriod();
+            mirror[s] = random.nextBoolean() ? 1 : -1;
+        } else {
+            double angle = random.nextDouble() * Math.PI * 2;
+            double speed = 2 + random.nextDouble() * 2;
+            t.setVelocityX(Math.cos(angle) * speed);
+            t.setVelocityY(Math.sin(angle) * speed);
+            double speedZ = 1 + random.nextDouble() * 2;
+            t.setVelocityZ((random.nextBoolean() ? 1 : -1) * speedZ);
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (anchorX.length >= n) return;
+        int cap = Math.max(n, anchorX.length * 2);
+        anchorX = Arrays.copyOf(anchorX, cap);
+        anchorY = Arrays.copyOf(anchorY, cap);
+        anchorZ = Arrays.copyOf(anchorZ, cap);
+        driftX = Arrays.copyOf(driftX, cap);
+        driftY = Arrays.copyOf(driftY, cap);
+        driftZ = Arrays.copyOf(driftZ, cap);
+        phase = Arrays.copyOf(phase, cap);
+        mirror = Arrays.copyOf(mirror, cap);
+    }
+
+    /** 推进dt秒并更新存储中所有存活靶标的位置 */
+    public void update(TargetStore store, double dt) {
+        if (table == null) {
+            store.update3DAll(dt * rate * 3.0 * 60, maxX, halfY, halfZ);
+            if (separation != null) separation.resolve(store);
+            return;
+        }
+        time += dt * rate;
+        double[] lat = table.lateral(), ver = table.vertical(), dep = table.depth();
+        double period = table.getPeriod();
+        double minXb = maxX * 0.1, maxXb = maxX * 0.9, yb = halfY * 0.8, zb = halfZ * 0.8;
+        double[] xs = store.x, ys = store.y, zs = store.z;
+        for (int i = 0, n = store.size(); i < n; i++) {
+            int s = store.slotAt(i);
+            if (s >= anchorX.length) continue; // 未attach的靶标保持静止
+            double u = (time + phase[s]) / period;
+            u -= Math.floor(u);
+            double idx = u * MotionTable.SAMPLES;
+            int i0 = (int) idx & (MotionTable.SAMPLES - 1);
+            int i1 = (i0 + 1) & (MotionTable.SAMPLES - 1);
+            double f = idx - Math.floor(idx);
+            double m = mirror[s];
+            double px = anchorX[s] + driftX[s] + ampDepth * (dep[i0] + (dep[i1] - dep[i0]) * f);
+            double py = anchorY[s] + driftY[s] + ampVertical * (ver[i0] + (ver[i1] - ver[i0]) * f);
+            double pz = anchorZ[s] + driftZ[s] + m * ampLateral * (lat[i0] + (lat[i1] - lat[i0]) * f);
+            xs[s] = px < minXb ? minXb : (px > maxXb ? maxXb : px);
+            ys[s] = py < -yb ? -yb : (py > yb ? yb : py);
+            zs[s] = pz < -zb ? -zb : (pz > zb ? zb : pz);
+        }
+        store.markMoved();
+        if (separation != null && separation.resolve(store) > 0) {
+            // 路径由锚点决定: 推开的位移记为锚点漂移，下一tick不会弹回重叠位置
+            for (int i = 0, n = store.size(); i < n; i++) {
+                int s = store.slotAt(i);
+                if (s >= anchorX.length) continue;
+                // 漂移后的锚点仍限制在边界内，贴墙时不会无限累积
+                driftX[s] = clamp(anchorX[s] + driftX[s] + separation.getPushX(s), minXb, maxXb) - anchorX[s];
+                driftY[s] = clamp(anchorY[s] + driftY[s] + separation.getPushY(s), -yb, yb) - anchorY[s];
+                driftZ[s] = clamp(anchorZ[s] + driftZ[s] + separation.getPushZ(s), -zb, zb) - anchorZ[s];
+            }
+        }
+        store.expireAll(store.getClock().now());
+    }
+
+    private static double clamp(double v, double lo, double hi) {
+        return v < lo ? lo : (v > hi ? hi : v);
+    }
+
+    /** 靶标移除时从采样器注销: 采样器里登记的是生成时的锚点，而不是当前位置 */
+    public void unregister(SpawnSampler sampler, Target t) {
+        int s = t.slot;
+        sampler.remove(anchorX[s], anchorY[s], anchorZ[s]);
+    }
+
+    public void setSeparation(TargetSeparation separation) { this.separation = separation; }
+    public TargetSeparation getSeparation() { return separation; }
+    public MotionPattern getPattern() { return pattern; }
+}
@@ -0,0 +1,25 @@
+package com.aimlabs.game;
+
+/**
+ * 靶标运动模式
+ */
+public enum MotionPattern {
+    NONE("静止"),
+    LINEAR("直线反弹"),
+    STRAFE("左右平移"),
+    ADAD("ADAD急停变向"),
+    SINE("正弦曲线"),
+    SPLINE("样条路径"),
+    RANDOM_WALK("随机游走");
+
+    private final String displayName;
+
+    MotionPattern(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() { return displayName; }
+
+    @Override
+    public String toString() { return displayName; }
+}
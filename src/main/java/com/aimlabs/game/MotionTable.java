@@ -0,0 +1,180 @@
+package com.aimlabs.game;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 预烘焙的周期运动表 - 开局时把一个运动模式采样成归一化偏移表([-1,1])
+ * 运行时按时间查表并在相邻样本间线性插值，O(1)、无分配、不再使用随机数
+ * 坐标约定: 横向为Z轴，竖直为Y轴，纵深为X轴(相机初始朝+X)
+ */
+public final class MotionTable {
+    public static final int SAMPLES = 1024; // 2的幂，下标回绕用位与
+    private static final int MASK = SAMPLES - 1;
+
+    private final double period; // 一个周期的秒数
+    private final double[] lateral = new double[SAMPLES];
+    private final double[] vertical = new double[SAMPLES];
+    private final double[] depth = new double[SAMPLES];
+
+    private MotionTable(double period) {
+        this.period = period;
+    }
+
+    /** 烘焙运动表；NONE/LINEAR不是表驱动的，返回null */
+    public static MotionTable bake(MotionPattern pattern, SplittableRandom random) {
+        return switch (pattern) {
+            case STRAFE -> strafe();
+            case ADAD -> adad(random);
+            case SINE -> sine(random);
+            case SPLINE -> spline(random);
+            case RANDOM_WALK -> randomWalk(random);
+            case NONE, LINEAR -> null;
+        };
+    }
+
+    /** 时刻t(秒)的归一化偏移，写入out[0..2] = {纵深, 竖直, 横向} */
+    public void sample(double t, double[] out) {
+        double u = t / period;
+        u -= Math.floor(u);
+        double idx = u * SAMPLES;
+        int i0 = (int) idx & MASK;
+        int i1 = (i0 + 1) & MASK;
+        double f = idx - Math.floor(idx);
+        out[0] = depth[i0] + (depth[i1] - depth[i0]) * f;
+        out[1] = vertical[i0] + (vertical[i1] - vertical[i0]) * f;
+        out[2] = lateral[i0] + (lateral[i1] - lateral[i0]) * f;
+    }
+
+    double getPeriod() { return period; }
+    double[] lateral() { return lateral; }
+    double[] vertical() { return vertical; }
+    double[] depth() { return depth; }
+
+    // ===== 各模式的烘焙 =====
+
+    /** 匀速左右平移(三角波)，带少量竖直起伏 */
+    private static MotionTable strafe() {
+        MotionTable m = new MotionTable(4.0);
+        for (int k = 0; k < SAMPLES; k++) {
+            double u = (double) k / SAMPLES;
+            m.lateral[k] = u < 0.5 ? 4 * u - 1 : 3 - 4 * u;
+            m.vertical[k] = 0.1 * Math.sin(2 * Math.PI * u * 2);
+        }
+        return m;
+    }
+
+    /** ADAD: 随机时长的匀速段 + 瞬间反向，模拟急停变向 */
+    private static MotionTable adad(SplittableRandom random) {
+        MotionTable m = new MotionTable(6.0);
+        double[] v = new double[SAMPLES];
+        int k = 0;
+        double dir = 1;
+        while (k < SAMPLES) {
+            // 每段0.15~0.6秒
+            int len = (int) (SAMPLES * (0.15 + random.nextDouble() * 0.45) / m.period);
+            for (int j = 0; j < len && k < SAMPLES; j++) v[k++] = dir;
+            dir = -dir;
+        }
+        integrateClosed(v, m.lateral);
+        for (int i = 0; i < SAMPLES; i++) {
+            m.vertical[i] = 0.05 * Math.sin(2 * Math.PI * i / SAMPLES * 3);
+        }
+        return m;
+    }
+
+    /** 李萨如曲线: 横向/竖直/纵深不同频率的正弦叠加 */
+    private static MotionTable sine(SplittableRandom random) {
+        MotionTable m = new MotionTable(8.0);
+        double phaseY = random.nextDouble() * 2 * Math.PI;
+        double phaseX = random.nextDouble() * 2 * Math.PI;
+        for (int k = 0; k < SAMPLES; k++) {
+            double a = 2 * Math.PI * k / SAMPLES;
+            m.lateral[k] = Math.sin(a * 2);
+            m.vertical[k] = 0.6 * Math.sin(a * 3 + phaseY);
+            m.depth[k] = 0.4 * Math.sin(a + phaseX);
+        }
+        return m;
+    }
+
+    /** 闭合Catmull-Rom样条: 随机控制点串成平滑回路 */
+    private static MotionTable spline(SplittableRandom random) {
+        MotionTable m = new MotionTable(10.0);
+        int n = 8;
+        double[] cx = new double[n], cy = new double[n], cz = new double[n];
+        for (int i = 0; i < n; i++) {
+            cx[i] = random.nextDouble() * 2 - 1;
+            cy[i] = random.nextDouble() * 2 - 1;
+            cz[i] = random.nextDouble() * 2 - 1;
+        }
+        for (int k = 0; k < SAMPLES; k++) {
+            double s = (double) k / SAMPLES * n;
+            int i = (int) s;
+            double t = s - i;
+            int p0 = (i - 1 + n) % n, p1 = i % n, p2 = (i + 1) % n, p3 = (i + 2) % n;
+            m.depth[k] = 0.5 * catmullRom(cx[p0], cx[p1], cx[p2], cx[p3], t);
+            m.vertical[k] = catmullRom(cy[p0], cy[p1], cy[p2], cy[p3], t);
+            m.lateral[k] = catmullRom(cz[p0], cz[p1], cz[p2], cz[p3], t);
+        }
+        normalize(m.lateral);
+        normalize(m.vertical);
+        normalize(m.depth);
+        for (int k = 0; k < SAMPLES; k++) m.depth[k] *= 0.5;
+        return m;
+    }
+
+    /** 平滑随机游走: 速度做均值回归的随机扰动，积分后去掉漂移使路径闭合 */
+    private static MotionTable randomWalk(SplittableRandom random) {
+        MotionTable m = new MotionTable(12.0);
+        double[] vz = new double[SAMPLES], vy = new double[SAMPLES], vx = new double[SAMPLES];
+        double az = 0, ay = 0, ax = 0;
+        for (int k = 0; k < SAMPLES; k++) {
+            az = az * 0.97 + (random.nextDouble() * 2 - 1) * 0.3;
+            ay = ay * 0.97 + (random.nextDouble() * 2 - 1) * 0.3;
+            ax = ax * 0.97 + (random.nextDouble() * 2 - 1) * 0.3;
+            vz[k] = az;
+            vy[k] = ay;
+            vx[k] = ax;
+        }
+        integrateClosed(vz, m.lateral);
+        integrateClosed(vy, m.vertical);
+        integrateClosed(vx, m.depth);
+        for (int k = 0; k < SAMPLES; k++) {
+            m.vertical[k] *= 0.7;
+            m.depth[k] *= 0.4;
+        }
+        return m;
+    }
+
+    private static double catmullRom(double p0, double p1, double p2, double p3, double t) {
+        double t2 = t * t, t3 = t2 * t;
+        return 0.5 * (2 * p1 + (-p0 + p2) * t + (2 * p0 - 5 * p1 + 4 * p2 - p3) * t2
+            + (-p0 + 3 * p1 - 3 * p2 + p3) * t3);
+    }
+
+    /** 积分速度序列，减去线性漂移使首尾相接，再归一化到[-1,1]并居中 */
+    private static void integrateClosed(double[] v, double[] out) {
+        double pos = 0;
+        for (int k = 0; k < SAMPLES; k++) {
+            out[k] = pos;
+            pos += v[k];
+        }
+        double drift = pos / SAMPLES;
+        for (int k = 0; k < SAMPLES; k++) out[k] -= drift * k;
+        normalize(out);
+    }
+
+    private static void normalize(double[] a) {
+        double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+        for (double d : a) {
+            if (d < min) min = d;
+            if (d > max) max = d;
+        }
+        double mid = (min + max) / 2, half = (max - min) / 2;
+        if (half < 1e-9) {
+            Arrays.fill(a, 0);
+            return;
+        }
+        for (int k = 0; k < a.length; k++) a[k] = (a[k] - mid) / half;
+    }
+}
@@ -0,0 +1,230 @@
+package com.aimlabs.game;
+
+/**
+ * 场景级BVH - 以靶标包围球为图元的层次包围盒，加速靶标很多时的射线拾取
+ * 从TargetStore的存活槽位构建(位置可回溯到判定时刻)，扁平数组存储，按最长轴中位数二分；
+ * 靶标每tick都在动: 存活集合不变时只自底向上重拟合包围盒(O(n))，树质量明显退化(节点表面积
+ * 之和超过构建时的REBUILD_RATIO倍)才重建；由TargetStore按修改计数惰性更新，
+ * 每个状态的查询次数超过实测的盈亏平衡点(重拟合成本/每次查询省下的时间)时才更新
+ */
+final class SceneBvh {
+    static final int MIN_TARGETS = 64;   // 少于此数时线性扫描更快
+    static final int REBUILD_AFTER = 32; // 存活集合变化后至少被查询这么多次才重建
+    static final int REFIT_AFTER = 4;    // 尚无实测成本时的盈亏平衡查询次数(偏低，以便尽早测到实际成本)
+    static final int MAX_REFIT_AFTER = 64; // BVH不划算时也隔这么多次查询重新测一次(靶标数变化后比例会变)
+    private static final int LEAF_SIZE = 4;
+    private static final double REBUILD_RATIO = 1.5;
+
+    // 图元(按构建后的顺序)
+    private int count = 0;
+    private int[] slots = new int[0];
+    private double[] cx = new double[0], cy = new double[0], cz = new double[0], cr = new double[0];
+
+    // 节点: cnt>0为叶子，图元为[start, start+cnt)；否则左孩子为left，右孩子为left+1
+    private double[] bmin = new double[0], bmax = new double[0];
+    private int[] left = new int[0], start = new int[0], cnt = new int[0];
+    private int nodeUsed = 0;
+    private double builtArea;   // 构建时的节点表面积之和
+
+    private int[] stack = new int[64];
+    private final double[] pose = new double[3];
+
+    /** 用存活槽位(evalNanos非0时取回溯位置)重建 */
+    void build(TargetStore store, long evalNanos) {
+        int n = store.size();
+        if (slots.length < n) {
+            int cap = Math.max(n, slots.length * 2);
+            slots = new int[cap];
+            cx = new double[cap]; cy = new double[cap]; cz = new double[cap]; cr = new double[cap];
+            bmin = new double[6 * cap]; bmax = new double[6 * cap];
+            left = new int[2 * cap]; start = new int[2 * cap]; cnt = new int[2 * cap];
+        }
+        for (int i = 0; i < n; i++) slots[i] = store.slotAt(i);
+        count = n;
+        gather(store, evalNanos);
+        rebuild();
+    }
+
+    private void rebuild() {
+        nodeUsed = 1;
+        if (count > 0) {
+            buildNode(0, 0, count);
+            refitNodes();
+        }
+        builtArea = totalArea();
+    }
+
+    /** 存活集合未变: 保留树结构，按新位置自底向上重算包围盒(孩子下标总是大于父节点) */
+    void refit(TargetStore store, long evalNanos) {
+        if (count == 0) return;
+        gather(store, evalNanos);
+        refitNodes();
+        if (totalArea() > builtArea * REBUILD_RATIO) rebuild();
+    }
+
+    /** 自底向上计算全部节点的包围盒 */
+    private void refitNodes() {
+        for (int node = nodeUsed - 1; node >= 0; node--) {
+            int n = cnt[node];
+            if (n > 0) {
+                leafBounds(node, start[node], n);
+                continue;
+            }
+            int a = left[node] * 3, b = a + 3, k = node * 3;
+            for (int d = 0; d < 3; d++) {
+                bmin[k + d] = bmin[a + d] < bmin[b + d] ? bmin[a + d] : bmin[b + d];
+                bmax[k + d] = bmax[a + d] > bmax[b + d] ? bmax[a + d] : bmax[b + d];
+            }
+        }
+    }
+
+    /** 按构建顺序读取各图元的位置和包围半径 */
+    private void gather(TargetStore store, long evalNanos) {
+        for (int i = 0; i < count; i++) {
+            int s = slots[i];
+            if (evalNanos == 0) {
+                cx[i] = store.x[s]; cy[i] = store.y[s]; cz[i] = store.z[s];
+            } else {
+                store.poseAt(s, evalNanos, pose);
+                cx[i] = pose[0]; cy[i] = pose[1]; cz[i] = pose[2];
+            }
+            cr[i] = store.boundRadius(s);
+        }
+    }
+
+    private void leafBounds(int node, int from, int n) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int i = from; i < from + n; i++) {
+            double r = cr[i];
+            double x = cx[i], y = cy[i], z = cz[i];
+            if (x - r < minX) minX = x - r;
+            if (x + r > maxX) maxX = x + r;
+            if (y - r < minY) minY = y - r;
+            if (y + r > maxY) maxY = y + r;
+            if (z - r < minZ) minZ = z - r;
+            if (z + r > maxZ) maxZ = z + r;
+        }
+        bmin[node * 3] = minX; bmin[node * 3 + 1] = minY; bmin[node * 3 + 2] = minZ;
+        bmax[node * 3] = maxX; bmax[node * 3 + 1] = maxY; bmax[node * 3 + 2] = maxZ;
+    }
+
+    /** 全部节点包围盒的表面积之和(衡量树质量，越大射线要访问的节点越多) */
+    private double totalArea() {
+        double sum = 0;
+        for (int node = 0; node < nodeUsed; node++) {
+            double ex = bmax[node * 3] - bmin[node * 3];
+            double ey = bmax[node * 3 + 1] - bmin[node * 3 + 1];
+            double ez = bmax[node * 3 + 2] - bmin[node * 3 + 2];
+            sum += ex * ey + ey * ez + ez * ex;
+        }
+        return sum;
+    }
+
+    /** 只划分图元，包围盒之后由refitNodes一次性自底向上算出 */
+    private void buildNode(int node, int from, int n) {
+        if (n <= LEAF_SIZE) {
+            start[node] = from;
+            cnt[node] = n;
+            return;
+        }
+        double cMinX = Double.MAX_VALUE, cMinY = Double.MAX_VALUE, cMinZ = Double.MAX_VALUE;
+        double cMaxX = -Double.MAX_VALUE, cMaxY = -Double.MAX_VALUE, cMaxZ = -Double.MAX_VALUE;
+        for (int i = from; i < from + n; i++) {
+            double x = cx[i], y = cy[i], z = cz[i];
+            if (x < cMinX) cMinX = x;
+            if (x > cMaxX) cMaxX = x;
+            if (y < cMinY) cMinY = y;
+            if (y > cMaxY) cMaxY = y;
+            if (z < cMinZ) cMinZ = z;
+            if (z > cMaxZ) cMaxZ = z;
+        }
+        double ex = cMaxX - cMinX, ey = cMaxY - cMinY, ez = cMaxZ - cMinZ;
+        double[] keys = ex >= ey ? (ex >= ez ? cx : cz) : (ey >= ez ? cy : cz);
+        int half = n / 2;
+        select(keys, from, from + n - 1, from + half);
+        int l = nodeUsed;
+        nodeUsed += 2;
+        left[node] = l;
+        cnt[node] = 0;
+        buildNode(l, from, half);
+        buildNode(l + 1, from + half, n - half);
+    }
+
+    /** 快速选择: 使[lo, hi]中第k小的图元就位，左边都不大于它、右边都不小于它 */
+    private void select(double[] keys, int lo, int hi, int k) {
+        while (hi > lo) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int s = slots[a]; slots[a] = slots[b]; slots[b] = s;
+        double t = cx[a]; cx[a] = cx[b]; cx[b] = t;
+        t = cy[a]; cy[a] = cy[b]; cy[b] = t;
+        t = cz[a]; cz[a] = cz[b]; cz[b] = t;
+        t = cr[a]; cr[a] = cr[b]; cr[b] = t;
+    }
+
+    /** 返回射线最先击中的存活槽位，未命中返回-1(命中部件由ray记录) */
+    int pick(AimRay ray, TargetStore store) {
+        if (count == 0) return -1;
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double dx = ray.getDirX(), dy = ray.getDirY(), dz = ray.getDirZ();
+        byte[] flags = store.flags;
+        int best = -1;
+        double bestDist = Double.MAX_VALUE;
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (nodeEntry(node, ox, oy, oz, dx, dy, dz) >= bestDist) continue;
+            int n = cnt[node];
+            if (n > 0) {
+                for (int i = start[node], end = i + n; i < end; i++) {
+                    int s = slots[i];
+                    if ((flags[s] & TargetStore.ALIVE) == 0) continue;
+                    double t = ray.intersectSlot(store, s, cx[i], cy[i], cz[i], cr[i], bestDist);
+                    if (t >= 0 && t < bestDist) {
+                        bestDist = t;
+                        best = s;
+                        ray.acceptCandidate();
+                    }
+                }
+                continue;
+            }
+            // 先访问近的孩子: 远的先入栈
+            int l = left[node];
+            double tl = nodeEntry(l, ox, oy, oz, dx, dy, dz);
+            double tr = nodeEntry(l + 1, ox, oy, oz, dx, dy, dz);
+            if (sp + 2 > stack.length) stack = java.util.Arrays.copyOf(stack, stack.length * 2);
+            if (tl <= tr) {
+                if (tr < bestDist) stack[sp++] = l + 1;
+                if (tl < bestDist) stack[sp++] = l;
+            } else {
+                if (tl < bestDist) stack[sp++] = l;
+                if (tr < bestDist) stack[sp++] = l + 1;
+            }
+        }
+        return best;
+    }
+
+    /** 射线进入节点包围盒的距离，未命中返回+∞ */
+    private double nodeEntry(int node, double ox, double oy, double oz, double dx, double dy, double dz) {
+        double t = HitShape.rayBox(ox, oy, oz, dx, dy, dz,
+            bmin[node * 3], bmin[node * 3 + 1], bmin[node * 3 + 2],
+            bmax[node * 3], bmax[node * 3 + 1], bmax[node * 3 + 2]);
+        return t < 0 ? Double.MAX_VALUE : t;
+    }
+
+    int getNodeCount() { return nodeUsed; }
+}
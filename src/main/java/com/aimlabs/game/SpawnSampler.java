@@ -0,0 +1,275 @@
+package com.aimlabs.game;
+
+import com.aimlabs.config.SessionSettings;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * 共享靶标生成采样器 - 均匀3D哈希网格 + Poisson-disk(Bridson)候选生成
+ * 网格边长不小于最大最小间距(区域过大时再放大)，距离检查只看minDist覆盖到的邻域格(通常为相邻27格)；
+ * 活跃点带反向下标，移除是O(1)交换删除，单次生成/移除的代价与靶标总数无关
+ */
+public class SpawnSampler {
+    private static final int DART_TRIES = 4;   // 先在整个区域随机投点，低密度时保持原有随机分布
+    private static final int CANDIDATES = 30;  // Bridson: 每个活跃点在环形区域内尝试的候选数
+    private static final int FALLBACK_TRIES = 30;
+    private static final int MAX_CELLS = 1 << 18;
+
+    // 生成区域(世界坐标)
+    private final double minX, maxX, minY, maxY, minZ, maxZ;
+    private final RandomGenerator random;
+
+    // 网格
+    private final double cellSize;
+    private final int nx, ny, nz;
+    private final int[] cellHead;
+
+    // 已放置的点(单链表挂在所属格子上)，空位用free链复用
+    private double[] px = new double[64], py = new double[64], pz = new double[64];
+    private int[] next = new int[64];
+    private int capacity = 64;
+    private int highWater = 0;
+    private int freeHead = -1;
+    private int size = 0;
+
+    // Bridson活跃点；activePos[p]为点p在active中的下标，-1为不活跃
+    private int[] active = new int[64];
+    private int[] activePos = new int[64];
+    private int activeCount = 0;
+
+    private int overlapCount = 0;
+
+    /**
+     * @param maxMinDist 本采样器会用到的最大最小间距(决定网格边长)
+     */
+    public SpawnSampler(double minX, double maxX, double minY, double maxY,
+                        double minZ, double maxZ, double maxMinDist, RandomGenerator random) {
+        this.minX = minX; this.maxX = Math.max(minX, maxX);
+        this.minY = minY; this.maxY = Math.max(minY, maxY);
+        this.minZ = minZ; this.maxZ = Math.max(minZ, maxZ);
+        this.random = random;
+
+        double cell = Math.max(1e-3, maxMinDist);
+        int cx, cy, cz;
+        while (true) {
+            cx = cells(this.maxX - this.minX, cell);
+            cy = cells(this.maxY - this.minY, cell);
+            cz = cells(this.maxZ - this.minZ, cell);
+            if ((long) cx * cy * cz <= MAX_CELLS) break;
+            cell *= 1.5; // 区域过大时放大格子: 格子只会比最小间距大，邻域仍能覆盖
+        }
+        this.cellSize = cell;
+        this.nx = cx; this.ny = cy; this.nz = cz;
+        this.cellHead = new int[nx * ny * nz];
+        Arrays.fill(cellHead, -1);
+    }
+
+    /** 按本局设置预先算好的生成区域构建(与各模式原有分布范围一致) */
+    public static SpawnSampler forSettings(SessionSettings settings, double maxMinDist, RandomGenerator random) {
+        return new SpawnSampler(
+            settings.getSpawnMinX(), settings.getSpawnMaxX(),
+            settings.getSpawnMinY(), settings.getSpawnMaxY(),
+            settings.getSpawnMinZ(), settings.getSpawnMaxZ(),
+            maxMinDist, random);
+    }
+
+    private static int cells(double extent, double cell) {
+        return Math.max(1, (int) Math.ceil(extent / cell));
+    }
+
+    /**
+     * 采样一个与现有点间距>=minDist的位置写入out[0..2]并登记
+     * @return false 表示区域已满，out为找到的离邻居最远的候选(会重叠)
+     */
+    public boolean sample(double minDist, double[] out) {
+        // 1. 全区域随机投点
+        for (int i = 0; i < DART_TRIES; i++) {
+            randomPoint(out);
+            if (isFree(out[0], out[1], out[2], minDist)) {
+                insert(out[0], out[1], out[2], true);
+                return true;
+            }
+        }
+        // 2. Bridson: 在活跃点周围[r, 2r]球壳内生成候选，失败的活跃点移出活跃表
+        while (activeCount > 0) {
+            int ai = random.nextInt(activeCount);
+            int p = active[ai];
+            for (int k = 0; k < CANDIDATES; k++) {
+                annulusPoint(px[p], py[p], pz[p], minDist, out);
+                if (inBounds(out[0], out[1], out[2]) && isFree(out[0], out[1], out[2], minDist)) {
+                    insert(out[0], out[1], out[2], true);
+                    return true;
+                }
+            }
+            deactivate(p);
+        }
+        // 3. 已无活跃点: 再全区域尝试，同时记录最佳候选
+        double bestX = 0, bestY = 0, bestZ = 0, bestDist = -1;
+        for (int i = 0; i < FALLBACK_TRIES; i++) {
+            randomPoint(out);
+            double d = nearestDistance(out[0], out[1], out[2], minDist);
+            if (d >= minDist) {
+                insert(out[0], out[1], out[2], true);
+                return true;
+            }
+            if (d > bestDist) {
+                bestDist = d;
+                bestX = out[0]; bestY = out[1]; bestZ = out[2];
+            }
+        }
+        out[0] = bestX; out[1] = bestY; out[2] = bestZ;
+        insert(bestX, bestY, bestZ, false);
+        overlapCount++;
+        return false;
+    }
+
+    /** 登记一个外部给定的点: 与现有点间距足够则加入并返回true，否则不加入 */
+    public boolean tryAdd(double x, double y, double z, double minDist) {
+        if (!isFree(x, y, z, minDist)) return false;
+        insert(x, y, z, true);
+        return true;
+    }
+
+    /** 强制登记一个点(允许重叠) */
+    public void add(double x, double y, double z) {
+        insert(x, y, z, false);
+    }
+
+    /** 移除一个已登记的点(靶标被击中/过期时调用) */
+    public void remove(double x, double y, double z) {
+        int c = cellIndex(x, y, z);
+        int prev = -1;
+        for (int p = cellHead[c]; p != -1; prev = p, p = next[p]) {
+            if (px[p] == x && py[p] == y && pz[p] == z) {
+                if (prev == -1) cellHead[c] = next[p]; else next[prev] = next[p];
+                if (activePos[p] >= 0) deactivate(p);
+                next[p] = freeHead;
+                freeHead = p;
+                size--;
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(cellHead, -1);
+        highWater = 0;
+        freeHead = -1;
+        size = 0;
+        activeCount = 0;
+    }
+
+    private void insert(double x, double y, double z, boolean makeActive) {
+        int p;
+        if (freeHead != -1) {
+            p = freeHead;
+            freeHead = next[p];
+        } else {
+            if (highWater == capacity) grow();
+            p = highWater++;
+        }
+        int c = cellIndex(x, y, z);
+        px[p] = x; py[p] = y; pz[p] = z;
+        next[p] = cellHead[c];
+        cellHead[c] = p;
+        size++;
+        activePos[p] = -1;
+        if (makeActive) {
+            if (activeCount == active.length) active = Arrays.copyOf(active, active.length * 2);
+            activePos[p] = activeCount;
+            active[activeCount++] = p;
+        }
+    }
+
+    /** 把点p移出活跃表: 用最后一个活跃点填补它的位置 */
+    private void deactivate(int p) {
+        int i = activePos[p];
+        int last = active[--activeCount];
+        active[i] = last;
+        activePos[last] = i;
+        activePos[p] = -1;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        px = Arrays.copyOf(px, capacity);
+        py = Arrays.copyOf(py, capacity);
+        pz = Arrays.copyOf(pz, capacity);
+        next = Arrays.copyOf(next, capacity);
+        activePos = Arrays.copyOf(activePos, capacity);
+    }
+
+    private boolean isFree(double x, double y, double z, double minDist) {
+        return nearestDistance(x, y, z, minDist) >= minDist;
+    }
+
+    /**
+     * 邻域内最近点的距离: 以所在格为中心、reach=ceil(minDist/格边长)格为半径的(2·reach+1)³个格子
+     * (minDist不超过格边长时即相邻27格)；邻域内没有点时返回Double.MAX_VALUE
+     */
+    private double nearestDistance(double x, double y, double z, double minDist) {
+        int reach = Math.max(1, (int) Math.ceil(minDist / cellSize));
+        int cx = clamp((int) ((x - minX) / cellSize), nx);
+        int cy = clamp((int) ((y - minY) / cellSize), ny);
+        int cz = clamp((int) ((z - minZ) / cellSize), nz);
+        double best2 = Double.MAX_VALUE;
+        for (int ix = Math.max(0, cx - reach); ix <= Math.min(nx - 1, cx + reach); ix++) {
+            for (int iy = Math.max(0, cy - reach); iy <= Math.min(ny - 1, cy + reach); iy++) {
+                for (int iz = Math.max(0, cz - reach); iz <= Math.min(nz - 1, cz + reach); iz++) {
+                    for (int p = cellHead[(ix * ny + iy) * nz + iz]; p != -1; p = next[p]) {
+                        double dx = px[p] - x, dy = py[p] - y, dz = pz[p] - z;
+                        double d2 = dx * dx + dy * dy + dz * dz;
+                        if (d2 < best2) best2 = d2;
+                    }
+                }
+            }
+        }
+        return best2 == Double.MAX_VALUE ? best2 : Math.sqrt(best2);
+    }
+
+    private int cellIndex(double x, double y, double z) {
+        int cx = clamp((int) ((x - minX) / cellSize), nx);
+        int cy = clamp((int) ((y - minY) / cellSize), ny);
+        int cz = clamp((int) ((z - minZ) / cellSize), nz);
+        return (cx * ny + cy) * nz + cz;
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : (v >= n ? n - 1 : v);
+    }
+
+    private boolean inBounds(double x, double y, double z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    private void randomPoint(double[] out) {
+        out[0] = minX + random.nextDouble() * (maxX - minX);
+        out[1] = minY + random.nextDouble() * (maxY - minY);
+        out[2] = minZ + random.nextDouble() * (maxZ - minZ);
+    }
+
+    /** 以(x,y,z)为中心、半径[r, 2r]的球壳内随机一点；区域退化为平面/直线时在剩余维度上生成 */
+    private void annulusPoint(double x, double y, double z, double r, double[] out) {
+        if (maxX <= minX && maxY <= minY && maxZ <= minZ) {
+            out[0] = x; out[1] = y; out[2] = z;
+            return;
+        }
+        double dx, dy, dz, len2;
+        do {
+            dx = maxX > minX ? random.nextDouble() * 2 - 1 : 0;
+            dy = maxY > minY ? random.nextDouble() * 2 - 1 : 0;
+            dz = maxZ > minZ ? random.nextDouble() * 2 - 1 : 0;
+            len2 = dx * dx + dy * dy + dz * dz;
+        } while (len2 > 1 || len2 < 1e-6);
+        double len = Math.sqrt(len2);
+        double dist = r * (1 + random.nextDouble());
+        out[0] = x + dx / len * dist;
+        out[1] = y + dy / len * dist;
+        out[2] = z + dz / len * dist;
+    }
+
+    public int size() { return size; }
+    public int getOverlapCount() { return overlapCount; }
+    public double getCellSize() { return cellSize; }
+}
@@ -0,0 +1,187 @@
+package com.aimlabs.game;
+
+import com.aimlabs.config.SessionSettings;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 预计算的靶标生成序列 - 同一种子必定得到同一串位置/大小/延迟
+ * 后台生产线程保持领先消费者LOOKAHEAD个靶标，经单生产者/单消费者无锁环形队列交付，
+ * 点击路径只需出队，不再做位置采样
+ */
+public class SpawnSchedule {
+    public static final int LOOKAHEAD = 64;
+    private static final int MAX_SKIPS = 8;
+
+    /** 一个预计算的靶标(消费者复用同一实例，避免分配) */
+    public static final class Entry {
+        public double x, y, z;
+        public int size;
+        public double delay; // 秒
+    }
+
+    private final long seed;
+    private final int minSize, maxSize;
+    private final double spacing;     // 最小间距 = size * targetDensity * spacing
+    private final double density;
+    private final double minDelay, maxDelay;
+
+    // 生产者专用: 随机流 + 模拟场上靶标的滑动窗口采样器
+    private final SplittableRandom posRandom;
+    private final SplittableRandom sizeRandom;
+    private final SplittableRandom delayRandom;
+    private final SpawnSampler windowSampler;
+    private final double[] windowX, windowY, windowZ;
+    private final double[] pos = new double[3];
+    private long produced = 0;
+
+    // 消费者专用随机流(高亮选择、速度方向等)
+    private final SplittableRandom auxRandom;
+
+    // SPSC环形队列
+    private final double[] ringX = new double[LOOKAHEAD];
+    private final double[] ringY = new double[LOOKAHEAD];
+    private final double[] ringZ = new double[LOOKAHEAD];
+    private final int[] ringSize = new int[LOOKAHEAD];
+    private final double[] ringDelay = new double[LOOKAHEAD];
+    private final AtomicLong tail = new AtomicLong(); // 生产者发布位置
+    private final AtomicLong head = new AtomicLong(); // 消费者已取位置
+    private volatile boolean closed = false;
+    private volatile boolean producerParked = false;
+    private final Thread producer;
+
+    /** 关闭上一个序列(null则跳过)的生产线程，再按给定参数开始新序列；各模式reset时调用 */
+    public static SpawnSchedule replace(SpawnSchedule previous, SessionSettings settings, GameMode mode, long seed,
+                                        int minSize, int maxSize, double spacing,
+                                        double minDelay, double maxDelay, int window) {
+        if (previous != null) previous.close();
+        return new SpawnSchedule(settings, mode, seed, minSize, maxSize, spacing, minDelay, maxDelay, window);
+    }
+
+    /**
+     * @param window 场上同时存在的靶标数，生产者据此保持最近window个位置互不重叠
+     */
+    public SpawnSchedule(SessionSettings settings, GameMode mode, long seed,
+                         int minSize, int maxSize, double spacing,
+                         double minDelay, double maxDelay, int window) {
+        this.seed = seed;
+        this.minSize = minSize;
+        this.maxSize = Math.max(minSize, maxSize);
+        this.spacing = spacing;
+        this.density = settings.getTargetDensity();
+        this.minDelay = minDelay;
+        this.maxDelay = Math.max(minDelay, maxDelay);
+
+        // 每个模式独立的根流，再拆分为互不影响的子流(改变延迟设置不会改变位置序列)
+        SplittableRandom root = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + mode.ordinal());
+        this.posRandom = root.split();
+        this.sizeRandom = root.split();
+        this.delayRandom = root.split();
+        this.auxRandom = root.split();
+
+        int w = Math.max(1, window);
+        this.windowX = new double[w];
+        this.windowY = new double[w];
+        this.windowZ = new double[w];
+        this.windowSampler = SpawnSampler.forSettings(settings, settings.minDistance(this.maxSize, spacing), posRandom);
+
+        // 先同步填满，保证开局时无需等待
+        for (int i = 0; i < LOOKAHEAD; i++) produceOne();
+
+        producer = new Thread(this::produceLoop, "SpawnSchedule-" + mode.name());
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    private void produceLoop() {
+        while (!closed) {
+            if (tail.get() - head.get() >= LOOKAHEAD) {
+                producerParked = true;
+                if (tail.get() - head.get() >= LOOKAHEAD && !closed) {
+                    LockSupport.park(this);
+                }
+                producerParked = false;
+                continue;
+            }
+            produceOne();
+        }
+    }
+
+    /** 生成一个条目并发布(仅生产线程或构造期间调用) */
+    private void produceOne() {
+        int size = minSize + (maxSize > minSize ? sizeRandom.nextInt(maxSize - minSize + 1) : 0);
+        windowSampler.sample(size * density * spacing, pos);
+        double delay = minDelay + delayRandom.nextDouble() * (maxDelay - minDelay);
+
+        // 滑动窗口: 超出场上数量的最早位置移出
+        int w = windowX.length;
+        int slot = (int) (produced % w);
+        if (produced >= w) {
+            windowSampler.remove(windowX[slot], windowY[slot], windowZ[slot]);
+        }
+        windowX[slot] = pos[0];
+        windowY[slot] = pos[1];
+        windowZ[slot] = pos[2];
+        produced++;
+
+        long t = tail.get();
+        int i = (int) (t % LOOKAHEAD);
+        ringX[i] = pos[0];
+        ringY[i] = pos[1];
+        ringZ[i] = pos[2];
+        ringSize[i] = size;
+        ringDelay[i] = delay;
+        tail.lazySet(t + 1);
+    }
+
+    /** 取出下一个预计算条目(生产者落后时自旋等待) */
+    public void next(Entry out) {
+        long h = head.get();
+        while (tail.get() == h) {
+            Thread.onSpinWait();
+        }
+        int i = (int) (h % LOOKAHEAD);
+        out.x = ringX[i];
+        out.y = ringY[i];
+        out.z = ringZ[i];
+        out.size = ringSize[i];
+        out.delay = ringDelay[i];
+        head.set(h + 1); // volatile写: 与下面读producerParked之间需要StoreLoad顺序
+        if (producerParked) LockSupport.unpark(producer);
+    }
+
+    /**
+     * 取出下一个能放进当前场景的条目并登记到live采样器
+     * 与场上靶标冲突的条目被跳过(同样的操作序列跳过的条目也相同，保证可复现)
+     */
+    public void nextPlaced(SpawnSampler live, Entry out) {
+        for (int skips = 0; ; skips++) {
+            next(out);
+            double minDist = out.size * density * spacing;
+            if (live.tryAdd(out.x, out.y, out.z, minDist)) return;
+            if (skips >= MAX_SKIPS) {
+                live.add(out.x, out.y, out.z);
+                return;
+            }
+        }
+    }
+
+    /** 最大尺寸对应的最小间距(live采样器的网格边长) */
+    public double maxMinDist() { return maxSize * density * spacing; }
+
+    /** 间距倍率: 最小间距 = size * targetDensity * spacing */
+    public double getSpacing() { return spacing; }
+
+    /** 消费者侧的种子随机流 */
+    public SplittableRandom aux() { return auxRandom; }
+
+    public long getSeed() { return seed; }
+
+    /** 停止生产线程 */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(producer);
+    }
+}
@@ -1,74 +1,53 @@
 package com.aimlabs.game;
 
-import java.awt.geom.Ellipse2D;
-import java.awt.Color;
-
 /**
  * 3D靶标对象 - 支持深度(z)坐标和透视投影
+ * 数据存放在TargetStore的数组中，Target是指向其中一个槽位的视图
+ * 不依赖AWT: 颜色为ARGB整数，屏幕形状和深度着色由渲染层负责
  */
 public class Target {
-    // 3D世界坐标 (x,y为水平/垂直偏移, z为深度距离)
-    private double x, y, z;
-    private double size; // 世界空间中的实际大小
-    private double velocityX, velocityY, velocityZ;
-    private Color color;
-    private boolean alive = true;
-    private long spawnTime;
-    private long lifetime; // ms, 0 = infinite
-    private boolean highlighted = false;
+    public static final int MAX_HISTORY_CAPACITY = TargetStore.MAX_HISTORY_CAPACITY;
+
+    final TargetStore store;
+    final int slot;
+    int listIndex = -1; // 在TargetList中的下标(由TargetList维护)
 
-    // 投影缓存
-    private double screenX, screenY, screenSize;
-    private double cameraSpaceZ; // 相机空间深度，用于排序
+    /** 存储中已有槽位的视图(由TargetStore.view创建) */
+    Target(TargetStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
 
-    public Target(double x, double y, double size, Color color) {
-        this(x, y, 0, size, color);
+    public Target(double x, double y, double size, int rgb) {
+        this(x, y, 0, size, rgb, 0);
     }
 
-    public Target(double x, double y, double z, double size, Color color) {
-        this.x = x;
-        this.y = y;
-        this.z = z;
-        this.size = size;
-        this.color = color;
-        this.spawnTime = System.currentTimeMillis();
-        this.lifetime = 0;
+    public Target(double x, double y, double z, double size, int rgb) {
+        this(x, y, z, size, rgb, 0);
     }
 
-    public Target(double x, double y, double size, Color color, long lifetimeMs) {
-        this(x, y, 0, size, color);
-        this.lifetime = lifetimeMs;
+    public Target(double x, double y, double size, int rgb, long lifetimeMs) {
+        this(x, y, 0, size, rgb, lifetimeMs);
     }
 
-    public Target(double x, double y, double z, double size, Color color, long lifetimeMs) {
-        this(x, y, z, size, color);
-        this.lifetime = lifetimeMs;
+    /** 独立靶标: 自带一个单槽位存储 */
+    public Target(double x, double y, double z, double size, int rgb, long lifetimeMs) {
+        this.store = new TargetStore(1, GameClock.realtime());
+        this.slot = store.allocate(x, y, z, size, rgb, lifetimeMs);
+        store.bindView(slot, this);
+    }
+
+    /** 对象池复用: 恢复到与新建(x,y,z,size,rgb,lifetimeMs)相同的状态 */
+    public void reset(double x, double y, double z, double size, int rgb, long lifetimeMs) {
+        store.reset(slot, x, y, z, size, rgb, lifetimeMs);
     }
 
     /**
      * 透视投影: 将3D世界坐标投影到2D屏幕
-     * 相机固定在原点，通过yaw/pitch旋转视角(FPS风格)
+     * 相机固定在原点，通过yaw/pitch旋转视角(FPS风格)；批量投影用TargetStore.projectAll
      */
     public void project(int screenW, int screenH, double fov, double yaw, double pitch) {
-        double centerX = screenW / 2.0;
-        double centerY = screenH / 2.0 + 30; // 偏移HUD
-
-        // 绕Y轴旋转(yaw)
-        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
-        double rx = x * cosY + z * sinY;
-        double rz = -x * sinY + z * cosY;
-
-        // 绕X轴旋转(pitch)
-        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
-        double ry = y * cosP - rz * sinP;
-        double rz2 = y * sinP + rz * cosP;
-
-        if (rz2 <= -fov + 1) rz2 = -fov + 1;
-        cameraSpaceZ = rz2; // 缓存相机空间深度，用于排序
-        double scale = fov / (fov + rz2);
-        screenX = centerX + rx * scale;
-        screenY = centerY + ry * scale;
-        screenSize = size * scale;
+        store.project(slot, screenW, screenH, fov, yaw, pitch);
     }
 
     /** 兼容旧调用 */
@@ -77,36 +56,19 @@ public class Target {
     }
 
     public void update3D(double dt, double maxX, double halfY, double halfZ) {
-        x += velocityX * dt;
-        y += velocityY * dt;
-        z += velocityZ * dt;
-
-        // +X区域内反弹
-        if (x < maxX * 0.1) { x = maxX * 0.1; velocityX = Math.abs(velocityX); }
-        if (x > maxX * 0.9) { x = maxX * 0.9; velocityX = -Math.abs(velocityX); }
-        if (y < -halfY * 0.8) { y = -halfY * 0.8; velocityY = Math.abs(velocityY); }
-        if (y > halfY * 0.8) { y = halfY * 0.8; velocityY = -Math.abs(velocityY); }
-        if (z < -halfZ * 0.8) { z = -halfZ * 0.8; velocityZ = Math.abs(velocityZ); }
-        if (z > halfZ * 0.8) { z = halfZ * 0.8; velocityZ = -Math.abs(velocityZ); }
-
-        // 生命周期
-        if (lifetime > 0 && System.currentTimeMillis() - spawnTime > lifetime) {
-            alive = false;
-        }
+        store.update3D(slot, dt, maxX, halfY, halfZ);
     }
 
     // SpeedMode兼容: 只检查生命周期
     public void update(double dt, int areaWidth, int areaHeight) {
-        if (lifetime > 0 && System.currentTimeMillis() - spawnTime > lifetime) {
-            alive = false;
-        }
+        store.expire(slot, store.getClock().now());
     }
 
     /** 基于投影后的屏幕坐标判定点击 */
     public boolean containsScreen(double px, double py) {
-        double dx = px - screenX;
-        double dy = py - screenY;
-        double r = screenSize / 2;
+        double dx = px - store.screenX[slot];
+        double dy = py - store.screenY[slot];
+        double r = store.screenSize[slot] / 2;
         return dx * dx + dy * dy <= r * r;
     }
 
@@ -115,71 +77,124 @@ public class Target {
         return containsScreen(px, py);
     }
 
-    public Ellipse2D.Double getScreenShape() {
-        return new Ellipse2D.Double(screenX - screenSize / 2, screenY - screenSize / 2, screenSize, screenSize);
+    /** 记录当前位置到历史缓冲(每次模拟更新后调用) */
+    public void recordPose(long nanos) {
+        store.recordPose(slot, nanos);
+    }
+
+    /**
+     * 回溯到指定时刻的位置，写入out[0..2]
+     * 在相邻两个历史样本间线性插值；超出最新样本取当前位置，早于最旧样本取最旧样本
+     */
+    public void poseAt(long nanos, double[] out) {
+        store.poseAt(slot, nanos, out);
+    }
+
+    public void clearHistory() {
+        store.histHead[slot] = 0;
+        store.histCount[slot] = 0;
+    }
+
+    /** 投影结果是否落在视口内(且在相机前方) */
+    public boolean isOnScreen(int screenW, int screenH) {
+        return store.isOnScreen(slot, screenW, screenH);
+    }
+
+    /** 标记首次呈现: 只记录第一帧, 之后的帧不覆盖 */
+    public void markVisible(long frameNanos) {
+        if (store.visibleNanos[slot] == 0) store.visibleNanos[slot] = frameNanos;
+    }
+
+    /** 反应计时起点: 已呈现则用呈现帧时刻，否则退回生成时刻 */
+    public long getReactionStartNanos() {
+        long visible = store.visibleNanos[slot];
+        return visible != 0 ? visible : store.spawnNanos[slot];
     }
 
-    public Ellipse2D.Double getShape() {
-        return getScreenShape();
+    /** 从呈现到点击的反应时间(纳秒) */
+    public long reactionNanos(long clickNanos) {
+        return Math.max(0, clickNanos - getReactionStartNanos());
     }
 
     /** 3D世界空间距离 */
     public double distanceTo3D(double ox, double oy, double oz) {
-        double dx = x - ox, dy = y - oy, dz = z - oz;
+        double dx = getX() - ox, dy = getY() - oy, dz = getZ() - oz;
         return Math.sqrt(dx*dx + dy*dy + dz*dz);
     }
 
     public double distanceTo(double px, double py) {
-        double dx = x - px;
-        double dy = y - py;
+        double dx = getX() - px;
+        double dy = getY() - py;
         return Math.sqrt(dx * dx + dy * dy);
     }
 
     /** 根据到原点距离计算暗化系数 (0~1, 越远越暗) */
     public float getDepthDim(double maxDist) {
+        return depthDim(getX(), getY(), getZ(), maxDist);
+    }
+
+    /** 获取深度调暗后的颜色(ARGB) */
+    public int getDepthRgb(double maxZ) {
+        return dimRgb(getRgb(), getDepthDim(maxZ));
+    }
+
+    /** 世界点的深度暗化系数(快照绘制与Target共用) */
+    public static float depthDim(double x, double y, double z, double maxDist) {
         if (maxDist <= 0) return 1.0f;
         double dist = Math.sqrt(x*x + y*y + z*z);
         float ratio = (float)(dist / maxDist);
         return Math.max(0.15f, 1.0f - ratio * ratio * 0.85f);
     }
 
-    /** 获取深度调暗后的颜色 */
-    public Color getDepthColor(double maxZ) {
-        float dim = getDepthDim(maxZ);
-        return new Color(
-            Math.max(0, Math.min(255, (int)(color.getRed() * dim))),
-            Math.max(0, Math.min(255, (int)(color.getGreen() * dim))),
-            Math.max(0, Math.min(255, (int)(color.getBlue() * dim)))
-        );
+    /** 各分量乘以dim后的不透明颜色 */
+    public static int dimRgb(int c, float dim) {
+        return rgb((int) (((c >> 16) & 0xFF) * dim), (int) (((c >> 8) & 0xFF) * dim), (int) ((c & 0xFF) * dim));
+    }
+
+    /** 打包不透明ARGB颜色，分量钳制到0~255 */
+    public static int rgb(int r, int g, int b) {
+        r = Math.max(0, Math.min(255, r));
+        g = Math.max(0, Math.min(255, g));
+        b = Math.max(0, Math.min(255, b));
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
     }
 
     // Getters & Setters
-    public double getX() { return x; }
-    public void setX(double x) { this.x = x; }
-    public double getY() { return y; }
-    public void setY(double y) { this.y = y; }
-    public double getZ() { return z; }
-    public void setZ(double z) { this.z = z; }
-    public double getSize() { return size; }
-    public void setSize(double size) { this.size = size; }
-    public double getScreenX() { return screenX; }
-    public double getScreenY() { return screenY; }
-    public double getScreenSize() { return screenSize; }
-    public double getCameraSpaceZ() { return cameraSpaceZ; }
-    public double getVelocityX() { return velocityX; }
-    public void setVelocityX(double vx) { this.velocityX = vx; }
-    public double getVelocityY() { return velocityY; }
-    public void setVelocityY(double vy) { this.velocityY = vy; }
-    public double getVelocityZ() { return velocityZ; }
-    public void setVelocityZ(double vz) { this.velocityZ = vz; }
-    public Color getColor() { return color; }
-    public void setColor(Color color) { this.color = color; }
-    public boolean isAlive() { return alive; }
-    public void setAlive(boolean alive) { this.alive = alive; }
-    public long getSpawnTime() { return spawnTime; }
-    public void resetSpawnTime() { this.spawnTime = System.currentTimeMillis(); }
-    public long getLifetime() { return lifetime; }
-    public void setLifetime(long lifetime) { this.lifetime = lifetime; }
-    public boolean isHighlighted() { return highlighted; }
-    public void setHighlighted(boolean highlighted) { this.highlighted = highlighted; }
+    public double getX() { return store.x[slot]; }
+    public void setX(double x) { store.x[slot] = x; store.markMoved(); }
+    public double getY() { return store.y[slot]; }
+    public void setY(double y) { store.y[slot] = y; store.markMoved(); }
+    public double getZ() { return store.z[slot]; }
+    public void setZ(double z) { store.z[slot] = z; store.markMoved(); }
+    public double getSize() { return store.size[slot]; }
+    public void setSize(double size) { store.size[slot] = size; store.markMoved(); }
+    /** 命中形状，null为球体 */
+    public HitShape getShape() { return store.shape[slot]; }
+    public void setShape(HitShape shape) { store.shape[slot] = shape; store.markMoved(); }
+    public double getScreenX() { return store.screenX[slot]; }
+    public double getScreenY() { return store.screenY[slot]; }
+    public double getScreenSize() { return store.screenSize[slot]; }
+    public double getCameraSpaceZ() { return store.cameraZ[slot]; }
+    public double getVelocityX() { return store.vx[slot]; }
+    public void setVelocityX(double vx) { store.vx[slot] = vx; }
+    public double getVelocityY() { return store.vy[slot]; }
+    public void setVelocityY(double vy) { store.vy[slot] = vy; }
+    public double getVelocityZ() { return store.vz[slot]; }
+    public void setVelocityZ(double vz) { store.vz[slot] = vz; }
+    public int getRgb() { return store.color[slot]; }
+    public void setRgb(int rgb) { store.color[slot] = rgb; }
+    public boolean isAlive() { return store.isAlive(slot); }
+    public void setAlive(boolean alive) { store.setFlag(slot, TargetStore.ALIVE, alive); }
+    /** 生成时刻(游戏时钟毫秒) */
+    public long getSpawnTime() { return store.spawnNanos[slot] / 1_000_000L; }
+    public void resetSpawnTime() { store.resetSpawnTime(slot); }
+    public long getSpawnNanos() { return store.spawnNanos[slot]; }
+    public long getVisibleNanos() { return store.visibleNanos[slot]; }
+    public boolean isVisible() { return store.visibleNanos[slot] != 0; }
+    public long getLifetime() { return store.lifetimeMs[slot]; }
+    public void setLifetime(long lifetime) { store.lifetimeMs[slot] = lifetime; }
+    public boolean isHighlighted() { return (store.flags[slot] & TargetStore.HIGHLIGHTED) != 0; }
+    public void setHighlighted(boolean highlighted) { store.setFlag(slot, TargetStore.HIGHLIGHTED, highlighted); }
+    public TargetStore getStore() { return store; }
+    public int getSlot() { return slot; }
 }
@@ -0,0 +1,200 @@
+package com.aimlabs.game;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 无序靶标容器 - swapRemove用末尾元素填补空位，O(1)删除且不移动其余元素
+ * 元素顺序没有意义，绘制顺序由深度排序决定
+ * 当列表恰好包含某个TargetStore的全部存活靶标时，批量操作直接走存储的数组循环
+ */
+public class TargetList extends AbstractList<Target> implements RandomAccess {
+    private Target[] items;
+    private int size = 0;
+    private TargetStore store;   // 元素共同所属的存储
+    private boolean mixedStores = false;
+
+    public TargetList() {
+        this(16);
+    }
+
+    public TargetList(int initialCapacity) {
+        items = new Target[Math.max(4, initialCapacity)];
+    }
+
+    @Override
+    public Target get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return items[index];
+    }
+
+    @Override
+    public Target set(int index, Target t) {
+        Target old = get(index);
+        old.listIndex = -1;
+        place(index, t);
+        return old;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public boolean add(Target t) {
+        if (size == items.length) items = Arrays.copyOf(items, size * 2);
+        place(size++, t);
+        modCount++;
+        return true;
+    }
+
+    private void place(int index, Target t) {
+        items[index] = t;
+        t.listIndex = index;
+        if (store == null && !mixedStores) {
+            store = t.store;
+        } else if (t.store != store) {
+            mixedStores = true;
+            store = null;
+        }
+    }
+
+    /** 移除下标处的靶标并用末尾靶标补位，返回被移除的靶标 */
+    public Target swapRemove(int index) {
+        Target removed = get(index);
+        int last = --size;
+        if (index != last) {
+            items[index] = items[last];
+            items[index].listIndex = index;
+        }
+        items[last] = null;
+        removed.listIndex = -1;
+        modCount++;
+        return removed;
+    }
+
+    /** List语义的有序删除(会移动后续元素)，游戏循环中应使用swapRemove */
+    @Override
+    public Target remove(int index) {
+        Target removed = get(index);
+        System.arraycopy(items, index + 1, items, index, size - index - 1);
+        items[--size] = null;
+        for (int i = index; i < size; i++) items[i].listIndex = i;
+        removed.listIndex = -1;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof Target t) {
+            int i = t.listIndex;
+            if (i >= 0 && i < size && items[i] == t) return i;
+        }
+        return -1;
+    }
+
+    /** 全部归还到对象池后清空 */
+    public void releaseAll(TargetPool pool) {
+        for (int i = 0; i < size; i++) {
+            items[i].listIndex = -1;
+            pool.release(items[i]);
+            items[i] = null;
+        }
+        size = 0;
+        store = null;
+        mixedStores = false;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            items[i].listIndex = -1;
+            items[i] = null;
+        }
+        size = 0;
+        store = null;
+        mixedStores = false;
+        modCount++;
+    }
+
+    /** 列表是否恰好覆盖一个存储的全部存活靶标(可走数组批量路径)，否则返回null */
+    public TargetStore wholeStore() {
+        return !mixedStores && store != null && store.size() == size ? store : null;
+    }
+
+    // ===== 批量操作: 覆盖整个存储时走紧凑数组循环，否则逐个处理 =====
+
+    public void projectAll(int screenW, int screenH, double fov, double yaw, double pitch) {
+        TargetStore s = wholeStore();
+        if (s != null) {
+            s.projectAll(screenW, screenH, fov, yaw, pitch);
+            return;
+        }
+        for (int i = 0; i < size; i++) items[i].project(screenW, screenH, fov, yaw, pitch);
+    }
+
+    public void update3DAll(double dt, double maxX, double halfY, double halfZ) {
+        TargetStore s = wholeStore();
+        if (s != null) {
+            s.update3DAll(dt, maxX, halfY, halfZ);
+            return;
+        }
+        for (int i = 0; i < size; i++) items[i].update3D(dt, maxX, halfY, halfZ);
+    }
+
+    public void expireAll(long nowNanos) {
+        TargetStore s = wholeStore();
+        if (s != null) {
+            s.expireAll(nowNanos);
+            return;
+        }
+        for (int i = 0; i < size; i++) items[i].store.expire(items[i].slot, nowNanos);
+    }
+
+    public void recordPoseAll(long nanos) {
+        TargetStore s = wholeStore();
+        if (s != null) {
+            s.recordPoseAll(nanos);
+            return;
+        }
+        for (int i = 0; i < size; i++) items[i].recordPose(nanos);
+    }
+
+    public void markVisibleAll(int screenW, int screenH, long frameNanos) {
+        markVisibleAll(screenW, screenH, frameNanos, Long.MAX_VALUE);
+    }
+
+    /** 只标记在stateNanos时刻已生成的靶标 */
+    public void markVisibleAll(int screenW, int screenH, long frameNanos, long stateNanos) {
+        TargetStore s = wholeStore();
+        if (s != null) {
+            s.markVisibleAll(screenW, screenH, frameNanos, stateNanos);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            Target t = items[i];
+            if (t.getSpawnNanos() <= stateNanos && t.isOnScreen(screenW, screenH)) t.markVisible(frameNanos);
+        }
+    }
+
+    /** 按呈现帧的相机投影各靶标在stateNanos时刻的位置，视口内且已生成的标记为首次呈现 */
+    public void markPresentedAll(int screenW, int screenH, double fov, double yaw, double pitch,
+                                 long frameNanos, long stateNanos) {
+        TargetStore s = wholeStore();
+        if (s != null) {
+            s.markPresentedAll(screenW, screenH, fov, yaw, pitch, frameNanos, stateNanos);
+            return;
+        }
+        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
+        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
+        for (int i = 0; i < size; i++) {
+            Target t = items[i];
+            if (t.getSpawnNanos() <= stateNanos
+                && t.store.isOnScreenAt(t.slot, screenW, screenH, fov, cosY, sinY, cosP, sinP, stateNanos)) {
+                t.markVisible(frameNanos);
+            }
+        }
+    }
+}
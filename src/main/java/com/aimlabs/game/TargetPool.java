@@ -0,0 +1,47 @@
+package com.aimlabs.game;
+
+import com.aimlabs.config.SessionSettings;
+
+/**
+ * 靶标对象池 - 由TargetStore支撑：归还即释放槽位，再次取出时复用槽位和它的视图，
+ * 稳定状态下生成循环不再分配；对局中只由模拟线程(SimulationLoop)使用，不做同步
+ */
+public class TargetPool {
+    private final TargetStore store;
+
+    public TargetPool() {
+        this(new TargetStore());
+    }
+
+    public TargetPool(GameClock clock) {
+        this(new TargetStore(64, clock));
+    }
+
+    /** 按本局设置保留位置历史: 只覆盖延迟补偿的最大回溯，关闭时不记录 */
+    public static TargetPool forSettings(SessionSettings settings, GameClock clock) {
+        return new TargetPool(new TargetStore(64, clock, TargetStore.historyCapacity(settings.getPoseHistoryMs())));
+    }
+
+    public TargetPool(TargetStore store) {
+        this.store = store;
+    }
+
+    /** 取出一个重置为新生成状态的靶标 */
+    public Target acquire(double x, double y, double z, double size, int rgb, long lifetimeMs) {
+        return store.view(store.allocate(x, y, z, size, rgb, lifetimeMs));
+    }
+
+    public Target acquire(double x, double y, double z, double size, int rgb) {
+        return acquire(x, y, z, size, rgb, 0);
+    }
+
+    /** 归还靶标，调用方之后不得再持有它 */
+    public void release(Target t) {
+        if (t.store == store) store.free(t.slot);
+    }
+
+    public TargetStore getStore() { return store; }
+
+    /** 累计新建的靶标视图数(稳定状态下不再增长) */
+    public int getCreatedCount() { return store.getViewsCreated(); }
+}
@@ -0,0 +1,178 @@
+package com.aimlabs.game;
+
+import java.util.Arrays;
+
+/**
+ * 移动靶标之间的分离 - 保持与生成时相同的最小间距(size * targetDensity * spacing)
+ * 粗筛用均匀网格: 边长取当前最大间距，每个靶标只检查相邻27格，整体接近线性
+ * 网格用计数排序建在扁平数组上，每tick重建，不做逐帧分配
+ */
+public class TargetSeparation {
+    // 27邻域中字典序大于(0,0,0)的13个偏移
+    private static final int[] HALF_STENCIL = {
+        0, 0, 1,
+        0, 1, -1, 0, 1, 0, 0, 1, 1,
+        1, -1, -1, 1, -1, 0, 1, -1, 1,
+        1, 0, -1, 1, 0, 0, 1, 0, 1,
+        1, 1, -1, 1, 1, 0, 1, 1, 1
+    };
+
+    private final double factor; // targetDensity * spacing
+
+    // 按存活顺序: 槽位、格坐标、格哈希
+    private int[] slots = new int[64];
+    private int[] cellX = new int[64], cellY = new int[64], cellZ = new int[64];
+    private int[] hash = new int[64];
+    // 计数排序后的桶: bucketStart[h]..bucketStart[h+1]为order中的区间
+    private int[] bucketStart = new int[129];
+    private int[] order = new int[64];
+    private int mask;
+
+    // 按槽位: 本tick累计的位移(表驱动运动据此平移锚点)
+    private double[] pushX = new double[64], pushY = new double[64], pushZ = new double[64];
+
+    private int pairCount;
+
+    public TargetSeparation(double density, double spacing) {
+        this.factor = density * spacing;
+    }
+
+    /**
+     * 推开所有间距不足的靶标对，并交换两者在法线方向上的相对速度(等质量弹性碰撞)
+     * @return 本次处理的重叠对数
+     */
+    public int resolve(TargetStore store) {
+        int n = store.size();
+        ensureCapacity(n, store.getCapacity());
+        pairCount = 0;
+        if (n < 2) {
+            for (int i = 0; i < n; i++) clearPush(store.slotAt(i));
+            return 0;
+        }
+
+        double[] xs = store.x, ys = store.y, zs = store.z, sizes = store.size;
+        double maxSize = 0;
+        for (int i = 0; i < n; i++) {
+            int s = store.slotAt(i);
+            slots[i] = s;
+            clearPush(s);
+            if (sizes[s] > maxSize) maxSize = sizes[s];
+        }
+        double cell = maxSize * factor;
+        if (cell <= 0) return 0;
+        double inv = 1.0 / cell;
+
+        // 计数排序进哈希桶
+        int buckets = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+        if (bucketStart.length < buckets + 1) bucketStart = new int[buckets + 1];
+        mask = buckets - 1;
+        Arrays.fill(bucketStart, 0, buckets + 1, 0);
+        for (int i = 0; i < n; i++) {
+            int s = slots[i];
+            int cx = (int) Math.floor(xs[s] * inv);
+            int cy = (int) Math.floor(ys[s] * inv);
+            int cz = (int) Math.floor(zs[s] * inv);
+            cellX[i] = cx;
+            cellY[i] = cy;
+            cellZ[i] = cz;
+            int h = hashCell(cx, cy, cz);
+            hash[i] = h;
+            bucketStart[h + 1]++;
+        }
+        for (int h = 0; h < buckets; h++) bucketStart[h + 1] += bucketStart[h];
+        for (int i = 0; i < n; i++) {
+            // bucketStart[h]兼作桶h的写指针
+            order[bucketStart[hash[i]]++] = i;
+        }
+        // 回退写指针，恢复每个桶的起点
+        for (int h = buckets; h > 0; h--) bucketStart[h] = bucketStart[h - 1];
+        bucketStart[0] = 0;
+
+        // 按桶顺序遍历，同格靶标相邻；半邻域(自身格之后的13格)保证每对只检查一次
+        for (int k = 0; k < n; k++) {
+            int a = order[k];
+            int cx = cellX[a], cy = cellY[a], cz = cellZ[a];
+            int sa = slots[a];
+            for (int m = k + 1, end = bucketStart[hash[a] + 1]; m < end; m++) {
+                int b = order[m];
+                if (cellX[b] == cx && cellY[b] == cy && cellZ[b] == cz) separatePair(store, sa, slots[b]);
+            }
+            for (int o = 0; o < HALF_STENCIL.length; o += 3) {
+                int nx = cx + HALF_STENCIL[o], ny = cy + HALF_STENCIL[o + 1], nz = cz + HALF_STENCIL[o + 2];
+                int h = hashCell(nx, ny, nz);
+                for (int m = bucketStart[h], end = bucketStart[h + 1]; m < end; m++) {
+                    int b = order[m];
+                    // 哈希冲突的其他格跳过
+                    if (cellX[b] == nx && cellY[b] == ny && cellZ[b] == nz) separatePair(store, sa, slots[b]);
+                }
+            }
+        }
+        if (pairCount > 0) store.markMoved();
+        return pairCount;
+    }
+
+    private void separatePair(TargetStore store, int i, int j) {
+        double[] xs = store.x, ys = store.y, zs = store.z;
+        double minDist = Math.max(store.size[i], store.size[j]) * factor;
+        double dx = xs[j] - xs[i], dy = ys[j] - ys[i], dz = zs[j] - zs[i];
+        double d2 = dx * dx + dy * dy + dz * dz;
+        if (d2 >= minDist * minDist) return;
+
+        double d = Math.sqrt(d2);
+        double nx, ny, nz;
+        if (d > 1e-9) {
+            nx = dx / d; ny = dy / d; nz = dz / d;
+        } else {
+            // 完全重合: 沿横向(Z)分开，按槽位决定方向以保持可复现
+            nx = 0; ny = 0; nz = i < j ? 1 : -1;
+        }
+        double half = (minDist - d) * 0.5;
+        xs[i] -= nx * half; ys[i] -= ny * half; zs[i] -= nz * half;
+        xs[j] += nx * half; ys[j] += ny * half; zs[j] += nz * half;
+        pushX[i] -= nx * half; pushY[i] -= ny * half; pushZ[i] -= nz * half;
+        pushX[j] += nx * half; pushY[j] += ny * half; pushZ[j] += nz * half;
+
+        // 正在相互接近时交换法线方向速度分量
+        double[] vx = store.vx, vy = store.vy, vz = store.vz;
+        double rel = (vx[j] - vx[i]) * nx + (vy[j] - vy[i]) * ny + (vz[j] - vz[i]) * nz;
+        if (rel < 0) {
+            vx[i] += rel * nx; vy[i] += rel * ny; vz[i] += rel * nz;
+            vx[j] -= rel * nx; vy[j] -= rel * ny; vz[j] -= rel * nz;
+        }
+        pairCount++;
+    }
+
+    private int hashCell(int x, int y, int z) {
+        return (x * 0x8DA6B343 + y * 0xD8163841 + z) & mask;
+    }
+
+    private void clearPush(int s) {
+        pushX[s] = 0;
+        pushY[s] = 0;
+        pushZ[s] = 0;
+    }
+
+    private void ensureCapacity(int n, int slotCapacity) {
+        if (slots.length < n) {
+            int cap = Math.max(n, slots.length * 2);
+            slots = new int[cap];
+            cellX = new int[cap];
+            cellY = new int[cap];
+            cellZ = new int[cap];
+            hash = new int[cap];
+            order = new int[cap];
+        }
+        if (pushX.length < slotCapacity) {
+            int cap = Math.max(slotCapacity, pushX.length * 2);
+            pushX = Arrays.copyOf(pushX, cap);
+            pushY = Arrays.copyOf(pushY, cap);
+            pushZ = Arrays.copyOf(pushZ, cap);
+        }
+    }
+
+    /** 槽位在最近一次resolve中被推开的位移 */
+    public double getPushX(int slot) { return pushX[slot]; }
+    public double getPushY(int slot) { return pushY[slot]; }
+    public double getPushZ(int slot) { return pushZ[slot]; }
+    public int getPairCount() { return pairCount; }
+}
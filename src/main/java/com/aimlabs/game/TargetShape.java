@@ -0,0 +1,34 @@
+package com.aimlabs.game;
+
+/**
+ * 靶标外形 - 球体用半径判定；其余为组合判定形状，按命中部件计分倍率
+ */
+public enum TargetShape {
+    SPHERE("球体", null),
+    HUMANOID("人形", HitShape.humanoid());
+
+    private final String displayName;
+    private final HitShape hitShape;
+
+    TargetShape(String displayName, HitShape hitShape) {
+        this.displayName = displayName;
+        this.hitShape = hitShape;
+    }
+
+    public String getDisplayName() { return displayName; }
+
+    /** 组合判定形状，球体返回null */
+    public HitShape getHitShape() { return hitShape; }
+
+    /** 按形状对象反查(快照中以序号保存) */
+    public static TargetShape of(HitShape shape) {
+        if (shape == null) return SPHERE;
+        for (TargetShape s : values()) {
+            if (s.hitShape == shape) return s;
+        }
+        return SPHERE;
+    }
+
+    @Override
+    public String toString() { return displayName; }
+}
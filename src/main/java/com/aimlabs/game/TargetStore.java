@@ -0,0 +1,495 @@
+package com.aimlabs.game;
+
+import com.aimlabs.sim.SimulationLoop;
+
+import java.util.Arrays;
+
+/**
+ * 靶标数据的数组结构(SoA)存储 - 每个属性一个基本类型数组，按槽位(slot)寻址
+ * 槽位在靶标存活期间保持不变，Target只是指向槽位的轻量视图；
+ * 更新/投影/命中判定以紧凑循环遍历存活槽位，数万靶标时仍保持缓存友好
+ */
+public class TargetStore {
+    // 位置历史每tick记录一次，容量要覆盖模拟频率下的回溯时长(再多两个样本供插值)
+    public static final int MAX_HISTORY_CAPACITY = historyCapacity(LagCompensator.MAX_REWIND_MS);
+
+    static final byte ALIVE = 1;
+    static final byte HIGHLIGHTED = 2;
+    static final byte BEHIND_CAMERA = 4;
+
+    private final GameClock clock;
+    private int capacity;
+
+    // 世界空间状态
+    double[] x, y, z;
+    double[] vx, vy, vz;
+    double[] size;
+    int[] color;           // ARGB
+    byte[] flags;
+    long[] spawnNanos;
+    long[] visibleNanos;   // 首次呈现的帧时刻, 0 = 尚未呈现
+    long[] lifetimeMs;     // 0 = 无限
+    HitShape[] shape;      // null = 球体(直径size)；多个靶标共享同一个形状实例
+
+    // 投影结果
+    double[] screenX, screenY, screenSize, cameraZ;
+
+    // 位置历史(延迟补偿)，每个槽位占historyCapacity个连续元素；容量为0时不记录
+    private final int historyCapacity;
+    long[] histNanos;
+    double[] histX, histY, histZ;
+    int[] histHead, histCount;
+    private final double[] presentPose = new double[3];   // markPresentedAll的回溯位置暂存
+
+    // 存活槽位的紧凑列表，批量循环只遍历这里
+    private int[] live;
+    private int[] liveIndex;
+    private int liveCount = 0;
+
+    // 空闲槽位栈
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int highWater = 0;
+
+    private Target[] views;
+    private int viewsCreated = 0;
+
+    // 位置/形状/存活集合每次变化都递增modCount，存活集合变化另递增structCount；
+    // 场景BVH据此判断: 只是移动则重拟合包围盒，增删了靶标才重建
+    private long modCount = 0;
+    private long structCount = 0;
+    private SceneBvh sceneBvh;
+    private long bvhModCount = -1, bvhStructCount = -1;
+    private long bvhEvalNanos;
+    private long queryModCount = -1, queryEvalNanos;   // 上一次拾取查询时的状态
+    private long queryStructCount = -1;
+    private int structQueries = 0;                     // 当前存活集合下已查询的次数
+    private int stateQueries = 0;                      // 当前状态下已查询的次数
+    private double queriesPerState;                    // 被查询过的状态平均每个查询几次(指数平均)
+    // 实测成本(纳秒，指数平均): 线性扫描、BVH遍历、重拟合各一次，0为尚未测到
+    private double linearCost, bvhQueryCost, refitCost;
+
+    public TargetStore() {
+        this(64, GameClock.realtime());
+    }
+
+    public TargetStore(int initialCapacity, GameClock clock) {
+        this(initialCapacity, clock, MAX_HISTORY_CAPACITY);
+    }
+
+    /**
+     * clock: 生成时刻/生命周期都按该时钟计时(暂停时不流逝)
+     * historyCapacity: 每个槽位保留的位置历史样本数(见historyCapacity(int))，0为不记录
+     */
+    public TargetStore(int initialCapacity, GameClock clock, int historyCapacity) {
+        this.clock = clock;
+        this.historyCapacity = Math.max(0, historyCapacity);
+        capacity = Math.max(1, initialCapacity);
+        x = new double[capacity]; y = new double[capacity]; z = new double[capacity];
+        vx = new double[capacity]; vy = new double[capacity]; vz = new double[capacity];
+        size = new double[capacity];
+        color = new int[capacity];
+        flags = new byte[capacity];
+        spawnNanos = new long[capacity];
+        visibleNanos = new long[capacity];
+        lifetimeMs = new long[capacity];
+        shape = new HitShape[capacity];
+        screenX = new double[capacity]; screenY = new double[capacity];
+        screenSize = new double[capacity]; cameraZ = new double[capacity];
+        histNanos = new long[capacity * this.historyCapacity];
+        histX = new double[capacity * this.historyCapacity];
+        histY = new double[capacity * this.historyCapacity];
+        histZ = new double[capacity * this.historyCapacity];
+        histHead = new int[capacity];
+        histCount = new int[capacity];
+        live = new int[capacity];
+        liveIndex = new int[capacity];
+        freeSlots = new int[capacity];
+        views = new Target[capacity];
+    }
+
+    private void grow() {
+        int n = capacity * 2;
+        x = Arrays.copyOf(x, n); y = Arrays.copyOf(y, n); z = Arrays.copyOf(z, n);
+        vx = Arrays.copyOf(vx, n); vy = Arrays.copyOf(vy, n); vz = Arrays.copyOf(vz, n);
+        size = Arrays.copyOf(size, n);
+        color = Arrays.copyOf(color, n);
+        flags = Arrays.copyOf(flags, n);
+        spawnNanos = Arrays.copyOf(spawnNanos, n);
+        visibleNanos = Arrays.copyOf(visibleNanos, n);
+        lifetimeMs = Arrays.copyOf(lifetimeMs, n);
+        shape = Arrays.copyOf(shape, n);
+        screenX = Arrays.copyOf(screenX, n); screenY = Arrays.copyOf(screenY, n);
+        screenSize = Arrays.copyOf(screenSize, n); cameraZ = Arrays.copyOf(cameraZ, n);
+        histNanos = Arrays.copyOf(histNanos, n * historyCapacity);
+        histX = Arrays.copyOf(histX, n * historyCapacity);
+        histY = Arrays.copyOf(histY, n * historyCapacity);
+        histZ = Arrays.copyOf(histZ, n * historyCapacity);
+        histHead = Arrays.copyOf(histHead, n);
+        histCount = Arrays.copyOf(histCount, n);
+        live = Arrays.copyOf(live, n);
+        liveIndex = Arrays.copyOf(liveIndex, n);
+        freeSlots = Arrays.copyOf(freeSlots, n);
+        views = Arrays.copyOf(views, n);
+        capacity = n;
+    }
+
+    /** 覆盖historyMs回溯时长所需的每槽位样本数(按模拟频率每tick一个，多两个供插值)，0或负数为不记录 */
+    public static int historyCapacity(int historyMs) {
+        if (historyMs <= 0) return 0;
+        return SimulationLoop.TICK_RATE * Math.min(historyMs, LagCompensator.MAX_REWIND_MS) / 1000 + 2;
+    }
+
+    public int getHistoryCapacity() { return historyCapacity; }
+
+    /** 分配一个槽位并初始化为新生成的靶标 */
+    public int allocate(double px, double py, double pz, double sz, int rgb, long lifetime) {
+        int s;
+        if (freeCount > 0) {
+            s = freeSlots[--freeCount];
+        } else {
+            if (highWater == capacity) grow();
+            s = highWater++;
+        }
+        live[liveCount] = s;
+        liveIndex[s] = liveCount++;
+        reset(s, px, py, pz, sz, rgb, lifetime);
+        structCount++;
+        return s;
+    }
+
+    /** 释放槽位，对应的视图之后不得再使用 */
+    public void free(int s) {
+        int i = liveIndex[s];
+        if (i < 0) return;
+        int last = live[--liveCount];
+        live[i] = last;
+        liveIndex[last] = i;
+        liveIndex[s] = -1;
+        flags[s] = 0;
+        shape[s] = null;
+        freeSlots[freeCount++] = s;
+        modCount++;
+        structCount++;
+    }
+
+    void reset(int s, double px, double py, double pz, double sz, int rgb, long lifetime) {
+        x[s] = px; y[s] = py; z[s] = pz;
+        vx[s] = 0; vy[s] = 0; vz[s] = 0;
+        size[s] = sz;
+        color[s] = rgb;
+        lifetimeMs[s] = lifetime;
+        shape[s] = null;
+        flags[s] = ALIVE;
+        screenX[s] = 0; screenY[s] = 0; screenSize[s] = 0; cameraZ[s] = 0;
+        histHead[s] = 0;
+        histCount[s] = 0;
+        resetSpawnTime(s);
+        modCount++;
+    }
+
+    void resetSpawnTime(int s) {
+        spawnNanos[s] = clock.now();
+        visibleNanos[s] = 0;
+    }
+
+    /** 槽位对应的视图(每个槽位只创建一次) */
+    public Target view(int s) {
+        Target t = views[s];
+        if (t == null) {
+            t = new Target(this, s);
+            views[s] = t;
+            viewsCreated++;
+        }
+        return t;
+    }
+
+    /** 独立构造的Target把自己登记为槽位视图 */
+    void bindView(int s, Target t) {
+        views[s] = t;
+    }
+
+    public int size() { return liveCount; }
+    public int slotAt(int i) { return live[i]; }
+    public int getCapacity() { return capacity; }
+    public int getViewsCreated() { return viewsCreated; }
+    public GameClock getClock() { return clock; }
+
+    /** 位置或尺寸在批量循环之外被直接改写后调用，使场景BVH失效 */
+    public void markMoved() {
+        modCount++;
+    }
+
+    /** 包围球半径: 球体为size/2，组合形状为size倍的形状包围半径 */
+    double boundRadius(int s) {
+        HitShape hs = shape[s];
+        return hs == null ? size[s] / 2 : size[s] * hs.getBoundRadius();
+    }
+
+    /**
+     * 与当前状态和判定时刻一致的场景BVH，返回null时调用方线性扫描
+     * 靶标每tick都在动，重拟合一次的成本相当于若干次线性扫描(球体约9次，组合形状约5次)，
+     * 由此得到盈亏平衡的每状态查询次数refitAfter(): 近来每个状态平均被查询的次数超过它时，
+     * 状态一变就重拟合；否则线性扫描，单个状态被查询超过它次时才重拟合(最坏约为最优的2倍，顺带更新实测成本)；
+     * 重建约等于上百次线性扫描，存活集合稳定地被查询REBUILD_AFTER次后才重建
+     */
+    SceneBvh sceneBvh(long evalNanos) {
+        if (queryModCount != modCount || queryEvalNanos != evalNanos) {
+            if (stateQueries > 0) queriesPerState = average(queriesPerState, stateQueries);
+            queryModCount = modCount;
+            queryEvalNanos = evalNanos;
+            stateQueries = 0;
+        }
+        stateQueries++;
+        if (sceneBvh != null && bvhModCount == modCount && bvhEvalNanos == evalNanos) return sceneBvh;
+        if (queryStructCount != structCount) {
+            queryStructCount = structCount;
+            structQueries = 0;
+        }
+        structQueries++;
+        int breakEven = refitAfter();
+        if (stateQueries <= breakEven && queriesPerState <= breakEven) return null;
+        if (bvhStructCount != structCount && structQueries < SceneBvh.REBUILD_AFTER) return null;
+        if (sceneBvh == null) sceneBvh = new SceneBvh();
+        if (bvhStructCount != structCount) {
+            sceneBvh.build(this, evalNanos);
+        } else if (bvhModCount != modCount || bvhEvalNanos != evalNanos) {
+            long start = System.nanoTime();
+            sceneBvh.refit(this, evalNanos);
+            refitCost = average(refitCost, System.nanoTime() - start);
+        }
+        bvhStructCount = structCount;
+        bvhModCount = modCount;
+        bvhEvalNanos = evalNanos;
+        return sceneBvh;
+    }
+
+    /** 重拟合的盈亏平衡点: 一个状态被查询超过这么多次，重拟合加BVH遍历才比全部线性扫描省 */
+    private int refitAfter() {
+        if (refitCost == 0 || linearCost == 0 || bvhQueryCost == 0) return SceneBvh.REFIT_AFTER;
+        double saving = linearCost - bvhQueryCost;
+        if (saving <= 0) return SceneBvh.MAX_REFIT_AFTER;
+        return (int) Math.min(SceneBvh.MAX_REFIT_AFTER, Math.ceil(refitCost / saving));
+    }
+
+    /** AimRay.pickSlot记录一次查询的耗时，bvh为true时走了场景BVH */
+    void recordQuery(boolean bvh, long nanos) {
+        if (bvh) bvhQueryCost = average(bvhQueryCost, nanos);
+        else linearCost = average(linearCost, nanos);
+    }
+
+    private static double average(double avg, long sample) {
+        return avg == 0 ? sample : avg + (sample - avg) * 0.125;
+    }
+
+    // ===== 批量操作 =====
+
+    /** 透视投影所有存活槽位，三角函数每帧只算一次 */
+    public void projectAll(int screenW, int screenH, double fov, double yaw, double pitch) {
+        double centerX = screenW / 2.0;
+        double centerY = screenH / 2.0 + 30;
+        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
+        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
+        double nearZ = -fov + 1;
+        for (int i = 0; i < liveCount; i++) {
+            int s = live[i];
+            double px = x[s], py = y[s], pz = z[s];
+            double rx = px * cosY + pz * sinY;
+            double rz = -px * sinY + pz * cosY;
+            double ry = py * cosP - rz * sinP;
+            double rz2 = py * sinP + rz * cosP;
+            if (rz2 <= nearZ) {
+                rz2 = nearZ;
+                flags[s] |= BEHIND_CAMERA;
+            } else {
+                flags[s] &= ~BEHIND_CAMERA;
+            }
+            cameraZ[s] = rz2;
+            double scale = fov / (fov + rz2);
+            screenX[s] = centerX + rx * scale;
+            screenY[s] = centerY + ry * scale;
+            screenSize[s] = size[s] * scale;
+        }
+    }
+
+    /** 单个槽位投影(兼容Target.project) */
+    void project(int s, int screenW, int screenH, double fov, double yaw, double pitch) {
+        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
+        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
+        double rx = x[s] * cosY + z[s] * sinY;
+        double rz = -x[s] * sinY + z[s] * cosY;
+        double ry = y[s] * cosP - rz * sinP;
+        double rz2 = y[s] * sinP + rz * cosP;
+        if (rz2 <= -fov + 1) {
+            rz2 = -fov + 1;
+            flags[s] |= BEHIND_CAMERA;
+        } else {
+            flags[s] &= ~BEHIND_CAMERA;
+        }
+        cameraZ[s] = rz2;
+        double scale = fov / (fov + rz2);
+        screenX[s] = screenW / 2.0 + rx * scale;
+        screenY[s] = screenH / 2.0 + 30 + ry * scale;
+        screenSize[s] = size[s] * scale;
+    }
+
+    /** 移动所有存活靶标并在+X区域内反弹，同时检查生命周期 */
+    public void update3DAll(double dt, double maxX, double halfY, double halfZ) {
+        double minXb = maxX * 0.1, maxXb = maxX * 0.9;
+        double yb = halfY * 0.8, zb = halfZ * 0.8;
+        for (int i = 0; i < liveCount; i++) {
+            int s = live[i];
+            double px = x[s] + vx[s] * dt;
+            double py = y[s] + vy[s] * dt;
+            double pz = z[s] + vz[s] * dt;
+            if (px < minXb) { px = minXb; vx[s] = Math.abs(vx[s]); }
+            if (px > maxXb) { px = maxXb; vx[s] = -Math.abs(vx[s]); }
+            if (py < -yb) { py = -yb; vy[s] = Math.abs(vy[s]); }
+            if (py > yb) { py = yb; vy[s] = -Math.abs(vy[s]); }
+            if (pz < -zb) { pz = -zb; vz[s] = Math.abs(vz[s]); }
+            if (pz > zb) { pz = zb; vz[s] = -Math.abs(vz[s]); }
+            x[s] = px; y[s] = py; z[s] = pz;
+        }
+        modCount++;
+        expireAll(clock.now());
+    }
+
+    void update3D(int s, double dt, double maxX, double halfY, double halfZ) {
+        x[s] += vx[s] * dt;
+        y[s] += vy[s] * dt;
+        z[s] += vz[s] * dt;
+        if (x[s] < maxX * 0.1) { x[s] = maxX * 0.1; vx[s] = Math.abs(vx[s]); }
+        if (x[s] > maxX * 0.9) { x[s] = maxX * 0.9; vx[s] = -Math.abs(vx[s]); }
+        if (y[s] < -halfY * 0.8) { y[s] = -halfY * 0.8; vy[s] = Math.abs(vy[s]); }
+        if (y[s] > halfY * 0.8) { y[s] = halfY * 0.8; vy[s] = -Math.abs(vy[s]); }
+        if (z[s] < -halfZ * 0.8) { z[s] = -halfZ * 0.8; vz[s] = Math.abs(vz[s]); }
+        if (z[s] > halfZ * 0.8) { z[s] = halfZ * 0.8; vz[s] = -Math.abs(vz[s]); }
+        modCount++;
+        expire(s, clock.now());
+    }
+
+    /** 生命周期到期的靶标标记为非存活(槽位仍保留，由模式负责移除) */
+    public void expireAll(long nowNanos) {
+        for (int i = 0; i < liveCount; i++) {
+            expire(live[i], nowNanos);
+        }
+    }
+
+    void expire(int s, long nowNanos) {
+        if (lifetimeMs[s] > 0 && nowNanos - spawnNanos[s] > lifetimeMs[s] * 1_000_000L) {
+            flags[s] &= ~ALIVE;
+        }
+    }
+
+    /**
+     * 记录所有存活靶标的当前位置
+     * 不递增modCount: 新样本就是当前位置，回溯时刻的位置不因记录而变化(移动本身已递增过)
+     */
+    public void recordPoseAll(long nanos) {
+        if (historyCapacity == 0) return;
+        for (int i = 0; i < liveCount; i++) {
+            recordPose(live[i], nanos);
+        }
+    }
+
+    void recordPose(int s, long nanos) {
+        if (historyCapacity == 0) return;
+        int k = s * historyCapacity + histHead[s];
+        histNanos[k] = nanos;
+        histX[k] = x[s];
+        histY[k] = y[s];
+        histZ[k] = z[s];
+        histHead[s] = (histHead[s] + 1) % historyCapacity;
+        if (histCount[s] < historyCapacity) histCount[s]++;
+    }
+
+    /** 回溯到指定时刻的位置(相邻样本线性插值)，写入out[0..2] */
+    void poseAt(int s, long nanos, double[] out) {
+        int count = histCount[s];
+        int cap = historyCapacity;
+        int base = s * cap;
+        int newest = count == 0 ? 0 : (histHead[s] - 1 + cap) % cap;
+        if (count == 0 || nanos >= histNanos[base + newest]) {
+            out[0] = x[s]; out[1] = y[s]; out[2] = z[s];
+            return;
+        }
+        int later = newest;
+        for (int k = 1; k < count; k++) {
+            int idx = (newest - k + cap) % cap;
+            int a = base + idx, b = base + later;
+            if (histNanos[a] <= nanos) {
+                long span = histNanos[b] - histNanos[a];
+                double f = span > 0 ? (double) (nanos - histNanos[a]) / span : 0;
+                out[0] = histX[a] + (histX[b] - histX[a]) * f;
+                out[1] = histY[a] + (histY[b] - histY[a]) * f;
+                out[2] = histZ[a] + (histZ[b] - histZ[a]) * f;
+                return;
+            }
+            later = idx;
+        }
+        int b = base + later;
+        out[0] = histX[b]; out[1] = histY[b]; out[2] = histZ[b];
+    }
+
+    /** 视口内且在相机前方的存活靶标记为已呈现 */
+    public void markVisibleAll(int screenW, int screenH, long frameNanos) {
+        markVisibleAll(screenW, screenH, frameNanos, Long.MAX_VALUE);
+    }
+
+    /** 只标记在stateNanos时刻已生成的靶标(该帧画的是stateNanos的快照，之后生成的不在画面上) */
+    public void markVisibleAll(int screenW, int screenH, long frameNanos, long stateNanos) {
+        for (int i = 0; i < liveCount; i++) {
+            int s = live[i];
+            if (visibleNanos[s] == 0 && spawnNanos[s] <= stateNanos && isOnScreen(s, screenW, screenH)) {
+                visibleNanos[s] = frameNanos;
+            }
+        }
+    }
+
+    /**
+     * 按呈现帧的相机投影各未呈现靶标在stateNanos时刻(该帧所画快照)的位置，落在视口内的以frameNanos记为首次呈现
+     * 不改写screenX/Y等当前投影结果；没有历史样本时poseAt退回当前位置
+     */
+    public void markPresentedAll(int screenW, int screenH, double fov, double yaw, double pitch,
+                                 long frameNanos, long stateNanos) {
+        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
+        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
+        for (int i = 0; i < liveCount; i++) {
+            int s = live[i];
+            if (visibleNanos[s] == 0 && spawnNanos[s] <= stateNanos
+                && isOnScreenAt(s, screenW, screenH, fov, cosY, sinY, cosP, sinP, stateNanos)) {
+                visibleNanos[s] = frameNanos;
+            }
+        }
+    }
+
+    /** 槽位在nanos时刻的位置按给定相机投影后是否落在视口内(且在相机前方) */
+    boolean isOnScreenAt(int s, int screenW, int screenH, double fov,
+                         double cosY, double sinY, double cosP, double sinP, long nanos) {
+        poseAt(s, nanos, presentPose);
+        double px = presentPose[0], py = presentPose[1], pz = presentPose[2];
+        double rx = px * cosY + pz * sinY;
+        double rz = -px * sinY + pz * cosY;
+        double ry = py * cosP - rz * sinP;
+        double rz2 = py * sinP + rz * cosP;
+        if (rz2 <= -fov + 1) return false;
+        double scale = fov / (fov + rz2);
+        double sx = screenW / 2.0 + rx * scale;
+        double sy = screenH / 2.0 + 30 + ry * scale;
+        double r = size[s] * scale / 2;
+        return sx + r >= 0 && sx - r <= screenW && sy + r >= 0 && sy - r <= screenH;
+    }
+
+    boolean isOnScreen(int s, int screenW, int screenH) {
+        double r = screenSize[s] / 2;
+        return (flags[s] & BEHIND_CAMERA) == 0
+            && screenX[s] + r >= 0 && screenX[s] - r <= screenW
+            && screenY[s] + r >= 0 && screenY[s] - r <= screenH;
+    }
+
+    boolean isAlive(int s) { return (flags[s] & ALIVE) != 0; }
+
+    void setFlag(int s, byte flag, boolean on) {
+        if (on) flags[s] |= flag; else flags[s] &= ~flag;
+    }
+}
@@ -0,0 +1,43 @@
+package com.aimlabs.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 无锁三缓冲 - 单写单读，写端填写back后与middle交换发布，读端在有新数据时用front换出middle
+ * 双方都只做一次原子交换，从不等待对方；读端总拿到最近一份完整写好的数据，
+ * 写得比读快时中间版本被直接覆盖
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int DIRTY = 4;   // middle中是尚未被读走的新数据
+
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;   // 只由写线程访问
+    private int front = 2;  // 只由读线程访问
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < 3; i++) buffers[i] = factory.get();
+    }
+
+    /** 写线程: 当前可以填写的缓冲 */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) buffers[back];
+    }
+
+    /** 写线程: 发布back，换回一个空闲缓冲继续写 */
+    public void publish() {
+        back = middle.getAndSet(back | DIRTY) & INDEX_MASK;
+    }
+
+    /** 读线程: 有新发布则换入，返回最新的完整数据(发布之前返回初始缓冲) */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((middle.get() & DIRTY) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) buffers[front];
+    }
+}
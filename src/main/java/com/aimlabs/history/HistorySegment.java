@@ -0,0 +1,270 @@
+package com.aimlabs.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * 历史记录的一个分段: 数据文件seg-NNNNNN.hist + 旁路索引seg-NNNNNN.idx
+ * 数据: 64字节文件头后是定长记录，每64条(4KB)为一页，只追加；写满MAX_RECORDS后封存，不再改动
+ * 索引: 每页一项(最早/最晚时间戳、出现过的模式位图、条数、CRC)，查询据此跳过整页；
+ * 打开时校验通过的索引项视为该页数据已完整落盘、不再逐条校验，所以索引只在数据force之后写入并force；
+ * 缺失、校验失败或条数与数据不符的项从数据页重算
+ * 只由HistoryStore在持锁时访问
+ */
+final class HistorySegment {
+    static final int PAGE_RECORDS = 64;
+    static final int PAGE_BYTES = PAGE_RECORDS * SessionRecord.SIZE;
+    static final int MAX_RECORDS = PAGE_RECORDS * 1024;   // 每段4MB
+    private static final int HEADER = 64;
+    private static final int MAGIC = 0x41494D48;            // "AIMH"
+    private static final short VERSION = 1;
+    private static final int INDEX_ENTRY = 32;
+
+    private final int number;
+    private final FileChannel data;
+    private final FileChannel index;
+    private int count;
+    private int indexDirtyFrom = -1;   // 摘要已更新、索引文件尚未写入的第一页(-1为无)
+    // 每页摘要(与索引文件内容一致)
+    private long[] minTime = new long[16], maxTime = new long[16];
+    private int[] modeMask = new int[16];
+
+    private HistorySegment(int number, FileChannel data, FileChannel index) {
+        this.number = number;
+        this.data = data;
+        this.index = index;
+    }
+
+    static String dataName(int number) { return String.format("seg-%06d.hist", number); }
+    static String indexName(int number) { return String.format("seg-%06d.idx", number); }
+
+    /** 新建空分段 */
+    static HistorySegment create(File dir, int number) throws IOException {
+        FileChannel data = FileChannel.open(new File(dir, dataName(number)).toPath(),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(new File(dir, indexName(number)).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) SessionRecord.SIZE);
+        header.clear();
+        writeFully(data, header, 0);
+        data.force(true);
+        return new HistorySegment(number, data, index);
+    }
+
+    /**
+     * 打开已有分段: 截掉不完整的尾部记录；active为true(最后一段，可能在写入中途崩溃)时
+     * 还逐条校验索引未确认的尾部记录，从第一条损坏处截断；随后修复索引
+     */
+    static HistorySegment open(File dir, int number, boolean active, boolean writable) throws IOException {
+        File dataFile = new File(dir, dataName(number));
+        StandardOpenOption[] dataMode = writable
+            ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+            : new StandardOpenOption[]{StandardOpenOption.READ};
+        FileChannel data = FileChannel.open(dataFile.toPath(), dataMode);
+        FileChannel index = writable
+            ? FileChannel.open(new File(dir, indexName(number)).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : null;
+        HistorySegment seg = new HistorySegment(number, data, index);
+        try {
+            seg.recover(active, writable, new File(dir, indexName(number)));
+        } catch (IOException e) {
+            seg.close();
+            throw e;
+        }
+        return seg;
+    }
+
+    private void recover(boolean active, boolean writable, File indexFile) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        if (data.size() < HEADER || readFully(data, header, 0) < HEADER
+                || header.getInt(0) != MAGIC || header.getShort(4) != VERSION
+                || header.getShort(6) != SessionRecord.SIZE) {
+            throw new IOException("不是有效的历史分段: " + dataName(number));
+        }
+        count = (int) Math.min(MAX_RECORDS, (data.size() - HEADER) / SessionRecord.SIZE);
+
+        // 读入索引文件中校验通过的项
+        int pages = pageCount(count);
+        ensurePages(pages);
+        boolean[] trusted = new boolean[pages];
+        FileChannel idx = index != null ? index
+            : indexFile.exists() ? FileChannel.open(indexFile.toPath(), StandardOpenOption.READ) : null;
+        if (idx != null) {
+            try {
+                ByteBuffer entries = ByteBuffer.allocate((int) Math.min(idx.size(), (long) pages * INDEX_ENTRY));
+                int got = readFully(idx, entries, 0);
+                CRC32 crc = new CRC32();
+                for (int p = 0; p < pages && (p + 1) * INDEX_ENTRY <= got; p++) {
+                    int off = p * INDEX_ENTRY;
+                    crc.reset();
+                    crc.update(entries.slice(off, INDEX_ENTRY - 4));
+                    if (entries.getInt(off + INDEX_ENTRY - 4) != (int) crc.getValue()) continue;
+                    if (entries.getInt(off + 20) != pageSize(p)) continue;
+                    minTime[p] = entries.getLong(off);
+                    maxTime[p] = entries.getLong(off + 8);
+                    modeMask[p] = entries.getInt(off + 16);
+                    trusted[p] = true;
+                }
+            } finally {
+                if (idx != index) idx.close();
+            }
+        }
+
+        // 活动段: 从第一个未被索引确认的页开始逐条校验，截掉撕裂/损坏的尾部
+        if (active) {
+            int firstUntrusted = 0;
+            while (firstUntrusted < pages && trusted[firstUntrusted]) firstUntrusted++;
+            int valid = firstUntrusted * PAGE_RECORDS;
+            ByteBuffer page = ByteBuffer.allocate(PAGE_BYTES);
+            CRC32 crc = new CRC32();
+            scan:
+            for (int p = firstUntrusted; p < pages; p++) {
+                int n = readPage(p, page);
+                for (int k = 0; k < n; k++) {
+                    if (!SessionRecord.isValid(page, k * SessionRecord.SIZE, crc)) break scan;
+                    valid++;
+                }
+            }
+            if (valid < count) {
+                System.err.println("History: " + dataName(number) + " 尾部 " + (count - valid) + " 条记录损坏，已截断");
+                count = valid;
+                pages = pageCount(count);
+                trusted = Arrays.copyOf(trusted, pages);
+                if (pages > 0 && pageSize(pages - 1) != PAGE_RECORDS) trusted[pages - 1] = false;
+            }
+        }
+        if (writable) {
+            long end = HEADER + (long) count * SessionRecord.SIZE;
+            if (data.size() != end) data.truncate(end);
+        }
+
+        // 重算不可信的索引项并写回
+        ByteBuffer page = ByteBuffer.allocate(PAGE_BYTES);
+        for (int p = 0; p < pages; p++) {
+            if (trusted[p]) continue;
+            int n = readPage(p, page);
+            summarize(p, page, n);
+            if (writable) writeIndexEntry(p);
+        }
+        if (writable && index.size() > (long) pages * INDEX_ENTRY) index.truncate((long) pages * INDEX_ENTRY);
+    }
+
+    /** 从页内记录重算该页摘要 */
+    private void summarize(int p, ByteBuffer page, int n) {
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        int mask = 0;
+        for (int k = 0; k < n; k++) {
+            int off = k * SessionRecord.SIZE;
+            long t = SessionRecord.timestamp(page, off);
+            min = Math.min(min, t);
+            max = Math.max(max, t);
+            mask |= 1 << Math.min(31, SessionRecord.modeOrdinal(page, off));
+        }
+        minTime[p] = min;
+        maxTime[p] = max;
+        modeMask[p] = mask;
+    }
+
+    boolean isFull() { return count >= MAX_RECORDS; }
+
+    /**
+     * 追加buf中[0, limit)的整条记录(调用方保证不超过剩余容量)，并更新涉及页的摘要
+     * 索引文件留到force时、数据落盘之后再写；force由调用方在一批结束后统一进行
+     */
+    void append(ByteBuffer buf, long[] times, int[] modes) throws IOException {
+        int n = buf.limit() / SessionRecord.SIZE;
+        writeFully(data, buf, HEADER + (long) count * SessionRecord.SIZE);
+        int firstPage = count / PAGE_RECORDS;
+        ensurePages(pageCount(count + n));
+        for (int k = 0; k < n; k++) {
+            int p = (count + k) / PAGE_RECORDS;
+            boolean first = (count + k) % PAGE_RECORDS == 0;
+            minTime[p] = first ? times[k] : Math.min(minTime[p], times[k]);
+            maxTime[p] = first ? times[k] : Math.max(maxTime[p], times[k]);
+            modeMask[p] = (first ? 0 : modeMask[p]) | 1 << Math.min(31, modes[k]);
+        }
+        count += n;
+        if (indexDirtyFrom < 0) indexDirtyFrom = firstPage;
+    }
+
+    /** 数据落盘后再写入并落盘涉及页的索引项，索引项不会先于它描述的数据持久化 */
+    void force() throws IOException {
+        data.force(false);
+        if (indexDirtyFrom < 0) return;
+        for (int p = indexDirtyFrom, last = pageCount(count); p < last; p++) writeIndexEntry(p);
+        index.force(false);
+        indexDirtyFrom = -1;
+    }
+
+    private void writeIndexEntry(int p) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+        entry.putLong(minTime[p]).putLong(maxTime[p]).putInt(modeMask[p]).putInt(pageSize(p)).putInt(0);
+        CRC32 crc = new CRC32();
+        crc.update(entry.array(), 0, INDEX_ENTRY - 4);
+        entry.putInt((int) crc.getValue());
+        entry.flip();
+        writeFully(index, entry, (long) p * INDEX_ENTRY);
+    }
+
+    /** 把第p页读入buf(从0开始)，返回页内记录数 */
+    int readPage(int p, ByteBuffer buf) throws IOException {
+        int n = pageSize(p);
+        buf.clear().limit(n * SessionRecord.SIZE);
+        readFully(data, buf, HEADER + (long) p * PAGE_BYTES);
+        return n;
+    }
+
+    int pageCount() { return pageCount(count); }
+    int getCount() { return count; }
+    int getNumber() { return number; }
+    long getMinTime(int p) { return minTime[p]; }
+    long getMaxTime(int p) { return maxTime[p]; }
+    boolean mayContain(int p, int modeBit) { return (modeMask[p] & modeBit) != 0; }
+
+    private int pageSize(int p) {
+        return Math.min(PAGE_RECORDS, count - p * PAGE_RECORDS);
+    }
+
+    private static int pageCount(int records) {
+        return (records + PAGE_RECORDS - 1) / PAGE_RECORDS;
+    }
+
+    private void ensurePages(int pages) {
+        if (pages <= minTime.length) return;
+        int cap = Math.max(pages, minTime.length * 2);
+        minTime = Arrays.copyOf(minTime, cap);
+        maxTime = Arrays.copyOf(maxTime, cap);
+        modeMask = Arrays.copyOf(modeMask, cap);
+    }
+
+    void close() {
+        try {
+            data.close();
+            if (index != null) index.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close history segment: " + e.getMessage());
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) position += ch.write(buf, position);
+    }
+
+    private static int readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            int r = ch.read(buf, position + total);
+            if (r < 0) break;
+            total += r;
+        }
+        return total;
+    }
+}
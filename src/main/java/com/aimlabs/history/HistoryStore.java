@@ -0,0 +1,287 @@
+package com.aimlabs.history;
+
+import com.aimlabs.game.GameMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 本地对局历史 - 只追加的分段二进制日志
+ * 打开、恢复和写入都在History-Writer线程上进行，append只入队，EDT不碰磁盘；
+ * 每批写完数据后force(随后才写索引)，崩溃最多丢失尚未落盘的那一批，撕裂的尾部记录在下次打开时按CRC截掉
+ * 查询按分段的页索引倒序扫描，跳过不含该模式或不在时间范围内的页，只读取需要的4KB页
+ * 目录用锁文件独占写入(机房多人共用一台机器时)，拿不到锁的进程只读打开、不写历史
+ * 查询会等待首次加载完成并与写入互斥，应在后台线程调用
+ */
+public class HistoryStore {
+    public static final File DEFAULT_DIR = new File("history");
+    private static final Pattern SEGMENT_NAME = Pattern.compile("seg-(\\d{6})\\.hist");
+    private static final int MAX_BATCH = 256;
+
+    private final File dir;
+    private final LinkedBlockingQueue<SessionRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closing = false;
+
+    // 以下在持有this锁时访问
+    private final List<HistorySegment> segments = new ArrayList<>();
+    private final List<Consumer<SessionRecord>> listeners = new ArrayList<>();
+    private final ByteBuffer page = ByteBuffer.allocate(HistorySegment.PAGE_BYTES);
+    private final CRC32 crc = new CRC32();
+    private boolean loaded = false;
+    private boolean writable = false;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private int nextNumber = 1;     // 下一个新建分段的编号
+    private long appended = 0;      // 已入队的条数
+    private long written = 0;       // 已落盘的条数
+    private int lastPagesRead = 0;
+
+    private HistoryStore(File dir) {
+        this.dir = dir;
+        this.writer = new Thread(this::writerLoop, "History-Writer");
+        writer.setDaemon(true);
+    }
+
+    /** 在后台打开目录下的历史(不存在则创建)，立即返回；进程退出时自动写完队列中的记录 */
+    public static HistoryStore open(File dir) {
+        HistoryStore store = new HistoryStore(dir);
+        store.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(store::close, "History-Shutdown"));
+        return store;
+    }
+
+    /** 入队一条记录，由写线程批量追加(任意线程可调用，不阻塞) */
+    public void append(SessionRecord record) {
+        if (closing) return;
+        synchronized (this) {
+            appended++;
+        }
+        queue.add(record);
+    }
+
+    /** 等待此前入队的记录全部落盘(或写入失败被丢弃) */
+    public synchronized void flush() throws InterruptedException {
+        long target = appended;
+        while (written < target && writer.isAlive()) wait(100);
+    }
+
+    /** 写完队列并关闭文件，可重复调用 */
+    public void close() {
+        closing = true;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (HistorySegment seg : segments) seg.close();
+            segments.clear();
+            try {
+                if (lock != null) lock.release();
+                if (lockChannel != null) lockChannel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to release history lock: " + e.getMessage());
+            }
+            lock = null;
+            lockChannel = null;
+        }
+    }
+
+    // ===== 查询 =====
+
+    /** 最近的limit局(新的在前)，mode为null表示不限模式 */
+    public synchronized List<SessionRecord> recent(GameMode mode, int limit) throws IOException {
+        return scan(mode, Long.MIN_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /** 时间戳在[fromMillis, toMillis]内的最近limit局(新的在前)，mode为null表示不限模式 */
+    public synchronized List<SessionRecord> between(GameMode mode, long fromMillis, long toMillis, int limit)
+            throws IOException {
+        return scan(mode, fromMillis, toMillis, limit);
+    }
+
+    /**
+     * 订阅历史: 先在调用线程上按写入顺序把已有记录逐条交给existing，再注册appended，
+     * 之后每批新记录落盘后在History-Writer线程上回调appended(应尽快返回)；回放与注册在同一把锁内，不重不漏
+     */
+    public synchronized void subscribe(Consumer<SessionRecord> existing, Consumer<SessionRecord> appended)
+            throws IOException {
+        awaitLoaded();
+        for (HistorySegment seg : segments) {
+            for (int p = 0, pages = seg.pageCount(); p < pages; p++) {
+                int n = seg.readPage(p, page);
+                for (int k = 0; k < n; k++) {
+                    SessionRecord r = SessionRecord.readFrom(page, k * SessionRecord.SIZE, crc);
+                    if (r != null) existing.accept(r);
+                }
+            }
+        }
+        listeners.add(appended);
+    }
+
+    /** 历史总条数 */
+    public synchronized int size() {
+        awaitLoaded();
+        int n = 0;
+        for (HistorySegment seg : segments) n += seg.getCount();
+        return n;
+    }
+
+    /** 最近一次查询实际读取的页数 */
+    public synchronized int getLastPagesRead() { return lastPagesRead; }
+
+    public File getDir() { return dir; }
+
+    private List<SessionRecord> scan(GameMode mode, long from, long to, int limit) throws IOException {
+        awaitLoaded();
+        List<SessionRecord> out = new ArrayList<>(Math.min(limit, 1024));
+        int bit = mode == null ? -1 : 1 << mode.ordinal();
+        int pagesRead = 0;
+        for (int s = segments.size() - 1; s >= 0 && out.size() < limit; s--) {
+            HistorySegment seg = segments.get(s);
+            for (int p = seg.pageCount() - 1; p >= 0 && out.size() < limit; p--) {
+                if (!seg.mayContain(p, bit) || seg.getMaxTime(p) < from || seg.getMinTime(p) > to) continue;
+                int n = seg.readPage(p, page);
+                pagesRead++;
+                for (int k = n - 1; k >= 0 && out.size() < limit; k--) {
+                    SessionRecord r = SessionRecord.readFrom(page, k * SessionRecord.SIZE, crc);
+                    if (r == null || (mode != null && r.getMode() != mode)) continue;
+                    if (r.getTimestampMillis() < from || r.getTimestampMillis() > to) continue;
+                    out.add(r);
+                }
+            }
+        }
+        lastPagesRead = pagesRead;
+        return out;
+    }
+
+    private void awaitLoaded() {
+        boolean interrupted = false;
+        while (!loaded) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // ===== 写线程 =====
+
+    private void writerLoop() {
+        synchronized (this) {
+            try {
+                load();
+            } catch (IOException e) {
+                System.err.println("Failed to open history: " + e.getMessage());
+                writable = false;
+            }
+            loaded = true;
+            notifyAll();
+        }
+        List<SessionRecord> batch = new ArrayList<>();
+        while (true) {
+            SessionRecord first;
+            try {
+                first = queue.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                first = null;
+            }
+            if (first == null) {
+                if (closing && queue.isEmpty()) break;
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+            synchronized (this) {
+                try {
+                    if (writable) {
+                        write(batch);
+                        for (Consumer<SessionRecord> listener : listeners) batch.forEach(listener);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Failed to write history: " + e.getMessage());
+                }
+                written += batch.size();
+                notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    /** 加锁、按编号打开全部分段；最后一段作为活动段做尾部恢复 */
+    private void load() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建目录 " + dir);
+        lockChannel = FileChannel.open(new File(dir, ".lock").toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        writable = lock != null;
+        if (!writable) System.err.println("History: " + dir + " 正被其他进程写入，本进程只读");
+
+        List<Integer> numbers = new ArrayList<>();
+        String[] names = dir.list();
+        if (names != null) {
+            for (String name : names) {
+                Matcher m = SEGMENT_NAME.matcher(name);
+                if (m.matches()) numbers.add(Integer.parseInt(m.group(1)));
+            }
+        }
+        numbers.sort(null);
+        for (int i = 0; i < numbers.size(); i++) {
+            int number = numbers.get(i);
+            try {
+                segments.add(HistorySegment.open(dir, number, i == numbers.size() - 1, writable));
+            } catch (IOException e) {
+                // 损坏的分段跳过，编号不复用
+                System.err.println("History: 跳过 " + HistorySegment.dataName(number) + ": " + e.getMessage());
+            }
+        }
+        nextNumber = numbers.isEmpty() ? 1 : numbers.get(numbers.size() - 1) + 1;
+    }
+
+    /** 把一批记录编码追加到活动段，写满则封存并开新段；每段写完force一次 */
+    private void write(List<SessionRecord> batch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(batch.size() * SessionRecord.SIZE);
+        long[] times = new long[batch.size()];
+        int[] modes = new int[batch.size()];
+        int i = 0;
+        while (i < batch.size()) {
+            HistorySegment seg = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (seg == null || seg.isFull() || seg.getNumber() < nextNumber - 1) {
+                seg = HistorySegment.create(dir, nextNumber++);
+                segments.add(seg);
+            }
+            int n = Math.min(batch.size() - i, HistorySegment.MAX_RECORDS - seg.getCount());
+            buf.clear();
+            for (int k = 0; k < n; k++) {
+                SessionRecord r = batch.get(i + k);
+                r.writeTo(buf, crc);
+                times[k] = r.getTimestampMillis();
+                modes[k] = r.getMode().ordinal();
+            }
+            buf.flip();
+            seg.append(buf, times, modes);
+            seg.force();
+            i += n;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.aimlabs.history;
+
+/**
+ * Largest-Triangle-Three-Buckets降采样 - 保留首尾点，其余按x均分成threshold-2个桶，
+ * 每桶选出与上一选中点、下一桶均值点围成三角形面积最大的点，曲线的峰谷形状得以保留
+ */
+final class Lttb {
+    private Lttb() {}
+
+    /**
+     * 把(x, y)的前n个点(x递增)降到最多threshold个，写入outX/outY，返回输出点数
+     * n不超过threshold时原样复制；threshold至少按3计
+     */
+    static int downsample(double[] x, double[] y, int n, int threshold, double[] outX, double[] outY) {
+        threshold = Math.max(3, threshold);
+        if (n <= threshold) {
+            System.arraycopy(x, 0, outX, 0, n);
+            System.arraycopy(y, 0, outY, 0, n);
+            return n;
+        }
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0, out = 0;
+        outX[out] = x[0];
+        outY[out++] = y[0];
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一桶的均值点
+            int nextStart = (int) Math.floor((i + 1) * every) + 1;
+            int nextEnd = Math.min(n, (int) Math.floor((i + 2) * every) + 1);
+            double avgX = 0, avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int len = Math.max(1, nextEnd - nextStart);
+            avgX /= len;
+            avgY /= len;
+
+            // 本桶中面积最大的点
+            int start = (int) Math.floor(i * every) + 1;
+            int end = (int) Math.floor((i + 1) * every) + 1;
+            double ax = x[a], ay = y[a], maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - x[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            outX[out] = x[chosen];
+            outY[out++] = y[chosen];
+            a = chosen;
+        }
+        outX[out] = x[n - 1];
+        outY[out++] = y[n - 1];
+        return out;
+    }
+}
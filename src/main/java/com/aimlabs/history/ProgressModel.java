@@ -0,0 +1,317 @@
+package com.aimlabs.history;
+
+import com.aimlabs.game.GameMode;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 训练进度的聚合数据 - 每个模式保存逐局序列，以及按天、按周预先汇总的均值
+ * add是O(1)的增量更新(按时间顺序到达时)，chart按时间范围选择最细而点数不过多的一级，再用LTTB降到最多maxPoints个点
+ * 不是线程安全的，只在进度面板的后台线程上使用
+ */
+public final class ProgressModel {
+    /** 图表指标；没有该指标的局(追踪模式的反应时间、早期记录的p90)不计入 */
+    public enum Metric {
+        SCORE("分数"),
+        ACCURACY("命中率/追踪精度 %"),
+        REACTION_AVG("平均反应 ms"),
+        REACTION_P90("反应 p90 ms");
+
+        private final String displayName;
+
+        Metric(String displayName) { this.displayName = displayName; }
+
+        public String getDisplayName() { return displayName; }
+
+        @Override
+        public String toString() { return displayName; }
+    }
+
+    /** 图表时间范围 */
+    public enum Range {
+        MONTH("近30天", 30),
+        QUARTER("近90天", 90),
+        YEAR("近一年", 365),
+        ALL("全部", 0);
+
+        private final String displayName;
+        private final int days;
+
+        Range(String displayName, int days) {
+            this.displayName = displayName;
+            this.days = days;
+        }
+
+        public String getDisplayName() { return displayName; }
+
+        @Override
+        public String toString() { return displayName; }
+    }
+
+    /** 一次查询的结果: 降采样后的点(x为毫秒时间戳)与范围内的概要 */
+    public static final class Chart {
+        private final GameMode mode;
+        private final Metric metric;
+        private final Range range;
+        private final String level;
+        private final double[] x, y;
+        private final int sessions;
+        private final long fromMillis, toMillis;
+
+        Chart(GameMode mode, Metric metric, Range range, String level, double[] x, double[] y,
+              int sessions, long fromMillis, long toMillis) {
+            this.mode = mode;
+            this.metric = metric;
+            this.range = range;
+            this.level = level;
+            this.x = x;
+            this.y = y;
+            this.sessions = sessions;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+        }
+
+        public GameMode getMode() { return mode; }
+        public Metric getMetric() { return metric; }
+        public Range getRange() { return range; }
+        /** 数据粒度: 每局/每天/每周 */
+        public String getLevel() { return level; }
+        public int size() { return x.length; }
+        public double getX(int i) { return x[i]; }
+        public double getY(int i) { return y[i]; }
+        /** 范围内有该指标的局数 */
+        public int getSessions() { return sessions; }
+        public long getFromMillis() { return fromMillis; }
+        public long getToMillis() { return toMillis; }
+    }
+
+    private static final int METRICS = Metric.values().length;
+    private static final long DAY_MILLIS = 86_400_000L;
+    /** 逐局/按天的点数超过目标点数这么多倍时改用更粗一级，LTTB的输入保持在几千点以内 */
+    private static final int LEVEL_FACTOR = 8;
+
+    private final ZoneId zone;
+    private final Map<GameMode, Series> series = new EnumMap<>(GameMode.class);
+    // 查询的临时缓冲
+    private double[] scratchX = new double[256], scratchY = new double[256];
+
+    public ProgressModel() {
+        this(ZoneId.systemDefault());
+    }
+
+    public ProgressModel(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /** 加入一局(通常按时间顺序) */
+    public void add(SessionRecord r) {
+        long day = LocalDate.ofInstant(Instant.ofEpochMilli(r.getTimestampMillis()), zone).toEpochDay();
+        series.computeIfAbsent(r.getMode(), m -> new Series()).add(r, day);
+    }
+
+    public int getSessionCount(GameMode mode) {
+        Series s = series.get(mode);
+        return s == null ? 0 : s.raw.size;
+    }
+
+    /** 查询某模式某指标在范围内的序列，最多maxPoints个点 */
+    public Chart chart(GameMode mode, Metric metric, Range range, long nowMillis, int maxPoints) {
+        Series s = series.get(mode);
+        long from = range.days == 0 ? Long.MIN_VALUE : nowMillis - range.days * DAY_MILLIS;
+        if (s == null) return new Chart(mode, metric, range, "每局", new double[0], new double[0], 0, from, nowMillis);
+        if (from == Long.MIN_VALUE) from = s.raw.size == 0 ? nowMillis : (long) s.raw.x[0];
+
+        int m = metric.ordinal();
+        int sessions = s.raw.countFrom(from, m);
+        Buckets level = s.raw;
+        String name = "每局";
+        if (level.pointsFrom(from, m) > maxPoints * LEVEL_FACTOR) {
+            level = s.days;
+            name = "每天";
+        }
+        if (level.pointsFrom(from, m) > maxPoints * LEVEL_FACTOR) {
+            level = s.weeks;
+            name = "每周";
+        }
+        int n = level.collect(from, m, this);
+        double[] outX = new double[Math.min(n, Math.max(3, maxPoints))];
+        double[] outY = new double[outX.length];
+        int k = Lttb.downsample(scratchX, scratchY, n, maxPoints, outX, outY);
+        if (k < outX.length) {
+            outX = Arrays.copyOf(outX, k);
+            outY = Arrays.copyOf(outY, k);
+        }
+        return new Chart(mode, metric, range, name, outX, outY, sessions, from, nowMillis);
+    }
+
+    private void ensureScratch(int n) {
+        if (scratchX.length >= n) return;
+        int cap = Math.max(n, scratchX.length * 2);
+        scratchX = Arrays.copyOf(scratchX, cap);
+        scratchY = Arrays.copyOf(scratchY, cap);
+    }
+
+    private static double value(SessionRecord r, int metric) {
+        return switch (Metric.values()[metric]) {
+            case SCORE -> r.getScore();
+            case ACCURACY -> r.getAccuracy();
+            case REACTION_AVG -> r.getReactionCount() > 0 ? r.getAvgReactionMs() : Double.NaN;
+            case REACTION_P90 -> r.getReactionCount() > 0 && r.getP90ReactionMs() > 0 ? r.getP90ReactionMs() : Double.NaN;
+        };
+    }
+
+    /** 一个模式的三级数据 */
+    private final class Series {
+        final Buckets raw = new Buckets();
+        final Buckets days = new Buckets();
+        final Buckets weeks = new Buckets();
+        private final double[] values = new double[METRICS];
+
+        void add(SessionRecord r, long epochDay) {
+            for (int m = 0; m < METRICS; m++) values[m] = value(r, m);
+            raw.insert(Long.MIN_VALUE, r.getTimestampMillis(), values);
+            // 1970-01-01是周四，+3后按周一对齐
+            long week = Math.floorDiv(epochDay + 3, 7);
+            days.insert(epochDay, midpoint(epochDay, 1), values);
+            weeks.insert(week, midpoint(week * 7 - 3, 7), values);
+        }
+
+        /** 从firstDay起length天的中间时刻，作为汇总点的x */
+        private long midpoint(long firstDay, int length) {
+            long start = LocalDate.ofEpochDay(firstDay).atStartOfDay(zone).toInstant().toEpochMilli();
+            return start + length * DAY_MILLIS / 2;
+        }
+    }
+
+    /**
+     * 按x递增排列的点，每个点带各指标的和与计数(逐局数据每点计数为1)
+     * key为Long.MIN_VALUE时每次插入都是新点；否则相同key的点合并
+     */
+    private final class Buckets {
+        long[] keys = new long[64];
+        double[] x = new double[64];
+        double[][] sum = new double[METRICS][64];
+        int[][] count = new int[METRICS][64];
+        int[] nonEmpty = new int[METRICS];     // 每个指标有值的点数
+        int size;
+
+        void insert(long key, long xMillis, double[] values) {
+            int i;
+            if (key != Long.MIN_VALUE && size > 0 && keys[size - 1] == key) {
+                i = size - 1;
+            } else if (size == 0 || (key == Long.MIN_VALUE ? x[size - 1] <= xMillis : keys[size - 1] < key)) {
+                i = size;
+                grow(size + 1);
+                size++;
+                init(i, key, xMillis);
+            } else {
+                // 乱序到达(系统时间被调过): 二分找位置，已有同一天/周则合并，否则插入
+                i = key == Long.MIN_VALUE ? upperBound(xMillis) : lowerBoundKey(key);
+                if (key == Long.MIN_VALUE || i >= size || keys[i] != key) {
+                    grow(size + 1);
+                    shift(i);
+                    size++;
+                    init(i, key, xMillis);
+                }
+            }
+            for (int m = 0; m < METRICS; m++) {
+                if (Double.isNaN(values[m])) continue;
+                if (count[m][i] == 0) nonEmpty[m]++;
+                sum[m][i] += values[m];
+                count[m][i]++;
+            }
+        }
+
+        /** x >= from且有该指标的点数 */
+        int pointsFrom(long from, int m) {
+            int start = firstFrom(from);
+            if (start == 0) return nonEmpty[m];
+            int n = 0;
+            for (int i = start; i < size; i++) if (count[m][i] > 0) n++;
+            return n;
+        }
+
+        /** x >= from的点中该指标的总局数 */
+        int countFrom(long from, int m) {
+            int n = 0;
+            for (int i = firstFrom(from); i < size; i++) n += count[m][i];
+            return n;
+        }
+
+        /** 把x >= from且有该指标的点的(x, 均值)写入model的临时缓冲，返回点数 */
+        int collect(long from, int m, ProgressModel model) {
+            int start = firstFrom(from);
+            model.ensureScratch(size - start);
+            int n = 0;
+            for (int i = start; i < size; i++) {
+                int c = count[m][i];
+                if (c == 0) continue;
+                model.scratchX[n] = x[i];
+                model.scratchY[n++] = sum[m][i] / c;
+            }
+            return n;
+        }
+
+        private int firstFrom(long from) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (x[mid] < from) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private int upperBound(long xMillis) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (x[mid] <= xMillis) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private int lowerBoundKey(long key) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < key) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private void init(int i, long key, long xMillis) {
+            keys[i] = key;
+            x[i] = xMillis;
+            for (int m = 0; m < METRICS; m++) {
+                sum[m][i] = 0;
+                count[m][i] = 0;
+            }
+        }
+
+        private void shift(int i) {
+            int len = size - i;
+            System.arraycopy(keys, i, keys, i + 1, len);
+            System.arraycopy(x, i, x, i + 1, len);
+            for (int m = 0; m < METRICS; m++) {
+                System.arraycopy(sum[m], i, sum[m], i + 1, len);
+                System.arraycopy(count[m], i, count[m], i + 1, len);
+            }
+        }
+
+        private void grow(int n) {
+            if (n <= keys.length) return;
+            int cap = Math.max(n, keys.length * 2);
+            keys = Arrays.copyOf(keys, cap);
+            x = Arrays.copyOf(x, cap);
+            for (int m = 0; m < METRICS; m++) {
+                sum[m] = Arrays.copyOf(sum[m], cap);
+                count[m] = Arrays.copyOf(count[m], cap);
+            }
+        }
+    }
+}
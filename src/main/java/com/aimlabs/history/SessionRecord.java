@@ -0,0 +1,132 @@
+package com.aimlabs.history;
+
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.GameStats;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * 一局的历史记录 - 定长64字节二进制，末尾4字节为前60字节的CRC32，撕裂写入可以识别
+ * 布局(大端): 时间戳ms(8) 配置指纹(8) 模式(1) 标志(1) 预留(2) 时长ms(4) 分数(4) 命中(4) 射击(4)
+ *           爆头(4) 命中率/追踪精度%(float 4) 反应次数(4) 平均反应us(4) 最快反应us(4) p90反应us(4) CRC(4)
+ * 模式按ordinal存储，GameMode只能在末尾追加新值
+ */
+public final class SessionRecord {
+    public static final int SIZE = 64;
+    private static final int CRC_OFFSET = SIZE - 4;
+    private static final int FLAG_COMPLETED = 1;
+
+    private final GameMode mode;
+    private final long configFingerprint;
+    private final long timestampMillis;
+    private final int durationMillis;
+    private final boolean completed;
+    private final int score;
+    private final int hits;
+    private final int shots;
+    private final int criticalHits;
+    private final float accuracy;
+    private final int reactionCount;
+    private final int avgReactionMicros;
+    private final int bestReactionMicros;
+    private final int p90ReactionMicros;
+
+    public SessionRecord(GameMode mode, long configFingerprint, long timestampMillis, int durationMillis,
+                         boolean completed, int score, int hits, int shots, int criticalHits, float accuracy,
+                         int reactionCount, int avgReactionMicros, int bestReactionMicros,
+                         int p90ReactionMicros) {
+        this.mode = mode;
+        this.configFingerprint = configFingerprint;
+        this.timestampMillis = timestampMillis;
+        this.durationMillis = durationMillis;
+        this.completed = completed;
+        this.score = score;
+        this.hits = hits;
+        this.shots = shots;
+        this.criticalHits = criticalHits;
+        this.accuracy = accuracy;
+        this.reactionCount = reactionCount;
+        this.avgReactionMicros = avgReactionMicros;
+        this.bestReactionMicros = bestReactionMicros;
+        this.p90ReactionMicros = p90ReactionMicros;
+    }
+
+    /** 由一局结束时的统计生成记录；追踪模式的命中率字段记追踪精度 */
+    public static SessionRecord of(GameMode mode, long configFingerprint, long timestampMillis,
+                                   long durationNanos, boolean completed, GameStats stats) {
+        float accuracy = (float) (mode == GameMode.TRACKING ? stats.getTrackAccuracy() : stats.getAccuracy());
+        return new SessionRecord(mode, configFingerprint, timestampMillis,
+            (int) Math.min(Integer.MAX_VALUE, durationNanos / 1_000_000L), completed,
+            stats.getScore(), stats.getHits(), stats.getTotalShots(), stats.getCriticalHits(), accuracy,
+            stats.getReactionCount(), (int) Math.round(stats.getAverageReactionMs() * 1000),
+            (int) Math.round(stats.getBestReactionMs() * 1000),
+            (int) Math.min(Integer.MAX_VALUE, stats.getReactionHistogram().valueAtPercentile(90) / 1000));
+    }
+
+    /** 在buf当前位置写入SIZE字节 */
+    void writeTo(ByteBuffer buf, CRC32 crc) {
+        int start = buf.position();
+        buf.putLong(timestampMillis);
+        buf.putLong(configFingerprint);
+        buf.put((byte) mode.ordinal());
+        buf.put((byte) (completed ? FLAG_COMPLETED : 0));
+        buf.putShort((short) 0);
+        buf.putInt(durationMillis);
+        buf.putInt(score);
+        buf.putInt(hits);
+        buf.putInt(shots);
+        buf.putInt(criticalHits);
+        buf.putFloat(accuracy);
+        buf.putInt(reactionCount);
+        buf.putInt(avgReactionMicros);
+        buf.putInt(bestReactionMicros);
+        buf.putInt(p90ReactionMicros);
+        buf.putInt(checksum(buf, start, crc));
+    }
+
+    /** 从buf的offset处读取一条记录，校验失败或模式未知返回null(不移动position) */
+    static SessionRecord readFrom(ByteBuffer buf, int offset, CRC32 crc) {
+        if (!isValid(buf, offset, crc)) return null;
+        int ordinal = buf.get(offset + 16) & 0xFF;
+        GameMode[] modes = GameMode.values();
+        if (ordinal >= modes.length) return null;
+        return new SessionRecord(modes[ordinal], buf.getLong(offset + 8), buf.getLong(offset),
+            buf.getInt(offset + 20), (buf.get(offset + 17) & FLAG_COMPLETED) != 0,
+            buf.getInt(offset + 24), buf.getInt(offset + 28), buf.getInt(offset + 32), buf.getInt(offset + 36),
+            buf.getFloat(offset + 40), buf.getInt(offset + 44), buf.getInt(offset + 48), buf.getInt(offset + 52),
+            buf.getInt(offset + 56));
+    }
+
+    static boolean isValid(ByteBuffer buf, int offset, CRC32 crc) {
+        return buf.getInt(offset + CRC_OFFSET) == checksum(buf, offset, crc);
+    }
+
+    /** 不解码整条记录，只取模式和时间戳(建索引用) */
+    static int modeOrdinal(ByteBuffer buf, int offset) { return buf.get(offset + 16) & 0xFF; }
+    static long timestamp(ByteBuffer buf, int offset) { return buf.getLong(offset); }
+
+    private static int checksum(ByteBuffer buf, int offset, CRC32 crc) {
+        crc.reset();
+        crc.update(buf.slice(offset, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    public GameMode getMode() { return mode; }
+    public long getConfigFingerprint() { return configFingerprint; }
+    public long getTimestampMillis() { return timestampMillis; }
+    public int getDurationMillis() { return durationMillis; }
+    /** 打满时长正常结束(而不是中途退出) */
+    public boolean isCompleted() { return completed; }
+    public int getScore() { return score; }
+    public int getHits() { return hits; }
+    public int getShots() { return shots; }
+    public int getCriticalHits() { return criticalHits; }
+    /** 命中率%，追踪模式为追踪精度% */
+    public float getAccuracy() { return accuracy; }
+    public int getReactionCount() { return reactionCount; }
+    public double getAvgReactionMs() { return avgReactionMicros / 1000.0; }
+    public double getBestReactionMs() { return bestReactionMicros / 1000.0; }
+    /** 反应时间第90百分位(早期版本写入的记录为0) */
+    public double getP90ReactionMs() { return p90ReactionMicros / 1000.0; }
+}
@@ -1,102 +1,108 @@
 package com.aimlabs.mode;
 
-import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionController;
+import com.aimlabs.game.SpawnSampler;
+import com.aimlabs.game.SpawnSchedule;
 import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.game.TargetPool;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 /**
  * Flick模式 - 甩枪：靶标出现在随机位置，点击后消失并在新位置出现
  */
 public class FlickMode implements ModeHandler {
-    private final List<Target> targets = new ArrayList<>();
-    private final Random random = new Random();
-    private GameConfig config;
+    private final TargetList targets = new TargetList();
+    private TargetPool pool;
+    private GameClock clock;
+    private SpawnSchedule schedule;
+    private SpawnSampler sampler;
+    private final SpawnSchedule.Entry entry = new SpawnSchedule.Entry();
+    private MotionController motion; // 运动模式(静止为null)
+    private long seed;
+    private SessionSettings settings;
     private int width, height;
+    private String modeInfo;       // 模式信息，init时生成
 
     @Override
-    public void init(int width, int height, GameConfig config) {
-        this.config = config;
+    public void init(int width, int height, SessionSettings settings, long seed, GameClock clock) {
+        this.settings = settings;
+        this.seed = seed;
+        this.clock = clock;
+        this.pool = TargetPool.forSettings(settings, clock);
         this.width = width;
         this.height = height;
+        this.modeInfo = "点击靶标 | 靶标数: " + settings.getFlickTargetCount();
         reset();
     }
 
     @Override
-    public void update(double dt, int width, int height) {
+    public void update(double dt, int width, int height, GameStats stats) {
         this.width = width;
         this.height = height;
-        // Flick模式靶标是静态的，无需更新位置
+        // 默认靶标静止；设置了运动模式时按预计算路径移动
+        if (motion != null) motion.update(pool.getStore(), dt);
     }
 
     @Override
-    public void onMouseClick(double x, double y, GameStats stats) {
+    public void onMouseClick(AimRay ray, long eventNanos, GameStats stats) {
         boolean hit = false;
-        for (int i = targets.size() - 1; i >= 0; i--) {
+        int i = ray.pickIndex(targets);
+        if (i >= 0) {
             Target t = targets.get(i);
-            if (t.isAlive() && t.contains(x, y)) {
-                long reaction = System.currentTimeMillis() - t.getSpawnTime();
-                stats.recordHit(reaction);
-                targets.remove(i);
-                hit = true;
-                break;
-            }
+            long reaction = t.reactionNanos(eventNanos);
+            stats.recordHit(reaction, ray.getHitMultiplier(), eventNanos);
+            if (motion != null) motion.unregister(sampler, t);
+            else sampler.remove(t.getX(), t.getY(), t.getZ());
+            pool.release(targets.swapRemove(i));
+            hit = true;
         }
         if (!hit) {
             stats.recordMiss();
         }
         // 确保始终有足够的靶标
-        while (targets.size() < config.getFlickTargetCount()) {
+        while (targets.size() < settings.getFlickTargetCount()) {
             spawnTarget();
         }
     }
 
-    @Override public void onMouseMove(double x, double y, GameStats stats) {}
-    @Override public void onMousePress(double x, double y, GameStats stats) {}
-    @Override public void onMouseRelease(double x, double y, GameStats stats) {}
+    @Override public void onMouseMove(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMousePress(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMouseRelease(AimRay ray, long eventNanos, GameStats stats) {}
 
     @Override
-    public List<Target> getTargets() { return targets; }
+    public TargetList getTargets() { return targets; }
 
     @Override
     public void reset() {
-        targets.clear();
-        for (int i = 0; i < config.getFlickTargetCount(); i++) {
+        targets.releaseAll(pool);
+        schedule = SpawnSchedule.replace(schedule, settings, GameMode.FLICK, seed,
+            settings.getTargetDefaultSize(), settings.getTargetDefaultSize(), 0.3, 0, 0, settings.getFlickTargetCount());
+        sampler = SpawnSampler.forSettings(settings, schedule.maxMinDist(), schedule.aux());
+        motion = MotionController.forMode(settings, GameMode.FLICK, schedule);
+        for (int i = 0; i < settings.getFlickTargetCount(); i++) {
             spawnTarget();
         }
     }
 
     @Override
-    public String getModeInfo() { return "点击靶标 | 靶标数: " + config.getFlickTargetCount(); }
+    public void dispose() {
+        if (schedule != null) schedule.close();
+    }
+
+    @Override
+    public String getModeInfo() { return modeInfo; }
 
     private void spawnTarget() {
-        int size = config.getTargetDefaultSize();
-        double minDist = size * config.getTargetDensity() * 0.3;
-        double worldW = config.getWorldWidth();
-        double worldH = config.getWorldHeight();
-        double halfZ = config.getMaxDepth() / 2.0;
-        double xCenter = worldW * 0.5;
-        double xRange = worldW * 0.35 * config.getZSpread();
-        double tx, ty, tz;
-        int attempts = 0;
-        do {
-            tx = Math.max(worldW * 0.1, Math.min(worldW * 0.9,
-                xCenter + (random.nextDouble() - 0.5) * 2 * xRange));
-            ty = (random.nextDouble() - 0.5) * 2 * worldH * 0.6;
-            tz = (random.nextDouble() - 0.5) * 2 * halfZ * 0.6;
-            attempts++;
-        } while (isTooClose(tx, ty, tz, minDist) && attempts < 50);
-        Target t = new Target(tx, ty, tz, size, config.getTargetColor());
+        schedule.nextPlaced(sampler, entry);
+        Target t = pool.acquire(entry.x, entry.y, entry.z, entry.size, settings.getTargetRgb());
+        t.setShape(settings.getTargetShape().getHitShape());
+        if (motion != null) motion.attach(t);
         targets.add(t);
     }
-
-    private boolean isTooClose(double x, double y, double z, double minDist) {
-        for (Target t : targets) {
-            if (t.distanceTo3D(x, y, z) < minDist) return true;
-        }
-        return false;
-    }
 }
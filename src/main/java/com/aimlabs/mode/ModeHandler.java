@@ -1,23 +1,60 @@
 package com.aimlabs.mode;
 
-import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
-import com.aimlabs.game.Target;
-
-import java.awt.Graphics2D;
-import java.util.List;
+import com.aimlabs.game.TargetList;
 
 /**
  * 游戏模式接口
  */
 public interface ModeHandler {
-    void init(int width, int height, GameConfig config);
-    void update(double dt, int width, int height);
-    void onMouseClick(double x, double y, GameStats stats);
-    void onMouseMove(double x, double y, GameStats stats);
-    void onMousePress(double x, double y, GameStats stats);
-    void onMouseRelease(double x, double y, GameStats stats);
-    List<Target> getTargets();
+    /** 按模式创建处理器(界面和无界面模拟共用) */
+    static ModeHandler forMode(GameMode mode) {
+        return switch (mode) {
+            case FLICK -> new FlickMode();
+            case TRACKING -> new TrackingMode();
+            case SPEED -> new SpeedMode();
+            case PRECISION -> new PrecisionMode();
+            case REACTION -> new ReactionMode();
+            case SWITCH -> new SwitchMode();
+            case STRESS -> new StressMode();
+        };
+    }
+
+    /**
+     * settings: 开局时的设置快照，本局内不再变化
+     * seed: 本局靶标生成序列的种子，同一种子同一配置得到相同的靶标序列
+     * clock: 本局游戏时钟，靶标生成/生命周期都按它计时(暂停时停止)
+     */
+    void init(int width, int height, SessionSettings settings, long seed, GameClock clock);
+    /** 每个游戏tick调用，stats供按时间累计的判定(如追踪)使用 */
+    void update(double dt, int width, int height, GameStats stats);
+    /**
+     * ray: 输入时刻相机朝向构建的准星射线，命中判定在世界空间进行
+     * eventNanos: 输入最早到达的时刻，已换算为游戏时钟(已扣除EDT排队延迟)
+     */
+    void onMouseClick(AimRay ray, long eventNanos, GameStats stats);
+    void onMouseMove(AimRay ray, long eventNanos, GameStats stats);
+    void onMousePress(AimRay ray, long eventNanos, GameStats stats);
+    void onMouseRelease(AimRay ray, long eventNanos, GameStats stats);
+    TargetList getTargets();
     void reset();
-    String getModeInfo();
+    /** 模式说明文字，每tick发布快照时读取并复制，可返回复用的缓冲区 */
+    CharSequence getModeInfo();
+    /** 结束时释放后台资源(生成序列的生产线程) */
+    void dispose();
+
+    /** 本局时长(游戏时钟纳秒)，默认取设置的训练时长 */
+    default long getSessionNanos(SessionSettings settings) {
+        return settings.getSessionNanos();
+    }
+
+    /** 每帧绘制完成后回调，renderNanos为本帧绘制耗时(性能测量用) */
+    default void onFrameRendered(long renderNanos) {}
+
+    /** 每tick发布快照后回调，publishNanos为update之后记录位置历史和发布快照的耗时(性能测量用) */
+    default void onTickPublished(long publishNanos) {}
 }
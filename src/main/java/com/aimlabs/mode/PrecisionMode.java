@@ -1,114 +1,121 @@
 package com.aimlabs.mode;
 
-import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionController;
+import com.aimlabs.game.SpawnSampler;
+import com.aimlabs.game.SpawnSchedule;
 import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.game.TargetPool;
 
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 /**
  * Precision模式 - 精准：非常小的靶标，考验精准度
  */
 public class PrecisionMode implements ModeHandler {
-    private final List<Target> targets = new ArrayList<>();
-    private final Random random = new Random();
-    private GameConfig config;
+    private final TargetList targets = new TargetList();
+    private TargetPool pool;
+    private GameClock clock;
+    private SpawnSchedule schedule;
+    private SpawnSampler sampler;
+    private final SpawnSchedule.Entry entry = new SpawnSchedule.Entry();
+    private MotionController motion; // 运动模式(静止为null)
+    private long seed;
+    private SessionSettings settings;
     private int width, height;
+    private String modeInfo;       // 模式信息，init时生成
 
     @Override
-    public void init(int width, int height, GameConfig config) {
-        this.config = config;
+    public void init(int width, int height, SessionSettings settings, long seed, GameClock clock) {
+        this.settings = settings;
+        this.seed = seed;
+        this.clock = clock;
+        this.pool = TargetPool.forSettings(settings, clock);
         this.width = width;
         this.height = height;
+        this.modeInfo = "精准点击 | 大小: " + settings.getPrecisionMinSize() + "-" + settings.getPrecisionMaxSize()
+            + "px | 靶标: " + settings.getPrecisionTargetCount();
         reset();
     }
 
     @Override
-    public void update(double dt, int width, int height) {
+    public void update(double dt, int width, int height, GameStats stats) {
         this.width = width;
         this.height = height;
+        if (motion != null) motion.update(pool.getStore(), dt);
     }
 
     @Override
-    public void onMouseClick(double x, double y, GameStats stats) {
+    public void onMouseClick(AimRay ray, long eventNanos, GameStats stats) {
         boolean hit = false;
-        for (int i = targets.size() - 1; i >= 0; i--) {
+        int i = ray.pickIndex(targets);
+        if (i >= 0) {
             Target t = targets.get(i);
-            if (t.isAlive() && t.contains(x, y)) {
-                long reaction = System.currentTimeMillis() - t.getSpawnTime();
-                stats.recordHit(reaction);
-                // 越小的靶标分数越高
-                int bonus = (int) (30.0 / t.getSize() * 100);
-                stats.setScore(stats.getScore() + bonus);
-                targets.remove(i);
-                hit = true;
-                break;
-            }
+            long reaction = t.reactionNanos(eventNanos);
+            stats.recordHit(reaction, eventNanos);
+            // 越小的靶标分数越高
+            int bonus = (int) (30.0 / t.getSize() * 100);
+            stats.setScore(stats.getScore() + bonus);
+            if (motion != null) motion.unregister(sampler, t);
+            else sampler.remove(t.getX(), t.getY(), t.getZ());
+            pool.release(targets.swapRemove(i));
+            hit = true;
         }
         if (!hit) {
             stats.recordMiss();
         }
-        while (targets.size() < config.getPrecisionTargetCount()) {
+        while (targets.size() < settings.getPrecisionTargetCount()) {
             spawnTarget();
         }
     }
 
-    @Override public void onMouseMove(double x, double y, GameStats stats) {}
-    @Override public void onMousePress(double x, double y, GameStats stats) {}
-    @Override public void onMouseRelease(double x, double y, GameStats stats) {}
+    @Override public void onMouseMove(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMousePress(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMouseRelease(AimRay ray, long eventNanos, GameStats stats) {}
 
     @Override
-    public List<Target> getTargets() { return targets; }
+    public TargetList getTargets() { return targets; }
 
     @Override
     public void reset() {
-        targets.clear();
-        for (int i = 0; i < config.getPrecisionTargetCount(); i++) {
+        targets.releaseAll(pool);
+        schedule = SpawnSchedule.replace(schedule, settings, GameMode.PRECISION, seed,
+            settings.getPrecisionMinSize(), settings.getPrecisionMaxSize(), 0.4, 0, 0, settings.getPrecisionTargetCount());
+        sampler = SpawnSampler.forSettings(settings, schedule.maxMinDist(), schedule.aux());
+        motion = MotionController.forMode(settings, GameMode.PRECISION, schedule);
+        for (int i = 0; i < settings.getPrecisionTargetCount(); i++) {
             spawnTarget();
         }
     }
 
     @Override
-    public String getModeInfo() {
-        return "精准点击 | 大小: " + config.getPrecisionMinSize() + "-" + config.getPrecisionMaxSize() + "px | 靶标: " + config.getPrecisionTargetCount();
+    public void dispose() {
+        if (schedule != null) schedule.close();
     }
 
+    @Override
+    public String getModeInfo() { return modeInfo; }
+
     private void spawnTarget() {
-        int minSize = config.getPrecisionMinSize();
-        int maxSize = config.getPrecisionMaxSize();
-        int size = minSize + random.nextInt(maxSize - minSize + 1);
-        double minDist = size * config.getTargetDensity() * 0.4;
-        double worldW = config.getWorldWidth();
-        double worldH = config.getWorldHeight();
-        double halfZ = config.getMaxDepth() / 2.0;
-        double xCenter = worldW * 0.5;
-        double xRange = worldW * 0.35 * config.getZSpread();
-        double tx, ty, tz;
-        int attempts = 0;
-        do {
-            tx = Math.max(worldW * 0.1, Math.min(worldW * 0.9,
-                xCenter + (random.nextDouble() - 0.5) * 2 * xRange));
-            ty = (random.nextDouble() - 0.5) * 2 * worldH * 0.6;
-            tz = (random.nextDouble() - 0.5) * 2 * halfZ * 0.6;
-            attempts++;
-        } while (isTooClose(tx, ty, tz, minDist) && attempts < 50);
-        float ratio = (float)(size - minSize) / Math.max(1, maxSize - minSize);
-        Color color = new Color(
+        schedule.nextPlaced(sampler, entry);
+        Target t = pool.acquire(entry.x, entry.y, entry.z, entry.size, colorFor(entry.size));
+        if (motion != null) motion.attach(t);
+        targets.add(t);
+    }
+
+    /** 按大小渐变的颜色(小=红, 大=绿) */
+    private int colorFor(int size) {
+        int minSize = settings.getPrecisionMinSize();
+        int maxSize = Math.max(minSize, settings.getPrecisionMaxSize());
+        float ratio = Math.max(0, Math.min(1, (float)(size - minSize) / Math.max(1, maxSize - minSize)));
+        return Target.rgb(
             (int)(255 * (1 - ratio * 0.5)),
             (int)(60 + ratio * 195),
             60
         );
-        Target t = new Target(tx, ty, tz, size, color);
-        targets.add(t);
-    }
-
-    private boolean isTooClose(double x, double y, double z, double minDist) {
-        for (Target t : targets) {
-            if (t.distanceTo3D(x, y, z) < minDist) return true;
-        }
-        return false;
     }
 }
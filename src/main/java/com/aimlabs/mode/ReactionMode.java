@@ -1,72 +1,91 @@
 package com.aimlabs.mode;
 
-import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionController;
+import com.aimlabs.game.SpawnSampler;
+import com.aimlabs.game.SpawnSchedule;
 import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.game.TargetPool;
 
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 /**
  * Reaction模式 - 反应：靶标在随机延迟后出现，测量反应时间
  */
 public class ReactionMode implements ModeHandler {
-    private final List<Target> targets = new ArrayList<>();
-    private final Random random = new Random();
-    private GameConfig config;
+    private final TargetList targets = new TargetList();
+    private TargetPool pool;
+    private GameClock clock;
+    private SpawnSchedule schedule;
+    private SpawnSampler sampler;
+    private final SpawnSchedule.Entry entry = new SpawnSchedule.Entry();
+    private MotionController motion; // 运动模式(静止为null)
+    private long seed;
+    private SessionSettings settings;
     private int width, height;
     private double waitTimer = 0;
     private double nextDelay;
     private boolean waiting = true;
-    private String stateText = "等待中...";
+    private boolean firstPending = false;
+    private long roundHitNanos;     // 本轮上一次命中的时刻，0 = 本轮尚未命中
+    private static final int TARGET_COLOR = Target.rgb(255, 200, 0);
+    // 状态文字复用同一个缓冲区，命中时不分配(发布快照时按内容复制)
+    private final StringBuilder stateText = new StringBuilder(32).append("等待中...");
 
     @Override
-    public void init(int width, int height, GameConfig config) {
-        this.config = config;
+    public void init(int width, int height, SessionSettings settings, long seed, GameClock clock) {
+        this.settings = settings;
+        this.seed = seed;
+        this.clock = clock;
+        this.pool = TargetPool.forSettings(settings, clock);
         this.width = width;
         this.height = height;
         reset();
     }
 
     @Override
-    public void update(double dt, int width, int height) {
+    public void update(double dt, int width, int height, GameStats stats) {
         this.width = width;
         this.height = height;
+        if (motion != null) motion.update(pool.getStore(), dt);
         if (waiting) {
             waitTimer += dt;
             if (waitTimer >= nextDelay) {
                 waiting = false;
-                stateText = "点击!";
+                setState("点击!");
                 spawnTarget();
             }
         }
     }
 
     @Override
-    public void onMouseClick(double x, double y, GameStats stats) {
+    public void onMouseClick(AimRay ray, long eventNanos, GameStats stats) {
         if (waiting) {
             // 提前点击扣分
             stats.recordMiss();
-            stateText = "太早了! 等待靶标出现...";
+            setState("太早了! 等待靶标出现...");
             waitTimer = 0;
-            nextDelay = config.getReactionMinDelay() +
-                random.nextDouble() * (config.getReactionMaxDelay() - config.getReactionMinDelay());
+            nextDelay = settings.getReactionMinDelay() +
+                schedule.aux().nextDouble() * (settings.getReactionMaxDelay() - settings.getReactionMinDelay());
             return;
         }
 
         boolean hit = false;
-        for (int i = targets.size() - 1; i >= 0; i--) {
+        int i = ray.pickIndex(targets);
+        if (i >= 0) {
             Target t = targets.get(i);
-            if (t.isAlive() && t.contains(x, y)) {
-                long reaction = System.currentTimeMillis() - t.getSpawnTime();
-                stats.recordHit(reaction);
-                stateText = "反应时间: " + reaction + "ms";
-                targets.remove(i);
-                hit = true;
-                break;
-            }
+            // 一轮同时出现多个靶标: 后面的靶标从上一次命中起算，不把点前面靶标的时间算进反应
+            long reaction = t.reactionNanos(eventNanos);
+            if (roundHitNanos != 0) reaction = Math.min(reaction, Math.max(0, eventNanos - roundHitNanos));
+            roundHitNanos = eventNanos;
+            stats.recordHit(reaction, ray.getHitMultiplier(), eventNanos);
+            setReactionState(reaction);
+            pool.release(targets.swapRemove(i));
+            hit = true;
         }
         if (!hit && !targets.isEmpty()) {
             stats.recordMiss();
@@ -78,58 +97,73 @@ public class ReactionMode implements ModeHandler {
         }
     }
 
-    @Override public void onMouseMove(double x, double y, GameStats stats) {}
-    @Override public void onMousePress(double x, double y, GameStats stats) {}
-    @Override public void onMouseRelease(double x, double y, GameStats stats) {}
+    @Override public void onMouseMove(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMousePress(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMouseRelease(AimRay ray, long eventNanos, GameStats stats) {}
 
     @Override
-    public List<Target> getTargets() { return targets; }
+    public TargetList getTargets() { return targets; }
 
     @Override
     public void reset() {
-        targets.clear();
+        targets.releaseAll(pool);
+        schedule = SpawnSchedule.replace(schedule, settings, GameMode.REACTION, seed,
+            settings.getReactionTargetSize(), settings.getReactionTargetSize(), 0.3,
+            settings.getReactionMinDelay(), settings.getReactionMaxDelay(), settings.getReactionTargetCount());
+        sampler = SpawnSampler.forSettings(settings, schedule.maxMinDist(), schedule.aux());
+        motion = MotionController.forMode(settings, GameMode.REACTION, schedule);
         startWaiting();
     }
 
     @Override
-    public String getModeInfo() { return stateText; }
+    public void dispose() {
+        if (schedule != null) schedule.close();
+    }
+
+    @Override
+    public CharSequence getModeInfo() { return stateText; }
+
+    private void setState(String text) {
+        stateText.setLength(0);
+        stateText.append(text);
+    }
+
+    /** "反应时间: 123.45ms"，手工格式化两位小数 */
+    private void setReactionState(long reactionNanos) {
+        long hundredths = (reactionNanos + 5_000) / 10_000;   // 0.01ms，四舍五入
+        int frac = (int) (hundredths % 100);
+        stateText.setLength(0);
+        stateText.append("反应时间: ").append(hundredths / 100).append('.');
+        if (frac < 10) stateText.append('0');
+        stateText.append(frac).append("ms");
+    }
 
     private void startWaiting() {
         waiting = true;
         waitTimer = 0;
-        nextDelay = config.getReactionMinDelay() +
-            random.nextDouble() * (config.getReactionMaxDelay() - config.getReactionMinDelay());
-        stateText = "等待中...";
+        roundHitNanos = 0;
+        // 下一轮的首个条目提前出队，其预计算延迟即本轮等待时间
+        schedule.next(entry);
+        firstPending = true;
+        nextDelay = entry.delay;
+        setState("等待中...");
     }
 
     private void spawnTarget() {
-        int size = config.getReactionTargetSize();
-        int count = config.getReactionTargetCount();
-        double minDist = size * config.getTargetDensity() * 0.3;
-        double worldW = config.getWorldWidth();
-        double worldH = config.getWorldHeight();
-        double halfZ = config.getMaxDepth() / 2.0;
-        double xCenter = worldW * 0.5;
-        double xRange = worldW * 0.35 * config.getZSpread();
+        int count = settings.getReactionTargetCount();
+        // 每轮靶标一次性全部生成，从空场景开始登记
+        sampler.clear();
         for (int i = 0; i < count; i++) {
-            double tx, ty, tz;
-            int attempts = 0;
-            do {
-                tx = Math.max(worldW * 0.1, Math.min(worldW * 0.9,
-                    xCenter + (random.nextDouble() - 0.5) * 2 * xRange));
-                ty = (random.nextDouble() - 0.5) * 2 * worldH * 0.6;
-                tz = (random.nextDouble() - 0.5) * 2 * halfZ * 0.6;
-                attempts++;
-            } while (isTooClose(tx, ty, tz, minDist) && attempts < 50);
-            Target t = new Target(tx, ty, tz, size, new Color(255, 200, 0));
+            if (firstPending) {
+                sampler.add(entry.x, entry.y, entry.z);
+                firstPending = false;
+            } else {
+                schedule.nextPlaced(sampler, entry);
+            }
+            Target t = pool.acquire(entry.x, entry.y, entry.z, entry.size, TARGET_COLOR);
+            t.setShape(settings.getTargetShape().getHitShape());
+            if (motion != null) motion.attach(t);
             targets.add(t);
         }
     }
-
-    private boolean isTooClose(double x, double y, double z, double minDist) {
-        for (Target t : targets) {
-            if (t.distanceTo3D(x, y, z) < minDist) return true;
-        }
-        return false;
-    }
 }
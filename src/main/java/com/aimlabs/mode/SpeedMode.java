@@ -1,121 +1,127 @@
 package com.aimlabs.mode;
 
-import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionController;
+import com.aimlabs.game.SpawnSampler;
+import com.aimlabs.game.SpawnSchedule;
 import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.game.TargetPool;
 
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 /**
  * Speed模式 - 速度：靶标有生命周期，需要在消失前点击
  */
 public class SpeedMode implements ModeHandler {
-    private final List<Target> targets = new ArrayList<>();
-    private final Random random = new Random();
-    private GameConfig config;
+    private final TargetList targets = new TargetList();
+    private TargetPool pool;
+    private GameClock clock;
+    private SpawnSchedule schedule;
+    private SpawnSampler sampler;
+    private final SpawnSchedule.Entry entry = new SpawnSchedule.Entry();
+    private MotionController motion; // 运动模式(静止为null)
+    private long seed;
+    private SessionSettings settings;
     private int width, height;
     private double spawnTimer = 0;
+    private String modeInfo;       // 模式信息，init时生成
     private static final double SPAWN_INTERVAL = 0.8;
 
     @Override
-    public void init(int width, int height, GameConfig config) {
-        this.config = config;
+    public void init(int width, int height, SessionSettings settings, long seed, GameClock clock) {
+        this.settings = settings;
+        this.seed = seed;
+        this.clock = clock;
+        this.pool = TargetPool.forSettings(settings, clock);
         this.width = width;
         this.height = height;
+        this.modeInfo = "快速点击 | 存活: " + String.format("%.1fs", settings.getSpeedTargetLifetime())
+            + " | 靶标: " + settings.getSpeedTargetCount();
         reset();
     }
 
     @Override
-    public void update(double dt, int width, int height) {
+    public void update(double dt, int width, int height, GameStats stats) {
         this.width = width;
         this.height = height;
 
         // 保持靶标数量
-        while (targets.size() < config.getSpeedTargetCount()) {
+        while (targets.size() < settings.getSpeedTargetCount()) {
             spawnTarget();
         }
 
         // 更新并移除过期靶标
+        if (motion != null) motion.update(pool.getStore(), dt);
+        targets.expireAll(clock.now());
         for (int i = targets.size() - 1; i >= 0; i--) {
             Target t = targets.get(i);
-            t.update(dt, width, height);
             if (!t.isAlive()) {
-                targets.remove(i);
+                if (motion != null) motion.unregister(sampler, t);
+                else sampler.remove(t.getX(), t.getY(), t.getZ());
+                pool.release(targets.swapRemove(i));
             }
         }
     }
 
     @Override
-    public void onMouseClick(double x, double y, GameStats stats) {
+    public void onMouseClick(AimRay ray, long eventNanos, GameStats stats) {
         boolean hit = false;
-        for (int i = targets.size() - 1; i >= 0; i--) {
+        int i = ray.pickIndex(targets);
+        if (i >= 0) {
             Target t = targets.get(i);
-            if (t.isAlive() && t.contains(x, y)) {
-                long reaction = System.currentTimeMillis() - t.getSpawnTime();
-                stats.recordHit(reaction);
-                // 越快点击分数越高
-                double lifeRatio = 1.0 - (double) reaction / (config.getSpeedTargetLifetime() * 1000);
-                int bonus = (int) (lifeRatio * 50);
-                stats.setScore(stats.getScore() + bonus);
-                targets.remove(i);
-                hit = true;
-                break;
-            }
+            long reaction = t.reactionNanos(eventNanos);
+            stats.recordHit(reaction, ray.getHitMultiplier(), eventNanos);
+            // 越快点击分数越高
+            double lifeRatio = 1.0 - reaction / (settings.getSpeedTargetLifetime() * 1_000_000_000.0);
+            int bonus = (int) (lifeRatio * 50);
+            stats.setScore(stats.getScore() + bonus);
+            if (motion != null) motion.unregister(sampler, t);
+            else sampler.remove(t.getX(), t.getY(), t.getZ());
+            pool.release(targets.swapRemove(i));
+            hit = true;
         }
         if (!hit) {
             stats.recordMiss();
         }
     }
 
-    @Override public void onMouseMove(double x, double y, GameStats stats) {}
-    @Override public void onMousePress(double x, double y, GameStats stats) {}
-    @Override public void onMouseRelease(double x, double y, GameStats stats) {}
+    @Override public void onMouseMove(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMousePress(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMouseRelease(AimRay ray, long eventNanos, GameStats stats) {}
 
     @Override
-    public List<Target> getTargets() { return targets; }
+    public TargetList getTargets() { return targets; }
 
     @Override
     public void reset() {
-        targets.clear();
-        for (int i = 0; i < config.getSpeedTargetCount(); i++) {
+        targets.releaseAll(pool);
+        schedule = SpawnSchedule.replace(schedule, settings, GameMode.SPEED, seed,
+            settings.getSpeedTargetSize(), settings.getSpeedTargetSize(), 0.3, 0, 0, settings.getSpeedTargetCount());
+        sampler = SpawnSampler.forSettings(settings, schedule.maxMinDist(), schedule.aux());
+        motion = MotionController.forMode(settings, GameMode.SPEED, schedule);
+        for (int i = 0; i < settings.getSpeedTargetCount(); i++) {
             spawnTarget();
         }
     }
 
     @Override
-    public String getModeInfo() {
-        return "快速点击 | 存活: " + String.format("%.1fs", config.getSpeedTargetLifetime()) + " | 靶标: " + config.getSpeedTargetCount();
+    public void dispose() {
+        if (schedule != null) schedule.close();
     }
 
+    @Override
+    public String getModeInfo() { return modeInfo; }
+
     private void spawnTarget() {
-        int size = config.getSpeedTargetSize();
-        double minDist = size * config.getTargetDensity() * 0.3;
-        double worldW = config.getWorldWidth();
-        double worldH = config.getWorldHeight();
-        double halfZ = config.getMaxDepth() / 2.0;
-        double xCenter = worldW * 0.5;
-        double xRange = worldW * 0.35 * config.getZSpread();
-        double tx, ty, tz;
-        int attempts = 0;
-        do {
-            tx = Math.max(worldW * 0.1, Math.min(worldW * 0.9,
-                xCenter + (random.nextDouble() - 0.5) * 2 * xRange));
-            ty = (random.nextDouble() - 0.5) * 2 * worldH * 0.6;
-            tz = (random.nextDouble() - 0.5) * 2 * halfZ * 0.6;
-            attempts++;
-        } while (isTooClose(tx, ty, tz, minDist) && attempts < 50);
-        long lifetime = (long) (config.getSpeedTargetLifetime() * 1000);
-        Target t = new Target(tx, ty, tz, size, config.getTargetColor(), lifetime);
+        schedule.nextPlaced(sampler, entry);
+        long lifetime = (long) (settings.getSpeedTargetLifetime() * 1000);
+        Target t = pool.acquire(entry.x, entry.y, entry.z, entry.size, settings.getTargetRgb(), lifetime);
+        t.setShape(settings.getTargetShape().getHitShape());
+        if (motion != null) motion.attach(t);
         targets.add(t);
     }
-
-    private boolean isTooClose(double x, double y, double z, double minDist) {
-        for (Target t : targets) {
-            if (t.distanceTo3D(x, y, z) < minDist) return true;
-        }
-        return false;
-    }
 }
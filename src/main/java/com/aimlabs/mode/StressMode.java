@@ -0,0 +1,177 @@
+package com.aimlabs.mode;
+
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionController;
+import com.aimlabs.game.MotionPattern;
+import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.game.TargetPool;
+import com.aimlabs.game.TargetSeparation;
+import com.aimlabs.game.TargetStore;
+import com.aimlabs.perf.StressReport;
+import com.aimlabs.sim.SimulationLoop;
+
+import java.util.SplittableRandom;
+
+/**
+ * Stress模式 - 压力测试：移动靶标数量按10倍逐级增加(10, 100, 1k, 10k…)
+ * 每级保持固定时长，分别记录帧绘制时间、模拟线程每tick的更新/发布时间和GC，结束时生成报告找出超出预算的拐点
+ */
+public class StressMode implements ModeHandler {
+    public static final double FRAME_BUDGET_MS = 1000.0 / 60;
+    public static final double TICK_BUDGET_MS = 1000.0 / SimulationLoop.TICK_RATE;
+    private static final int[] COLORS = {
+        Target.rgb(255, 80, 80), Target.rgb(80, 180, 255), Target.rgb(255, 180, 0),
+        Target.rgb(0, 220, 120), Target.rgb(200, 100, 255), Target.rgb(255, 120, 200)
+    };
+
+    private final TargetList targets = new TargetList();
+    private TargetPool pool;
+    private GameClock clock;
+    private SessionSettings settings;
+    private long seed;
+    private SplittableRandom random;
+    private MotionController motion;
+    private String renderPath = "SwingTimer";
+
+    private int[] steps;        // 各级靶标数
+    private int step;
+    private long stepNanos;
+    private long stepStart;
+    private long warmupNanos;   // 每级开头不计入(生成靶标和JIT的抖动)
+    private boolean finished;
+    private boolean measuring;
+    private int ticksSinceFrame;   // 上一帧绘制以来的tick数
+    private StressReport report;
+    private boolean saved;
+    private String modeInfo;       // 模式信息缓存
+    private int infoTargets, infoStep, infoPhase;
+
+    @Override
+    public void init(int width, int height, SessionSettings settings, long seed, GameClock clock) {
+        this.settings = settings;
+        this.seed = seed;
+        this.clock = clock;
+        // 数万靶标时位置历史占用过大且测量不需要回溯，不记录
+        this.pool = new TargetPool(new TargetStore(64, clock, 0));
+        reset();
+    }
+
+    @Override
+    public void update(double dt, int width, int height, GameStats stats) {
+        long start = System.nanoTime();
+        long now = clock.now();
+        if (!finished && now - stepStart >= stepNanos) {
+            report.endStep();
+            if (step + 1 < steps.length) {
+                startStep(step + 1);
+            } else {
+                finished = true;
+            }
+        }
+        measuring = !finished && now - stepStart >= warmupNanos;
+        motion.update(pool.getStore(), dt);
+        ticksSinceFrame++;
+        if (measuring) report.recordSim(System.nanoTime() - start);
+    }
+
+    @Override
+    public void onTickPublished(long publishNanos) {
+        if (measuring) report.recordPublish(publishNanos);
+    }
+
+    /** 绘制在EDT上，只记绘制本身；模拟线程的开销按本帧经过的tick数另计 */
+    @Override
+    public void onFrameRendered(long renderNanos) {
+        if (measuring) report.recordFrame(renderNanos, ticksSinceFrame);
+        ticksSinceFrame = 0;
+    }
+
+    private void startStep(int i) {
+        step = i;
+        int count = steps[i];
+        report.beginStep(count);
+        double maxX = settings.getRoomMaxX(), halfY = settings.getRoomHalfY(), halfZ = settings.getRoomHalfZ();
+        while (targets.size() < count) {
+            double x = maxX * (0.1 + 0.8 * random.nextDouble());
+            double y = halfY * (random.nextDouble() * 1.6 - 0.8);
+            double z = halfZ * (random.nextDouble() * 1.6 - 0.8);
+            Target t = pool.acquire(x, y, z, settings.getStressTargetSize(), COLORS[targets.size() % COLORS.length]);
+            motion.attach(t);
+            targets.add(t);
+        }
+        stepStart = clock.now();
+        measuring = false;
+        ticksSinceFrame = 0;
+    }
+
+    @Override public void onMouseClick(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMouseMove(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMousePress(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMouseRelease(AimRay ray, long eventNanos, GameStats stats) {}
+
+    @Override
+    public TargetList getTargets() { return targets; }
+
+    @Override
+    public void reset() {
+        targets.releaseAll(pool);
+        random = new SplittableRandom(seed);
+        int max = Math.max(10, settings.getStressMaxTargets());
+        int n = 0;
+        for (long c = 10; c <= max; c *= 10) n++;
+        steps = new int[n];
+        for (int i = 0, c = 10; i < n; i++, c *= 10) steps[i] = c;
+        stepNanos = (long) (Math.max(0.5, settings.getStressStepSeconds()) * 1_000_000_000L);
+        warmupNanos = Math.min(500_000_000L, stepNanos / 4);
+
+        // 压力测试总是带运动；未设置运动模式时用匀速反弹
+        MotionPattern pattern = settings.getMotionPattern(GameMode.STRESS);
+        if (pattern == MotionPattern.NONE) pattern = MotionPattern.LINEAR;
+        motion = new MotionController(pattern, settings, settings.getTrackSpeed(), random);
+        if (settings.isTargetSeparation()) {
+            motion.setSeparation(new TargetSeparation(settings.getTargetDensity(), 0.3));
+        }
+
+        report = new StressReport(renderPath, FRAME_BUDGET_MS, TICK_BUDGET_MS);
+        saved = false;
+        finished = false;
+        startStep(0);
+    }
+
+    /** 结束: 汇总未完成的级别并保存报告(只保存一次) */
+    @Override
+    public void dispose() {
+        if (saved) return;
+        saved = true;
+        report.endStep();
+        if (!report.getSteps().isEmpty()) report.saveAsync();
+    }
+
+    /** 全部级别跑完后再多留一个tick，让最后一级在update中正常结束 */
+    @Override
+    public long getSessionNanos(SessionSettings settings) {
+        return steps.length * stepNanos + 100_000_000L;
+    }
+
+    @Override
+    public String getModeInfo() {
+        int phase = finished ? 2 : measuring ? 1 : 0;
+        if (modeInfo == null || targets.size() != infoTargets || step != infoStep || phase != infoPhase) {
+            infoTargets = targets.size();
+            infoStep = step;
+            infoPhase = phase;
+            modeInfo = "压力测试 | 靶标: " + infoTargets + " | 第" + (step + 1) + "/" + steps.length + "级"
+                + (finished ? " | 已完成" : measuring ? " | 测量中" : " | 预热");
+        }
+        return modeInfo;
+    }
+
+    public void setRenderPath(String renderPath) { this.renderPath = renderPath; }
+    public StressReport getReport() { return report; }
+    public boolean isFinished() { return finished; }
+}
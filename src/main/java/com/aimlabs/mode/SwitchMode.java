@@ -1,59 +1,72 @@
 package com.aimlabs.mode;
 
-import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionController;
+import com.aimlabs.game.SpawnSampler;
+import com.aimlabs.game.SpawnSchedule;
 import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.game.TargetPool;
 
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 /**
  * Switch模式 - 切换：多个靶标同时存在，高亮的靶标需要按顺序点击
  */
 public class SwitchMode implements ModeHandler {
-    private final List<Target> targets = new ArrayList<>();
-    private final Random random = new Random();
-    private GameConfig config;
+    private final TargetList targets = new TargetList();
+    private TargetPool pool;
+    private GameClock clock;
+    private SpawnSchedule schedule;
+    private SpawnSampler sampler;
+    private final SpawnSchedule.Entry entry = new SpawnSchedule.Entry();
+    private MotionController motion; // 运动模式(静止为null)
+    private long seed;
+    private SessionSettings settings;
     private int width, height;
     private int currentIndex = 0;
+    private String modeInfo;       // 模式信息，init时生成
+    private static final int IDLE_COLOR = Target.rgb(100, 100, 120);
+    private static final int HIGHLIGHT_COLOR = Target.rgb(255, 200, 0);
 
     @Override
-    public void init(int width, int height, GameConfig config) {
-        this.config = config;
+    public void init(int width, int height, SessionSettings settings, long seed, GameClock clock) {
+        this.settings = settings;
+        this.seed = seed;
+        this.clock = clock;
+        this.pool = TargetPool.forSettings(settings, clock);
         this.width = width;
         this.height = height;
+        this.modeInfo = "点击高亮靶标 | 靶标数: " + settings.getSwitchTargetCount();
         reset();
     }
 
     @Override
-    public void update(double dt, int width, int height) {
+    public void update(double dt, int width, int height, GameStats stats) {
         this.width = width;
         this.height = height;
+        if (motion != null) motion.update(pool.getStore(), dt);
     }
 
     @Override
-    public void onMouseClick(double x, double y, GameStats stats) {
+    public void onMouseClick(AimRay ray, long eventNanos, GameStats stats) {
         if (targets.isEmpty()) return;
 
-        // 只能点击高亮的靶标
-        Target highlighted = null;
-        int highlightedIdx = -1;
-        for (int i = 0; i < targets.size(); i++) {
-            if (targets.get(i).isHighlighted()) {
-                highlighted = targets.get(i);
-                highlightedIdx = i;
-                break;
-            }
-        }
+        // 只能点击高亮的靶标, 且射线最先击中的必须是它(不能隔着其他靶标)
+        int pickedIdx = ray.pickIndex(targets);
+        Target picked = pickedIdx >= 0 ? targets.get(pickedIdx) : null;
 
-        if (highlighted != null && highlighted.contains(x, y)) {
-            long reaction = System.currentTimeMillis() - highlighted.getSpawnTime();
-            stats.recordHit(reaction);
+        if (picked != null && picked.isHighlighted()) {
+            long reaction = picked.reactionNanos(eventNanos);
+            stats.recordHit(reaction, ray.getHitMultiplier(), eventNanos);
 
             // 移除被点击的靶标，重新生成一个新的
-            targets.remove(highlightedIdx);
+            if (motion != null) motion.unregister(sampler, picked);
+            else sampler.remove(picked.getX(), picked.getY(), picked.getZ());
+            pool.release(targets.swapRemove(pickedIdx));
             spawnSingleTarget(false);
 
             // 随机选一个新的高亮
@@ -63,17 +76,21 @@ public class SwitchMode implements ModeHandler {
         }
     }
 
-    @Override public void onMouseMove(double x, double y, GameStats stats) {}
-    @Override public void onMousePress(double x, double y, GameStats stats) {}
-    @Override public void onMouseRelease(double x, double y, GameStats stats) {}
+    @Override public void onMouseMove(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMousePress(AimRay ray, long eventNanos, GameStats stats) {}
+    @Override public void onMouseRelease(AimRay ray, long eventNanos, GameStats stats) {}
 
     @Override
-    public List<Target> getTargets() { return targets; }
+    public TargetList getTargets() { return targets; }
 
     @Override
     public void reset() {
-        targets.clear();
-        for (int i = 0; i < config.getSwitchTargetCount(); i++) {
+        targets.releaseAll(pool);
+        schedule = SpawnSchedule.replace(schedule, settings, GameMode.SWITCH, seed,
+            settings.getSwitchTargetSize(), settings.getSwitchTargetSize(), 0.3, 0, 0, settings.getSwitchTargetCount());
+        sampler = SpawnSampler.forSettings(settings, schedule.maxMinDist(), schedule.aux());
+        motion = MotionController.forMode(settings, GameMode.SWITCH, schedule);
+        for (int i = 0; i < settings.getSwitchTargetCount(); i++) {
             spawnSingleTarget(false);
         }
         if (!targets.isEmpty()) {
@@ -82,40 +99,23 @@ public class SwitchMode implements ModeHandler {
     }
 
     @Override
-    public String getModeInfo() {
-        return "点击高亮靶标 | 靶标数: " + config.getSwitchTargetCount();
+    public void dispose() {
+        if (schedule != null) schedule.close();
     }
 
+    @Override
+    public String getModeInfo() { return modeInfo; }
+
     private void spawnSingleTarget(boolean highlight) {
-        int size = config.getSwitchTargetSize();
-        double worldW = config.getWorldWidth();
-        double worldH = config.getWorldHeight();
-        double halfZ = config.getMaxDepth() / 2.0;
-        double xCenter = worldW * 0.5;
-        double xRange = worldW * 0.35 * config.getZSpread();
-        double tx, ty, tz;
-        boolean overlapping;
-        int attempts = 0;
-        do {
-            tx = Math.max(worldW * 0.1, Math.min(worldW * 0.9,
-                xCenter + (random.nextDouble() - 0.5) * 2 * xRange));
-            ty = (random.nextDouble() - 0.5) * 2 * worldH * 0.6;
-            tz = (random.nextDouble() - 0.5) * 2 * halfZ * 0.6;
-            overlapping = false;
-            for (Target t : targets) {
-                if (t.distanceTo3D(tx, ty, tz) < size * config.getTargetDensity() * 0.3) {
-                    overlapping = true;
-                    break;
-                }
-            }
-            attempts++;
-        } while (overlapping && attempts < 50);
-
-        Color color = new Color(100, 100, 120);
-        Target t = new Target(tx, ty, tz, size, color);
+        schedule.nextPlaced(sampler, entry);
+
+        Target t = pool.acquire(entry.x, entry.y, entry.z, entry.size, IDLE_COLOR);
+        t.setShape(settings.getTargetShape().getHitShape());
+
+        if (motion != null) motion.attach(t);
         t.setHighlighted(highlight);
         if (highlight) {
-            t.setColor(new Color(255, 200, 0));
+            t.setRgb(HIGHLIGHT_COLOR);
             t.resetSpawnTime();
         }
         targets.add(t);
@@ -125,13 +125,13 @@ public class SwitchMode implements ModeHandler {
         // 取消所有高亮
         for (Target t : targets) {
             t.setHighlighted(false);
-            t.setColor(new Color(100, 100, 120));
+            t.setRgb(IDLE_COLOR);
         }
         // 随机选一个
         if (!targets.isEmpty()) {
-            int idx = random.nextInt(targets.size());
+            int idx = schedule.aux().nextInt(targets.size());
             targets.get(idx).setHighlighted(true);
-            targets.get(idx).setColor(new Color(255, 200, 0));
+            targets.get(idx).setRgb(HIGHLIGHT_COLOR);
             targets.get(idx).resetSpawnTime();
         }
     }
@@ -1,125 +1,218 @@
 package com.aimlabs.mode;
 
-import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimInputBuffer;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionController;
+import com.aimlabs.game.SpawnSampler;
+import com.aimlabs.game.SpawnSchedule;
 import com.aimlabs.game.Target;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.game.TargetPool;
 
 /**
  * Tracking模式 - 追踪：靶标持续移动，按住鼠标追踪靶标
+ * 命中判定在固定频率的模拟tick中进行，按真实经过时间累计贴靶时长，与鼠标回报率无关
  */
 public class TrackingMode implements ModeHandler {
-    private final List<Target> targets = new ArrayList<>();
-    private final Random random = new Random();
-    private GameConfig config;
+    private final TargetList targets = new TargetList();
+    private TargetPool pool;
+    private GameClock clock;
+    private SpawnSchedule schedule;
+    private SpawnSampler sampler;
+    private final SpawnSchedule.Entry entry = new SpawnSchedule.Entry();
+    private MotionController motion; // 运动模式(静止为null)
+    private long seed;
+    private SessionSettings settings;
     private int width, height;
     private boolean mouseDown = false;
-    private double mouseX, mouseY;
+
+    // 固定频率tick
+    private static final double POINTS_PER_SECOND = 60; // 贴靶每秒得分(与原60Hz逐帧+1一致)
+    private long tickNanos;
+    private long simNanos;          // 已模拟到的游戏时刻
+    private double scoreCarry = 0;  // 不足1分的累计
+
+    // tick内分段: 输入缓冲 + 当前生效的准星状态
+    private final AimInputBuffer inputs = new AimInputBuffer(1024);
+    private final AimRay aim = new AimRay();
+    private double aimYaw, aimPitch;
+    private boolean aimDown = false;
+    private boolean hasAim = false;
+    private long aimLag;            // 输入时刻减去延迟补偿的判定时刻，0为不回溯
+
+    // tick开始时的靶标位置(用于tick内插值)，按列表下标存放
+    private double[] startX = new double[16], startY = new double[16], startZ = new double[16];
+    private String modeInfo;       // 模式信息，init时生成
 
     @Override
-    public void init(int width, int height, GameConfig config) {
-        this.config = config;
+    public void init(int width, int height, SessionSettings settings, long seed, GameClock clock) {
+        this.settings = settings;
+        this.seed = seed;
+        this.clock = clock;
+        this.pool = TargetPool.forSettings(settings, clock);
         this.width = width;
         this.height = height;
+        this.modeInfo = "按住鼠标追踪靶标 | 速度: " + String.format("%.1f", settings.getTrackSpeed())
+            + " | 靶标: " + settings.getTrackTargetCount();
         reset();
     }
 
     @Override
-    public void update(double dt, int width, int height) {
+    public void update(double dt, int width, int height, GameStats stats) {
         this.width = width;
         this.height = height;
-        double worldW = config.getWorldWidth();
-        double worldH = config.getWorldHeight();
-        double halfZ = config.getMaxDepth() / 2.0;
-        for (Target t : targets) {
-            t.update3D(dt * config.getTrackSpeed() * 60, worldW, worldH, halfZ);
+        // 以固定步长追上游戏时钟，渲染帧率和输入频率都不影响移动和判定
+        long now = clock.now();
+        while (simNanos + tickNanos <= now) {
+            step(simNanos, simNanos + tickNanos, stats);
+            simNanos += tickNanos;
         }
     }
 
-    @Override
-    public void onMouseClick(double x, double y, GameStats stats) {}
+    /** 模拟一个tick [t0, t1): 移动靶标，再按输入分段累计贴靶时间 */
+    private void step(long t0, long t1, GameStats stats) {
+        int n = targets.size();
+        if (startX.length < n) {
+            startX = new double[n * 2];
+            startY = new double[n * 2];
+            startZ = new double[n * 2];
+        }
+        for (int i = 0; i < n; i++) {
+            Target t = targets.get(i);
+            startX[i] = t.getX();
+            startY[i] = t.getY();
+            startZ[i] = t.getZ();
+        }
+        double tickSeconds = (t1 - t0) / 1_000_000_000.0;
+        if (motion != null) motion.update(pool.getStore(), tickSeconds);
 
-    @Override
-    public void onMouseMove(double x, double y, GameStats stats) {
-        mouseX = x;
-        mouseY = y;
-        if (mouseDown) {
-            boolean onTarget = false;
-            for (Target t : targets) {
-                if (t.contains(x, y)) {
-                    onTarget = true;
-                    break;
-                }
+        if (!settings.isTrackSubTickInput()) {
+            // 只在tick边界采样: 先应用本tick内全部输入，再整段判定
+            while (inputs.peekNanos() < t1) applyNextInput();
+            integrate(t0, t1, t0, t1, stats);
+            return;
+        }
+        long segStart = t0;
+        while (inputs.peekNanos() < t1) {
+            long at = Math.max(segStart, inputs.peekNanos());
+            integrate(segStart, at, t0, t1, stats);
+            applyNextInput();
+            segStart = at;
+        }
+        integrate(segStart, t1, t0, t1, stats);
+    }
+
+    /**
+     * 累计[a, b)区间: 用区间中点时刻的靶标位置与当前准星射线求交
+     * 输入带延迟补偿时，按玩家当时看到的画面回溯: 中点时刻减去输入的延迟，取位置历史；否则用tick内插值位置
+     */
+    private void integrate(long a, long b, long t0, long t1, GameStats stats) {
+        if (b <= a || !aimDown || !hasAim) return;
+        long mid = a + (b - a) / 2;
+        double f = (double) (mid - t0) / (t1 - t0);
+        aim.set(aimYaw, aimPitch, settings.getFov());
+        if (aimLag != 0) aim.atTime(mid - aimLag);
+        boolean onTarget = false;
+        double multiplier = 1.0;
+        for (int i = 0, n = targets.size(); i < n && !onTarget; i++) {
+            Target t = targets.get(i);
+            if (aimLag != 0) {
+                onTarget = aim.intersect(t) >= 0;
+            } else {
+                double x = startX[i] + (t.getX() - startX[i]) * f;
+                double y = startY[i] + (t.getY() - startY[i]) * f;
+                double z = startZ[i] + (t.getZ() - startZ[i]) * f;
+                onTarget = aim.intersectTarget(t.getShape(), x, y, z, t.getSize()) >= 0;
+            }
+            if (onTarget) multiplier = aim.getHitMultiplier();
+        }
+        double seconds = (b - a) / 1_000_000_000.0;
+        stats.addTrackTime(seconds, onTarget);
+        if (onTarget) {
+            // 人形靶按准星所在部位的倍率计分
+            scoreCarry += seconds * POINTS_PER_SECOND * multiplier;
+            int points = (int) scoreCarry;
+            if (points > 0) {
+                stats.setScore(stats.getScore() + points);
+                scoreCarry -= points;
             }
-            stats.addTrackTime(0.016, onTarget);
-            if (onTarget) stats.setScore(stats.getScore() + 1);
         }
     }
 
+    private void applyNextInput() {
+        aimYaw = inputs.peekYaw();
+        aimPitch = inputs.peekPitch();
+        aimDown = inputs.peekDown();
+        long eval = inputs.peekEvalNanos();
+        aimLag = eval != 0 ? Math.max(0, inputs.peekNanos() - eval) : 0;
+        hasAim = true;
+        inputs.poll();
+    }
+
+    /** 记录输入时刻的准星状态和延迟补偿的判定时刻，由下一个tick处理 */
+    private void bufferInput(AimRay ray, long eventNanos) {
+        if (inputs.isFull()) applyNextInput();
+        inputs.offer(eventNanos, ray.getYaw(), ray.getPitch(), mouseDown, ray.getEvalNanos());
+    }
+
+    @Override
+    public void onMouseClick(AimRay ray, long eventNanos, GameStats stats) {}
+
     @Override
-    public void onMousePress(double x, double y, GameStats stats) {
+    public void onMouseMove(AimRay ray, long eventNanos, GameStats stats) {
+        bufferInput(ray, eventNanos);
+    }
+
+    @Override
+    public void onMousePress(AimRay ray, long eventNanos, GameStats stats) {
         mouseDown = true;
-        mouseX = x;
-        mouseY = y;
+        bufferInput(ray, eventNanos);
     }
 
     @Override
-    public void onMouseRelease(double x, double y, GameStats stats) {
+    public void onMouseRelease(AimRay ray, long eventNanos, GameStats stats) {
         mouseDown = false;
+        bufferInput(ray, eventNanos);
     }
 
     @Override
-    public List<Target> getTargets() { return targets; }
+    public TargetList getTargets() { return targets; }
 
     @Override
     public void reset() {
-        targets.clear();
+        targets.releaseAll(pool);
         mouseDown = false;
-        int size = config.getTrackTargetSize();
-        int count = config.getTrackTargetCount();
-        double minDist = size * config.getTargetDensity() * 0.3;
-        double worldW = config.getWorldWidth();
-        double worldH = config.getWorldHeight();
-        double halfZ = config.getMaxDepth() / 2.0;
-        double xCenter = worldW * 0.5;
-        double xRange = worldW * 0.35 * config.getZSpread();
-        for (int i = 0; i < count; i++) {
-            double tx, ty, tz;
-            int attempts = 0;
-            do {
-                tx = Math.max(worldW * 0.1, Math.min(worldW * 0.9,
-                    xCenter + (random.nextDouble() - 0.5) * 2 * xRange));
-                ty = (random.nextDouble() - 0.5) * 2 * worldH * 0.6;
-                tz = (random.nextDouble() - 0.5) * 2 * halfZ * 0.6;
-                attempts++;
-            } while (isTooClose(tx, ty, tz, minDist) && attempts < 50);
-            Target t = new Target(tx, ty, tz, size, config.getTargetColor());
-            double angle = random.nextDouble() * Math.PI * 2;
-            double speed = 2 + random.nextDouble() * 2;
-            t.setVelocityX(Math.cos(angle) * speed);
-            t.setVelocityY(Math.sin(angle) * speed);
-            double speedZ = 1 + random.nextDouble() * 2;
-            t.setVelocityZ((random.nextBoolean() ? 1 : -1) * speedZ);
+        tickNanos = 1_000_000_000L / Math.max(1, settings.getTrackTickRate());
+        simNanos = clock.now();
+        scoreCarry = 0;
+        inputs.clear();
+        aimDown = false;
+        hasAim = false;
+        aimLag = 0;
+        schedule = SpawnSchedule.replace(schedule, settings, GameMode.TRACKING, seed,
+            settings.getTrackTargetSize(), settings.getTrackTargetSize(), 0.3, 0, 0, settings.getTrackTargetCount());
+        sampler = SpawnSampler.forSettings(settings, schedule.maxMinDist(), schedule.aux());
+        motion = MotionController.forMode(settings, GameMode.TRACKING, schedule);
+        for (int i = 0; i < settings.getTrackTargetCount(); i++) {
+            schedule.nextPlaced(sampler, entry);
+            Target t = pool.acquire(entry.x, entry.y, entry.z, entry.size, settings.getTargetRgb());
+            t.setShape(settings.getTargetShape().getHitShape());
+            if (motion != null) motion.attach(t);
             targets.add(t);
         }
     }
 
-    private boolean isTooClose(double x, double y, double z, double minDist) {
-        for (Target t : targets) {
-            if (t.distanceTo3D(x, y, z) < minDist) return true;
-        }
-        return false;
+    @Override
+    public void dispose() {
+        if (schedule != null) schedule.close();
     }
 
     @Override
-    public String getModeInfo() {
-        return "按住鼠标追踪靶标 | 速度: " + String.format("%.1f", config.getTrackSpeed()) + " | 靶标: " + config.getTrackTargetCount();
-    }
+    public String getModeInfo() { return modeInfo; }
 
     public boolean isMouseDown() { return mouseDown; }
-    public double getMouseX() { return mouseX; }
-    public double getMouseY() { return mouseY; }
 }
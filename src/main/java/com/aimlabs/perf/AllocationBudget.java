@@ -0,0 +1,234 @@
+package com.aimlabs.perf;
+
+import com.aimlabs.bot.PerfectBot;
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.game.FrameSnapshot;
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.TargetShape;
+import com.aimlabs.sim.SimSession;
+import com.aimlabs.ui.GamePanel;
+import com.aimlabs.ui.HudRenderer;
+import com.aimlabs.ui.SceneRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分配预算检查 - 预热后逐阶段测量热路径每次调用在当前线程上分配的字节数，超出预算时以非0退出
+ * 阶段: 模式tick、点击判定、快照发布、房间绘制、靶标绘制、HUD绘制，以及开一局后GamePanel整帧绘制(真实的paint路径)；
+ * 绘制画到离屏图像上，可无界面运行
+ * 点击阶段每次点击前都重新瞄准打得到的靶标(不计入)，测的是命中、移除和补生成的路径
+ * 绘制阶段的预算包含Java2D内部(每次渐变填充的绘制上下文、提示表拷贝、字形)无法消除的分配，其余阶段应为0
+ * 用法: java -cp AimLabs.jar com.aimlabs.perf.AllocationBudget [每阶段迭代次数]
+ */
+public class AllocationBudget {
+    private static final int WARMUP = 3000;    // 足够让热路径被C2编译(解释执行时逃逸分析消除的临时对象仍会分配)
+    private static final int FRAME_W = 1280, FRAME_H = 720;
+    private static final int MAX_AIM_TICKS = 1000;  // 等待靶标可瞄准(反应模式的出现延迟)最多推进的tick数
+
+    // 每次调用的预算(字节)
+    private static final long TICK_BUDGET = 0;
+    private static final long CLICK_BUDGET = 0;
+    private static final long SNAPSHOT_BUDGET = 0;
+    private static final long ROOM_BUDGET = 1024;
+    private static final long TARGET_BUDGET = 4 * 1024;   // 按快照中的靶标数线性放宽(实测最多约3.9KB/个)
+    private static final long HUD_BUDGET = 1024;
+    private static final long PANEL_BUDGET = 2 * 1024;    // 整帧中靶标以外的部分(房间+HUD+Swing绘制上下文)，靶标另按TARGET_BUDGET
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // 读取分配计数本身会分配少量字节，整段测量允许的误差
+    private static final long MEASURE_SLACK = 256;
+
+    private record Result(String mode, String phase, long bytes, int calls, long budget) {
+        double bytesPerCall() { return calls == 0 ? 0 : bytes / (double) calls; }
+        boolean over() { return bytes > budget * calls + MEASURE_SLACK; }
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("当前JVM不支持线程分配计数");
+            System.exit(2);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        List<Result> results = new ArrayList<>();
+        List<String> problems = new ArrayList<>();
+        GameConfig panelConfig = sessionConfig();
+        GamePanel panel = new GamePanel(panelConfig);
+        panel.setSize(FRAME_W, FRAME_H);
+        for (TargetShape shape : TargetShape.values()) {
+            panelConfig.setTargetShape(shape);
+            for (GameMode mode : GameMode.values()) {
+                if (mode == GameMode.STRESS) continue;   // 逐级增加靶标，稳态不成立
+                run(mode, shape, iterations, results, problems);
+                measurePanel(panel, mode + "/" + shape, mode, iterations, results);
+            }
+        }
+
+        System.out.println("模式\t阶段\t字节/次\t预算");
+        int failures = 0;
+        for (Result r : results) {
+            System.out.printf("%s\t%s\t%.1f\t%d%s%n", r.mode, r.phase, r.bytesPerCall(), r.budget,
+                r.over() ? "\t超出预算" : "");
+            if (r.over()) failures++;
+        }
+        for (String problem : problems) System.out.println(problem);
+        failures += problems.size();
+        if (failures > 0) {
+            System.out.println(failures + " 个阶段超出分配预算或未覆盖命中路径");
+            System.exit(1);
+        }
+        System.out.println("全部阶段在预算内");
+    }
+
+    private static void run(GameMode mode, TargetShape shape, int iterations, List<Result> results,
+                            List<String> problems) {
+        GameConfig config = sessionConfig();
+        config.setTargetShape(shape);
+        String name = mode + "/" + shape;
+        SimSession session = new SimSession(config, mode, 42, SimSession.DEFAULT_TICK_NANOS, FRAME_W, FRAME_H);
+        PerfectBot bot = new PerfectBot();
+        bot.reset(session);
+        double dt = session.getTickNanos() / 1_000_000_000.0;
+        FrameSnapshot snap = new FrameSnapshot();
+        SceneRenderer scene = new SceneRenderer(config);
+        scene.setSession(session.getSettings());
+        HudRenderer hud = new HudRenderer(config);
+        BufferedImage frame = new BufferedImage(FRAME_W, FRAME_H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = frame.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        try {
+            for (int i = 0; i < WARMUP; i++) {
+                bot.act(session, dt);
+                session.step();
+                capture(session, snap);
+                draw(scene, hud, g2d, snap, mode);
+            }
+
+            // 第一轮只用来预热测量循环本身(OSR编译/去优化时的一次性分配)，记录第二轮
+            measure(name, mode, session, bot, snap, scene, hud, g2d, iterations, new ArrayList<>(), new ArrayList<>());
+            measure(name, mode, session, bot, snap, scene, hud, g2d, iterations, results, problems);
+        } finally {
+            g2d.dispose();
+            session.getHandler().dispose();
+        }
+    }
+
+    private static void measure(String name, GameMode mode, SimSession session, PerfectBot bot, FrameSnapshot snap,
+                                SceneRenderer scene, HudRenderer hud, Graphics2D g2d,
+                                int iterations, List<Result> results, List<String> problems) {
+        // 模式tick: 瞄准在预热阶段已就位，这里只推进模拟
+        long before = allocated();
+        int ticks = 0;
+        for (int i = 0; i < iterations && !session.isFinished(); i++) {
+            session.step();
+            ticks++;
+        }
+        results.add(new Result(name, "tick", since(before), ticks, TICK_BUDGET));
+
+        // 点击判定: 瞄准和点击后的tick不计入，只累计点击本身；追踪模式的点击不做判定
+        int hitsBefore = session.getStats().getHits();
+        long clickBytes = 0;
+        int clicks = 0;
+        for (int i = 0; i < iterations && !session.isFinished(); i++) {
+            for (int k = 0; k < MAX_AIM_TICKS && !bot.aimReachable(session); k++) session.step();
+            before = allocated();
+            session.click();
+            clickBytes += since(before);
+            clicks++;
+            session.step();
+        }
+        results.add(new Result(name, "click", clickBytes, clicks, CLICK_BUDGET));
+        int hits = session.getStats().getHits() - hitsBefore;
+        if (mode != GameMode.TRACKING && hits < clicks) {
+            problems.add(String.format("%s\tclick\t只有%d/%d次点击命中", name, hits, clicks));
+        }
+
+        before = allocated();
+        for (int i = 0; i < iterations; i++) capture(session, snap);
+        results.add(new Result(name, "snapshot", since(before), iterations, SNAPSHOT_BUDGET));
+
+        scene.setCamera(session.getYaw(), session.getPitch());
+        before = allocated();
+        for (int i = 0; i < iterations; i++) scene.drawRoom(g2d, FRAME_W, FRAME_H);
+        results.add(new Result(name, "room", since(before), iterations, ROOM_BUDGET));
+
+        before = allocated();
+        for (int i = 0; i < iterations; i++) scene.drawTargets(g2d, snap, FRAME_W, FRAME_H);
+        results.add(new Result(name, "targets", since(before), iterations,
+            TARGET_BUDGET * Math.max(1, snap.getCount())));
+
+        before = allocated();
+        for (int i = 0; i < iterations; i++) {
+            hud.drawBar(g2d, FRAME_W);
+            hud.drawStats(g2d, snap, mode, FRAME_W);
+            hud.drawCrosshair(g2d, FRAME_W / 2, FRAME_H / 2 + 30);
+        }
+        results.add(new Result(name, "hud", since(before), iterations, HUD_BUDGET));
+    }
+
+    private static GameConfig sessionConfig() {
+        GameConfig config = new GameConfig();
+        config.setSpawnSeed(42);
+        config.setGameDuration(3600);   // 足够长的一局，测量期间不会结束
+        return config;
+    }
+
+    /**
+     * GamePanel整帧: 开一局后在本线程把面板画到离屏图像上，与EDT上的paint走同一条路径
+     * 模拟在它自己的线程上推进，只统计本线程(绘制)的分配
+     */
+    private static void measurePanel(GamePanel panel, String name, GameMode mode, int iterations,
+                                     List<Result> results) {
+        BufferedImage frame = new BufferedImage(FRAME_W, FRAME_H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = frame.createGraphics();
+        panel.startGame(mode);
+        try {
+            for (int i = 0; i < WARMUP; i++) panel.paint(g2d);
+            for (int i = 0; i < iterations; i++) panel.paint(g2d);   // 预热测量循环本身
+            long drawn = 0;
+            long before = allocated();
+            for (int i = 0; i < iterations; i++) {
+                panel.paint(g2d);
+                drawn += Math.max(1, panel.getLastFrameTargets());
+            }
+            long bytes = since(before);
+            results.add(new Result(name, "panel", bytes, iterations,
+                PANEL_BUDGET + (TARGET_BUDGET * drawn + iterations - 1) / iterations));
+        } finally {
+            panel.stopGame();
+            g2d.dispose();
+        }
+    }
+
+    private static void capture(SimSession session, FrameSnapshot snap) {
+        snap.capture(session.getTargets(), session.getNowNanos(), session.getYaw(), session.getPitch());
+        int remaining = (int) Math.max(0, (session.getHandler().getSessionNanos(session.getSettings())
+            - session.getElapsedNanos()) / 1_000_000_000L);
+        snap.setHud(session.getStats(), remaining, session.getHandler().getModeInfo());
+    }
+
+    private static void draw(SceneRenderer scene, HudRenderer hud, Graphics2D g2d, FrameSnapshot snap, GameMode mode) {
+        scene.setCamera(snap.getYaw(), snap.getPitch());
+        scene.drawRoom(g2d, FRAME_W, FRAME_H);
+        scene.drawTargets(g2d, snap, FRAME_W, FRAME_H);
+        hud.drawBar(g2d, FRAME_W);
+        hud.drawStats(g2d, snap, mode, FRAME_W);
+        hud.drawCrosshair(g2d, FRAME_W / 2, FRAME_H / 2 + 30);
+    }
+
+    private static long allocated() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static long since(long before) {
+        return allocated() - before;
+    }
+}
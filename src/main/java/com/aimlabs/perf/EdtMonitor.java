@@ -0,0 +1,303 @@
+package com.aimlabs.perf;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.FocusEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.InvocationEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.PaintEvent;
+import java.awt.event.WindowEvent;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EDT卡顿检测 - 替换系统事件队列，按事件类型统计分发耗时和排队等待
+ * 看门狗线程在单次分发超过阈值时抓取EDT堆栈，完整记录写入日志文件(不在EDT上写盘)
+ */
+public class EdtMonitor extends EventQueue {
+    private static final String LOG_FILE = "aimlabs_edt.log";
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    /** 事件分类 */
+    public enum Category {
+        MOUSE("鼠标"), MOTION("移动"), KEY("键盘"), PAINT("绘制"),
+        INVOCATION("调用/定时器"), WINDOW("窗口"), FOCUS("焦点"), OTHER("其他");
+
+        private final String label;
+        Category(String label) { this.label = label; }
+        public String getLabel() { return label; }
+    }
+
+    private static final int N = Category.values().length;
+    private static volatile EdtMonitor installed;
+
+    private final long thresholdNanos;
+
+    // 当前窗口累计(仅EDT写)
+    private final long[] count = new long[N];
+    private final long[] dispatchTotal = new long[N];
+    private final long[] dispatchMax = new long[N];
+    private final long[] waitTotalMs = new long[N];
+    private final long[] waitMaxMs = new long[N];
+    private long windowStart = System.nanoTime();
+    private int windowStalls;
+
+    // 上一个完整窗口(1秒)的快照，供调试层显示
+    private final long[] lastCount = new long[N];
+    private final long[] lastDispatchTotal = new long[N];
+    private final long[] lastDispatchMax = new long[N];
+    private final long[] lastWaitTotalMs = new long[N];
+    private final long[] lastWaitMaxMs = new long[N];
+    private int lastStalls;
+    private long lastPosted;
+
+    private final AtomicLong postedInWindow = new AtomicLong(); // 任意线程投递
+    private volatile long totalStalls;
+
+    // 看门狗可见的当前分发状态
+    private volatile long dispatchStart;     // 0 = 空闲
+    private volatile Category dispatchCategory = Category.OTHER;
+    private volatile Thread edtThread;
+    private int depth;
+    private long dispatchSerial;
+
+    // 鼠标事件进入队列的System.nanoTime时刻，分发时按事件对象取回(投递线程写、EDT读)
+    private static final int STAMP_CAPACITY = 64;
+    private final AWTEvent[] stampEvents = new AWTEvent[STAMP_CAPACITY];
+    private final long[] stampNanos = new long[STAMP_CAPACITY];
+    private int stampHead;
+    // 正在分发的鼠标事件的getWhen和投递时刻(仅EDT)
+    private long dispatchWhen, dispatchPostedNanos;
+
+    private final ConcurrentLinkedQueue<String> pendingLog = new ConcurrentLinkedQueue<>();
+
+    private EdtMonitor(long thresholdMs) {
+        this.thresholdNanos = thresholdMs * 1_000_000L;
+    }
+
+    /** 安装到系统事件队列(重复调用只安装一次) */
+    public static synchronized EdtMonitor install(long thresholdMs) {
+        if (installed != null) return installed;
+        EdtMonitor monitor = new EdtMonitor(Math.max(1, thresholdMs));
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(monitor);
+        Thread watchdog = new Thread(monitor::watchdogLoop, "EDT-Watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        installed = monitor;
+        return monitor;
+    }
+
+    /** 已安装的实例，未安装返回null */
+    public static EdtMonitor get() { return installed; }
+
+    @Override
+    public void postEvent(AWTEvent event) {
+        if (event instanceof MouseEvent) stamp(event, System.nanoTime());
+        postedInWindow.incrementAndGet();
+        super.postEvent(event);
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        Category cat = categorize(event);
+        long start = System.nanoTime();
+        long waitMs = queueWaitMs(event);
+        Category outerCat = dispatchCategory;
+        long serial = ++dispatchSerial;
+        long outerWhen = dispatchWhen, outerPosted = dispatchPostedNanos;
+        if (event instanceof MouseEvent mouse) {
+            dispatchWhen = mouse.getWhen();
+            dispatchPostedNanos = takeStamp(event);
+        }
+        edtThread = Thread.currentThread();
+        dispatchCategory = cat;
+        dispatchStart = start;
+        depth++;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            depth--;
+            dispatchWhen = outerWhen;
+            dispatchPostedNanos = outerPosted;
+            // 期间发生过嵌套分发(模态对话框的次级事件循环)，这段时间EDT并未阻塞，不计卡顿
+            boolean nested = dispatchSerial != serial;
+            if (depth > 0) {
+                dispatchCategory = outerCat;
+                dispatchStart = end;
+            } else {
+                dispatchStart = 0;
+            }
+            record(cat, nested ? -1 : end - start, waitMs, end);
+        }
+    }
+
+    private synchronized void stamp(AWTEvent event, long nanos) {
+        stampEvents[stampHead] = event;
+        stampNanos[stampHead] = nanos;
+        stampHead = (stampHead + 1) % STAMP_CAPACITY;
+    }
+
+    /** 取回事件的投递时刻并清除记录；合并掉的移动事件以最后一次投递为准，没有记录返回0 */
+    private synchronized long takeStamp(AWTEvent event) {
+        for (int k = 1; k <= STAMP_CAPACITY; k++) {
+            int i = (stampHead - k + STAMP_CAPACITY) % STAMP_CAPACITY;
+            if (stampEvents[i] == event) {
+                stampEvents[i] = null;
+                return stampNanos[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 正在分发的鼠标事件进入事件队列的System.nanoTime时刻，未知返回0
+     * Swing转发给子组件的是一份拷贝，按getWhen匹配；在该组件的监听器里(EDT上)调用
+     */
+    public long postedNanos(InputEvent e) {
+        return dispatchPostedNanos != 0 && e.getWhen() == dispatchWhen ? dispatchPostedNanos : 0;
+    }
+
+    /** dispatchNanos < 0 表示包含嵌套分发，只计数不计耗时 */
+    private void record(Category cat, long dispatchNanos, long waitMs, long now) {
+        int i = cat.ordinal();
+        count[i]++;
+        if (dispatchNanos > 0) {
+            dispatchTotal[i] += dispatchNanos;
+            if (dispatchNanos > dispatchMax[i]) dispatchMax[i] = dispatchNanos;
+        }
+        if (waitMs >= 0) {
+            waitTotalMs[i] += waitMs;
+            if (waitMs > waitMaxMs[i]) waitMaxMs[i] = waitMs;
+        }
+        if (dispatchNanos > thresholdNanos) {
+            windowStalls++;
+            totalStalls++;
+            pendingLog.add(String.format("%s  卡顿结束 类型=%s 分发=%.1fms 排队=%dms",
+                LocalDateTime.now(), cat, dispatchNanos / 1e6, waitMs));
+        }
+        if (now - windowStart >= WINDOW_NANOS) {
+            rollWindow(now);
+        }
+    }
+
+    private void rollWindow(long now) {
+        System.arraycopy(count, 0, lastCount, 0, N);
+        System.arraycopy(dispatchTotal, 0, lastDispatchTotal, 0, N);
+        System.arraycopy(dispatchMax, 0, lastDispatchMax, 0, N);
+        System.arraycopy(waitTotalMs, 0, lastWaitTotalMs, 0, N);
+        System.arraycopy(waitMaxMs, 0, lastWaitMaxMs, 0, N);
+        lastStalls = windowStalls;
+        lastPosted = postedInWindow.getAndSet(0);
+        Arrays.fill(count, 0);
+        Arrays.fill(dispatchTotal, 0);
+        Arrays.fill(dispatchMax, 0);
+        Arrays.fill(waitTotalMs, 0);
+        Arrays.fill(waitMaxMs, 0);
+        windowStalls = 0;
+        windowStart = now;
+    }
+
+    /** 带时间戳的事件可算出排队等待(毫秒)，否则返回-1 */
+    private static long queueWaitMs(AWTEvent event) {
+        long when;
+        if (event instanceof InputEvent) {
+            when = ((InputEvent) event).getWhen();
+        } else if (event instanceof InvocationEvent) {
+            when = ((InvocationEvent) event).getWhen();
+        } else {
+            return -1;
+        }
+        if (when <= 0) return -1;
+        return Math.max(0, System.currentTimeMillis() - when);
+    }
+
+    private static Category categorize(AWTEvent event) {
+        if (event instanceof MouseEvent) {
+            int id = event.getID();
+            return (id == MouseEvent.MOUSE_MOVED || id == MouseEvent.MOUSE_DRAGGED) ? Category.MOTION : Category.MOUSE;
+        }
+        if (event instanceof KeyEvent) return Category.KEY;
+        if (event instanceof PaintEvent) return Category.PAINT;
+        if (event instanceof InvocationEvent) return Category.INVOCATION;
+        if (event instanceof WindowEvent) return Category.WINDOW;
+        if (event instanceof FocusEvent) return Category.FOCUS;
+        return Category.OTHER;
+    }
+
+    private void watchdogLoop() {
+        long pollMs = Math.max(1, thresholdNanos / 4_000_000L);
+        long reportedStart = 0;
+        while (true) {
+            try {
+                Thread.sleep(pollMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = dispatchStart;
+            Thread edt = edtThread;
+            if (start != 0 && start != reportedStart && edt != null
+                    && System.nanoTime() - start > thresholdNanos) {
+                reportedStart = start;
+                logStall(edt, dispatchCategory, System.nanoTime() - start);
+            }
+            flushPending();
+        }
+    }
+
+    private void logStall(Thread edt, Category cat, long elapsedNanos) {
+        StackTraceElement[] stack = edt.getStackTrace();
+        try (PrintWriter out = new PrintWriter(new FileWriter(LOG_FILE, true))) {
+            out.printf("%s  EDT卡顿 类型=%s 已持续=%.1fms 阈值=%dms%n",
+                LocalDateTime.now(), cat, elapsedNanos / 1e6, thresholdNanos / 1_000_000L);
+            for (StackTraceElement e : stack) {
+                out.println("    at " + e);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write EDT log: " + e.getMessage());
+        }
+    }
+
+    private void flushPending() {
+        if (pendingLog.isEmpty()) return;
+        try (PrintWriter out = new PrintWriter(new FileWriter(LOG_FILE, true))) {
+            String line;
+            while ((line = pendingLog.poll()) != null) {
+                out.println(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write EDT log: " + e.getMessage());
+        }
+    }
+
+    /** 上一秒的汇总(调试层显示用，在EDT上调用) */
+    public List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        long dispatched = 0;
+        for (int i = 0; i < N; i++) dispatched += lastCount[i];
+        lines.add(String.format("EDT 投递/分发: %d/%d 每秒  卡顿: %d (累计 %d)",
+            lastPosted, dispatched, lastStalls, totalStalls));
+        for (Category cat : Category.values()) {
+            int i = cat.ordinal();
+            if (lastCount[i] == 0) continue;
+            lines.add(String.format("  %-6s x%-4d 分发 avg %.2f / max %.2fms  排队 avg %d / max %dms",
+                cat.getLabel(), lastCount[i],
+                lastDispatchTotal[i] / 1e6 / lastCount[i], lastDispatchMax[i] / 1e6,
+                lastWaitTotalMs[i] / lastCount[i], lastWaitMaxMs[i]));
+        }
+        return lines;
+    }
+
+    public long getThresholdMs() { return thresholdNanos / 1_000_000L; }
+    public long getTotalStalls() { return totalStalls; }
+}
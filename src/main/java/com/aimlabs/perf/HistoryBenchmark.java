@@ -0,0 +1,85 @@
+package com.aimlabs.perf;
+
+import com.aimlabs.game.GameMode;
+import com.aimlabs.history.HistoryStore;
+import com.aimlabs.history.SessionRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 对局历史基准 - 在临时目录写入若干年的模拟对局，测量打开(含恢复)、"最近500局某模式"和按日期范围查询的耗时与读取页数
+ * 用法: java -cp AimLabs.jar com.aimlabs.perf.HistoryBenchmark [年数] [每天局数]
+ */
+public class HistoryBenchmark {
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    public static void main(String[] args) throws Exception {
+        int years = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int perDay = args.length > 1 ? Integer.parseInt(args[1]) : 60;   // 机房多人共用一台机器
+        File dir = Files.createTempDirectory("aimlabs-history").toFile();
+        try {
+            run(dir, years, perDay);
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) for (File f : files) f.delete();
+            dir.delete();
+        }
+    }
+
+    private static void run(File dir, int years, int perDay) throws Exception {
+        GameMode[] modes = GameMode.values();
+        SplittableRandom random = new SplittableRandom(1);
+        int days = years * 365;
+        long start = System.currentTimeMillis() - days * DAY_MILLIS;
+
+        long t0 = System.nanoTime();
+        HistoryStore store = HistoryStore.open(dir);
+        int total = 0;
+        for (int d = 0; d < days; d++) {
+            for (int k = 0; k < perDay; k++) {
+                // 模式分布不均匀: 甩枪和追踪最常练
+                GameMode mode = modes[Math.min(random.nextInt(8), modes.length - 2)];
+                long ts = start + d * DAY_MILLIS + k * (DAY_MILLIS / perDay);
+                store.append(new SessionRecord(mode, 42, ts, 60_000, true, random.nextInt(30_000),
+                    random.nextInt(100), 100, random.nextInt(20), (float) random.nextDouble(40, 95),
+                    50, random.nextInt(180_000, 400_000), random.nextInt(120_000, 180_000),
+                    random.nextInt(400_000, 600_000)));
+                total++;
+            }
+        }
+        store.flush();
+        store.close();
+        System.out.printf("写入 %d 局(%d 年)  %.0f ms%n", total, years, (System.nanoTime() - t0) / 1e6);
+
+        t0 = System.nanoTime();
+        HistoryStore reopened = HistoryStore.open(dir);
+        int size = reopened.size();
+        System.out.printf("打开 %d 局  %.1f ms%n", size, (System.nanoTime() - t0) / 1e6);
+
+        long now = start + days * DAY_MILLIS;
+        for (int round = 0; round < 2; round++) {   // 第一轮预热
+            boolean print = round == 1;
+            query(reopened, "最近500局 " + GameMode.FLICK.name(), print, () -> reopened.recent(GameMode.FLICK, 500));
+            query(reopened, "最近500局 " + GameMode.PRECISION.name(), print, () -> reopened.recent(GameMode.PRECISION, 500));
+            query(reopened, "最近50局 全部", print, () -> reopened.recent(null, 50));
+            query(reopened, "一年前的一周 " + GameMode.TRACKING.name(), print,
+                () -> reopened.between(GameMode.TRACKING, now - 372 * DAY_MILLIS, now - 365 * DAY_MILLIS, 10_000));
+        }
+        reopened.close();
+    }
+
+    private interface Query {
+        List<SessionRecord> run() throws IOException;
+    }
+
+    private static void query(HistoryStore store, String name, boolean print, Query q) throws IOException {
+        long t0 = System.nanoTime();
+        int n = q.run().size();
+        double ms = (System.nanoTime() - t0) / 1e6;
+        if (print) System.out.printf("%-24s %5d 条  读 %4d 页  %.2f ms%n", name, n, store.getLastPagesRead(), ms);
+    }
+}
@@ -0,0 +1,72 @@
+package com.aimlabs.perf;
+
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.GameStats;
+import com.aimlabs.game.MotionPattern;
+import com.aimlabs.game.Target;
+import com.aimlabs.mode.TrackingMode;
+
+/**
+ * 延迟补偿检查 - 追踪模式的贴靶采样要按玩家当时看到的画面回溯
+ * 靶标匀速移开后，瞄准它LAG_NANOS之前的位置: 带回溯时刻的射线应贴靶，不带回溯的同一射线应脱靶；不符时以非0退出
+ * 用法: java -cp AimLabs.jar com.aimlabs.perf.LagCompensationCheck
+ */
+public class LagCompensationCheck {
+    private static final long TICK_NANOS = 1_000_000_000L / 240;
+    private static final long LAG_NANOS = 80_000_000L;
+    private static final double STEP = 5;          // 每tick沿Z移动的距离，远大于靶标尺寸/回溯时长
+    private static final int WIDTH = 1280, HEIGHT = 720;
+
+    public static void main(String[] args) {
+        double rewound = trackAccuracy(true);
+        double current = trackAccuracy(false);
+        System.out.printf("回溯射线贴靶 %.1f%%，未回溯射线贴靶 %.1f%%%n", rewound, current);
+        if (rewound < 99 || current > 1) {
+            System.out.println("追踪采样没有使用延迟补偿的回溯位置");
+            System.exit(1);
+        }
+        System.out.println("追踪采样按回溯位置判定");
+    }
+
+    /** 瞄准靶标LAG_NANOS之前的位置按下并保持一个tick，返回这段时间的贴靶比例 */
+    private static double trackAccuracy(boolean rewind) {
+        GameConfig config = new GameConfig();
+        config.setTrackTargetCount(1);
+        config.setTrackTickRate(1000);
+        config.setTrackSubTickInput(true);
+        config.setMotionPattern(GameMode.TRACKING, MotionPattern.NONE);   // 位置由这里逐tick改写
+        SessionSettings settings = config.snapshot();
+        GameClock clock = GameClock.manual();
+        GameStats stats = new GameStats();
+        TrackingMode mode = new TrackingMode();
+        mode.init(WIDTH, HEIGHT, settings, 1, clock);
+        Target target = mode.getTargets().get(0);
+
+        long pastNanos = 0;
+        for (long elapsed = 0; elapsed < LAG_NANOS * 2; elapsed += TICK_NANOS) {
+            clock.advance(TICK_NANOS);
+            long now = clock.tick();
+            target.setZ(target.getZ() + STEP);
+            mode.update(TICK_NANOS / 1e9, WIDTH, HEIGHT, stats);
+            mode.getTargets().recordPoseAll(now);
+            if (pastNanos == 0 && elapsed >= LAG_NANOS) pastNanos = now;
+        }
+
+        double[] pose = new double[3];
+        target.poseAt(pastNanos, pose);
+        double len = Math.sqrt(pose[0] * pose[0] + pose[1] * pose[1] + pose[2] * pose[2]);
+        AimRay ray = new AimRay().set(Math.atan2(-pose[0], pose[2]), Math.asin(pose[1] / len), settings.getFov());
+        if (rewind) ray.atTime(pastNanos);
+        mode.onMousePress(ray, clock.now(), stats);
+
+        GameStats sample = new GameStats();
+        clock.advance(TICK_NANOS);
+        mode.update(TICK_NANOS / 1e9, WIDTH, HEIGHT, sample);
+        mode.dispose();
+        return sample.getTrackAccuracy();
+    }
+}
@@ -0,0 +1,140 @@
+package com.aimlabs.perf;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * 输入到显示(input-to-photon)延迟测量
+ * 每个输入到达GamePanel时分配序号并随事件交给模拟线程，快照带上模拟线程已处理到的序号；
+ * 首个画出包含该输入的快照的帧在呈现后记为呈现时刻，两者之差即该输入的端到端延迟(不含显示器扫描)
+ */
+public class LatencyProbe {
+    private static final int RING = 1024;          // 未被帧消费的输入最多缓存数
+    private static final int MAX_SAMPLES = 1 << 17; // 单局最多记录的延迟样本
+
+    private final String renderPath;
+
+    // 输入环形缓冲: 按序号取模
+    private final long[] arrivalNanos = new long[RING];
+    private final boolean[] isClick = new boolean[RING];
+    private int lastSeq = 0;      // 最近分配的输入序号
+    private int consumedSeq = 0;  // 已被呈现帧消费到的序号
+    private int pendingUpTo = 0;  // 当前帧开始时看到的最大序号
+
+    // 样本(按记录顺序)
+    private final long[] sampleSeq = new long[MAX_SAMPLES];
+    private final long[] sampleFrame = new long[MAX_SAMPLES];
+    private final long[] sampleArrival = new long[MAX_SAMPLES];
+    private final long[] samplePresent = new long[MAX_SAMPLES];
+    private final boolean[] sampleClick = new boolean[MAX_SAMPLES];
+    private int sampleCount = 0;
+
+    // 排序结果缓存，样本数变化时才重建
+    private long[] sorted = new long[0];
+    private int sortedCount = -1;
+
+    private long frameNumber = 0;
+    private boolean frameHasClick;
+
+    public LatencyProbe(String renderPath) {
+        this.renderPath = renderPath;
+    }
+
+    /** 输入到达时调用，返回分配的序号 */
+    public int tagInput(long arrival, boolean click) {
+        int seq = ++lastSeq;
+        arrivalNanos[seq % RING] = arrival;
+        isClick[seq % RING] = click;
+        return seq;
+    }
+
+    /**
+     * 帧开始绘制: 本帧快照已处理到appliedSeq，此前的输入都由本帧消费
+     * @return 本帧是否消费了点击(用于闪烁光电标记)
+     */
+    public boolean beginFrame(long appliedSeq) {
+        frameNumber++;
+        pendingUpTo = (int) Math.max(consumedSeq, Math.min(lastSeq, appliedSeq));
+        frameHasClick = false;
+        // 超出环形缓冲的旧输入直接丢弃
+        if (pendingUpTo - consumedSeq > RING) consumedSeq = pendingUpTo - RING;
+        for (int seq = consumedSeq + 1; seq <= pendingUpTo; seq++) {
+            if (isClick[seq % RING]) {
+                frameHasClick = true;
+                break;
+            }
+        }
+        return frameHasClick;
+    }
+
+    /** 帧已显示到屏幕(RepaintManager显示后备缓冲并Toolkit.sync之后)，为本帧消费的输入记录延迟 */
+    public void framePresented(long presentNanos) {
+        for (int seq = consumedSeq + 1; seq <= pendingUpTo; seq++) {
+            if (sampleCount >= MAX_SAMPLES) break;
+            int slot = seq % RING;
+            sampleSeq[sampleCount] = seq;
+            sampleFrame[sampleCount] = frameNumber;
+            sampleArrival[sampleCount] = arrivalNanos[slot];
+            samplePresent[sampleCount] = presentNanos;
+            sampleClick[sampleCount] = isClick[slot];
+            sampleCount++;
+        }
+        consumedSeq = Math.max(consumedSeq, pendingUpTo);
+    }
+
+    /** 延迟百分位(毫秒)，无样本返回0 */
+    public double percentileMs(double p) {
+        if (sampleCount == 0) return 0;
+        if (sortedCount != sampleCount) {
+            if (sorted.length < sampleCount) sorted = new long[Math.max(sampleCount, sorted.length * 2)];
+            for (int i = 0; i < sampleCount; i++) sorted[i] = samplePresent[i] - sampleArrival[i];
+            Arrays.sort(sorted, 0, sampleCount);
+            sortedCount = sampleCount;
+        }
+        int idx = (int) Math.min(sampleCount - 1, Math.max(0, Math.ceil(p / 100.0 * sampleCount) - 1));
+        return sorted[idx] / 1e6;
+    }
+
+    public String summary() {
+        return String.format("输入延迟[%s] n=%d p50 %.2f / p95 %.2f / p99 %.2f / max %.2fms",
+            renderPath, sampleCount, percentileMs(50), percentileMs(95), percentileMs(99), percentileMs(100));
+    }
+
+    /** 保存到 sessions/latency_时间_模式.csv (在后台线程写盘) */
+    public void saveAsync(String modeName) {
+        if (sampleCount == 0) return;
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        File file = new File("sessions", "latency_" + stamp + "_" + modeName + ".csv");
+        String header = summary();
+        int n = sampleCount;
+        long[] seq = Arrays.copyOf(sampleSeq, n);
+        long[] frame = Arrays.copyOf(sampleFrame, n);
+        long[] arrival = Arrays.copyOf(sampleArrival, n);
+        long[] present = Arrays.copyOf(samplePresent, n);
+        boolean[] click = Arrays.copyOf(sampleClick, n);
+        Thread writer = new Thread(() -> {
+            file.getParentFile().mkdirs();
+            try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+                out.println("# " + header);
+                out.println("seq,type,frame,arrival_ns,present_ns,latency_ms");
+                for (int i = 0; i < n; i++) {
+                    out.printf("%d,%s,%d,%d,%d,%.3f%n", seq[i], click[i] ? "click" : "move",
+                        frame[i], arrival[i], present[i], (present[i] - arrival[i]) / 1e6);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to save latency report: " + e.getMessage());
+            }
+        }, "LatencyReport-Writer");
+        writer.setDaemon(false);
+        writer.start();
+    }
+
+    public int getSampleCount() { return sampleCount; }
+    public long getFrameNumber() { return frameNumber; }
+    public String getRenderPath() { return renderPath; }
+}
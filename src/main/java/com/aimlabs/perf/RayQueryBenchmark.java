@@ -0,0 +1,110 @@
+package com.aimlabs.perf;
+
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetShape;
+import com.aimlabs.game.TargetStore;
+
+import java.util.SplittableRandom;
+
+/**
+ * 射线拾取基准 - 在不同靶标数量和形状下比较线性扫描与场景BVH的每次查询耗时
+ * BVH分别计入摊销到每次查询的重拟合(靶标每tick都在动)、重建和纯遍历成本，同时核对与线性扫描的拾取结果一致
+ * 用法: java -cp AimLabs.jar com.aimlabs.perf.RayQueryBenchmark [最大靶标数]
+ */
+public class RayQueryBenchmark {
+    private static final double SIZE = 50;
+    private static final double FOV = 280;
+    private static final int QUERIES = 4000;
+    private static final int REBUILD_QUERIES = 800;   // 重建很贵，少测几次
+    private static final int PER_STATE = 8;
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        System.out.println("形状\t靶标数\t线性\t每状态1次\t重拟合/8次\t重建/8次\t仅查询\t命中率\t不一致  (ns/次)");
+        for (TargetShape shape : TargetShape.values()) {
+            for (int n = 100; n <= max; n *= 10) {
+                run(shape, n);
+                if (n * 5 <= max) run(shape, n * 5);
+            }
+        }
+    }
+
+    private static void run(TargetShape shape, int n) {
+        // 场地体积与靶标数成正比，与SeparationBenchmark相同的密度
+        double scale = Math.cbrt(n / 6.0);
+        double maxX = 800 * scale, halfY = 500 * scale, halfZ = 600 * scale;
+        TargetStore store = new TargetStore(n, GameClock.manual());
+        SplittableRandom random = new SplittableRandom(n);
+        for (int i = 0; i < n; i++) {
+            int s = store.allocate(maxX * (0.1 + 0.8 * random.nextDouble()),
+                halfY * (random.nextDouble() * 1.6 - 0.8),
+                halfZ * (random.nextDouble() * 1.6 - 0.8), SIZE, Target.rgb(255, 80, 80), 0);
+            store.view(s).setShape(shape.getHitShape());
+        }
+
+        // 射线瞄向随机靶标附近(抖动约一个靶标尺寸)，命中与落空都有
+        double[] yaws = new double[QUERIES], pitches = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            Target t = store.view(store.slotAt(random.nextInt(n)));
+            double x = t.getX(), y = t.getY() + (random.nextDouble() - 0.5) * SIZE;
+            double z = t.getZ() + (random.nextDouble() - 0.5) * SIZE;
+            yaws[q] = Math.atan2(-x, z);
+            pitches[q] = Math.asin(y / Math.sqrt(x * x + y * y + z * z));
+        }
+
+        AimRay ray = new AimRay();
+        int[] linear = new int[QUERIES];
+        int hits = 0;
+        for (int round = 0; round < 2; round++) {   // 第一轮预热
+            for (int q = 0; q < QUERIES; q++) linear[q] = ray.set(yaws[q], pitches[q], FOV).pickSlotLinear(store);
+        }
+        long start = System.nanoTime();
+        for (int q = 0; q < QUERIES; q++) linear[q] = ray.set(yaws[q], pitches[q], FOV).pickSlotLinear(store);
+        double linearNs = (System.nanoTime() - start) / (double) QUERIES;
+        for (int q = 0; q < QUERIES; q++) if (linear[q] >= 0) hits++;
+
+        // 每个状态(一tick)查询PER_STATE次: 状态变化分为只是移动(重拟合)和增删了靶标(重建)；
+        // 自适应列为每状态只查一次，应与线性扫描持平；每状态查询次数低于实测盈亏平衡点时重拟合列也走线性扫描
+        double adaptiveNs = 0, refitNs = 0, rebuildNs = 0, queryNs = 0;
+        int mismatches = 0;
+        int churn = store.slotAt(0);
+        double churnX = store.view(churn).getX(), churnY = store.view(churn).getY(), churnZ = store.view(churn).getZ();
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                store.markMoved();
+                ray.set(yaws[q], pitches[q], FOV).pickSlot(store);
+            }
+            adaptiveNs = (System.nanoTime() - start) / (double) QUERIES;
+
+            start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                if (q % PER_STATE == 0) store.markMoved();
+                ray.set(yaws[q], pitches[q], FOV).pickSlot(store);
+            }
+            refitNs = (System.nanoTime() - start) / (double) QUERIES;
+
+            start = System.nanoTime();
+            for (int q = 0; q < REBUILD_QUERIES; q++) {
+                if (q % PER_STATE == 0) {
+                    store.free(churn);
+                    churn = store.allocate(churnX, churnY, churnZ, SIZE, Target.rgb(255, 80, 80), 0);
+                    store.view(churn).setShape(shape.getHitShape());
+                }
+                ray.set(yaws[q], pitches[q], FOV).pickSlot(store);
+            }
+            rebuildNs = (System.nanoTime() - start) / (double) REBUILD_QUERIES;
+
+            start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                int slot = ray.set(yaws[q], pitches[q], FOV).pickSlot(store);
+                if (round == 1 && slot != linear[q]) mismatches++;
+            }
+            queryNs = (System.nanoTime() - start) / (double) QUERIES;
+        }
+        System.out.printf("%s\t%d\t%.0f\t%.0f\t%.0f\t%.0f\t%.0f\t%.0f%%\t%d%n", shape, n, linearNs,
+            adaptiveNs, refitNs, rebuildNs, queryNs, hits * 100.0 / QUERIES, mismatches);
+    }
+}
@@ -0,0 +1,64 @@
+package com.aimlabs.perf;
+
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetSeparation;
+import com.aimlabs.game.TargetStore;
+
+import java.util.SplittableRandom;
+
+/**
+ * 靶标分离基准 - 在不同靶标数量下测量"移动 + 网格分离"每tick耗时
+ * 场地随数量等比放大以保持相同密度，用于确认大场景下开销接近线性
+ * 用法: java -cp AimLabs.jar com.aimlabs.perf.SeparationBenchmark [最大靶标数]
+ */
+public class SeparationBenchmark {
+    private static final double SIZE = 50;
+    private static final double DENSITY = 5.0;
+    private static final double SPACING = 0.3;
+    private static final int WARMUP_TICKS = 200;
+    private static final int MEASURE_TICKS = 500;
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        System.out.println("靶标数\t每tick(ms)\t每靶标(ns)\t重叠对/tick");
+        for (int n = 100; n <= max; n *= 10) {
+            run(n);
+            if (n * 5 <= max) run(n * 5);
+        }
+    }
+
+    private static void run(int n) {
+        // 场地体积与靶标数成正比(密度与默认6个追踪靶标的竞技场相当)
+        double scale = Math.cbrt(n / 6.0);
+        double maxX = 800 * scale, halfY = 500 * scale, halfZ = 600 * scale;
+        TargetStore store = new TargetStore(n, GameClock.manual());
+        SplittableRandom random = new SplittableRandom(n);
+        for (int i = 0; i < n; i++) {
+            int s = store.allocate(maxX * (0.1 + 0.8 * random.nextDouble()),
+                halfY * (random.nextDouble() * 1.6 - 0.8),
+                halfZ * (random.nextDouble() * 1.6 - 0.8), SIZE, Target.rgb(255, 80, 80), 0);
+            Target t = store.view(s);
+            t.setVelocityX(random.nextDouble() * 4 - 2);
+            t.setVelocityY(random.nextDouble() * 4 - 2);
+            t.setVelocityZ(random.nextDouble() * 4 - 2);
+        }
+        TargetSeparation separation = new TargetSeparation(DENSITY, SPACING);
+        double dt = 3.0 / 120 * 60; // 默认速度、120Hz tick
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            store.update3DAll(dt, maxX, halfY, halfZ);
+            separation.resolve(store);
+        }
+        long pairs = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_TICKS; i++) {
+            store.update3DAll(dt, maxX, halfY, halfZ);
+            pairs += separation.resolve(store);
+        }
+        long elapsed = System.nanoTime() - start;
+        double perTick = elapsed / (double) MEASURE_TICKS;
+        System.out.printf("%d\t%.3f\t%.1f\t%.1f%n",
+            n, perTick / 1e6, perTick / n, pairs / (double) MEASURE_TICKS);
+    }
+}
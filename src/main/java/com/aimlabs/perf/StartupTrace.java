@@ -0,0 +1,87 @@
+package com.aimlabs.perf;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动计时 - 参数--startup-trace或-Daimlabs.startupTrace=true时，按阶段记录从JVM启动到首帧绘制完成的耗时
+ * 首帧后打印到控制台并追加到aimlabs_startup.log(附带是否使用了CDS归档)，便于对比不同机器和启动参数
+ * 未开启时mark只是一次布尔判断
+ */
+public final class StartupTrace {
+    private static final String LOG_FILE = "aimlabs_startup.log";
+
+    private static volatile boolean enabled = Boolean.getBoolean("aimlabs.startupTrace");
+    private static long jvmToMainMs = -1;
+    private static long lastNanos;
+    private static final List<String> names = new ArrayList<>();
+    private static final List<Long> nanos = new ArrayList<>();
+    private static boolean reported = false;
+
+    private StartupTrace() {}
+
+    /** 开启计时(应在main最开始调用) */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * 记录一个阶段结束: 与上一次mark之间的耗时归入该阶段
+     * 第一次调用(main入口)只作为起点，之前的时间记为"JVM启动到main"
+     */
+    public static void mark(String phase) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        synchronized (StartupTrace.class) {
+            if (reported) return;
+            if (jvmToMainMs < 0) {
+                jvmToMainMs = Math.max(0, System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+                lastNanos = System.nanoTime(); // 不把读取MXBean的时间算进下一阶段
+                return;
+            }
+            names.add(phase);
+            nanos.add(now - lastNanos);
+            lastNanos = now;
+        }
+    }
+
+    /** 首帧绘制完成: 记录最后一个阶段并输出报告(只输出一次) */
+    public static void firstFrame() {
+        if (!enabled) return;
+        mark("首帧绘制");
+        List<String> lines = new ArrayList<>();
+        synchronized (StartupTrace.class) {
+            if (reported) return;
+            reported = true;
+            long total = jvmToMainMs * 1_000_000L;
+            lines.add(String.format("  %-16s %8.1f ms", "JVM启动到main", (double) jvmToMainMs));
+            for (int i = 0; i < names.size(); i++) {
+                total += nanos.get(i);
+                lines.add(String.format("  %-16s %8.1f ms", names.get(i), nanos.get(i) / 1e6));
+            }
+            lines.add(0, String.format("%s  启动到首帧 %.1f ms  %s", LocalDateTime.now(), total / 1e6, cdsStatus()));
+        }
+        for (String line : lines) System.out.println(line);
+        try (PrintWriter out = new PrintWriter(new FileWriter(LOG_FILE, true))) {
+            for (String line : lines) out.println(line);
+        } catch (IOException e) {
+            System.err.println("Failed to write startup log: " + e.getMessage());
+        }
+    }
+
+    /** 启动参数中的CDS设置(未指定归档时为JDK自带的默认归档，精简运行时可能没有) */
+    private static String cdsStatus() {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        for (String arg : runtime.getInputArguments()) {
+            if (arg.startsWith("-XX:SharedArchiveFile=")) return "CDS=" + arg.substring(arg.indexOf('=') + 1);
+            if (arg.equals("-Xshare:off")) return "CDS=关闭";
+        }
+        return "CDS=默认";
+    }
+}
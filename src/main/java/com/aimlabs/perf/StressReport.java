@@ -0,0 +1,222 @@
+package com.aimlabs.perf;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 压力测试报告 - 按靶标数量分级记录帧绘制时间、模拟时间和GC活动
+ * 绘制在EDT上、模拟在模拟线程上，两者分开统计: 帧时间只含绘制，模拟线程每tick的更新和发布(位置历史+快照复制)
+ * 另计，并按每帧平均经过的tick数折算成每帧的模拟开销
+ * 每级结束时汇总为一行；第一个绘制p95超出帧预算、或每tick模拟开销超出tick周期的级别即性能拐点
+ */
+public class StressReport {
+
+    /** 一个级别的汇总 */
+    public static final class Step {
+        public final int targets;
+        public final int frames;
+        public final double avgFrameMs, p95FrameMs, maxFrameMs;   // 帧绘制耗时
+        public final double avgSimMs;           // 每tick模式更新
+        public final double avgPublishMs;       // 每tick位置历史记录+快照发布
+        public final double ticksPerFrame;      // 每帧之间平均经过的tick数
+        public final long gcCount;
+        public final long gcMs;
+        public final double heapMb;
+        public final double overBudget; // 超预算帧占比(0~1)
+
+        Step(int targets, int frames, double avgFrameMs, double p95FrameMs, double maxFrameMs,
+             double avgSimMs, double avgPublishMs, double ticksPerFrame,
+             long gcCount, long gcMs, double heapMb, double overBudget) {
+            this.targets = targets;
+            this.frames = frames;
+            this.avgFrameMs = avgFrameMs;
+            this.p95FrameMs = p95FrameMs;
+            this.maxFrameMs = maxFrameMs;
+            this.avgSimMs = avgSimMs;
+            this.avgPublishMs = avgPublishMs;
+            this.ticksPerFrame = ticksPerFrame;
+            this.gcCount = gcCount;
+            this.gcMs = gcMs;
+            this.heapMb = heapMb;
+            this.overBudget = overBudget;
+        }
+
+        /** 模拟线程每tick的总开销 */
+        public double tickMs() { return avgSimMs + avgPublishMs; }
+
+        /** 折算到每帧的模拟线程开销 */
+        public double simPerFrameMs() { return tickMs() * ticksPerFrame; }
+    }
+
+    private final String renderPath;
+    private final double budgetMs;
+    private final double tickBudgetMs;
+    private final List<Step> steps = new ArrayList<>();
+
+    // 当前级别的采样
+    private boolean inStep = false;
+    private int stepTargets;
+    private long[] frameNanos = new long[1024];
+    private int frameCount;
+    private long simTotal;
+    private int simCount;
+    private long publishTotal;
+    private int publishCount;
+    private long tickTotal;
+    private long gcCountStart, gcTimeStart;
+
+    /** budgetMs: 帧绘制预算；tickBudgetMs: 模拟线程的tick周期 */
+    public StressReport(String renderPath, double budgetMs, double tickBudgetMs) {
+        this.renderPath = renderPath;
+        this.budgetMs = budgetMs;
+        this.tickBudgetMs = tickBudgetMs;
+    }
+
+    /** 开始一个级别的测量(GC计数从此刻算起) */
+    public void beginStep(int targets) {
+        if (inStep) endStep();
+        inStep = true;
+        stepTargets = targets;
+        frameCount = 0;
+        simTotal = 0;
+        simCount = 0;
+        publishTotal = 0;
+        publishCount = 0;
+        tickTotal = 0;
+        gcCountStart = gcCount();
+        gcTimeStart = gcTimeMs();
+    }
+
+    public void recordSim(long nanos) {
+        if (!inStep) return;
+        simTotal += nanos;
+        simCount++;
+    }
+
+    /** 一个tick的位置历史记录+快照发布耗时 */
+    public void recordPublish(long nanos) {
+        if (!inStep) return;
+        publishTotal += nanos;
+        publishCount++;
+    }
+
+    /** 一帧的绘制耗时，ticks为与上一帧之间经过的tick数 */
+    public void recordFrame(long paintNanos, int ticks) {
+        if (!inStep) return;
+        if (frameCount == frameNanos.length) frameNanos = Arrays.copyOf(frameNanos, frameCount * 2);
+        frameNanos[frameCount++] = paintNanos;
+        tickTotal += ticks;
+    }
+
+    /** 结束当前级别并汇总 */
+    public void endStep() {
+        if (!inStep) return;
+        inStep = false;
+        long gcCount = gcCount() - gcCountStart;
+        long gcMs = gcTimeMs() - gcTimeStart;
+        Runtime rt = Runtime.getRuntime();
+        double heapMb = (rt.totalMemory() - rt.freeMemory()) / (1024.0 * 1024.0);
+
+        int n = frameCount;
+        long[] sorted = Arrays.copyOf(frameNanos, n);
+        Arrays.sort(sorted);
+        long total = 0;
+        int over = 0;
+        long budgetNanos = (long) (budgetMs * 1_000_000);
+        for (int i = 0; i < n; i++) {
+            total += sorted[i];
+            if (sorted[i] > budgetNanos) over++;
+        }
+        double avg = n > 0 ? total / (double) n / 1e6 : 0;
+        double p95 = n > 0 ? sorted[Math.min(n - 1, (int) Math.ceil(n * 0.95) - 1)] / 1e6 : 0;
+        double max = n > 0 ? sorted[n - 1] / 1e6 : 0;
+        double sim = simCount > 0 ? simTotal / (double) simCount / 1e6 : 0;
+        double publish = publishCount > 0 ? publishTotal / (double) publishCount / 1e6 : 0;
+        double ticks = n > 0 ? tickTotal / (double) n : 0;
+        steps.add(new Step(stepTargets, n, avg, p95, max, sim, publish, ticks, gcCount, gcMs, heapMb,
+            n > 0 ? over / (double) n : 0));
+    }
+
+    /** 第一个绘制p95超出帧预算或模拟线程跟不上tick频率的级别下标，全部达标返回-1 */
+    public int getKneeIndex() {
+        for (int i = 0; i < steps.size(); i++) {
+            Step s = steps.get(i);
+            if (s.p95FrameMs > budgetMs || s.tickMs() > tickBudgetMs) return i;
+        }
+        return -1;
+    }
+
+    public String summary() {
+        int knee = getKneeIndex();
+        String kneeText = knee < 0 ? "全部级别在预算内"
+            : String.format("拐点: %d 靶标 (绘制p95 %.2fms, 模拟每tick %.3fms)",
+                steps.get(knee).targets, steps.get(knee).p95FrameMs, steps.get(knee).tickMs());
+        return String.format("渲染路径 %s | 帧预算 %.2fms | tick周期 %.2fms | %s",
+            renderPath, budgetMs, tickBudgetMs, kneeText);
+    }
+
+    /** 报告表格(每级一行) */
+    public List<String> lines() {
+        List<String> out = new ArrayList<>();
+        out.add(String.format("%8s %7s %8s %8s %8s %8s %8s %6s %8s %5s %6s %7s %6s",
+            "靶标", "帧数", "绘制ms", "p95ms", "最大ms", "更新ms", "发布ms", "tick/帧", "模拟/帧", "GC次", "GCms", "堆MB", "超预算"));
+        for (Step s : steps) {
+            out.add(String.format("%8d %7d %8.2f %8.2f %8.2f %8.3f %8.3f %6.2f %8.3f %5d %6d %7.1f %5.1f%%",
+                s.targets, s.frames, s.avgFrameMs, s.p95FrameMs, s.maxFrameMs, s.avgSimMs, s.avgPublishMs,
+                s.ticksPerFrame, s.simPerFrameMs(), s.gcCount, s.gcMs, s.heapMb, s.overBudget * 100));
+        }
+        return out;
+    }
+
+    /** 后台写入sessions/stress_时间戳.txt，返回目标文件 */
+    public File saveAsync() {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        File file = new File("sessions", "stress_" + stamp + ".txt");
+        String header = summary();
+        List<String> body = lines();
+        Thread writer = new Thread(() -> {
+            file.getParentFile().mkdirs();
+            try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+                out.println("# " + header);
+                out.println("# JVM " + System.getProperty("java.version") + " | " + System.getProperty("os.name")
+                    + " | CPU " + Runtime.getRuntime().availableProcessors());
+                for (String line : body) out.println(line);
+            } catch (IOException e) {
+                System.err.println("Failed to save stress report: " + e.getMessage());
+            }
+        }, "StressReport-Writer");
+        writer.setDaemon(false);
+        writer.start();
+        return file;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    public List<Step> getSteps() { return steps; }
+    public double getBudgetMs() { return budgetMs; }
+    public double getTickBudgetMs() { return tickBudgetMs; }
+    public String getRenderPath() { return renderPath; }
+}
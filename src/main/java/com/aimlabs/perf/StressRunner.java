@@ -0,0 +1,96 @@
+package com.aimlabs.perf;
+
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.FrameSnapshot;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameStats;
+import com.aimlabs.mode.StressMode;
+import com.aimlabs.ui.SceneRenderer;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * 无界面压力测试 - 不开窗口运行Stress模式，每帧画到离屏图像上测量渲染开销
+ * 与模拟线程一样每tick记录位置历史并复制快照，再从快照绘制；这里一帧对应一个tick
+ * 用法: java -cp AimLabs.jar com.aimlabs.perf.StressRunner [--max N] [--step 秒] [--size 宽x高] [--no-render]
+ * 未指定的参数取aimlabs_config.properties中的设置；报告写入sessions目录并打印到控制台
+ */
+public class StressRunner {
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        GameConfig config = new GameConfig();
+        config.load();
+        int width = 1280, height = 720;
+        boolean render = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--max" -> config.setStressMaxTargets(Integer.parseInt(args[++i]));
+                case "--step" -> config.setStressStepSeconds(Double.parseDouble(args[++i]));
+                case "--size" -> {
+                    String[] wh = args[++i].split("x");
+                    width = Integer.parseInt(wh[0]);
+                    height = Integer.parseInt(wh[1]);
+                }
+                case "--no-render" -> render = false;
+                default -> {
+                    System.err.println("未知参数: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        GameClock clock = new GameClock();
+        StressMode mode = new StressMode();
+        mode.setRenderPath(render ? "离屏BufferedImage " + width + "x" + height : "无渲染");
+        SessionSettings settings = config.snapshot();
+        mode.init(width, height, settings, config.getSpawnSeed() != 0 ? config.getSpawnSeed() : 1L, clock);
+        SceneRenderer renderer = new SceneRenderer(config);
+        renderer.setSession(settings);
+        renderer.setCamera(-Math.PI / 2, 0); // 与开局视角相同: 朝+X方向
+        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        GameStats stats = new GameStats();
+        FrameSnapshot snap = new FrameSnapshot();
+
+        long start = clock.tick();
+        long end = start + mode.getSessionNanos(settings);
+        long last = start;
+        int lastStep = -1;
+        for (long now = clock.tick(); now < end; now = clock.tick()) {
+            double dt = (now - last) / 1_000_000_000.0;
+            last = now;
+            mode.update(dt, width, height, stats);
+            long publishStart = System.nanoTime();
+            mode.getTargets().recordPoseAll(now);
+            snap.capture(mode.getTargets(), now, -Math.PI / 2, 0);
+            snap.setHud(stats, 0, mode.getModeInfo());
+            mode.onTickPublished(System.nanoTime() - publishStart);
+
+            long renderStart = System.nanoTime();
+            if (render) {
+                Graphics2D g2d = frame.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setColor(config.getBackgroundColor());
+                g2d.fillRect(0, 0, width, height);
+                if (config.isShowGrid()) renderer.drawRoom(g2d, width, height);
+                renderer.drawTargets(g2d, snap, width, height);
+                g2d.dispose();
+            }
+            mode.onFrameRendered(System.nanoTime() - renderStart);
+
+            int steps = mode.getReport().getSteps().size();
+            if (steps != lastStep) {
+                lastStep = steps;
+                System.out.println(mode.getModeInfo());
+            }
+        }
+
+        mode.dispose();
+        StressReport report = mode.getReport();
+        System.out.println(report.summary());
+        for (String line : report.lines()) System.out.println(line);
+    }
+}
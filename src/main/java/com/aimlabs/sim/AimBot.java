@@ -0,0 +1,14 @@
+package com.aimlabs.sim;
+
+/**
+ * 模拟瞄准者 - 在无界面对局中代替玩家操作相机和鼠标
+ */
+public interface AimBot {
+    String getName();
+
+    /** 对局开始前调用，重置内部状态(随机流应由session种子派生，保证可复现) */
+    void reset(SimSession session);
+
+    /** 每个模拟tick调用一次: 读取场景，通过session.look/press/release操作 */
+    void act(SimSession session, double dt);
+}
@@ -0,0 +1,77 @@
+package com.aimlabs.sim;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单生产者单消费者的事件环形队列 - EDT写入，模拟线程读取；无锁、不分配
+ * 每项都是基本类型: 类型、System.nanoTime时刻、附加值和当时的相机朝向；
+ * 队列满时丢弃新事件并计数(模拟线程每tick都会取空，正常不会满)
+ */
+public class InputRing {
+    public static final byte MOVE = 0;     // aux = 延迟测量的输入序号(未测量为0)
+    public static final byte PRESS = 1;    // aux同MOVE
+    public static final byte RELEASE = 2;
+    public static final byte PRESENT = 3;  // 一帧已呈现: aux = 该帧快照的游戏时刻
+    public static final byte FRAME = 4;    // 一帧的绘制耗时: aux = 纳秒
+
+    /** 消费端的取出结果(复用) */
+    public static final class Event {
+        public byte type;
+        public long nanos;
+        public long aux;
+        public double yaw, pitch;
+    }
+
+    private final int mask;
+    private final byte[] type;
+    private final long[] nanos;
+    private final long[] aux;
+    private final double[] yaw, pitch;
+    private final AtomicLong head = new AtomicLong(); // 下一个要读的位置(消费者写)
+    private final AtomicLong tail = new AtomicLong(); // 下一个要写的位置(生产者写)
+    private volatile long dropped = 0;
+
+    /** capacity向上取整到2的幂 */
+    public InputRing(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = cap - 1;
+        type = new byte[cap];
+        nanos = new long[cap];
+        aux = new long[cap];
+        yaw = new double[cap];
+        pitch = new double[cap];
+    }
+
+    /** 生产者: 追加一个事件，满时返回false */
+    public boolean offer(byte t, long eventNanos, long auxValue, double y, double p) {
+        long tl = tail.get();
+        if (tl - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int i = (int) tl & mask;
+        type[i] = t;
+        nanos[i] = eventNanos;
+        aux[i] = auxValue;
+        yaw[i] = y;
+        pitch[i] = p;
+        tail.lazySet(tl + 1);
+        return true;
+    }
+
+    /** 消费者: 取出最旧的事件写入out，空时返回false */
+    public boolean poll(Event out) {
+        long hd = head.get();
+        if (hd == tail.get()) return false;
+        int i = (int) hd & mask;
+        out.type = type[i];
+        out.nanos = nanos[i];
+        out.aux = aux[i];
+        out.yaw = yaw[i];
+        out.pitch = pitch[i];
+        head.lazySet(hd + 1);
+        return true;
+    }
+
+    public long getDropped() { return dropped; }
+}
@@ -0,0 +1,56 @@
+package com.aimlabs.sim;
+
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.GameStats;
+import com.aimlabs.game.LogHistogram;
+
+/**
+ * 一局模拟的结果快照
+ */
+public class SimResult {
+    private final GameMode mode;
+    private final String bot;
+    private final long seed;
+    private final int score;
+    private final int hits;
+    private final int shots;
+    private final double accuracy;
+    private final double avgReactionMs;
+    private final double trackAccuracy;
+    private final long simNanos;
+    private final long wallNanos;
+    private final LogHistogram reactions;
+
+    public SimResult(GameMode mode, String bot, long seed, GameStats stats, long simNanos, long wallNanos) {
+        this.mode = mode;
+        this.bot = bot;
+        this.seed = seed;
+        this.score = stats.getScore();
+        this.hits = stats.getHits();
+        this.shots = stats.getTotalShots();
+        this.accuracy = stats.getAccuracy();
+        this.avgReactionMs = stats.getAverageReactionMs();
+        this.trackAccuracy = stats.getTrackAccuracy();
+        this.simNanos = simNanos;
+        this.wallNanos = wallNanos;
+        this.reactions = stats.getReactionHistogram().copy();
+    }
+
+    /** 模拟时间相对真实耗时的倍速 */
+    public double getSpeedup() {
+        return wallNanos > 0 ? simNanos / (double) wallNanos : 0;
+    }
+
+    public GameMode getMode() { return mode; }
+    public String getBot() { return bot; }
+    public long getSeed() { return seed; }
+    public int getScore() { return score; }
+    public int getHits() { return hits; }
+    public int getShots() { return shots; }
+    public double getAccuracy() { return accuracy; }
+    public double getAvgReactionMs() { return avgReactionMs; }
+    public double getTrackAccuracy() { return trackAccuracy; }
+    public long getSimNanos() { return simNanos; }
+    public long getWallNanos() { return wallNanos; }
+    public LogHistogram getReactionHistogram() { return reactions; }
+}
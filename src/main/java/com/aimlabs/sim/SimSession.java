@@ -0,0 +1,140 @@
+package com.aimlabs.sim;
+
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
+import com.aimlabs.game.GameStats;
+import com.aimlabs.game.TargetList;
+import com.aimlabs.mode.ModeHandler;
+
+/**
+ * 无界面对局 - 用手动时钟驱动ModeHandler，不依赖Swing/AWT
+ * 与GamePanel相同的tick顺序: 推进时钟 → update → 记录位姿 → “呈现”(投影并标记可见)；
+ * 相机和鼠标由调用方(通常是AimBot)通过look/press/release操作，事件时刻为当前游戏时间
+ */
+public class SimSession {
+    public static final long DEFAULT_TICK_NANOS = 1_000_000_000L / 120;
+    private static final double MAX_PITCH = Math.PI * 0.45;
+
+    private final SessionSettings settings;
+    private final GameMode mode;
+    private final ModeHandler handler;
+    private final GameClock clock = GameClock.manual();
+    private final GameStats stats = new GameStats();
+    private final AimRay ray = new AimRay();
+    private final long seed;
+    private final long tickNanos;
+    private final int width, height;
+    private final long startNanos;
+    private final long sessionNanos;
+
+    private double yaw = -Math.PI / 2; // 初始朝+X方向
+    private double pitch = 0;
+    private boolean mouseDown = false;
+    private long ticks = 0;
+
+    public SimSession(GameConfig config, GameMode mode, long seed) {
+        this(config, mode, seed, DEFAULT_TICK_NANOS, 1280, 720);
+    }
+
+    /** width/height: 虚拟视口(可见性判定用)；设置在此刻快照，之后修改config不影响本局 */
+    public SimSession(GameConfig config, GameMode mode, long seed, long tickNanos, int width, int height) {
+        this(config.snapshot(), mode, seed, tickNanos, width, height);
+    }
+
+    public SimSession(SessionSettings settings, GameMode mode, long seed, long tickNanos, int width, int height) {
+        this.settings = settings;
+        this.mode = mode;
+        this.seed = seed;
+        this.tickNanos = tickNanos;
+        this.width = width;
+        this.height = height;
+        this.handler = ModeHandler.forMode(mode);
+        handler.init(width, height, settings, seed, clock);
+        this.startNanos = clock.now();
+        this.sessionNanos = handler.getSessionNanos(settings);
+        present();
+    }
+
+    /** 模拟一个tick，对局结束返回false */
+    public boolean step() {
+        if (isFinished()) return false;
+        clock.advance(tickNanos);
+        long now = clock.tick();
+        handler.update(tickNanos / 1_000_000_000.0, width, height, stats);
+        handler.getTargets().recordPoseAll(now);
+        present();
+        ticks++;
+        return !isFinished();
+    }
+
+    /** 相当于一帧呈现: 投影并给视野内的新靶标记下呈现时刻(反应计时起点) */
+    private void present() {
+        TargetList targets = handler.getTargets();
+        targets.projectAll(width, height, settings.getFov(), yaw, pitch);
+        targets.markVisibleAll(width, height, clock.now());
+    }
+
+    /** 用bot跑完整局，返回结果 */
+    public SimResult run(AimBot bot) {
+        bot.reset(this);
+        double dt = tickNanos / 1_000_000_000.0;
+        long wallStart = System.nanoTime();
+        do {
+            bot.act(this, dt);
+        } while (step());
+        handler.dispose();
+        return new SimResult(mode, bot.getName(), seed, stats, ticks * tickNanos, System.nanoTime() - wallStart);
+    }
+
+    /** 转动相机到指定朝向(pitch限制与界面相同)，并作为一次鼠标移动事件送给模式 */
+    public void look(double yaw, double pitch) {
+        this.yaw = yaw;
+        this.pitch = Math.max(-MAX_PITCH, Math.min(MAX_PITCH, pitch));
+        handler.onMouseMove(currentRay(), clock.now(), stats);
+    }
+
+    /** 按下(同界面: 按下即触发一次点击) */
+    public void press() {
+        mouseDown = true;
+        AimRay r = currentRay();
+        handler.onMousePress(r, clock.now(), stats);
+        handler.onMouseClick(r, clock.now(), stats);
+    }
+
+    public void release() {
+        mouseDown = false;
+        handler.onMouseRelease(currentRay(), clock.now(), stats);
+    }
+
+    public void click() {
+        press();
+        release();
+    }
+
+    /** 当前准星射线最先击中的靶标下标，未击中返回-1 */
+    public int pickIndex() {
+        return currentRay().pickIndex(handler.getTargets());
+    }
+
+    private AimRay currentRay() {
+        return ray.set(yaw, pitch, settings.getFov());
+    }
+
+    public boolean isFinished() { return clock.now() - startNanos >= sessionNanos; }
+    public long getNowNanos() { return clock.now(); }
+    public long getElapsedNanos() { return clock.now() - startNanos; }
+    public TargetList getTargets() { return handler.getTargets(); }
+    public ModeHandler getHandler() { return handler; }
+    public GameMode getMode() { return mode; }
+    public SessionSettings getSettings() { return settings; }
+    public GameClock getClock() { return clock; }
+    public GameStats getStats() { return stats; }
+    public double getYaw() { return yaw; }
+    public double getPitch() { return pitch; }
+    public boolean isMouseDown() { return mouseDown; }
+    public long getSeed() { return seed; }
+    public long getTickNanos() { return tickNanos; }
+}
@@ -0,0 +1,217 @@
+package com.aimlabs.sim;
+
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.AimRay;
+import com.aimlabs.game.FrameSnapshot;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameStats;
+import com.aimlabs.game.LagCompensator;
+import com.aimlabs.game.TripleBuffer;
+import com.aimlabs.mode.ModeHandler;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟线程 - 在独立线程上以固定频率处理输入并运行ModeHandler.update
+ * EDT只把输入/呈现事件写入InputRing，并从TripleBuffer取最新快照绘制，两边互不等待；
+ * 模式处理器、统计、游戏时钟和延迟补偿在start之后、stop返回之前只由本线程访问
+ */
+public class SimulationLoop {
+    public static final int TICK_RATE = 240;
+    private static final long TICK_NANOS = 1_000_000_000L / TICK_RATE;
+    private static final long MAX_LAG_NANOS = TICK_NANOS * 8; // 落后超过这么多就不再追赶
+
+    private final SessionSettings settings;
+    private final ModeHandler handler;
+    private final GameStats stats;
+    private final GameClock clock;
+    private final LagCompensator lagCompensator;
+    private final InputRing inputs = new InputRing(4096);
+    private final InputRing.Event event = new InputRing.Event();
+    private final TripleBuffer<FrameSnapshot> snapshots = new TripleBuffer<>(FrameSnapshot::new);
+    private final AimRay ray = new AimRay();
+
+    private Thread thread;
+    private volatile boolean stopRequested = false;
+    private volatile boolean pauseRequested = false;
+    private volatile boolean finished = false;
+    private volatile int width, height;
+    private volatile long tickCostNanos;
+
+    // 以下只由模拟线程访问
+    private long sessionStartNanos;
+    private long durationNanos;
+    private long lastUpdateTime;
+    private double yaw, pitch;
+    private boolean paused = false;
+    private long appliedInputSeq;   // 已处理的最大输入序号
+
+    public SimulationLoop(SessionSettings settings, ModeHandler handler, GameStats stats, GameClock clock,
+                          LagCompensator lagCompensator, int width, int height, double yaw, double pitch) {
+        this.settings = settings;
+        this.handler = handler;
+        this.stats = stats;
+        this.clock = clock;
+        this.lagCompensator = lagCompensator;
+        this.width = width;
+        this.height = height;
+        this.yaw = yaw;
+        this.pitch = pitch;
+    }
+
+    /** 开局: 以时钟当前时刻为起点，先发布一份初始快照再启动线程 */
+    public void start() {
+        sessionStartNanos = clock.now();
+        lastUpdateTime = sessionStartNanos;
+        durationNanos = handler.getSessionNanos(settings);
+        publish();
+        thread = new Thread(this::run, "Simulation");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY + 1);
+        thread.start();
+    }
+
+    /** 停止并等待线程退出，返回后调用方可以安全访问处理器和统计 */
+    public void stop() {
+        stopRequested = true;
+        if (thread == null || thread == Thread.currentThread()) return;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    public void setPaused(boolean paused) {
+        pauseRequested = paused;
+    }
+
+    public void setViewport(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    // ===== EDT端: 事件时刻为System.nanoTime基准，转换为游戏时间由模拟线程完成 =====
+
+    /** inputSeq: LatencyProbe分配的序号(未测量为0)，处理后随快照发布，供判断哪一帧真正包含了该输入 */
+    public void onMouseMove(long arrivalNanos, long inputSeq, double yaw, double pitch) {
+        inputs.offer(InputRing.MOVE, arrivalNanos, inputSeq, yaw, pitch);
+    }
+
+    public void onMousePress(long arrivalNanos, long inputSeq, double yaw, double pitch) {
+        inputs.offer(InputRing.PRESS, arrivalNanos, inputSeq, yaw, pitch);
+    }
+
+    public void onMouseRelease(long arrivalNanos, double yaw, double pitch) {
+        inputs.offer(InputRing.RELEASE, arrivalNanos, 0, yaw, pitch);
+    }
+
+    /** 一帧已呈现: 画的是stateNanos的快照，相机为yaw/pitch，绘制耗时renderNanos */
+    public void onFramePresented(long presentedNanos, long stateNanos, double yaw, double pitch, long renderNanos) {
+        inputs.offer(InputRing.PRESENT, presentedNanos, stateNanos, yaw, pitch);
+        inputs.offer(InputRing.FRAME, presentedNanos, renderNanos, yaw, pitch);
+    }
+
+    /** 最新的完整快照(只能在同一个读线程调用) */
+    public FrameSnapshot latest() {
+        return snapshots.acquire();
+    }
+
+    public boolean isFinished() { return finished; }
+    /** 本局已进行的游戏时间(不含暂停)，在stop()返回后调用 */
+    public long getElapsedNanos() { return finished ? durationNanos : lastUpdateTime - sessionStartNanos; }
+    public long getTickCostNanos() { return tickCostNanos; }
+    public long getDroppedInputs() { return inputs.getDropped(); }
+
+    // ===== 模拟线程 =====
+
+    private void run() {
+        long next = System.nanoTime();
+        while (!stopRequested) {
+            long t0 = System.nanoTime();
+            if (pauseRequested != paused) {
+                paused = pauseRequested;
+                if (paused) clock.pause(); else clock.resume();
+            }
+            drainInputs();
+            if (!paused) {
+                long now = clock.tick();
+                if (now - sessionStartNanos >= durationNanos) {
+                    finished = true;
+                    break;
+                }
+                double dt = (now - lastUpdateTime) / 1_000_000_000.0;
+                lastUpdateTime = now;
+                handler.update(dt, width, height, stats);
+                long t1 = System.nanoTime();
+                handler.getTargets().recordPoseAll(now);
+                publish();
+                handler.onTickPublished(System.nanoTime() - t1);
+            }
+            tickCostNanos = System.nanoTime() - t0;
+
+            next += TICK_NANOS;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (wait < -MAX_LAG_NANOS) {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    /** 按到达顺序处理本tick之前的全部事件；暂停时丢弃 */
+    private void drainInputs() {
+        while (inputs.poll(event)) {
+            if ((event.type == InputRing.MOVE || event.type == InputRing.PRESS) && event.aux != 0) {
+                appliedInputSeq = event.aux;
+            }
+            if (paused) continue;
+            long eventNanos = clock.toGameNanos(event.nanos);
+            switch (event.type) {
+                case InputRing.MOVE -> {
+                    yaw = event.yaw;
+                    pitch = event.pitch;
+                    handler.onMouseMove(aimRay(eventNanos), eventNanos, stats);
+                }
+                case InputRing.PRESS -> {
+                    yaw = event.yaw;
+                    pitch = event.pitch;
+                    // FPS: 点击始终沿准星方向，判定时刻回溯到输入时玩家看到的那一帧
+                    AimRay r = aimRay(eventNanos);
+                    handler.onMousePress(r, eventNanos, stats);
+                    handler.onMouseClick(r, eventNanos, stats);
+                }
+                case InputRing.RELEASE -> handler.onMouseRelease(aimRay(eventNanos), eventNanos, stats);
+                case InputRing.PRESENT -> {
+                    // 按该帧的相机投影它所画快照(aux)时刻的靶标位置，视野内的新靶标以呈现时刻作为反应计时起点
+                    lagCompensator.onFramePresented(eventNanos, event.aux);
+                    handler.getTargets().markPresentedAll(width, height, settings.getFov(),
+                        event.yaw, event.pitch, eventNanos, event.aux);
+                }
+                case InputRing.FRAME -> handler.onFrameRendered(event.aux);
+                default -> { }
+            }
+        }
+    }
+
+    private AimRay aimRay(long eventNanos) {
+        return ray.set(yaw, pitch, settings.getFov())
+            .atTime(lagCompensator.resolve(eventNanos, lastUpdateTime));
+    }
+
+    private void publish() {
+        long remaining = durationNanos - (lastUpdateTime - sessionStartNanos);
+        int timeRemaining = (int) Math.max(0, (remaining + 999_999_999L) / 1_000_000_000L);
+        FrameSnapshot s = snapshots.back();
+        s.capture(handler.getTargets(), lastUpdateTime, yaw, pitch);
+        s.setHud(stats, timeRemaining, handler.getModeInfo());
+        s.setInputSeq(appliedInputSeq);
+        snapshots.publish();
+    }
+}
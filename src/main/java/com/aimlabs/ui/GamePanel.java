@@ -1,76 +1,121 @@
 package com.aimlabs.ui;
 
+import com.aimlabs.config.ConfigKey;
 import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.FrameSnapshot;
+import com.aimlabs.game.GameClock;
 import com.aimlabs.game.GameMode;
 import com.aimlabs.game.GameStats;
-import com.aimlabs.game.Target;
+import com.aimlabs.game.LagCompensator;
+import com.aimlabs.game.LogHistogram;
+import com.aimlabs.history.HistoryStore;
+import com.aimlabs.history.SessionRecord;
 import com.aimlabs.mode.*;
+import com.aimlabs.perf.EdtMonitor;
+import com.aimlabs.perf.LatencyProbe;
+import com.aimlabs.perf.StressReport;
+import com.aimlabs.sim.SimulationLoop;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.Ellipse2D;
-import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.awt.Robot;
 
 /**
  * 游戏主面板 - 渲染和交互
+ * 对局中模式更新和输入判定在SimulationLoop的模拟线程上运行，EDT只转发输入、绘制最新快照
  */
 public class GamePanel extends JPanel implements ActionListener {
+    private static final Color OUTSIDE_COLOR = new Color(15, 15, 20);
+    private static final Font FLASH_FONT = new Font(Font.MONOSPACED, Font.BOLD, 12);
+    // 暂停覆盖层/空闲提示/调试层每帧都画，字体和颜色只创建一次
+    private static final Color PAUSE_SHADE = new Color(0, 0, 0, 150);
+    private static final Color PAUSE_TITLE_COLOR = new Color(255, 200, 0);
+    private static final Color HINT_COLOR = new Color(180, 180, 200);
+    private static final Font PAUSE_TITLE_FONT = new Font("SansSerif", Font.BOLD, 36);
+    private static final Font PAUSE_HINT_FONT = new Font("SansSerif", Font.PLAIN, 16);
+    private static final Font IDLE_HINT_FONT = new Font("SansSerif", Font.PLAIN, 18);
+    private static final Font DEBUG_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color DEBUG_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color DEBUG_TEXT_COLOR = new Color(120, 255, 160);
+
     private final GameConfig config;
     private final GameStats stats;
     private ModeHandler currentMode;
     private GameMode currentGameMode;
     private final Timer gameTimer;
-    private final Timer countdownTimer;
+    private GameClock clock = new GameClock(); // 本局游戏时钟，暂停时停止(预热好的对局自带时钟)
+    private SimulationLoop sim;                // 本局模拟线程(对局中非null)
     private boolean running = false;
-    private int timeRemaining;
-    private long lastUpdateTime;
     private Runnable onGameEnd;
 
     // FPS视角: 相机固定原点，yaw/pitch旋转，准星固定屏幕中心
     private double cameraYaw, cameraPitch;
     private int lastRawX, lastRawY;
     private boolean hasLastRaw = false;
-
-    // 鼠标锁定 + ESC暂停
+    private final LagCompensator lagCompensator = new LagCompensator();
+    private LatencyProbe latencyProbe; // 未开启测量时为null
+    private long sessionSeed;          // 本局靶标生成种子
+    private SessionSettings sessionSettings;  // 本局设置快照(对局中修改设置下一局生效)
+    private long sessionFingerprint;   // 开局时的玩法设置指纹，写入历史
+    private StressReport stressReport; // 压力测试结束后的报告
+    private final SceneRenderer renderer;
+    private final HudRenderer hud;
+    private final WarmupService warmup;
+    private final HistoryStore history; // 本地对局历史(后台写入)
+
+    // 鼠标锁定 + ESC暂停(Robot在第一次锁定鼠标时才创建，不拖慢启动)
     private Robot robot;
+    private boolean robotCreated = false;
     private boolean mouseCaptured = false;
     private boolean paused = false;
 
+    // F3 调试层
+    private boolean showDebugOverlay = false;
+    private long lastPaintNanos;
+    private int lastFrameTargets;   // 最近一帧快照中的靶标数
+    private double frameMsAvg;
+    private Runnable onFirstPaint;
+
+    // 已绘制、等待显示到屏幕的帧(presentFrame记录呈现时刻)
+    private boolean presentPending = false;
+    private long presentStateNanos, presentPaintNanos;
+    private double presentYaw, presentPitch;
+    private RepaintManager previousRepaintManager;   // 对局中装上PresentHook前的全局RepaintManager，null为未安装
+
     public GamePanel(GameConfig config) {
         this.config = config;
         this.stats = new GameStats();
+        this.renderer = new SceneRenderer(config);
+        this.hud = new HudRenderer(config);
+        this.warmup = new WarmupService(config);
+        this.history = HistoryStore.open(HistoryStore.DEFAULT_DIR);
+        // 相关设置变化时渲染缓存下一帧重建
+        config.addListener(SceneRenderer.CONFIG_KEYS, renderer::configChanged);
+        config.addListener(HudRenderer.CONFIG_KEYS, hud::configChanged);
+        config.addListener(EnumSet.of(ConfigKey.BACKGROUND_COLOR), changed -> setBackground(config.getBackgroundColor()));
         this.gameTimer = new Timer(16, this); // ~60 FPS
-        this.countdownTimer = new Timer(1000, e -> {
-            if (timeRemaining > 0) {
-                timeRemaining--;
-            } else {
-                stopGame();
-            }
-        });
 
         setBackground(config.getBackgroundColor());
         setFocusable(true);
         setCursor(createBlankCursor());
 
-        // 初始化Robot用于鼠标锁定
-        try {
-            robot = new Robot();
-        } catch (AWTException ex) {
-            robot = null;
-        }
-
-        // ESC键切换暂停
+        // ESC键切换暂停，R键立即重开上一个模式
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (e.getKeyCode() == KeyEvent.VK_ESCAPE && running) {
                     togglePause();
+                } else if (e.getKeyCode() == KeyEvent.VK_R && currentGameMode != null) {
+                    restartGame();
+                } else if (e.getKeyCode() == KeyEvent.VK_F3) {
+                    showDebugOverlay = !showDebugOverlay;
+                    repaint();
                 }
             }
         });
@@ -78,49 +123,57 @@ public class GamePanel extends JPanel implements ActionListener {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                if (!running || paused || currentMode == null) return;
-                // FPS: 点击始终在屏幕中心(准星位置)
-                int cx = getWidth() / 2;
-                int cy = getHeight() / 2 + 30;
-                currentMode.onMousePress(cx, cy, stats);
-                currentMode.onMouseClick(cx, cy, stats);
+                if (!running || paused || sim == null) return;
+                long arrival = eventNanos(e);
+                int seq = latencyProbe != null ? latencyProbe.tagInput(arrival, true) : 0;
+                // FPS: 点击始终沿准星方向，由模拟线程按当时的相机朝向在世界空间求交
+                sim.onMousePress(arrival, seq, cameraYaw, cameraPitch);
                 repaint();
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
-                if (!running || paused || currentMode == null) return;
-                int cx = getWidth() / 2;
-                int cy = getHeight() / 2 + 30;
-                currentMode.onMouseRelease(cx, cy, stats);
+                if (!running || paused || sim == null) return;
+                sim.onMouseRelease(eventNanos(e), cameraYaw, cameraPitch);
             }
         });
 
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
+                long arrival = eventNanos(e);
+                int seq = latencyProbe != null && running && !paused ? latencyProbe.tagInput(arrival, false) : 0;
                 updateCamera(e.getX(), e.getY());
-                if (running && currentMode != null) {
-                    int cx = getWidth() / 2;
-                    int cy = getHeight() / 2 + 30;
-                    currentMode.onMouseMove(cx, cy, stats);
-                }
+                if (running && !paused && sim != null) sim.onMouseMove(arrival, seq, cameraYaw, cameraPitch);
                 repaint();
             }
 
             @Override
             public void mouseDragged(MouseEvent e) {
+                long arrival = eventNanos(e);
+                int seq = latencyProbe != null && running && !paused ? latencyProbe.tagInput(arrival, false) : 0;
                 updateCamera(e.getX(), e.getY());
-                if (running && currentMode != null) {
-                    int cx = getWidth() / 2;
-                    int cy = getHeight() / 2 + 30;
-                    currentMode.onMouseMove(cx, cy, stats);
-                }
+                if (running && !paused && sim != null) sim.onMouseMove(arrival, seq, cameraYaw, cameraPitch);
                 repaint();
             }
         });
     }
 
+    /**
+     * 输入最早到达时刻(System.nanoTime基准)
+     * 优先用EdtMonitor在事件进入队列时记下的纳秒时刻；没有记录时退回getWhen()，
+     * 它只有毫秒精度，扣除的EDT排队延迟有最多约1ms的误差。两种方式都不含OS到AWT投递线程之间的延迟
+     */
+    private static long eventNanos(InputEvent e) {
+        EdtMonitor monitor = EdtMonitor.get();
+        long posted = monitor != null ? monitor.postedNanos(e) : 0;
+        if (posted != 0) return posted;
+        long now = System.nanoTime();
+        long queuedMs = System.currentTimeMillis() - e.getWhen();
+        if (queuedMs <= 0 || queuedMs > 1000) return now; // 时钟跳变时不做修正
+        return now - queuedMs * 1_000_000L;
+    }
+
     private void updateCamera(int rawX, int rawY) {
         if (!running || paused) return;
 
@@ -139,7 +192,7 @@ public class GamePanel extends JPanel implements ActionListener {
         cameraPitch = Math.max(-Math.PI * 0.45, Math.min(Math.PI * 0.45, cameraPitch));
 
         // 将鼠标锁定在面板中心
-        if (robot != null && mouseCaptured) {
+        if (mouseCaptured && robot() != null) {
             Point screenCenter = new Point(cx, cy);
             SwingUtilities.convertPointToScreen(screenCenter, this);
             robot.mouseMove(screenCenter.x, screenCenter.y);
@@ -147,7 +200,7 @@ public class GamePanel extends JPanel implements ActionListener {
     }
 
     private Cursor createBlankCursor() {
-        if (config.isShowCrosshair()) {
+        if (config.isShowCrosshair() && !GraphicsEnvironment.isHeadless()) {
             BufferedImage cursorImg = new java.awt.image.BufferedImage(16, 16, java.awt.image.BufferedImage.TYPE_INT_ARGB);
             return Toolkit.getDefaultToolkit().createCustomCursor(cursorImg, new Point(0, 0), "blank");
         }
@@ -156,20 +209,45 @@ public class GamePanel extends JPanel implements ActionListener {
 
     public void startGame(GameMode mode) {
         this.currentGameMode = mode;
-        this.currentMode = createModeHandler(mode);
-        this.currentMode.init(getWidth(), getHeight(), config);
+        if (currentMode != null) currentMode.dispose();
+        this.stressReport = null;
+        // 优先用后台预热好的初始状态(时钟暂停在生成时刻，恢复即开局)
+        WarmupService.Prepared prepared = warmup.take(mode);
+        if (prepared != null) {
+            this.sessionSeed = prepared.getSeed();
+            this.sessionSettings = prepared.getSettings();
+            this.currentMode = prepared.getHandler();
+            this.clock = prepared.getClock();
+            this.clock.resume();
+        } else {
+            // 固定种子可复现同一靶标序列；0则每局随机并在结算界面显示，便于复练
+            this.sessionSeed = WarmupService.sessionSeed(config);
+            this.sessionSettings = config.snapshot();
+            this.currentMode = ModeHandler.forMode(mode);
+            if (currentMode instanceof StressMode stress) stress.setRenderPath(renderPathName());
+            this.clock = new GameClock();
+            this.currentMode.init(getWidth(), getHeight(), sessionSettings, sessionSeed, clock);
+        }
+        this.sessionFingerprint = config.fingerprint(mode);
+        renderer.setSession(sessionSettings);
+        warmup.setGameActive(true);
         this.stats.reset();
-        this.timeRemaining = config.getGameDuration();
         this.running = true;
         this.paused = false;
-        this.lastUpdateTime = System.nanoTime();
         this.hasLastRaw = false;
+        lagCompensator.configure(config.isLagCompensation(), config.getLagCompMaxRewindMs());
+        lagCompensator.clear();
+        latencyProbe = config.isLatencyProbe() ? new LatencyProbe(renderPathName()) : null;
         this.cameraYaw = -Math.PI / 2; // 初始朝+X方向
         this.cameraPitch = 0;
+        // 之后处理器/统计/时钟/延迟补偿归模拟线程所有，直到stopGame中sim.stop()返回
+        this.sim = new SimulationLoop(sessionSettings, currentMode, stats, clock, lagCompensator,
+            getWidth(), getHeight(), cameraYaw, cameraPitch);
+        sim.start();
+        installPresentHook();
         setCursor(createBlankCursor());
         captureMouse();
         gameTimer.start();
-        countdownTimer.start();
         requestFocusInWindow();
     }
 
@@ -177,28 +255,69 @@ public class GamePanel extends JPanel implements ActionListener {
         running = false;
         paused = false;
         gameTimer.stop();
-        countdownTimer.stop();
+        if (sim != null) {
+            boolean completed = sim.isFinished();
+            sim.stop();
+            recordHistory(completed, sim.getElapsedNanos());
+            sim = null;
+        }
+        restoreRepaintManager();
+        renderer.setSession(null);
+        warmup.setGameActive(false);
         releaseMouse();
         setCursor(Cursor.getDefaultCursor());
+        if (currentMode != null) currentMode.dispose();
+        if (currentMode instanceof StressMode stress) stressReport = stress.getReport();
+        if (latencyProbe != null && currentGameMode != null) {
+            latencyProbe.saveAsync(currentGameMode.name());
+        }
         if (onGameEnd != null) onGameEnd.run();
         repaint();
     }
 
+    /** 把刚结束的一局追加到本地历史(压力测试和一枪未开的对局不记录) */
+    private void recordHistory(boolean completed, long elapsedNanos) {
+        if (currentGameMode == null || currentGameMode == GameMode.STRESS) return;
+        if (stats.getTotalShots() == 0 && stats.getTotalTrackTime() == 0) return;
+        history.append(SessionRecord.of(currentGameMode, sessionFingerprint,
+            System.currentTimeMillis(), elapsedNanos, completed, stats));
+    }
+
+    /** 立即重开当前模式(对局中、暂停中或结算界面均可) */
+    private void restartGame() {
+        if (running) stopGame();
+        startGame(currentGameMode);
+    }
+
+    public HistoryStore getHistory() { return history; }
+
+    public WarmupService getWarmup() {
+        return warmup;
+    }
+
+    /** 当前渲染路径名称，写入延迟报告便于对比 */
+    private String renderPathName() {
+        return "SwingTimer" + (config.isFullscreen() ? "/全屏" : "/窗口");
+    }
+
     public void setOnGameEnd(Runnable callback) {
         this.onGameEnd = callback;
     }
 
+    /** 第一次绘制完成后(在EDT上)回调一次，用于延后启动后台任务 */
+    public void setOnFirstPaint(Runnable callback) {
+        this.onFirstPaint = callback;
+    }
+
     private void togglePause() {
         paused = !paused;
+        if (sim != null) sim.setPaused(paused);
         if (paused) {
             gameTimer.stop();
-            countdownTimer.stop();
             releaseMouse();
             setCursor(Cursor.getDefaultCursor());
         } else {
-            lastUpdateTime = System.nanoTime();
             gameTimer.start();
-            countdownTimer.start();
             captureMouse();
             setCursor(createBlankCursor());
             requestFocusInWindow();
@@ -206,9 +325,22 @@ public class GamePanel extends JPanel implements ActionListener {
         repaint();
     }
 
+    /** 鼠标锁定用的Robot，首次使用时创建；不支持时为null */
+    private Robot robot() {
+        if (!robotCreated) {
+            robotCreated = true;
+            try {
+                robot = new Robot();
+            } catch (AWTException | SecurityException ex) {
+                robot = null;
+            }
+        }
+        return robot;
+    }
+
     private void captureMouse() {
         mouseCaptured = true;
-        if (robot != null) {
+        if (robot() != null) {
             int cx = getWidth() / 2;
             int cy = getHeight() / 2;
             Point screenCenter = new Point(cx, cy);
@@ -221,24 +353,14 @@ public class GamePanel extends JPanel implements ActionListener {
         mouseCaptured = false;
     }
 
-    private ModeHandler createModeHandler(GameMode mode) {
-        return switch (mode) {
-            case FLICK -> new FlickMode();
-            case TRACKING -> new TrackingMode();
-            case SPEED -> new SpeedMode();
-            case PRECISION -> new PrecisionMode();
-            case REACTION -> new ReactionMode();
-            case SWITCH -> new SwitchMode();
-        };
-    }
-
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (!running || currentMode == null) return;
-        long now = System.nanoTime();
-        double dt = (now - lastUpdateTime) / 1_000_000_000.0;
-        lastUpdateTime = now;
-        currentMode.update(dt, getWidth(), getHeight());
+        if (!running || sim == null) return;
+        // 模拟在自己的线程上推进，这里只负责按帧率重绘和收尾
+        if (sim.isFinished()) {
+            stopGame();
+            return;
+        }
         repaint();
     }
 
@@ -252,452 +374,168 @@ public class GamePanel extends JPanel implements ActionListener {
         int h = getHeight();
 
         // 背景 (房间外的黑色)
-        g2d.setColor(new Color(15, 15, 20));
+        g2d.setColor(OUTSIDE_COLOR);
         g2d.fillRect(0, 0, w, h);
 
         // 3D透视网格
+        renderer.setCamera(cameraYaw, cameraPitch);
         if (config.isShowGrid()) {
-            drawPerspectiveGrid(g2d, w, h);
+            renderer.drawRoom(g2d, w, h);
         }
 
         // HUD 栏
-        g2d.setColor(new Color(20, 20, 30));
-        g2d.fillRect(0, 0, w, 55);
-        g2d.setColor(new Color(60, 60, 80));
-        g2d.drawLine(0, 55, w, 55);
-
-        g2d.setFont(new Font("SansSerif", Font.BOLD, 16));
-
-        if (running && currentMode != null) {
-            // 模式信息
-            g2d.setColor(new Color(180, 180, 200));
-            g2d.drawString(currentGameMode.getDisplayName() + "  |  " + currentMode.getModeInfo(), 15, 25);
-
-            // 分数
-            if (config.isShowScore()) {
-                g2d.setColor(new Color(255, 200, 0));
-                String scoreText = "分数: " + stats.getScore();
-                g2d.drawString(scoreText, 15, 47);
-            }
-
-            // 命中率
-            if (config.isShowAccuracy()) {
-                g2d.setColor(new Color(100, 255, 100));
-                String accText;
-                if (currentGameMode == GameMode.TRACKING) {
-                    accText = String.format("追踪精度: %.1f%%", stats.getTrackAccuracy());
-                } else {
-                    accText = String.format("命中率: %.1f%%", stats.getAccuracy());
-                }
-                g2d.drawString(accText, 200, 47);
-            }
-
-            // 计时器
-            if (config.isShowTimer()) {
-                g2d.setColor(timeRemaining <= 10 ? new Color(255, 80, 80) : Color.WHITE);
-                g2d.setFont(new Font("SansSerif", Font.BOLD, 22));
-                String timeText = String.format("%d:%02d", timeRemaining / 60, timeRemaining % 60);
-                int tw = g2d.getFontMetrics().stringWidth(timeText);
-                g2d.drawString(timeText, w - tw - 20, 38);
-            }
-
-            // 靶标 - 3D投影 + 深度排序
-            List<Target> targets = currentMode.getTargets();
-            double fov = config.getFov();
-            double maxZ = config.getMaxDepth();
-
-            // 投影所有靶标(带相机旋转)
-            for (Target t : targets) {
-                t.project(w, h, fov, cameraYaw, cameraPitch);
-            }
-
-            // 按相机空间深度排序(远的先画)
-            List<Target> sorted = new ArrayList<>(targets);
-            sorted.sort(Comparator.comparingDouble(Target::getCameraSpaceZ).reversed());
-
-            // 画阴影
-            for (Target t : sorted) {
-                drawTargetShadow(g2d, t, maxZ);
-            }
-
-            // 画靶标
-            for (Target t : sorted) {
-                drawTarget(g2d, t, maxZ);
+        hud.drawBar(g2d, w);
+
+        if (running && sim != null) {
+            long paintStart = System.nanoTime();
+            // 模拟线程最近发布的完整状态；绘制期间模拟继续推进，互不等待
+            FrameSnapshot snap = sim.latest();
+            lastFrameTargets = snap.getCount();
+            // 只有快照已包含的输入才算被本帧消费(模拟线程最多晚一个tick才处理到)
+            boolean frameHasClick = latencyProbe != null && latencyProbe.beginFrame(snap.getInputSeq());
+            sim.setViewport(w, h);
+
+            // 模式信息、分数、命中率、计时器
+            hud.drawStats(g2d, snap, currentGameMode, w);
+
+            // 靶标 - 3D投影 + 深度排序(远的先画)，相机用EDT上最新的朝向
+            renderer.drawTargets(g2d, snap, w, h);
+
+            // 光电校验标记: 消费了点击的帧在右下角闪白块并印上帧号
+            if (frameHasClick && config.isLatencyFlashMarker()) {
+                g2d.setColor(Color.WHITE);
+                g2d.fillRect(w - 60, h - 60, 60, 60);
+                g2d.setColor(Color.BLACK);
+                g2d.setFont(FLASH_FONT);
+                g2d.drawString(String.valueOf(latencyProbe.getFrameNumber()), w - 56, h - 8);
             }
 
             // 准星 - 固定屏幕中心(FPS风格)
             if (config.isShowCrosshair()) {
-                drawCrosshair(g2d, w / 2, h / 2 + 30);
+                hud.drawCrosshair(g2d, w / 2, h / 2 + 30);
             }
 
             // 暂停覆盖层
             if (paused) {
-                g2d.setColor(new Color(0, 0, 0, 150));
+                g2d.setColor(PAUSE_SHADE);
                 g2d.fillRect(0, 55, w, h - 55);
-                g2d.setFont(new Font("SansSerif", Font.BOLD, 36));
-                g2d.setColor(new Color(255, 200, 0));
+                g2d.setFont(PAUSE_TITLE_FONT);
+                g2d.setColor(PAUSE_TITLE_COLOR);
                 String pauseText = "已暂停";
                 int ptw = g2d.getFontMetrics().stringWidth(pauseText);
                 g2d.drawString(pauseText, (w - ptw) / 2, h / 2 - 10);
-                g2d.setFont(new Font("SansSerif", Font.PLAIN, 16));
-                g2d.setColor(new Color(180, 180, 200));
-                String hint = "按 ESC 继续  |  可点击左侧菜单";
+                g2d.setFont(PAUSE_HINT_FONT);
+                g2d.setColor(HINT_COLOR);
+                String hint = "按 ESC 继续  |  R 重开  |  可点击左侧菜单";
                 int htw = g2d.getFontMetrics().stringWidth(hint);
                 g2d.drawString(hint, (w - htw) / 2, h / 2 + 25);
             }
+            if (showDebugOverlay) {
+                drawDebugOverlay(g2d, w, h);
+            }
+
+            // 呈现时刻要等RepaintManager把整帧显示到屏幕后才能记录
+            presentPending = true;
+            presentStateNanos = snap.getStateNanos();
+            presentYaw = cameraYaw;
+            presentPitch = cameraPitch;
+            presentPaintNanos = System.nanoTime() - paintStart;
+        } else if (!running && stressReport != null) {
+            drawStressResults(g2d, w, h);
         } else if (!running && stats.getTotalShots() > 0) {
             // 结算画面
             drawResults(g2d, w, h);
         } else {
-            g2d.setColor(new Color(180, 180, 200));
-            g2d.setFont(new Font("SansSerif", Font.PLAIN, 18));
+            g2d.setColor(HINT_COLOR);
+            g2d.setFont(IDLE_HINT_FONT);
             String hint = "选择一个模式开始训练";
             int tw = g2d.getFontMetrics().stringWidth(hint);
             g2d.drawString(hint, (w - tw) / 2, h / 2);
         }
-    }
-
-    private void drawTargetShadow(Graphics2D g2d, Target t, double maxZ) {
-        double sx = t.getScreenX();
-        double sy = t.getScreenY();
-        double ss = t.getScreenSize();
-        float dim = t.getDepthDim(maxZ);
-        // 远处阴影更大更模糊，近处更紧凑
-        double depthRatio = t.getZ() / Math.max(1, maxZ);
-        double shadowOffX = 3 + depthRatio * 8;
-        double shadowOffY = 3 + depthRatio * 8;
-        double shadowScale = 1.2 + depthRatio * 0.5;
-        int alpha = (int)(60 * dim);
-        double shadowSize = ss * shadowScale;
-        // 模糊阴影用渐变
-        RadialGradientPaint shadowPaint = new RadialGradientPaint(
-            new Point2D.Double(sx + shadowOffX, sy + shadowOffY),
-            (float)(shadowSize / 2 + 2),
-            new float[]{0f, 0.6f, 1f},
-            new Color[]{
-                new Color(0, 0, 0, Math.min(255, Math.max(5, alpha))),
-                new Color(0, 0, 0, Math.min(255, Math.max(2, alpha / 2))),
-                new Color(0, 0, 0, 0)});
-        g2d.setPaint(shadowPaint);
-        g2d.fill(new Ellipse2D.Double(
-            sx + shadowOffX - shadowSize/2, sy + shadowOffY - shadowSize/2,
-            shadowSize, shadowSize));
-    }
-
-    private void drawTarget(Graphics2D g2d, Target t, double maxZ) {
-        double sx = t.getScreenX();
-        double sy = t.getScreenY();
-        double ss = t.getScreenSize();
-        float dim = t.getDepthDim(maxZ);
-        double r = ss / 2.0;
-
-        // 外圈光晕 (高亮靶标)
-        if (t.isHighlighted()) {
-            int glowAlpha = (int)(70 * dim);
-            RadialGradientPaint glowPaint = new RadialGradientPaint(
-                new Point2D.Double(sx, sy), (float)(r * 1.8),
-                new float[]{0.4f, 0.7f, 1f},
-                new Color[]{
-                    new Color(255, 200, 0, Math.max(5, glowAlpha)),
-                    new Color(255, 150, 0, Math.max(2, glowAlpha / 3)),
-                    new Color(255, 100, 0, 0)});
-            g2d.setPaint(glowPaint);
-            double glowSize = ss * 1.8;
-            g2d.fill(new Ellipse2D.Double(sx - glowSize/2, sy - glowSize/2, glowSize, glowSize));
+        if (onFirstPaint != null) {
+            // 本帧绘制完成后再执行，延后启动的任务不计入首帧
+            SwingUtilities.invokeLater(onFirstPaint);
+            onFirstPaint = null;
         }
-
-        // === 立体球体渲染 ===
-        Color baseColor = t.getDepthColor(maxZ);
-        int bR = baseColor.getRed(), bG = baseColor.getGreen(), bB = baseColor.getBlue();
-
-        // 球体暗面颜色
-        Color darkSide = new Color(
-            Math.max(0, (int)(bR * 0.25)),
-            Math.max(0, (int)(bG * 0.25)),
-            Math.max(0, (int)(bB * 0.25)));
-        // 球体亮面颜色
-        Color lightSide = new Color(
-            Math.min(255, (int)(bR * 1.3)),
-            Math.min(255, (int)(bG * 1.3)),
-            Math.min(255, (int)(bB * 1.3)));
-
-        // 主体球体 - 径向渐变模拟光照(光源左上)
-        float lightOffX = (float)(-r * 0.3);
-        float lightOffY = (float)(-r * 0.3);
-        RadialGradientPaint spherePaint = new RadialGradientPaint(
-            new Point2D.Double(sx + lightOffX, sy + lightOffY),
-            (float)(r * 1.1),
-            new float[]{0f, 0.5f, 0.85f, 1f},
-            new Color[]{lightSide, baseColor, darkSide,
-                new Color(Math.max(0, (int)(bR*0.15)),
-                           Math.max(0, (int)(bG*0.15)),
-                           Math.max(0, (int)(bB*0.15)))});
-        g2d.setPaint(spherePaint);
-        Ellipse2D.Double shape = t.getScreenShape();
-        g2d.fill(shape);
-
-        // 高光点 (specular) - 左上方白色亮点
-        if (ss > 8) {
-            float specR = (float)(r * 0.35);
-            double specX = sx - r * 0.28;
-            double specY = sy - r * 0.28;
-            int specAlpha = (int)(200 * dim);
-            RadialGradientPaint specPaint = new RadialGradientPaint(
-                new Point2D.Double(specX, specY), specR,
-                new float[]{0f, 0.4f, 1f},
-                new Color[]{
-                    new Color(255, 255, 255, Math.min(255, Math.max(10, specAlpha))),
-                    new Color(255, 255, 255, Math.min(255, Math.max(5, specAlpha / 3))),
-                    new Color(255, 255, 255, 0)});
-            g2d.setPaint(specPaint);
-            g2d.fill(new Ellipse2D.Double(specX - specR, specY - specR, specR*2, specR*2));
-        }
-
-        // 边缘rim light (底部右侧微光)
-        if (ss > 14 && dim > 0.3f) {
-            int rimAlpha = (int)(50 * dim);
-            double rimX = sx + r * 0.15;
-            double rimY = sy + r * 0.15;
-            float rimR = (float)(r * 0.9);
-            RadialGradientPaint rimPaint = new RadialGradientPaint(
-                new Point2D.Double(rimX, rimY), rimR,
-                new float[]{0.7f, 0.9f, 1f},
-                new Color[]{
-                    new Color(255, 255, 255, 0),
-                    new Color(200, 220, 255, Math.max(3, rimAlpha / 2)),
-                    new Color(200, 220, 255, 0)});
-            g2d.setPaint(rimPaint);
-            g2d.fill(shape);
-        }
-
-        // 边框 - 细微暗边增强立体
-        if (t.isHighlighted()) {
-            g2d.setColor(new Color(
-                (int)(255 * dim), (int)(220 * dim), (int)(50 * dim)));
-        } else {
-            g2d.setColor(new Color(
-                Math.max(0, (int)(bR * 0.4)),
-                Math.max(0, (int)(bG * 0.4)),
-                Math.max(0, (int)(bB * 0.4)), (int)(180 * dim)));
-        }
-        float strokeW = Math.max(0.5f, 1.5f * dim);
-        g2d.setStroke(new BasicStroke(strokeW));
-        g2d.draw(shape);
-
-        // 内圈靶心 (近处才显示)
-        if (ss > 18 && dim > 0.4f) {
-            double innerR = r * 0.22;
-            int innerAlpha = (int)(100 * dim);
-            RadialGradientPaint innerPaint = new RadialGradientPaint(
-                new Point2D.Double(sx, sy), (float)(innerR + 1),
-                new float[]{0f, 0.6f, 1f},
-                new Color[]{
-                    new Color(255, 255, 255, Math.min(255, Math.max(5, innerAlpha))),
-                    new Color(255, 255, 255, Math.max(3, innerAlpha / 3)),
-                    new Color(255, 255, 255, 0)});
-            g2d.setPaint(innerPaint);
-            g2d.fill(new Ellipse2D.Double(sx - innerR, sy - innerR, innerR*2, innerR*2));
-        }
-
-        // 生命周期指示器
-        if (t.getLifetime() > 0) {
-            long elapsed = System.currentTimeMillis() - t.getSpawnTime();
-            double ratio = 1.0 - (double) elapsed / t.getLifetime();
-            ratio = Math.max(0, Math.min(1, ratio));
-            int arcAlpha = (int)(180 * dim);
-            g2d.setColor(new Color(255, 255, 255, Math.min(255, Math.max(10, arcAlpha))));
-            g2d.setStroke(new BasicStroke(Math.max(1.5f, 3 * dim)));
-            int arcAngle = (int) (360 * ratio);
-            g2d.drawArc((int)(sx - r - 4), (int)(sy - r - 4),
-                (int)(ss + 8), (int)(ss + 8), 90, arcAngle);
-        }
-
-        g2d.setStroke(new BasicStroke(1));
     }
 
-    private void drawPerspectiveGrid(Graphics2D g2d, int w, int h) {
-        drawRoom(g2d, w, h);
+    /**
+     * 本轮脏区画完并显示到屏幕后调用: 同步显示管线再记录呈现时刻，
+     * 由模拟线程作为视野内新靶标的反应计时起点和延迟补偿的帧记录
+     */
+    private void presentFrame() {
+        if (!presentPending) return;
+        presentPending = false;
+        if (!running || sim == null) return;
+        Toolkit.getDefaultToolkit().sync();
+        long presentedNanos = System.nanoTime();
+        if (latencyProbe != null) latencyProbe.framePresented(presentedNanos);
+        sim.onFramePresented(presentedNanos, presentStateNanos, presentYaw, presentPitch, presentPaintNanos);
     }
 
-    /** 将3D世界坐标投影到屏幕坐标(带相机旋转) */
-    private double[] project3D(double wx, double wy, double wz, int sw, int sh) {
-        double fov = config.getFov();
-        double cx = sw / 2.0;
-        double cy = sh / 2.0 + 30;
-
-        // 绕Y轴旋转(yaw)
-        double cosY = Math.cos(cameraYaw), sinY = Math.sin(cameraYaw);
-        double rx = wx * cosY + wz * sinY;
-        double rz = -wx * sinY + wz * cosY;
-
-        // 绕X轴旋转(pitch)
-        double cosP = Math.cos(cameraPitch), sinP = Math.sin(cameraPitch);
-        double ry = wy * cosP - rz * sinP;
-        double rz2 = wy * sinP + rz * cosP;
-
-        if (rz2 <= -fov + 1) rz2 = -fov + 1;
-        double scale = fov / (fov + rz2);
-        double sx = cx + rx * scale;
-        double sy = cy + ry * scale;
-        return new double[]{sx, sy, scale, rz2}; // rz2 = camera-space depth
+    /** RepaintManager是全局的: 只在对局期间换成PresentHook，结束时还原，不影响菜单/设置等其他窗口 */
+    private void installPresentHook() {
+        if (previousRepaintManager != null) return;
+        previousRepaintManager = RepaintManager.currentManager(this);
+        RepaintManager.setCurrentManager(new PresentHook(this::presentFrame));
     }
 
-    /** 将世界点变换到相机空间，返回相机空间Z */
-    private double camSpaceZ(double wx, double wy, double wz) {
-        double cosY = Math.cos(cameraYaw), sinY = Math.sin(cameraYaw);
-        double rz = -wx * sinY + wz * cosY;
-        double cosP = Math.cos(cameraPitch), sinP = Math.sin(cameraPitch);
-        return wy * sinP + rz * cosP;
+    private void restoreRepaintManager() {
+        if (previousRepaintManager == null) return;
+        RepaintManager.setCurrentManager(previousRepaintManager);
+        previousRepaintManager = null;
     }
 
-    /** 画3D线段 */
-    private void drawLine3D(Graphics2D g2d, int sw, int sh,
-            double x1, double y1, double z1, double x2, double y2, double z2) {
-        double[] p1 = project3D(x1, y1, z1, sw, sh);
-        double[] p2 = project3D(x2, y2, z2, sw, sh);
-        g2d.drawLine((int)p1[0], (int)p1[1], (int)p2[0], (int)p2[1]);
-    }
+    /** 在RepaintManager绘制脏区(含把后备缓冲显示到屏幕)之后回调 */
+    private static final class PresentHook extends RepaintManager {
+        private final Runnable afterPaint;
 
-    /** 画3D填充四边形 */
-    private void fillQuad3D(Graphics2D g2d, int sw, int sh,
-            double x1,double y1,double z1, double x2,double y2,double z2,
-            double x3,double y3,double z3, double x4,double y4,double z4) {
-        double[] p1 = project3D(x1,y1,z1,sw,sh);
-        double[] p2 = project3D(x2,y2,z2,sw,sh);
-        double[] p3 = project3D(x3,y3,z3,sw,sh);
-        double[] p4 = project3D(x4,y4,z4,sw,sh);
-        int[] xp = {(int)p1[0],(int)p2[0],(int)p3[0],(int)p4[0]};
-        int[] yp = {(int)p1[1],(int)p2[1],(int)p3[1],(int)p4[1]};
-        g2d.fillPolygon(xp, yp, 4);
-    }
-
-    private void drawRoom(Graphics2D g2d, int w, int h) {
-        double rX = config.getWorldWidth();
-        double rY = config.getWorldHeight();
-        double rZ = config.getMaxDepth() / 2.0;
-
-        Color gc = config.getGridColor();
-        int gridN = 8;
-
-        // 6个面: 法线方向 + 面中心 + 颜色
-        // 按面中心的相机空间Z排序，从远到近画
-        double[][] faceCenters = {
-            { rX,  0,  0}, // +X 靶标墙
-            {-rX,  0,  0}, // -X 背墙
-            { 0,  rY,  0}, // +Y 地板
-            { 0, -rY,  0}, // -Y 天花板
-            { 0,  0,  rZ}, // +Z
-            { 0,  0, -rZ}, // -Z
-        };
-        int[] order = {0,1,2,3,4,5};
-        // 插入排序按相机Z从大到小（远→近）
-        double[] depths = new double[6];
-        for (int i = 0; i < 6; i++)
-            depths[i] = camSpaceZ(faceCenters[i][0], faceCenters[i][1], faceCenters[i][2]);
-        for (int i = 1; i < 6; i++) {
-            int key = order[i]; double d = depths[key];
-            int j = i - 1;
-            while (j >= 0 && depths[order[j]] < d) { order[j+1] = order[j]; j--; }
-            order[j+1] = key;
+        PresentHook(Runnable afterPaint) {
+            this.afterPaint = afterPaint;
         }
 
-        for (int fi : order) {
-            switch (fi) {
-                case 0 -> { // +X 靶标墙
-                    g2d.setColor(new Color(22, 22, 32));
-                    fillQuad3D(g2d,w,h, rX,-rY,-rZ, rX,-rY,rZ, rX,rY,rZ, rX,rY,-rZ);
-                    g2d.setColor(new Color(gc.getRed()/2, gc.getGreen()/2, gc.getBlue()/2, 80));
-                    g2d.setStroke(new BasicStroke(0.5f));
-                    for (int i=0;i<=gridN;i++){double t=-1+2.0*i/gridN;drawLine3D(g2d,w,h,rX,t*rY,-rZ,rX,t*rY,rZ);drawLine3D(g2d,w,h,rX,-rY,t*rZ,rX,rY,t*rZ);}
-                }
-                case 1 -> { // -X 背墙
-                    g2d.setColor(new Color(22, 22, 32));
-                    fillQuad3D(g2d,w,h,-rX,-rY,-rZ,-rX,-rY,rZ,-rX,rY,rZ,-rX,rY,-rZ);
-                    g2d.setColor(new Color(gc.getRed()/2, gc.getGreen()/2, gc.getBlue()/2, 40));
-                    g2d.setStroke(new BasicStroke(0.5f));
-                    for (int i=0;i<=gridN;i++){double t=-1+2.0*i/gridN;drawLine3D(g2d,w,h,-rX,t*rY,-rZ,-rX,t*rY,rZ);drawLine3D(g2d,w,h,-rX,-rY,t*rZ,-rX,rY,t*rZ);}
-                }
-                case 2 -> { // +Y 地板
-                    g2d.setColor(new Color(35, 38, 48));
-                    fillQuad3D(g2d,w,h,-rX,rY,-rZ,rX,rY,-rZ,rX,rY,rZ,-rX,rY,rZ);
-                    g2d.setColor(new Color(gc.getRed(), gc.getGreen(), gc.getBlue(), 60));
-                    g2d.setStroke(new BasicStroke(0.7f));
-                    for (int i=0;i<=gridN;i++){double t=-1+2.0*i/gridN;drawLine3D(g2d,w,h,t*rX,rY,-rZ,t*rX,rY,rZ);drawLine3D(g2d,w,h,-rX,rY,t*rZ,rX,rY,t*rZ);}
-                }
-                case 3 -> { // -Y 天花板
-                    g2d.setColor(new Color(25, 25, 35));
-                    fillQuad3D(g2d,w,h,-rX,-rY,-rZ,rX,-rY,-rZ,rX,-rY,rZ,-rX,-rY,rZ);
-                    g2d.setColor(new Color(gc.getRed()/2, gc.getGreen()/2, gc.getBlue()/2, 40));
-                    g2d.setStroke(new BasicStroke(0.5f));
-                    for (int i=0;i<=gridN;i++){double t=-1+2.0*i/gridN;drawLine3D(g2d,w,h,t*rX,-rY,-rZ,t*rX,-rY,rZ);drawLine3D(g2d,w,h,-rX,-rY,t*rZ,rX,-rY,t*rZ);}
-                }
-                case 4 -> { // +Z
-                    g2d.setColor(new Color(30, 32, 42));
-                    fillQuad3D(g2d,w,h,-rX,-rY,rZ,rX,-rY,rZ,rX,rY,rZ,-rX,rY,rZ);
-                    g2d.setColor(new Color(gc.getRed()/2, gc.getGreen()/2, gc.getBlue()/2, 50));
-                    g2d.setStroke(new BasicStroke(0.5f));
-                    for (int i=0;i<=gridN;i++){double t=-1+2.0*i/gridN;drawLine3D(g2d,w,h,t*rX,-rY,rZ,t*rX,rY,rZ);drawLine3D(g2d,w,h,-rX,t*rY,rZ,rX,t*rY,rZ);}
-                }
-                case 5 -> { // -Z
-                    g2d.setColor(new Color(30, 32, 42));
-                    fillQuad3D(g2d,w,h,-rX,-rY,-rZ,rX,-rY,-rZ,rX,rY,-rZ,-rX,rY,-rZ);
-                    g2d.setColor(new Color(gc.getRed()/2, gc.getGreen()/2, gc.getBlue()/2, 50));
-                    g2d.setStroke(new BasicStroke(0.5f));
-                    for (int i=0;i<=gridN;i++){double t=-1+2.0*i/gridN;drawLine3D(g2d,w,h,t*rX,-rY,-rZ,t*rX,rY,-rZ);drawLine3D(g2d,w,h,-rX,t*rY,-rZ,rX,t*rY,-rZ);}
-                }
-            }
+        @Override
+        public void paintDirtyRegions() {
+            super.paintDirtyRegions();
+            afterPaint.run();
         }
-
-        // 12条棱线
-        g2d.setColor(new Color(gc.getRed(), gc.getGreen(), gc.getBlue(), 100));
-        g2d.setStroke(new BasicStroke(1.2f));
-        drawLine3D(g2d,w,h,-rX,-rY,-rZ,rX,-rY,-rZ); drawLine3D(g2d,w,h,-rX,-rY,rZ,rX,-rY,rZ);
-        drawLine3D(g2d,w,h,-rX,rY,-rZ,rX,rY,-rZ);   drawLine3D(g2d,w,h,-rX,rY,rZ,rX,rY,rZ);
-        drawLine3D(g2d,w,h,-rX,-rY,-rZ,-rX,rY,-rZ); drawLine3D(g2d,w,h,-rX,-rY,rZ,-rX,rY,rZ);
-        drawLine3D(g2d,w,h,rX,-rY,-rZ,rX,rY,-rZ);   drawLine3D(g2d,w,h,rX,-rY,rZ,rX,rY,rZ);
-        drawLine3D(g2d,w,h,-rX,-rY,-rZ,-rX,-rY,rZ); drawLine3D(g2d,w,h,-rX,rY,-rZ,-rX,rY,rZ);
-        drawLine3D(g2d,w,h,rX,-rY,-rZ,rX,-rY,rZ);   drawLine3D(g2d,w,h,rX,rY,-rZ,rX,rY,rZ);
-
-        g2d.setStroke(new BasicStroke(1));
     }
 
-    private void drawCrosshair(Graphics2D g2d, int mx, int my) {
-        int len = config.getCrosshairSize();
-        int thick = config.getCrosshairThickness();
-        int gap = config.getCrosshairGap();
-        int outline = config.getCrosshairOutline();
-        Color color = config.getCrosshairColor();
-
-        // CS风格准星: 4条短线段 + 中心间隙 + 可选描边 + 可选中心点
-        // 描边(黑色外框让准星在任何背景上都清晰)
-        if (outline > 0) {
-            g2d.setColor(new Color(0, 0, 0, 200));
-            g2d.setStroke(new BasicStroke(thick + outline * 2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
-            g2d.drawLine(mx - gap - len, my, mx - gap, my);
-            g2d.drawLine(mx + gap, my, mx + gap + len, my);
-            g2d.drawLine(mx, my - gap - len, mx, my - gap);
-            g2d.drawLine(mx, my + gap, mx, my + gap + len);
+    /** 调试层: 帧时间 + EDT分发/排队汇总 */
+    private void drawDebugOverlay(Graphics2D g2d, int w, int h) {
+        long now = System.nanoTime();
+        if (lastPaintNanos != 0) {
+            double ms = (now - lastPaintNanos) / 1e6;
+            frameMsAvg = frameMsAvg == 0 ? ms : frameMsAvg * 0.9 + ms * 0.1;
         }
+        lastPaintNanos = now;
 
-        // 主体线段
-        g2d.setColor(color);
-        g2d.setStroke(new BasicStroke(thick, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
-        g2d.drawLine(mx - gap - len, my, mx - gap, my);
-        g2d.drawLine(mx + gap, my, mx + gap + len, my);
-        g2d.drawLine(mx, my - gap - len, mx, my - gap);
-        g2d.drawLine(mx, my + gap, mx, my + gap + len);
-
-        // 中心点
-        if (config.isCrosshairDot()) {
-            if (outline > 0) {
-                g2d.setColor(new Color(0, 0, 0, 200));
-                g2d.fillRect(mx - 1 - outline, my - 1 - outline, 2 + outline*2, 2 + outline*2);
-            }
-            g2d.setColor(color);
-            g2d.fillRect(mx - 1, my - 1, 2, 2);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("帧间隔 %.2fms (%.0f FPS)", frameMsAvg, frameMsAvg > 0 ? 1000 / frameMsAvg : 0));
+        if (sim != null) {
+            lines.add(String.format("模拟 %dHz  tick %.3fms  丢弃输入 %d", SimulationLoop.TICK_RATE,
+                sim.getTickCostNanos() / 1e6, sim.getDroppedInputs()));
+        }
+        if (latencyProbe != null) {
+            lines.add(latencyProbe.summary());
+        }
+        EdtMonitor monitor = EdtMonitor.get();
+        if (monitor != null) {
+            lines.addAll(monitor.summaryLines());
         }
 
-        g2d.setStroke(new BasicStroke(1));
+        g2d.setFont(DEBUG_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+        int lineH = fm.getHeight();
+        int boxW = 0;
+        for (String line : lines) boxW = Math.max(boxW, fm.stringWidth(line));
+        int x = 10, y = 65;
+        g2d.setColor(DEBUG_BACKGROUND);
+        g2d.fillRect(x - 5, y - 3, boxW + 10, lineH * lines.size() + 6);
+        g2d.setColor(DEBUG_TEXT_COLOR);
+        for (int i = 0; i < lines.size(); i++) {
+            g2d.drawString(lines.get(i), x, y + fm.getAscent() + i * lineH);
+        }
     }
 
     private void drawResults(Graphics2D g2d, int w, int h) {
@@ -736,28 +574,108 @@ public class GamePanel extends JPanel implements ActionListener {
         }
         startY += 35;
 
+        // 要害命中(人形靶头部)
+        if (stats.getCriticalHits() > 0) {
+            g2d.setColor(new Color(255, 120, 80));
+            drawResultLine(g2d, cx, startY, "爆头", String.format("%d (%.0f%%)", stats.getCriticalHits(),
+                stats.getCriticalHits() * 100.0 / Math.max(1, stats.getHits())));
+            startY += 35;
+        }
+
         // 平均反应
-        if (stats.getAverageReactionTime() > 0) {
+        if (stats.getReactionCount() > 0) {
             g2d.setColor(new Color(100, 200, 255));
-            drawResultLine(g2d, cx, startY, "平均反应", stats.getAverageReactionTime() + "ms");
+            drawResultLine(g2d, cx, startY, "平均反应", String.format("%.2fms", stats.getAverageReactionMs()));
             startY += 35;
         }
 
         // 最佳反应
-        if (stats.getBestReactionTime() > 0) {
+        if (stats.getReactionCount() > 0) {
+            g2d.setColor(new Color(200, 100, 255));
+            drawResultLine(g2d, cx, startY, "最快反应", String.format("%.2fms", stats.getBestReactionMs()));
+            startY += 35;
+        }
+
+        // 反应分布: 中位数看水平，p90看稳定性
+        LogHistogram reactions = stats.getReactionHistogram();
+        if (reactions.getCount() > 1) {
+            g2d.setColor(new Color(100, 200, 255));
+            drawResultLine(g2d, cx, startY, "反应分布", String.format("p50 %.1fms / p90 %.1fms / p99 %.1fms",
+                reactions.percentileMs(50), reactions.percentileMs(90), reactions.percentileMs(99)));
+            startY += 35;
+        }
+
+        // 命中间隔(节奏)
+        LogHistogram intervals = stats.getHitIntervalHistogram();
+        if (intervals.getCount() > 1) {
             g2d.setColor(new Color(200, 100, 255));
-            drawResultLine(g2d, cx, startY, "最快反应", stats.getBestReactionTime() + "ms");
+            drawResultLine(g2d, cx, startY, "命中间隔", String.format("p50 %.1fms / p90 %.1fms",
+                intervals.percentileMs(50), intervals.percentileMs(90)));
             startY += 35;
         }
 
+        // 输入延迟
+        if (latencyProbe != null && latencyProbe.getSampleCount() > 0) {
+            g2d.setColor(new Color(150, 150, 170));
+            drawResultLine(g2d, cx, startY, "输入延迟", String.format("p50 %.1fms / p95 %.1fms / p99 %.1fms",
+                latencyProbe.percentileMs(50), latencyProbe.percentileMs(95), latencyProbe.percentileMs(99)));
+            startY += 35;
+        }
+
+        // 生成种子
+        g2d.setColor(new Color(150, 150, 170));
+        drawResultLine(g2d, cx, startY, "种子", String.valueOf(sessionSeed));
+        startY += 35;
+
         // 提示
         startY += 20;
         g2d.setFont(new Font("SansSerif", Font.ITALIC, 16));
         g2d.setColor(new Color(150, 150, 170));
-        String hint = "点击左侧模式按钮开始新训练";
+        String hint = "按 R 立即重开  |  点击左侧模式按钮开始新训练";
         g2d.drawString(hint, cx - g2d.getFontMetrics().stringWidth(hint) / 2, startY);
     }
 
+    /** 压力测试结算: 每级一行，拐点所在级别标红 */
+    private void drawStressResults(Graphics2D g2d, int w, int h) {
+        g2d.setColor(new Color(0, 0, 0, 180));
+        g2d.fillRect(0, 55, w, h - 55);
+
+        int cx = w / 2;
+        int y = 120;
+        g2d.setFont(new Font("SansSerif", Font.BOLD, 32));
+        g2d.setColor(new Color(255, 200, 0));
+        String title = "压力测试结果";
+        g2d.drawString(title, cx - g2d.getFontMetrics().stringWidth(title) / 2, y);
+        y += 40;
+
+        g2d.setFont(new Font("SansSerif", Font.PLAIN, 16));
+        g2d.setColor(new Color(180, 180, 200));
+        String summary = stressReport.summary();
+        g2d.drawString(summary, cx - g2d.getFontMetrics().stringWidth(summary) / 2, y);
+        y += 35;
+
+        g2d.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
+        FontMetrics fm = g2d.getFontMetrics();
+        List<String> lines = stressReport.lines();
+        int knee = stressReport.getKneeIndex();
+        int tableW = 0;
+        for (String line : lines) tableW = Math.max(tableW, fm.stringWidth(line));
+        int x = cx - tableW / 2;
+        for (int i = 0; i < lines.size(); i++) {
+            if (i == 0) g2d.setColor(new Color(150, 150, 170));
+            else if (knee >= 0 && i - 1 >= knee) g2d.setColor(new Color(255, 100, 100));
+            else g2d.setColor(new Color(100, 255, 100));
+            g2d.drawString(lines.get(i), x, y);
+            y += fm.getHeight() + 4;
+        }
+
+        y += 20;
+        g2d.setFont(new Font("SansSerif", Font.ITALIC, 16));
+        g2d.setColor(new Color(150, 150, 170));
+        String hint = "报告已保存到 sessions 目录";
+        g2d.drawString(hint, cx - g2d.getFontMetrics().stringWidth(hint) / 2, y);
+    }
+
     private void drawResultLine(Graphics2D g2d, int cx, int y, String label, String value) {
         String line = label + ": " + value;
         int tw = g2d.getFontMetrics().stringWidth(line);
@@ -765,6 +683,9 @@ public class GamePanel extends JPanel implements ActionListener {
     }
 
     public boolean isRunning() { return running; }
+    /** 最近一帧绘制的靶标数(分配预算按它放宽靶标绘制的部分) */
+    public int getLastFrameTargets() { return lastFrameTargets; }
     public GameStats getStats() { return stats; }
     public GameMode getCurrentGameMode() { return currentGameMode; }
+    public long getSessionSeed() { return sessionSeed; }
 }
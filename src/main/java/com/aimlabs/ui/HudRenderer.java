@@ -0,0 +1,173 @@
+package com.aimlabs.ui;
+
+import com.aimlabs.config.ConfigKey;
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.game.FrameSnapshot;
+import com.aimlabs.game.GameMode;
+
+import java.awt.*;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * HUD渲染 - 顶部信息栏和准星，与具体组件无关
+ * 每帧都画，所以字体/颜色/笔画都预先创建，文字只在数值变化时重新生成，稳态下不分配
+ * 显示开关和准星设置缓存在本地，相关设置变化时(configChanged)下一帧重新读取
+ */
+public class HudRenderer {
+    private static final Font INFO_FONT = new Font("SansSerif", Font.BOLD, 16);
+    private static final Font TIMER_FONT = new Font("SansSerif", Font.BOLD, 22);
+    private static final Color BAR_COLOR = new Color(20, 20, 30);
+    private static final Color BAR_LINE_COLOR = new Color(60, 60, 80);
+    private static final Color INFO_COLOR = new Color(180, 180, 200);
+    private static final Color SCORE_COLOR = new Color(255, 200, 0);
+    private static final Color ACCURACY_COLOR = new Color(100, 255, 100);
+    private static final Color TIMER_LOW_COLOR = new Color(255, 80, 80);
+    private static final Color OUTLINE_COLOR = new Color(0, 0, 0, 200);
+    private static final BasicStroke DEFAULT_STROKE = new BasicStroke(1);
+    public static final int BAR_HEIGHT = 55;
+    /** 影响HUD绘制的设置项 */
+    public static final Set<ConfigKey> CONFIG_KEYS = EnumSet.of(
+        ConfigKey.SHOW_SCORE, ConfigKey.SHOW_ACCURACY, ConfigKey.SHOW_TIMER,
+        ConfigKey.CROSSHAIR_SIZE, ConfigKey.CROSSHAIR_THICKNESS, ConfigKey.CROSSHAIR_GAP,
+        ConfigKey.CROSSHAIR_OUTLINE, ConfigKey.CROSSHAIR_COLOR, ConfigKey.CROSSHAIR_DOT);
+
+    private final GameConfig config;
+
+    // 文字缓存: 对应的值不变时复用上一帧的字符串
+    private GameMode infoMode;
+    private String infoSource;
+    private String infoText;
+    private int scoreValue = Integer.MIN_VALUE;
+    private String scoreText;
+    private int accuracyKey = Integer.MIN_VALUE;   // 精度×10，按显示的一位小数比较
+    private boolean accuracyTracking;
+    private String accuracyText;
+    private int timeValue = Integer.MIN_VALUE;
+    private String timeText;
+    private int timeWidth;
+
+    // 设置缓存(settingsDirty时重新读取)
+    private volatile boolean settingsDirty = true;
+    private boolean showScore, showAccuracy, showTimer, crossDot;
+    private int crossLen, crossGap, crossOutline;
+    private Color crossColor;
+    private BasicStroke mainStroke, outlineStroke;
+
+    public HudRenderer(GameConfig config) {
+        this.config = config;
+    }
+
+    /** 设置变化回调(可在任意线程调用)，用CONFIG_KEYS订阅 */
+    public void configChanged(Set<ConfigKey> changed) {
+        settingsDirty = true;
+    }
+
+    private void refreshSettings() {
+        if (!settingsDirty) return;
+        settingsDirty = false;
+        showScore = config.isShowScore();
+        showAccuracy = config.isShowAccuracy();
+        showTimer = config.isShowTimer();
+        crossLen = config.getCrosshairSize();
+        crossGap = config.getCrosshairGap();
+        crossOutline = config.getCrosshairOutline();
+        crossColor = config.getCrosshairColor();
+        crossDot = config.isCrosshairDot();
+        int thick = config.getCrosshairThickness();
+        mainStroke = new BasicStroke(thick, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+        outlineStroke = new BasicStroke(thick + crossOutline * 2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+    }
+
+    /** 顶部信息栏背景 */
+    public void drawBar(Graphics2D g2d, int w) {
+        g2d.setColor(BAR_COLOR);
+        g2d.fillRect(0, 0, w, BAR_HEIGHT);
+        g2d.setColor(BAR_LINE_COLOR);
+        g2d.drawLine(0, BAR_HEIGHT, w, BAR_HEIGHT);
+    }
+
+    /** 模式信息、分数、命中率/追踪精度和倒计时 */
+    public void drawStats(Graphics2D g2d, FrameSnapshot snap, GameMode mode, int w) {
+        refreshSettings();
+        g2d.setFont(INFO_FONT);
+        if (mode != infoMode || infoSource == null || !infoSource.contentEquals(snap.getModeInfo())) {
+            infoMode = mode;
+            infoSource = snap.getModeInfo().toString();
+            infoText = mode.getDisplayName() + "  |  " + infoSource;
+        }
+        g2d.setColor(INFO_COLOR);
+        g2d.drawString(infoText, 15, 25);
+
+        if (showScore) {
+            if (snap.getScore() != scoreValue) {
+                scoreValue = snap.getScore();
+                scoreText = "分数: " + scoreValue;
+            }
+            g2d.setColor(SCORE_COLOR);
+            g2d.drawString(scoreText, 15, 47);
+        }
+
+        if (showAccuracy) {
+            boolean tracking = mode == GameMode.TRACKING;
+            double accuracy = tracking ? snap.getTrackAccuracy() : snap.getAccuracy();
+            int key = (int) Math.round(accuracy * 10);
+            if (key != accuracyKey || tracking != accuracyTracking) {
+                accuracyKey = key;
+                accuracyTracking = tracking;
+                accuracyText = String.format(tracking ? "追踪精度: %.1f%%" : "命中率: %.1f%%", accuracy);
+            }
+            g2d.setColor(ACCURACY_COLOR);
+            g2d.drawString(accuracyText, 200, 47);
+        }
+
+        if (showTimer) {
+            int remaining = snap.getTimeRemaining();
+            g2d.setFont(TIMER_FONT);
+            if (remaining != timeValue) {
+                timeValue = remaining;
+                timeText = String.format("%d:%02d", remaining / 60, remaining % 60);
+                timeWidth = g2d.getFontMetrics().stringWidth(timeText);
+            }
+            g2d.setColor(remaining <= 10 ? TIMER_LOW_COLOR : Color.WHITE);
+            g2d.drawString(timeText, w - timeWidth - 20, 38);
+        }
+    }
+
+    /** CS风格准星: 4条短线段 + 中心间隙 + 可选描边 + 可选中心点 */
+    public void drawCrosshair(Graphics2D g2d, int mx, int my) {
+        refreshSettings();
+        int len = crossLen, gap = crossGap, outline = crossOutline;
+        Color color = crossColor;
+
+        // 描边(黑色外框让准星在任何背景上都清晰)
+        if (outline > 0) {
+            g2d.setColor(OUTLINE_COLOR);
+            g2d.setStroke(outlineStroke);
+            g2d.drawLine(mx - gap - len, my, mx - gap, my);
+            g2d.drawLine(mx + gap, my, mx + gap + len, my);
+            g2d.drawLine(mx, my - gap - len, mx, my - gap);
+            g2d.drawLine(mx, my + gap, mx, my + gap + len);
+        }
+
+        // 主体线段
+        g2d.setColor(color);
+        g2d.setStroke(mainStroke);
+        g2d.drawLine(mx - gap - len, my, mx - gap, my);
+        g2d.drawLine(mx + gap, my, mx + gap + len, my);
+        g2d.drawLine(mx, my - gap - len, mx, my - gap);
+        g2d.drawLine(mx, my + gap, mx, my + gap + len);
+
+        // 中心点
+        if (crossDot) {
+            if (outline > 0) {
+                g2d.setColor(OUTLINE_COLOR);
+                g2d.fillRect(mx - 1 - outline, my - 1 - outline, 2 + outline * 2, 2 + outline * 2);
+            }
+            g2d.setColor(color);
+            g2d.fillRect(mx - 1, my - 1, 2, 2);
+        }
+
+        g2d.setStroke(DEFAULT_STROKE);
+    }
+}
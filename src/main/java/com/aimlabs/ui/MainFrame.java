@@ -2,6 +2,8 @@ package com.aimlabs.ui;
 
 import com.aimlabs.config.GameConfig;
 import com.aimlabs.game.GameMode;
+import com.aimlabs.perf.EdtMonitor;
+import com.aimlabs.perf.StartupTrace;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,10 +14,15 @@ import java.awt.*;
 public class MainFrame extends JFrame {
     private final GameConfig config;
     private final GamePanel gamePanel;
+    private final ProgressPanel progressPanel;
+    private final CardLayout centerCards = new CardLayout();
+    private final JPanel center = new JPanel(centerCards);
 
     public MainFrame() {
         config = new GameConfig();
         config.load();
+        EdtMonitor.install(config.getEdtStallThresholdMs());
+        StartupTrace.mark("读取配置");
 
         setTitle("AimLabs - 瞄准训练器");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -23,19 +30,61 @@ public class MainFrame extends JFrame {
         setMinimumSize(new Dimension(800, 600));
         setLocationRelativeTo(null);
 
-        // 左侧菜单
-        JPanel sidebar = createSidebar();
-
         // 游戏面板
         gamePanel = new GamePanel(config);
         gamePanel.setOnGameEnd(() -> {
             // 游戏结束后重新启用按钮
         });
+        StartupTrace.mark("游戏面板");
 
-        // 布局
+        // 训练进度(后台读取历史，首帧之后才开始)
+        progressPanel = new ProgressPanel(gamePanel.getHistory());
+
+        // 左侧菜单
+        JPanel sidebar = createSidebar();
+
+        // 布局: 中间在游戏和训练进度之间切换
+        center.add(gamePanel, "game");
+        center.add(progressPanel, "progress");
         setLayout(new BorderLayout());
         add(sidebar, BorderLayout.WEST);
-        add(gamePanel, BorderLayout.CENTER);
+        add(center, BorderLayout.CENTER);
+
+        StartupTrace.mark("菜单布局");
+
+        // 首帧之后再启动后台预热和历史读取，不和启动抢CPU/磁盘
+        gamePanel.setOnFirstPaint(() -> {
+            StartupTrace.firstFrame();
+            gamePanel.getWarmup().start();
+            progressPanel.start();
+        });
+    }
+
+    /**
+     * CDS训练运行(构建时配合-XX:ArchiveClassesAtExit): 等预热跑完全部模式，再开一局、打开进度页和设置对话框，
+     * 让常用路径的类都被加载后退出；超时也退出，避免构建卡住
+     */
+    public void runCdsTraining() {
+        WarmupService warmup = gamePanel.getWarmup();
+        Timer deadline = new Timer(120_000, e -> System.exit(0));
+        deadline.setRepeats(false);
+        deadline.start();
+        Timer poll = new Timer(200, null);
+        poll.addActionListener(e -> {
+            if (!warmup.isWarm()) return;
+            poll.stop();
+            gamePanel.startGame(GameMode.FLICK);
+            Timer finish = new Timer(1000, f -> {
+                gamePanel.stopGame();
+                centerCards.show(center, "progress");
+                new SettingsDialog(this, config).dispose();
+                // 让进度页画一帧再退出
+                SwingUtilities.invokeLater(() -> System.exit(0));
+            });
+            finish.setRepeats(false);
+            finish.start();
+        });
+        poll.start();
     }
 
     private JPanel createSidebar() {
@@ -82,6 +131,7 @@ public class MainFrame extends JFrame {
             new Color(0, 220, 120),   // Precision
             new Color(200, 100, 255), // Reaction
             new Color(255, 120, 200), // Switch
+            new Color(150, 150, 170), // Stress
         };
 
         for (int i = 0; i < GameMode.values().length; i++) {
@@ -91,6 +141,20 @@ public class MainFrame extends JFrame {
             sidebar.add(Box.createVerticalStrut(8));
         }
 
+        // 预热状态: 后台把各模式跑热后即可秒开
+        JLabel warmupLabel = new JLabel();
+        warmupLabel.setFont(new Font("SansSerif", Font.PLAIN, 11));
+        warmupLabel.setForeground(new Color(120, 120, 140));
+        warmupLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        sidebar.add(Box.createVerticalStrut(4));
+        sidebar.add(warmupLabel);
+        WarmupService warmup = gamePanel.getWarmup();
+        warmup.setOnStatusChange(() -> SwingUtilities.invokeLater(() -> {
+            warmupLabel.setText(warmup.getStatusText());
+            warmupLabel.setForeground(warmup.isWarm() ? new Color(0, 200, 110) : new Color(120, 120, 140));
+        }));
+        warmupLabel.setText(warmup.getStatusText());
+
         sidebar.add(Box.createVerticalGlue());
 
         // 底部按钮
@@ -100,6 +164,24 @@ public class MainFrame extends JFrame {
         sidebar.add(sep2);
         sidebar.add(Box.createVerticalStrut(10));
 
+        JButton progressBtn = new JButton("训练进度");
+        progressBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+        progressBtn.setMaximumSize(new Dimension(160, 35));
+        progressBtn.setFont(new Font("SansSerif", Font.PLAIN, 13));
+        progressBtn.setBackground(new Color(40, 60, 80));
+        progressBtn.setForeground(Color.WHITE);
+        progressBtn.setFocusPainted(false);
+        progressBtn.setBorderPainted(false);
+        progressBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        progressBtn.addActionListener(e -> {
+            if (gamePanel.isRunning()) {
+                gamePanel.stopGame();
+            }
+            centerCards.show(center, "progress");
+        });
+        sidebar.add(progressBtn);
+        sidebar.add(Box.createVerticalStrut(5));
+
         JButton settingsBtn = new JButton("设置");
         settingsBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
         settingsBtn.setMaximumSize(new Dimension(160, 35));
@@ -113,6 +195,7 @@ public class MainFrame extends JFrame {
             if (gamePanel.isRunning()) {
                 gamePanel.stopGame();
             }
+            // 设置变化经GameConfig监听通知渲染缓存和预热服务
             SettingsDialog dialog = new SettingsDialog(this, config);
             dialog.setVisible(true);
         });
@@ -129,7 +212,7 @@ public class MainFrame extends JFrame {
         quitBtn.setBorderPainted(false);
         quitBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
         quitBtn.addActionListener(e -> {
-            config.save();
+            config.save();      // 后台写入，退出时的关闭钩子会立即写出
             System.exit(0);
         });
         sidebar.add(quitBtn);
@@ -177,6 +260,7 @@ public class MainFrame extends JFrame {
             if (gamePanel.isRunning()) {
                 gamePanel.stopGame();
             }
+            centerCards.show(center, "game");
             gamePanel.startGame(mode);
         });
         return btn;
@@ -0,0 +1,252 @@
+package com.aimlabs.ui;
+
+import com.aimlabs.game.GameMode;
+import com.aimlabs.history.HistoryStore;
+import com.aimlabs.history.ProgressModel;
+import com.aimlabs.history.ProgressModel.Chart;
+import com.aimlabs.history.ProgressModel.Metric;
+import com.aimlabs.history.ProgressModel.Range;
+import com.aimlabs.history.SessionRecord;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.geom.Path2D;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 训练进度 - 按模式绘制分数、命中率和反应时间百分位随时间的变化
+ * 读取历史和聚合都在Progress后台线程上: 启动时订阅HistoryStore回放全部记录，之后每局结束增量加入按天/按周汇总；
+ * 只有受影响的模式在显示中时才重新查询，EDT只画几百个点
+ */
+public class ProgressPanel extends JPanel {
+    private static final Color BG = new Color(20, 20, 28);
+    private static final Color GRID = new Color(45, 45, 60);
+    private static final Color AXIS_TEXT = new Color(150, 150, 170);
+    private static final Font AXIS_FONT = new Font("SansSerif", Font.PLAIN, 11);
+    private static final Font INFO_FONT = new Font("SansSerif", Font.PLAIN, 13);
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("MM-dd").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneId.systemDefault());
+    private static final int PAD_L = 60, PAD_R = 20, PAD_T = 20, PAD_B = 30;
+
+    private final HistoryStore history;
+    private final LinkedBlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final ProgressModel model = new ProgressModel(); // 只在后台线程上访问
+    private final JComboBox<GameMode> modeBox = new JComboBox<>();
+    private final JComboBox<Metric> metricBox = new JComboBox<>(Metric.values());
+    private final JComboBox<Range> rangeBox = new JComboBox<>(Range.values());
+    private final JLabel info = new JLabel(" ");
+    private final ChartView chartView = new ChartView();
+    private volatile boolean loaded = false;
+    private boolean started = false;
+
+    // 当前视图(EDT写，后台线程读)
+    private volatile GameMode viewMode = GameMode.FLICK;
+    private volatile Metric viewMetric = Metric.SCORE;
+    private volatile Range viewRange = Range.MONTH;
+    private volatile int viewPoints = 300;
+
+    public ProgressPanel(HistoryStore history) {
+        this.history = history;
+        setLayout(new BorderLayout());
+        setBackground(BG);
+
+        for (GameMode mode : GameMode.values()) {
+            if (mode != GameMode.STRESS) modeBox.addItem(mode);
+        }
+        modeBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean selected, boolean focus) {
+                Object text = value instanceof GameMode m ? m.getDisplayName() : value;
+                return super.getListCellRendererComponent(list, text, index, selected, focus);
+            }
+        });
+        modeBox.addActionListener(e -> viewChanged());
+        metricBox.addActionListener(e -> viewChanged());
+        rangeBox.addActionListener(e -> viewChanged());
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 8));
+        top.setBackground(new Color(30, 30, 42));
+        top.add(modeBox);
+        top.add(metricBox);
+        top.add(rangeBox);
+        info.setFont(INFO_FONT);
+        info.setForeground(AXIS_TEXT);
+        top.add(info);
+
+        add(top, BorderLayout.NORTH);
+        add(chartView, BorderLayout.CENTER);
+
+        // 点数随宽度变化: 大约每2像素一个点
+        chartView.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                int points = Math.max(50, Math.min(600, (chartView.getWidth() - PAD_L - PAD_R) / 2));
+                if (points != viewPoints) {
+                    viewPoints = points;
+                    requestChart();
+                }
+            }
+        });
+    }
+
+    /** 启动后台线程并订阅历史(只需调用一次，首次显示前调用即可) */
+    public void start() {
+        if (started) return;
+        started = true;
+        Thread worker = new Thread(this::workLoop, "Progress");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+        tasks.add(this::load);
+    }
+
+    private void workLoop() {
+        while (true) {
+            try {
+                tasks.take().run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Progress: " + e);
+            }
+        }
+    }
+
+    /** 回放全部历史；之后的新记录由写线程投递到本线程 */
+    private void load() {
+        try {
+            history.subscribe(model::add, r -> tasks.add(() -> added(r)));
+        } catch (IOException e) {
+            System.err.println("Failed to read history: " + e.getMessage());
+        }
+        loaded = true;
+        refresh();
+    }
+
+    private void added(SessionRecord r) {
+        model.add(r);
+        if (r.getMode() == viewMode) refresh();
+    }
+
+    private void viewChanged() {
+        viewMode = (GameMode) modeBox.getSelectedItem();
+        viewMetric = (Metric) metricBox.getSelectedItem();
+        viewRange = (Range) rangeBox.getSelectedItem();
+        requestChart();
+    }
+
+    private void requestChart() {
+        if (started) tasks.add(this::refresh);
+    }
+
+    /** 后台: 按当前视图查询并交给EDT绘制 */
+    private void refresh() {
+        if (!loaded) return;
+        Chart chart = model.chart(viewMode, viewMetric, viewRange, System.currentTimeMillis(), viewPoints);
+        int total = model.getSessionCount(viewMode);
+        SwingUtilities.invokeLater(() -> {
+            chartView.setChart(chart);
+            info.setText(chart.getSessions() == 0
+                ? String.format("%s: 暂无记录 (共 %d 局)", chart.getMode().getDisplayName(), total)
+                : String.format("%s  %d 局  %s %d 点  (共 %d 局)", chart.getMode().getDisplayName(),
+                    chart.getSessions(), chart.getLevel(), chart.size(), total));
+        });
+    }
+
+    /** 折线图: 点已经在后台降采样，这里只做坐标变换 */
+    private static final class ChartView extends JComponent {
+        private Chart chart;
+        private final Path2D.Double line = new Path2D.Double();
+
+        void setChart(Chart chart) {
+            this.chart = chart;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2d = (Graphics2D) g;
+            int w = getWidth(), h = getHeight();
+            g2d.setColor(BG);
+            g2d.fillRect(0, 0, w, h);
+            g2d.setFont(AXIS_FONT);
+            FontMetrics fm = g2d.getFontMetrics();
+            if (chart == null || chart.size() == 0) {
+                String text = chart == null ? "正在读取历史…" : "该范围内没有记录";
+                g2d.setColor(AXIS_TEXT);
+                g2d.drawString(text, (w - fm.stringWidth(text)) / 2, h / 2);
+                return;
+            }
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < chart.size(); i++) {
+                minY = Math.min(minY, chart.getY(i));
+                maxY = Math.max(maxY, chart.getY(i));
+            }
+            double step = niceStep((maxY - minY) / 5);
+            minY = Math.floor(minY / step) * step;
+            maxY = Math.max(minY + step, Math.ceil(maxY / step) * step);
+            double minX = chart.getFromMillis(), maxX = Math.max(minX + 1, chart.getToMillis());
+            int plotW = w - PAD_L - PAD_R, plotH = h - PAD_T - PAD_B;
+
+            // 横向网格与纵轴刻度
+            for (double v = minY; v <= maxY + step / 2; v += step) {
+                int y = PAD_T + (int) Math.round((maxY - v) / (maxY - minY) * plotH);
+                g2d.setColor(GRID);
+                g2d.drawLine(PAD_L, y, PAD_L + plotW, y);
+                g2d.setColor(AXIS_TEXT);
+                String label = step >= 1 ? String.format("%.0f", v) : String.format("%.1f", v);
+                g2d.drawString(label, PAD_L - 6 - fm.stringWidth(label), y + fm.getAscent() / 2 - 1);
+            }
+            // 时间刻度: 约6个
+            boolean longRange = maxX - minX > 180 * 86_400_000.0;
+            for (int i = 0; i <= 5; i++) {
+                double t = minX + (maxX - minX) * i / 5;
+                int x = PAD_L + (int) Math.round(plotW * i / 5.0);
+                String label = (longRange ? MONTH : DAY).format(Instant.ofEpochMilli((long) t));
+                g2d.drawString(label, x - fm.stringWidth(label) / 2, h - PAD_B + fm.getAscent() + 6);
+            }
+
+            // 折线
+            line.reset();
+            Color color = metricColor(chart.getMetric());
+            g2d.setColor(color);
+            for (int i = 0; i < chart.size(); i++) {
+                double x = PAD_L + (chart.getX(i) - minX) / (maxX - minX) * plotW;
+                double y = PAD_T + (maxY - chart.getY(i)) / (maxY - minY) * plotH;
+                if (i == 0) line.moveTo(x, y); else line.lineTo(x, y);
+                if (chart.size() <= 60) g2d.fillOval((int) x - 3, (int) y - 3, 6, 6);
+            }
+            g2d.setStroke(new BasicStroke(2f));
+            g2d.draw(line);
+
+            g2d.setColor(AXIS_TEXT);
+            g2d.drawString(chart.getMetric().getDisplayName(), PAD_L + 6, PAD_T + fm.getAscent());
+        }
+
+        private static Color metricColor(Metric metric) {
+            return switch (metric) {
+                case SCORE -> new Color(255, 200, 0);
+                case ACCURACY -> new Color(100, 255, 100);
+                case REACTION_AVG -> new Color(100, 200, 255);
+                case REACTION_P90 -> new Color(200, 100, 255);
+            };
+        }
+
+        /** 1/2/5×10^n的刻度间隔 */
+        private static double niceStep(double raw) {
+            if (raw <= 0) return 1;
+            double mag = Math.pow(10, Math.floor(Math.log10(raw)));
+            double f = raw / mag;
+            return (f <= 1 ? 1 : f <= 2 ? 2 : f <= 5 ? 5 : 10) * mag;
+        }
+    }
+}
@@ -0,0 +1,692 @@
+package com.aimlabs.ui;
+
+import com.aimlabs.config.ConfigKey;
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.FrameSnapshot;
+import com.aimlabs.game.HitShape;
+import com.aimlabs.game.Target;
+import com.aimlabs.game.TargetList;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 场景渲染 - 3D房间和靶标的绘制，与具体组件无关
+ * 靶标从FrameSnapshot绘制，投影结果存在渲染器自己的数组里，不写回模拟状态；
+ * GamePanel在屏幕上使用，无界面运行(压力测试/预热)时画到离屏图像上
+ * 每帧都画，颜色/笔画/渐变按量化后的深度等级缓存，径向渐变建在单位空间里靠平移缩放放到靶标上，稳态下自身不分配
+ */
+public class SceneRenderer {
+    // 深度暗化量化等级: 颜色和渐变的取值有限，才能缓存
+    private static final int DIM_LEVELS = 32;
+    // 笔画宽度量化到1/8像素，超出缓存范围的宽度直接新建
+    private static final int STROKE_STEPS = 8, STROKE_CACHE = 1024;
+
+    private static final Color WALL_COLOR = new Color(22, 22, 32);
+    private static final Color FLOOR_COLOR = new Color(35, 38, 48);
+    private static final Color CEILING_COLOR = new Color(25, 25, 35);
+    private static final Color SIDE_COLOR = new Color(30, 32, 42);
+    private static final BasicStroke GRID_STROKE = new BasicStroke(0.5f);
+    private static final BasicStroke FLOOR_GRID_STROKE = new BasicStroke(0.7f);
+    private static final BasicStroke EDGE_STROKE = new BasicStroke(1.2f);
+    private static final BasicStroke DEFAULT_STROKE = new BasicStroke(1);
+
+    /** 影响场景绘制的设置项 */
+    public static final Set<ConfigKey> CONFIG_KEYS = EnumSet.of(
+        ConfigKey.FOV, ConfigKey.MAX_DEPTH, ConfigKey.WORLD_WIDTH, ConfigKey.WORLD_HEIGHT, ConfigKey.GRID_COLOR);
+
+    private final GameConfig config;
+    private final FrameSnapshot scratch = new FrameSnapshot(); // 直接画靶标列表时的临时快照
+    private double yaw, pitch;
+
+    // 投影结果与深度排序后的绘制顺序(按快照下标，复用)
+    private double[] screenX = new double[64], screenY = new double[64];
+    private double[] screenSize = new double[64], cameraZ = new double[64];
+    private int[] drawOrder = new int[64];
+
+    // 本帧投影参数(组合形状逐部件投影时复用)与单点投影结果
+    private double projFov, projCenterX, projCenterY, projCosY, projSinY, projCosP, projSinP;
+    private double ptX, ptY, ptScale;
+    private final Line2D.Double limb = new Line2D.Double();
+    private final Path2D.Double face = new Path2D.Double();
+    private final Ellipse2D.Double ellipse = new Ellipse2D.Double();
+    private final AffineTransform unit = new AffineTransform(), unitInverse = new AffineTransform();
+    private AffineTransform baseTransform;
+    private final Path2D.Double quad = new Path2D.Double();
+    private final double[] roomDepth = new double[6];
+    private final int[] roomOrder = new int[6];
+
+    // 设置缓存: 投影和房间几何只在相关设置变化或换局(setSession)后下一帧重新读取/重建
+    private static final int ROOM_GRID = 8;
+    private volatile boolean settingsDirty = true;
+    private volatile SessionSettings session;   // 对局中固定投影和房间尺寸，null时跟随当前设置
+    private double maxDepth, roomX, roomY, roomZ;
+    private final double[][] roomCorners = new double[6][], roomCenters = new double[6][];
+    private final double[][] roomGrid = new double[6][(ROOM_GRID + 1) * 12];
+    private final Color[] roomFill = new Color[6], roomGridColor = new Color[6];
+    private final BasicStroke[] roomGridStroke = new BasicStroke[6];
+    private double[] roomEdges;
+    private Color roomEdgeColor;
+
+    // 缓存: 颜色按ARGB，球体/部件渐变按基色，其余渐变按深度等级，笔画按量化宽度
+    private final IntCache<Color> colors = new IntCache<>(1024);
+    private final IntCache<Paint> spherePaints = new IntCache<>(256);
+    private final IntCache<Paint> partPaints = new IntCache<>(256);
+    private final IntCache<Paint> facePaints = new IntCache<>(256);
+    private final Paint[] shadowPaints = new Paint[DIM_LEVELS + 1];
+    private final Paint[] glowPaints = new Paint[DIM_LEVELS + 1];
+    private final Paint[] compositeGlowPaints = new Paint[DIM_LEVELS + 1];
+    private final Paint[] specPaints = new Paint[DIM_LEVELS + 1];
+    private final Paint[] rimPaints = new Paint[DIM_LEVELS + 1];
+    private final Paint[] innerPaints = new Paint[DIM_LEVELS + 1];
+    private final BasicStroke[] strokes = new BasicStroke[STROKE_CACHE];
+    private final BasicStroke[] roundStrokes = new BasicStroke[STROKE_CACHE];
+
+    public SceneRenderer(GameConfig config) {
+        this.config = config;
+    }
+
+    /** 设置变化回调(可在任意线程调用)，用CONFIG_KEYS订阅 */
+    public void configChanged(Set<ConfigKey> changed) {
+        settingsDirty = true;
+    }
+
+    /** 开局时传入本局设置，对局中修改视野/房间尺寸到下一局才生效；结束时传null恢复跟随当前设置 */
+    public void setSession(SessionSettings settings) {
+        session = settings;
+        settingsDirty = true;
+    }
+
+    private void refreshSettings() {
+        if (!settingsDirty) return;
+        settingsDirty = false;
+        SessionSettings s = session;
+        if (s == null) s = config.snapshot();
+        projFov = s.getFov();
+        maxDepth = s.getMaxDepth();
+        roomX = s.getRoomMaxX();
+        roomY = s.getRoomHalfY();
+        roomZ = s.getRoomHalfZ();
+        buildRoom();
+    }
+
+    public void setCamera(double yaw, double pitch) {
+        this.yaw = yaw;
+        this.pitch = pitch;
+    }
+
+    /** 直接绘制靶标列表(与模拟同线程时使用): 先复制为快照，nowNanos用于生命周期指示 */
+    public void drawTargets(Graphics2D g2d, TargetList targets, long nowNanos, int w, int h) {
+        scratch.capture(targets, nowNanos, yaw, pitch);
+        drawTargets(g2d, scratch, w, h);
+    }
+
+    /** 投影快照中的全部靶标，按深度排序后先画阴影再画球体/组合形状 */
+    public void drawTargets(Graphics2D g2d, FrameSnapshot snap, int w, int h) {
+        refreshSettings();
+        double maxZ = maxDepth;
+        int n = snap.getCount();
+        project(snap, w, h);
+        sortByDepth(n);
+        baseTransform = g2d.getTransform();
+        for (int i = 0; i < n; i++) {
+            if (snap.getShape(drawOrder[i]) == null) drawTargetShadow(g2d, snap, drawOrder[i], maxZ);
+        }
+        for (int i = 0; i < n; i++) {
+            int k = drawOrder[i];
+            HitShape shape = snap.getShape(k);
+            if (shape == null) drawTarget(g2d, snap, k, maxZ);
+            else drawCompositeTarget(g2d, snap, k, shape, maxZ);
+        }
+    }
+
+    /** 记录本帧投影参数(房间和靶标共用) */
+    private void setProjection(int w, int h) {
+        projCenterX = w / 2.0;
+        projCenterY = h / 2.0 + 30;
+        projCosY = Math.cos(yaw); projSinY = Math.sin(yaw);
+        projCosP = Math.cos(pitch); projSinP = Math.sin(pitch);
+    }
+
+    /** 按当前相机投影快照中的靶标(与TargetStore.projectAll相同的变换) */
+    private void project(FrameSnapshot snap, int w, int h) {
+        int n = snap.getCount();
+        if (screenX.length < n) {
+            int cap = Math.max(n, screenX.length * 2);
+            screenX = new double[cap]; screenY = new double[cap];
+            screenSize = new double[cap]; cameraZ = new double[cap];
+            drawOrder = new int[cap];
+        }
+        setProjection(w, h);
+        double fov = projFov, centerX = projCenterX, centerY = projCenterY;
+        double cosY = projCosY, sinY = projSinY, cosP = projCosP, sinP = projSinP;
+        double nearZ = -fov + 1;
+        for (int i = 0; i < n; i++) {
+            double px = snap.getX(i), py = snap.getY(i), pz = snap.getZ(i);
+            double rx = px * cosY + pz * sinY;
+            double rz = -px * sinY + pz * cosY;
+            double ry = py * cosP - rz * sinP;
+            double rz2 = Math.max(nearZ, py * sinP + rz * cosP);
+            double scale = fov / (fov + rz2);
+            cameraZ[i] = rz2;
+            screenX[i] = centerX + rx * scale;
+            screenY[i] = centerY + ry * scale;
+            screenSize[i] = snap.getSize(i) * scale;
+        }
+    }
+
+    /**
+     * 把靶标下标按相机空间深度从远到近写入drawOrder(复用数组，不分配)
+     * 帧间深度顺序基本不变，插入排序接近线性
+     */
+    private void sortByDepth(int n) {
+        for (int i = 0; i < n; i++) {
+            double z = cameraZ[i];
+            int j = i - 1;
+            while (j >= 0 && cameraZ[drawOrder[j]] < z) {
+                drawOrder[j + 1] = drawOrder[j];
+                j--;
+            }
+            drawOrder[j + 1] = i;
+        }
+    }
+
+    private void drawTargetShadow(Graphics2D g2d, FrameSnapshot snap, int i, double maxZ) {
+        double sx = screenX[i];
+        double sy = screenY[i];
+        double ss = screenSize[i];
+        int level = dimLevel(snap.getDepthDim(i, maxZ));
+        // 远处阴影更大更模糊，近处更紧凑
+        double depthRatio = snap.getZ(i) / Math.max(1, maxZ);
+        double shadowOff = 3 + depthRatio * 8;
+        double shadowSize = ss * (1.2 + depthRatio * 0.5);
+        // 模糊阴影用渐变
+        Paint paint = shadowPaints[level];
+        if (paint == null) {
+            int alpha = (int)(60 * levelDim(level));
+            paint = shadowPaints[level] = unitRadial(new float[]{0f, 0.6f, 1f},
+                color(0, 0, 0, Math.min(255, Math.max(5, alpha))),
+                color(0, 0, 0, Math.min(255, Math.max(2, alpha / 2))),
+                color(0, 0, 0, 0));
+        }
+        fillRadial(g2d, paint, sx + shadowOff, sy + shadowOff, shadowSize / 2 + 2,
+            sx + shadowOff, sy + shadowOff, shadowSize / 2);
+    }
+
+    private void drawTarget(Graphics2D g2d, FrameSnapshot snap, int i, double maxZ) {
+        double sx = screenX[i];
+        double sy = screenY[i];
+        double ss = screenSize[i];
+        int level = dimLevel(snap.getDepthDim(i, maxZ));
+        float dim = levelDim(level);
+        double r = ss / 2.0;
+        boolean highlighted = snap.isHighlighted(i);
+
+        // 外圈光晕 (高亮靶标)
+        if (highlighted) {
+            Paint glow = glowPaints[level];
+            if (glow == null) {
+                int glowAlpha = (int)(70 * dim);
+                glow = glowPaints[level] = unitRadial(new float[]{0.4f, 0.7f, 1f},
+                    color(255, 200, 0, Math.max(5, glowAlpha)),
+                    color(255, 150, 0, Math.max(2, glowAlpha / 3)),
+                    color(255, 100, 0, 0));
+            }
+            fillRadial(g2d, glow, sx, sy, r * 1.8, sx, sy, r * 1.8);
+        }
+
+        // === 立体球体渲染 ===
+        // 主体球体 - 径向渐变模拟光照(光源左上)，亮面/基色/暗面都由暗化后的基色决定
+        int base = Target.dimRgb(snap.getRgb(i), dim);
+        Paint sphere = spherePaints.get(base);
+        if (sphere == null) {
+            sphere = unitRadial(new float[]{0f, 0.5f, 0.85f, 1f},
+                color(Target.dimRgb(base, 1.3f)), color(base),
+                color(Target.dimRgb(base, 0.25f)), edgeColor(Target.dimRgb(base, 0.15f)));
+            spherePaints.put(base, sphere);
+        }
+        fillRadial(g2d, sphere, sx - r * 0.3, sy - r * 0.3, r * 1.1, sx, sy, r);
+
+        // 高光点 (specular) - 左上方白色亮点
+        if (ss > 8) {
+            Paint spec = specPaints[level];
+            if (spec == null) {
+                int specAlpha = (int)(200 * dim);
+                spec = specPaints[level] = unitRadial(new float[]{0f, 0.4f, 1f},
+                    color(255, 255, 255, Math.min(255, Math.max(10, specAlpha))),
+                    color(255, 255, 255, Math.min(255, Math.max(5, specAlpha / 3))),
+                    color(255, 255, 255, 0));
+            }
+            double specR = r * 0.35;
+            fillRadial(g2d, spec, sx - r * 0.28, sy - r * 0.28, specR, sx - r * 0.28, sy - r * 0.28, specR);
+        }
+
+        // 边缘rim light (底部右侧微光)
+        if (ss > 14 && dim > 0.3f) {
+            Paint rim = rimPaints[level];
+            if (rim == null) {
+                int rimAlpha = (int)(50 * dim);
+                rim = rimPaints[level] = unitRadial(new float[]{0.7f, 0.9f, 1f},
+                    color(255, 255, 255, 0),
+                    color(200, 220, 255, Math.max(3, rimAlpha / 2)),
+                    color(200, 220, 255, 0));
+            }
+            fillRadial(g2d, rim, sx + r * 0.15, sy + r * 0.15, r * 0.9, sx, sy, r);
+        }
+
+        // 边框 - 细微暗边增强立体
+        if (highlighted) {
+            g2d.setColor(color((int)(255 * dim), (int)(220 * dim), (int)(50 * dim), 255));
+        } else {
+            g2d.setColor(color(((int)(180 * dim) << 24) | (Target.dimRgb(base, 0.4f) & 0xFFFFFF)));
+        }
+        g2d.setStroke(stroke(Math.max(0.5f, 1.5f * dim)));
+        ellipse.setFrame(sx - r, sy - r, ss, ss);
+        g2d.draw(ellipse);
+
+        // 内圈靶心 (近处才显示)
+        if (ss > 18 && dim > 0.4f) {
+            Paint inner = innerPaints[level];
+            if (inner == null) {
+                int innerAlpha = (int)(100 * dim);
+                inner = innerPaints[level] = unitRadial(new float[]{0f, 0.6f, 1f},
+                    color(255, 255, 255, Math.min(255, Math.max(5, innerAlpha))),
+                    color(255, 255, 255, Math.max(3, innerAlpha / 3)),
+                    color(255, 255, 255, 0));
+            }
+            double innerR = r * 0.22;
+            fillRadial(g2d, inner, sx, sy, innerR + 1, sx, sy, innerR);
+        }
+
+        drawLifetimeArc(g2d, snap, i, sx, sy, r, dim);
+        g2d.setStroke(DEFAULT_STROKE);
+    }
+
+    /** 生命周期指示器: 绕靶标的剩余时间圆弧 */
+    private void drawLifetimeArc(Graphics2D g2d, FrameSnapshot snap, int i, double sx, double sy, double r, float dim) {
+        if (snap.getLifetime(i) <= 0) return;
+        long elapsed = (snap.getStateNanos() - snap.getSpawnNanos(i)) / 1_000_000L;
+        double ratio = 1.0 - (double) elapsed / snap.getLifetime(i);
+        ratio = Math.max(0, Math.min(1, ratio));
+        int arcAlpha = (int)(180 * dim);
+        g2d.setColor(color(255, 255, 255, Math.min(255, Math.max(10, arcAlpha))));
+        g2d.setStroke(stroke(Math.max(1.5f, 3 * dim)));
+        int arcAngle = (int) (360 * ratio);
+        g2d.drawArc((int)(sx - r - 4), (int)(sy - r - 4),
+            (int)(2 * r + 8), (int)(2 * r + 8), 90, arcAngle);
+    }
+
+    /**
+     * 组合形状靶标: 按形状定义顺序逐部件投影绘制(与判定同一局部系，面朝玩家)
+     * 球体画成带光照的圆，胶囊体画成圆头粗线，盒子画朝向玩家的那一面
+     */
+    private void drawCompositeTarget(Graphics2D g2d, FrameSnapshot snap, int i, HitShape shape, double maxZ) {
+        double cx = snap.getX(i), cy = snap.getY(i), cz = snap.getZ(i);
+        double size = snap.getSize(i);
+        int level = dimLevel(snap.getDepthDim(i, maxZ));
+        float dim = levelDim(level);
+        boolean highlighted = snap.isHighlighted(i);
+        double len = Math.sqrt(cx * cx + cz * cz);
+        double sin = len > 1e-9 ? cx / len : 0, cos = len > 1e-9 ? cz / len : 1;
+        double boundR = shape.getBoundRadius() * screenSize[i];
+
+        if (highlighted) {
+            Paint glow = compositeGlowPaints[level];
+            if (glow == null) {
+                int glowAlpha = (int)(60 * dim);
+                glow = compositeGlowPaints[level] = unitRadial(new float[]{0.3f, 0.7f, 1f},
+                    color(255, 200, 0, Math.max(5, glowAlpha)),
+                    color(255, 150, 0, Math.max(2, glowAlpha / 3)),
+                    color(255, 100, 0, 0));
+            }
+            fillRadial(g2d, glow, screenX[i], screenY[i], Math.max(1, boundR * 1.2),
+                screenX[i], screenY[i], boundR * 1.2);
+        }
+
+        int base = Target.dimRgb(snap.getRgb(i), dim);
+        Color outline = highlighted
+            ? color((int)(255 * dim), (int)(220 * dim), (int)(50 * dim), 255)
+            : color(Target.dimRgb(base, 0.4f));
+        float strokeW = Math.max(0.5f, 1.5f * dim);
+        for (int p = 0, n = shape.getPartCount(); p < n; p++) {
+            HitShape.Part part = shape.getPart(p);
+            // 倍率高的部位(头部)提亮，低的(四肢)压暗，一眼能看出要害
+            float tone = part.getMultiplier() > 1 ? 1.25f : (part.getMultiplier() < 1 ? 0.8f : 1f);
+            int fill = Target.dimRgb(base, tone);
+            switch (part.getType()) {
+                case SPHERE -> {
+                    projectLocal(part.getAx(), part.getAy(), part.getAz(), cx, cy, cz, size, sin, cos);
+                    double r = part.getRadius() * size * ptScale;
+                    double x = ptX, y = ptY;
+                    Paint paint = partPaints.get(fill);
+                    if (paint == null) {
+                        paint = unitRadial(new float[]{0f, 0.6f, 1f},
+                            color(Target.dimRgb(fill, 1.3f)), color(fill), edgeColor(Target.dimRgb(fill, 0.35f)));
+                        partPaints.put(fill, paint);
+                    }
+                    fillRadial(g2d, paint, x - r * 0.3, y - r * 0.3, Math.max(1, r * 1.1), x, y, r);
+                    ellipse.setFrame(x - r, y - r, r * 2, r * 2);
+                    g2d.setColor(outline);
+                    g2d.setStroke(stroke(strokeW));
+                    g2d.draw(ellipse);
+                }
+                case CAPSULE -> {
+                    projectLocal(part.getAx(), part.getAy(), part.getAz(), cx, cy, cz, size, sin, cos);
+                    double x1 = ptX, y1 = ptY, s1 = ptScale;
+                    projectLocal(part.getBx(), part.getBy(), part.getBz(), cx, cy, cz, size, sin, cos);
+                    limb.setLine(x1, y1, ptX, ptY);
+                    float width = (float) (2 * part.getRadius() * size * (s1 + ptScale) / 2);
+                    g2d.setColor(outline);
+                    g2d.setStroke(roundStroke(width + 2 * strokeW));
+                    g2d.draw(limb);
+                    g2d.setColor(color(fill));
+                    g2d.setStroke(roundStroke(width));
+                    g2d.draw(limb);
+                }
+                case BOX -> {
+                    // 局部-Z面朝向玩家
+                    double fz = part.getAz() - part.getBz();
+                    double x0 = part.getAx() - part.getBx(), x1 = part.getAx() + part.getBx();
+                    double y0 = part.getAy() - part.getBy(), y1 = part.getAy() + part.getBy();
+                    face.reset();
+                    projectLocal(x0, y0, fz, cx, cy, cz, size, sin, cos);
+                    face.moveTo(ptX, ptY);
+                    double top = ptY;
+                    projectLocal(x1, y0, fz, cx, cy, cz, size, sin, cos);
+                    face.lineTo(ptX, ptY);
+                    projectLocal(x1, y1, fz, cx, cy, cz, size, sin, cos);
+                    face.lineTo(ptX, ptY);
+                    double bottom = ptY;
+                    projectLocal(x0, y1, fz, cx, cy, cz, size, sin, cos);
+                    face.lineTo(ptX, ptY);
+                    face.closePath();
+                    fillFace(g2d, fill, top, bottom);
+                    g2d.setColor(outline);
+                    g2d.setStroke(stroke(strokeW));
+                    g2d.draw(face);
+                }
+            }
+        }
+
+        drawLifetimeArc(g2d, snap, i, screenX[i], screenY[i], boundR, dim);
+        g2d.setStroke(DEFAULT_STROKE);
+    }
+
+    /**
+     * 盒子正面的竖直渐变: 渐变定义在0~1上，面先变换到该空间填充再变换回屏幕空间(供描边)
+     * GradientPaint(以及只有两个色标的LinearGradientPaint)每次填充都重新生成颜色查找表，
+     * 所以用带中间色标的LinearGradientPaint，中间色就是两端的插值，外观不变
+     */
+    private void fillFace(Graphics2D g2d, int fill, double top, double bottom) {
+        double h = bottom - top;
+        if (Math.abs(h) < 1e-6) return;
+        Paint paint = facePaints.get(fill);
+        if (paint == null) {
+            paint = new LinearGradientPaint(0f, 0f, 0f, 1f, new float[]{0f, 0.5f, 1f},
+                new Color[]{color(Target.dimRgb(fill, 1.2f)), color(Target.dimRgb(fill, 0.9f)),
+                    edgeColor(Target.dimRgb(fill, 0.6f))});
+            facePaints.put(fill, paint);
+        }
+        unit.setTransform(1, 0, 0, h, 0, top);
+        unitInverse.setTransform(1, 0, 0, 1 / h, 0, -top / h);
+        face.transform(unitInverse);
+        g2d.setPaint(paint);
+        g2d.transform(unit);
+        g2d.fill(face);
+        g2d.setTransform(baseTransform);
+        face.transform(unit);
+    }
+
+    /**
+     * 用单位空间(圆心在原点、半径1)的径向渐变填充圆: 渐变平移缩放到(gx,gy)半径gr，填充圆心(ex,ey)半径er的圆
+     * 同一个渐变对象反复使用，Java2D按对象缓存的颜色查找表也随之复用
+     */
+    private void fillRadial(Graphics2D g2d, Paint paint, double gx, double gy, double gr,
+                            double ex, double ey, double er) {
+        if (gr < 1e-3 || er <= 0) return;
+        double u = er / gr;
+        ellipse.setFrame((ex - gx) / gr - u, (ey - gy) / gr - u, 2 * u, 2 * u);
+        g2d.setPaint(paint);
+        g2d.translate(gx, gy);
+        g2d.scale(gr, gr);
+        g2d.fill(ellipse);
+        g2d.setTransform(baseTransform);
+    }
+
+    private static RadialGradientPaint unitRadial(float[] fractions, Color... stops) {
+        return new RadialGradientPaint(0f, 0f, 1f, fractions, stops);
+    }
+
+    private static int dimLevel(float dim) {
+        return Math.max(0, Math.min(DIM_LEVELS, Math.round(dim * DIM_LEVELS)));
+    }
+
+    private static float levelDim(int level) {
+        return level / (float) DIM_LEVELS;
+    }
+
+    private Color color(int r, int g, int b, int a) {
+        return color((a & 0xFF) << 24 | (r & 0xFF) << 16 | (g & 0xFF) << 8 | (b & 0xFF));
+    }
+
+    /** 按ARGB取缓存的颜色(Target.rgb打包的不透明色高字节为0xFF) */
+    private Color color(int argb) {
+        Color c = colors.get(argb);
+        if (c == null) {
+            c = new Color(argb, true);
+            colors.put(argb, c);
+        }
+        return c;
+    }
+
+    /**
+     * 不透明渐变的末端颜色: 透明度取254
+     * Java2D的渐变只缓存一块光栅且按颜色模型区分，全不透明的渐变与阴影/高光交替绘制时每次都重新分配；
+     * 末端带一点透明度后所有渐变共用同一模型和光栅，254肉眼看不出差别
+     */
+    private Color edgeColor(int rgb) {
+        return color((rgb & 0xFFFFFF) | 0xFE000000);
+    }
+
+    private BasicStroke stroke(float width) {
+        int key = Math.round(width * STROKE_STEPS);
+        if (key >= STROKE_CACHE) return new BasicStroke(width);
+        BasicStroke s = strokes[key];
+        if (s == null) s = strokes[key] = new BasicStroke(key / (float) STROKE_STEPS);
+        return s;
+    }
+
+    private BasicStroke roundStroke(float width) {
+        int key = Math.round(width * STROKE_STEPS);
+        if (key >= STROKE_CACHE) return new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+        BasicStroke s = roundStrokes[key];
+        if (s == null) {
+            s = roundStrokes[key] = new BasicStroke(key / (float) STROKE_STEPS,
+                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+        }
+        return s;
+    }
+
+    /** 形状局部点(单位为size，绕竖直轴转向玩家)投影到屏幕，结果写入ptX/ptY/ptScale */
+    private void projectLocal(double lx, double ly, double lz, double cx, double cy, double cz,
+                              double size, double sin, double cos) {
+        project3D(cx + (lx * cos + lz * sin) * size, cy + ly * size, cz + (-lx * sin + lz * cos) * size);
+    }
+
+    /** 将3D世界坐标投影到屏幕坐标(带相机旋转)，结果写入ptX/ptY/ptScale */
+    private void project3D(double wx, double wy, double wz) {
+        // 绕Y轴旋转(yaw)
+        double rx = wx * projCosY + wz * projSinY;
+        double rz = -wx * projSinY + wz * projCosY;
+        // 绕X轴旋转(pitch)
+        double ry = wy * projCosP - rz * projSinP;
+        double rz2 = Math.max(-projFov + 1, wy * projSinP + rz * projCosP);
+        ptScale = projFov / (projFov + rz2);
+        ptX = projCenterX + rx * ptScale;
+        ptY = projCenterY + ry * ptScale;
+    }
+
+    /** 将世界点变换到相机空间，返回相机空间Z */
+    private double camSpaceZ(double wx, double wy, double wz) {
+        double rz = -wx * projSinY + wz * projCosY;
+        return wy * projSinP + rz * projCosP;
+    }
+
+    /** 画3D线段 */
+    private void drawLine3D(Graphics2D g2d,
+            double x1, double y1, double z1, double x2, double y2, double z2) {
+        project3D(x1, y1, z1);
+        int sx = (int) ptX, sy = (int) ptY;
+        project3D(x2, y2, z2);
+        g2d.drawLine(sx, sy, (int) ptX, (int) ptY);
+    }
+
+    /** 画3D填充四边形 */
+    private void fillQuad3D(Graphics2D g2d,
+            double x1,double y1,double z1, double x2,double y2,double z2,
+            double x3,double y3,double z3, double x4,double y4,double z4) {
+        // 复用路径: fillPolygon在抗锯齿下每次都会新建GeneralPath
+        quad.reset();
+        project3D(x1, y1, z1); quad.moveTo((int) ptX, (int) ptY);
+        project3D(x2, y2, z2); quad.lineTo((int) ptX, (int) ptY);
+        project3D(x3, y3, z3); quad.lineTo((int) ptX, (int) ptY);
+        project3D(x4, y4, z4); quad.lineTo((int) ptX, (int) ptY);
+        quad.closePath();
+        g2d.fill(quad);
+    }
+
+    /** 网格线颜色: 网格色(可减半)加透明度 */
+    private Color gridColor(Color gc, boolean half, int alpha) {
+        int d = half ? 2 : 1;
+        return color(gc.getRed() / d, gc.getGreen() / d, gc.getBlue() / d, alpha);
+    }
+
+    /** 按当前设置重建房间几何: 6个面的角点、中心、网格线端点及颜色，12条棱线 */
+    private void buildRoom() {
+        double rX = roomX, rY = roomY, rZ = roomZ;
+        Color gc = config.getGridColor();
+        double[][] corners = {
+            { rX,-rY,-rZ,  rX,-rY, rZ,  rX, rY, rZ,  rX, rY,-rZ}, // +X 靶标墙
+            {-rX,-rY,-rZ, -rX,-rY, rZ, -rX, rY, rZ, -rX, rY,-rZ}, // -X 背墙
+            {-rX, rY,-rZ,  rX, rY,-rZ,  rX, rY, rZ, -rX, rY, rZ}, // +Y 地板
+            {-rX,-rY,-rZ,  rX,-rY,-rZ,  rX,-rY, rZ, -rX,-rY, rZ}, // -Y 天花板
+            {-rX,-rY, rZ,  rX,-rY, rZ,  rX, rY, rZ, -rX, rY, rZ}, // +Z
+            {-rX,-rY,-rZ,  rX,-rY,-rZ,  rX, rY,-rZ, -rX, rY,-rZ}, // -Z
+        };
+        double[][] centers = {{rX, 0, 0}, {-rX, 0, 0}, {0, rY, 0}, {0, -rY, 0}, {0, 0, rZ}, {0, 0, -rZ}};
+        Color[] fills = {WALL_COLOR, WALL_COLOR, FLOOR_COLOR, CEILING_COLOR, SIDE_COLOR, SIDE_COLOR};
+        boolean[] half = {true, true, false, true, true, true};
+        int[] alpha = {80, 40, 60, 40, 50, 50};
+        for (int f = 0; f < 6; f++) {
+            roomCorners[f] = corners[f];
+            roomCenters[f] = centers[f];
+            roomFill[f] = fills[f];
+            roomGridColor[f] = gridColor(gc, half[f], alpha[f]);
+            roomGridStroke[f] = f == 2 ? FLOOR_GRID_STROKE : GRID_STROKE;
+        }
+        // 每个面两组平行网格线，各ROOM_GRID+1条
+        for (int i = 0; i <= ROOM_GRID; i++) {
+            double t = -1 + 2.0 * i / ROOM_GRID;
+            setGridLines(0, i, rX,t*rY,-rZ, rX,t*rY,rZ,   rX,-rY,t*rZ, rX,rY,t*rZ);
+            setGridLines(1, i, -rX,t*rY,-rZ, -rX,t*rY,rZ, -rX,-rY,t*rZ, -rX,rY,t*rZ);
+            setGridLines(2, i, t*rX,rY,-rZ, t*rX,rY,rZ,   -rX,rY,t*rZ, rX,rY,t*rZ);
+            setGridLines(3, i, t*rX,-rY,-rZ, t*rX,-rY,rZ, -rX,-rY,t*rZ, rX,-rY,t*rZ);
+            setGridLines(4, i, t*rX,-rY,rZ, t*rX,rY,rZ,   -rX,t*rY,rZ, rX,t*rY,rZ);
+            setGridLines(5, i, t*rX,-rY,-rZ, t*rX,rY,-rZ, -rX,t*rY,-rZ, rX,t*rY,-rZ);
+        }
+        roomEdges = new double[] {
+            -rX,-rY,-rZ, rX,-rY,-rZ,  -rX,-rY,rZ, rX,-rY,rZ,
+            -rX,rY,-rZ, rX,rY,-rZ,    -rX,rY,rZ, rX,rY,rZ,
+            -rX,-rY,-rZ, -rX,rY,-rZ,  -rX,-rY,rZ, -rX,rY,rZ,
+            rX,-rY,-rZ, rX,rY,-rZ,    rX,-rY,rZ, rX,rY,rZ,
+            -rX,-rY,-rZ, -rX,-rY,rZ,  -rX,rY,-rZ, -rX,rY,rZ,
+            rX,-rY,-rZ, rX,-rY,rZ,    rX,rY,-rZ, rX,rY,rZ,
+        };
+        roomEdgeColor = gridColor(gc, false, 100);
+    }
+
+    /** 第face个面的第i对网格线(两条线段的端点) */
+    private void setGridLines(int face, int i, double... ends) {
+        System.arraycopy(ends, 0, roomGrid[face], i * 12, 12);
+    }
+
+    /** 3D房间: 六个面按相机空间深度从远到近绘制，再画棱线；几何在设置变化后才重建 */
+    public void drawRoom(Graphics2D g2d, int w, int h) {
+        refreshSettings();
+        setProjection(w, h);
+
+        // 6个面按面中心的相机空间Z排序，从远到近画
+        int[] order = roomOrder;
+        double[] depths = roomDepth;
+        for (int i = 0; i < 6; i++) {
+            double[] c = roomCenters[i];
+            depths[i] = camSpaceZ(c[0], c[1], c[2]);
+            order[i] = i;
+        }
+        // 插入排序按相机Z从大到小（远→近）
+        for (int i = 1; i < 6; i++) {
+            int key = order[i]; double d = depths[key];
+            int j = i - 1;
+            while (j >= 0 && depths[order[j]] < d) { order[j+1] = order[j]; j--; }
+            order[j+1] = key;
+        }
+
+        for (int fi : order) {
+            double[] c = roomCorners[fi];
+            g2d.setColor(roomFill[fi]);
+            fillQuad3D(g2d, c[0],c[1],c[2], c[3],c[4],c[5], c[6],c[7],c[8], c[9],c[10],c[11]);
+            g2d.setColor(roomGridColor[fi]);
+            g2d.setStroke(roomGridStroke[fi]);
+            drawLines3D(g2d, roomGrid[fi]);
+        }
+
+        // 12条棱线
+        g2d.setColor(roomEdgeColor);
+        g2d.setStroke(EDGE_STROKE);
+        drawLines3D(g2d, roomEdges);
+
+        g2d.setStroke(DEFAULT_STROKE);
+    }
+
+    /** 画端点依次排列的一组3D线段 */
+    private void drawLines3D(Graphics2D g2d, double[] lines) {
+        for (int k = 0; k < lines.length; k += 6) {
+            drawLine3D(g2d, lines[k], lines[k+1], lines[k+2], lines[k+3], lines[k+4], lines[k+5]);
+        }
+    }
+
+    /**
+     * 按int键直接映射的小缓存，冲突时覆盖旧项
+     * 键的取值受深度量化限制，稳态下基本全部命中
+     */
+    private static final class IntCache<T> {
+        private final int[] keys;
+        private final Object[] values;
+        private final int shift;
+
+        IntCache(int capacity) {
+            int bits = Integer.numberOfTrailingZeros(Integer.highestOneBit(capacity));
+            keys = new int[1 << bits];
+            values = new Object[1 << bits];
+            shift = 32 - bits;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int key) {
+            int i = (key * 0x9E3779B9) >>> shift;
+            return values[i] != null && keys[i] == key ? (T) values[i] : null;
+        }
+
+        void put(int key, T value) {
+            int i = (key * 0x9E3779B9) >>> shift;
+            keys[i] = key;
+            values[i] = value;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.aimlabs.ui;
 
 import com.aimlabs.config.GameConfig;
 import com.aimlabs.game.GameMode;
+import com.aimlabs.game.LagCompensator;
+import com.aimlabs.game.MotionPattern;
+import com.aimlabs.game.TargetShape;
 
 import javax.swing.*;
 import javax.swing.event.ChangeListener;
@@ -39,6 +42,7 @@ public class SettingsDialog extends JDialog {
         tabs.addTab("Precision", createPrecisionPanel());
         tabs.addTab("Reaction", createReactionPanel());
         tabs.addTab("Switch", createSwitchPanel());
+        tabs.addTab("Stress", createStressPanel());
 
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton saveBtn = new JButton("保存");
@@ -74,6 +78,12 @@ public class SettingsDialog extends JDialog {
         addCheckbox(p, "显示命中率", config.isShowAccuracy(), v -> config.setShowAccuracy(v));
         addCheckbox(p, "显示计时器", config.isShowTimer(), v -> config.setShowTimer(v));
         addCheckbox(p, "音效", config.isSoundEnabled(), v -> config.setSoundEnabled(v));
+        addCheckbox(p, "延迟补偿(移动靶标)", config.isLagCompensation(), v -> config.setLagCompensation(v));
+        addSlider(p, "最大回溯(ms)", 0, LagCompensator.MAX_REWIND_MS, config.getLagCompMaxRewindMs(), v -> config.setLagCompMaxRewindMs(v));
+        addSlider(p, "EDT卡顿阈值(ms)", 10, 500, config.getEdtStallThresholdMs(), v -> config.setEdtStallThresholdMs(v));
+        addCheckbox(p, "测量输入延迟", config.isLatencyProbe(), v -> config.setLatencyProbe(v));
+        addCheckbox(p, "延迟标记闪烁(光电校验)", config.isLatencyFlashMarker(), v -> config.setLatencyFlashMarker(v));
+        addLongField(p, "生成种子(0=随机)", config.getSpawnSeed(), v -> config.setSpawnSeed(v));
         return wrapScroll(p);
     }
 
@@ -83,6 +93,8 @@ public class SettingsDialog extends JDialog {
         addSlider(p, "最小大小", 5, 50, config.getTargetMinSize(), v -> config.setTargetMinSize(v));
         addSlider(p, "最大大小", 20, 150, config.getTargetMaxSize(), v -> config.setTargetMaxSize(v));
         addDoubleSlider(p, "分布密度", 1.0, 10.0, config.getTargetDensity(), v -> config.setTargetDensity(v));
+        addCheckbox(p, "移动时保持间距", config.isTargetSeparation(), v -> config.setTargetSeparation(v));
+        addShapeCombo(p);
         addColorPicker(p, "靶标颜色", config.getTargetColor(), c -> config.setTargetColor(c));
         addColorPicker(p, "边框颜色", config.getTargetBorderColor(), c -> config.setTargetBorderColor(c));
         addColorPicker(p, "命中颜色", config.getTargetHitColor(), c -> config.setTargetHitColor(c));
@@ -122,6 +134,7 @@ public class SettingsDialog extends JDialog {
     private JPanel createFlickPanel() {
         JPanel p = createFormPanel();
         addSlider(p, "同时靶标数", 1, 10, config.getFlickTargetCount(), v -> config.setFlickTargetCount(v));
+        addMotionCombo(p, GameMode.FLICK);
         return wrapScroll(p);
     }
 
@@ -129,7 +142,10 @@ public class SettingsDialog extends JDialog {
         JPanel p = createFormPanel();
         addSlider(p, "靶标数量", 1, 15, config.getTrackTargetCount(), v -> config.setTrackTargetCount(v));
         addDoubleSlider(p, "移动速度", 0.5, 10.0, config.getTrackSpeed(), v -> config.setTrackSpeed(v));
+        addSlider(p, "判定频率(Hz)", 30, 500, config.getTrackTickRate(), v -> config.setTrackTickRate(v));
+        addCheckbox(p, "tick内按输入时刻积分", config.isTrackSubTickInput(), v -> config.setTrackSubTickInput(v));
         addSlider(p, "靶标大小", 20, 100, config.getTrackTargetSize(), v -> config.setTrackTargetSize(v));
+        addMotionCombo(p, GameMode.TRACKING);
         return wrapScroll(p);
     }
 
@@ -138,6 +154,7 @@ public class SettingsDialog extends JDialog {
         addSlider(p, "靶标数量", 1, 15, config.getSpeedTargetCount(), v -> config.setSpeedTargetCount(v));
         addDoubleSlider(p, "存活时间(秒)", 0.3, 5.0, config.getSpeedTargetLifetime(), v -> config.setSpeedTargetLifetime(v));
         addSlider(p, "靶标大小", 15, 80, config.getSpeedTargetSize(), v -> config.setSpeedTargetSize(v));
+        addMotionCombo(p, GameMode.SPEED);
         return wrapScroll(p);
     }
 
@@ -146,6 +163,7 @@ public class SettingsDialog extends JDialog {
         addSlider(p, "靶标数量", 1, 15, config.getPrecisionTargetCount(), v -> config.setPrecisionTargetCount(v));
         addSlider(p, "最小大小", 3, 20, config.getPrecisionMinSize(), v -> config.setPrecisionMinSize(v));
         addSlider(p, "最大大小", 10, 40, config.getPrecisionMaxSize(), v -> config.setPrecisionMaxSize(v));
+        addMotionCombo(p, GameMode.PRECISION);
         return wrapScroll(p);
     }
 
@@ -155,6 +173,7 @@ public class SettingsDialog extends JDialog {
         addDoubleSlider(p, "最短延迟(秒)", 0.1, 3.0, config.getReactionMinDelay(), v -> config.setReactionMinDelay(v));
         addDoubleSlider(p, "最长延迟(秒)", 1.0, 10.0, config.getReactionMaxDelay(), v -> config.setReactionMaxDelay(v));
         addSlider(p, "靶标大小", 20, 100, config.getReactionTargetSize(), v -> config.setReactionTargetSize(v));
+        addMotionCombo(p, GameMode.REACTION);
         return wrapScroll(p);
     }
 
@@ -162,6 +181,17 @@ public class SettingsDialog extends JDialog {
         JPanel p = createFormPanel();
         addSlider(p, "靶标数量", 2, 15, config.getSwitchTargetCount(), v -> config.setSwitchTargetCount(v));
         addSlider(p, "靶标大小", 15, 80, config.getSwitchTargetSize(), v -> config.setSwitchTargetSize(v));
+        addMotionCombo(p, GameMode.SWITCH);
+        return wrapScroll(p);
+    }
+
+    private JPanel createStressPanel() {
+        JPanel p = createFormPanel();
+        int exponent = (int) Math.round(Math.log10(Math.max(10, config.getStressMaxTargets())));
+        addSlider(p, "最大靶标数(10的n次方)", 1, 6, exponent, v -> config.setStressMaxTargets((int) Math.pow(10, v)));
+        addDoubleSlider(p, "每级时长(秒)", 1.0, 30.0, config.getStressStepSeconds(), v -> config.setStressStepSeconds(v));
+        addSlider(p, "靶标大小", 10, 80, config.getStressTargetSize(), v -> config.setStressTargetSize(v));
+        addMotionCombo(p, GameMode.STRESS);
         return wrapScroll(p);
     }
 
@@ -232,6 +262,58 @@ public class SettingsDialog extends JDialog {
         parent.add(Box.createVerticalStrut(5));
     }
 
+    private void addMotionCombo(JPanel parent, GameMode mode) {
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        row.setMaximumSize(new Dimension(500, 40));
+        JLabel lbl = new JLabel("运动模式");
+        lbl.setPreferredSize(new Dimension(120, 25));
+        JComboBox<MotionPattern> combo = new JComboBox<>(MotionPattern.values());
+        combo.setSelectedItem(config.getMotionPattern(mode));
+        combo.addActionListener(e -> config.setMotionPattern(mode, (MotionPattern) combo.getSelectedItem()));
+        row.add(lbl);
+        row.add(combo);
+        parent.add(row);
+        parent.add(Box.createVerticalStrut(5));
+    }
+
+    private void addShapeCombo(JPanel parent) {
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        row.setMaximumSize(new Dimension(500, 40));
+        JLabel lbl = new JLabel("靶标外形");
+        lbl.setPreferredSize(new Dimension(120, 25));
+        JComboBox<TargetShape> combo = new JComboBox<>(TargetShape.values());
+        combo.setSelectedItem(config.getTargetShape());
+        combo.addActionListener(e -> config.setTargetShape((TargetShape) combo.getSelectedItem()));
+        row.add(lbl);
+        row.add(combo);
+        parent.add(row);
+        parent.add(Box.createVerticalStrut(5));
+    }
+
+    private void addLongField(JPanel parent, String label, long value, java.util.function.LongConsumer onChange) {
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        row.setMaximumSize(new Dimension(500, 40));
+        JLabel lbl = new JLabel(label);
+        lbl.setPreferredSize(new Dimension(120, 25));
+        JTextField field = new JTextField(String.valueOf(value), 16);
+        field.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            private void apply() {
+                try {
+                    onChange.accept(Long.parseLong(field.getText().trim()));
+                } catch (NumberFormatException ignored) {
+                    // 输入未完成时忽略
+                }
+            }
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { apply(); }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { apply(); }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { apply(); }
+        });
+        row.add(lbl);
+        row.add(field);
+        parent.add(row);
+        parent.add(Box.createVerticalStrut(5));
+    }
+
     private void addColorPicker(JPanel parent, String label, Color value, java.util.function.Consumer<Color> onChange) {
         JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
         row.setMaximumSize(new Dimension(500, 40));
@@ -0,0 +1,261 @@
+package com.aimlabs.ui;
+
+import com.aimlabs.bot.PerfectBot;
+import com.aimlabs.config.ConfigKey;
+import com.aimlabs.config.GameConfig;
+import com.aimlabs.config.SessionSettings;
+import com.aimlabs.game.GameClock;
+import com.aimlabs.game.GameMode;
+import com.aimlabs.mode.ModeHandler;
+import com.aimlabs.sim.SimSession;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预热服务 - 停留在菜单时在后台线程把各模式“跑热”，并准备好可以直接开局的初始状态
+ * 预热: 每个模式用手动时钟跑若干离屏帧(完美瞄准者瞄准点击 + SceneRenderer绘制)，让更新/命中/渲染路径提前完成JIT编译；
+ * 准备: 用独立的游戏时钟init一个处理器后立即暂停该时钟，开局时恢复即可，菜单停留时间按暂停计，不消耗靶标寿命
+ * 影响初始状态的设置变化时自动invalidate重新准备；对局进行中暂停预热帧，只做开销很小的准备
+ * 压力测试每级自带预热阶段且报告与渲染路径绑定，不参与
+ */
+public class WarmupService {
+    private static final int WARM_FRAMES = 300;
+    private static final int FRAME_W = 640, FRAME_H = 360;
+    /** 不影响准备好的初始状态的设置(外观、HUD、输入、音效、调试)，其余变化都要重新准备 */
+    private static final Set<ConfigKey> PREPARED_KEYS = EnumSet.complementOf(EnumSet.of(
+        ConfigKey.WINDOW_WIDTH, ConfigKey.WINDOW_HEIGHT, ConfigKey.FULLSCREEN,
+        ConfigKey.CROSSHAIR_SIZE, ConfigKey.CROSSHAIR_THICKNESS, ConfigKey.CROSSHAIR_COLOR,
+        ConfigKey.SHOW_CROSSHAIR, ConfigKey.CROSSHAIR_GAP, ConfigKey.CROSSHAIR_DOT, ConfigKey.CROSSHAIR_OUTLINE,
+        ConfigKey.BACKGROUND_COLOR, ConfigKey.GRID_COLOR, ConfigKey.SHOW_GRID,
+        ConfigKey.LAG_COMPENSATION, ConfigKey.LAG_COMP_MAX_REWIND_MS, ConfigKey.SENSITIVITY,
+        ConfigKey.EDT_STALL_THRESHOLD_MS, ConfigKey.LATENCY_PROBE, ConfigKey.LATENCY_FLASH_MARKER,
+        ConfigKey.SOUND_ENABLED, ConfigKey.SOUND_VOLUME,
+        ConfigKey.SHOW_ACCURACY, ConfigKey.SHOW_SCORE, ConfigKey.SHOW_TIMER));
+
+    /** 预先init好的一局初始状态，时钟处于暂停中；settings为init时的设置快照，开局沿用它 */
+    public static final class Prepared {
+        private final ModeHandler handler;
+        private final GameClock clock;
+        private final long seed;
+        private final SessionSettings settings;
+
+        private Prepared(ModeHandler handler, GameClock clock, long seed, SessionSettings settings) {
+            this.handler = handler;
+            this.clock = clock;
+            this.seed = seed;
+            this.settings = settings;
+        }
+
+        public ModeHandler getHandler() { return handler; }
+        public GameClock getClock() { return clock; }
+        public long getSeed() { return seed; }
+        public SessionSettings getSettings() { return settings; }
+    }
+
+    private final GameConfig config;
+    private final Map<GameMode, Prepared> ready = new EnumMap<>(GameMode.class);
+    private final Set<GameMode> pendingPrepare = EnumSet.noneOf(GameMode.class);
+    private final Set<GameMode> pendingWarm = EnumSet.noneOf(GameMode.class);
+    private int warmedCount = 0;
+    private int generation = 0;     // invalidate后递增，旧一代的准备结果丢弃
+    private boolean gameActive = false;
+    private boolean started = false;
+    private Runnable onStatusChange;
+
+    public WarmupService(GameConfig config) {
+        this.config = config;
+        config.addListener(PREPARED_KEYS, changed -> invalidate());
+    }
+
+    /** 本局种子: 固定种子可复现同一靶标序列；0则每局随机 */
+    static long sessionSeed(GameConfig config) {
+        return config.getSpawnSeed() != 0 ? config.getSpawnSeed() : System.nanoTime() ^ 0x5DEECE66DL;
+    }
+
+    static boolean supports(GameMode mode) {
+        return mode != GameMode.STRESS;
+    }
+
+    /** 启动后台线程，预热并准备全部模式(只需调用一次) */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        for (GameMode mode : GameMode.values()) {
+            if (!supports(mode)) continue;
+            pendingPrepare.add(mode);
+            pendingWarm.add(mode);
+        }
+        Thread worker = new Thread(this::workLoop, "Warmup");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+        fireStatus();
+    }
+
+    /**
+     * 取走某模式准备好的状态(没有则返回null)，并在后台为下一次开局重新准备
+     * 返回的时钟仍处于暂停中，由调用方resume
+     */
+    public synchronized Prepared take(GameMode mode) {
+        if (!supports(mode)) return null;
+        Prepared p = ready.remove(mode);
+        if (started) {
+            pendingPrepare.add(mode);
+            notifyAll();
+        }
+        return p;
+    }
+
+    /** 配置已变化: 丢弃全部准备好的状态并重新准备 */
+    public synchronized void invalidate() {
+        generation++;
+        for (Prepared p : ready.values()) p.handler.dispose();
+        ready.clear();
+        if (started) {
+            for (GameMode mode : GameMode.values()) {
+                if (supports(mode)) pendingPrepare.add(mode);
+            }
+            notifyAll();
+        }
+        fireStatus();
+    }
+
+    /** 对局进行中不跑预热帧，避免和游戏抢CPU */
+    public synchronized void setGameActive(boolean active) {
+        gameActive = active;
+        notifyAll();
+    }
+
+    public synchronized boolean isWarm() {
+        return started && pendingWarm.isEmpty();
+    }
+
+    public synchronized boolean isReady(GameMode mode) {
+        return ready.containsKey(mode);
+    }
+
+    /** 侧边栏显示的状态文字 */
+    public synchronized String getStatusText() {
+        if (!started) return "未预热";
+        if (!pendingWarm.isEmpty()) {
+            return "预热中 " + warmedCount + "/" + (warmedCount + pendingWarm.size());
+        }
+        return ready.isEmpty() ? "准备中..." : "已就绪 · R键秒开重来";
+    }
+
+    /** 状态变化回调(在预热线程上调用) */
+    public void setOnStatusChange(Runnable callback) {
+        this.onStatusChange = callback;
+    }
+
+    private void fireStatus() {
+        Runnable callback = onStatusChange;
+        if (callback != null) callback.run();
+    }
+
+    private void workLoop() {
+        while (true) {
+            GameMode mode;
+            boolean warm;
+            int gen;
+            synchronized (this) {
+                try {
+                    while (pendingPrepare.isEmpty() && (pendingWarm.isEmpty() || gameActive)) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // 准备很便宜，先做，保证尽早可以秒开
+                warm = pendingPrepare.isEmpty();
+                mode = (warm ? pendingWarm : pendingPrepare).iterator().next();
+                gen = generation;
+            }
+            boolean done = true;
+            try {
+                if (warm) {
+                    done = warmUp(mode);
+                } else {
+                    store(mode, prepare(mode), gen);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("预热失败 " + mode + ": " + e);
+            }
+            if (warm && done) {
+                synchronized (this) {
+                    pendingWarm.remove(mode);
+                    warmedCount++;
+                }
+            }
+            fireStatus();
+        }
+    }
+
+    private Prepared prepare(GameMode mode) {
+        GameClock clock = new GameClock();
+        long seed = sessionSeed(config);
+        SessionSettings settings = config.snapshot();
+        ModeHandler handler = ModeHandler.forMode(mode);
+        handler.init(FRAME_W, FRAME_H, settings, seed, clock);
+        clock.pause();
+        return new Prepared(handler, clock, seed, settings);
+    }
+
+    private void store(GameMode mode, Prepared p, int gen) {
+        synchronized (this) {
+            if (gen == generation) {
+                pendingPrepare.remove(mode);
+                if (!ready.containsKey(mode)) {
+                    ready.put(mode, p);
+                    return;
+                }
+            }
+        }
+        // 准备期间配置变了(已重新排队)或已有一份，丢弃这份
+        p.handler.dispose();
+    }
+
+    /** 手动时钟跑离屏帧: 完美瞄准者每帧瞄准点击，并完整绘制房间和靶标；被准备任务打断返回false */
+    private boolean warmUp(GameMode mode) {
+        SimSession session = new SimSession(config, mode, sessionSeed(config),
+            SimSession.DEFAULT_TICK_NANOS, FRAME_W, FRAME_H);
+        PerfectBot bot = new PerfectBot();
+        SceneRenderer renderer = new SceneRenderer(config);
+        renderer.setSession(session.getSettings());
+        BufferedImage frame = new BufferedImage(FRAME_W, FRAME_H, BufferedImage.TYPE_INT_RGB);
+        double dt = session.getTickNanos() / 1_000_000_000.0;
+        bot.reset(session);
+        try {
+            for (int i = 0; i < WARM_FRAMES; i++) {
+                if (!awaitIdle()) return false;
+                bot.act(session, dt);
+                if (!session.step()) break;
+                renderer.setCamera(session.getYaw(), session.getPitch());
+                Graphics2D g2d = frame.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                if (config.isShowGrid()) renderer.drawRoom(g2d, FRAME_W, FRAME_H);
+                renderer.drawTargets(g2d, session.getTargets(), session.getNowNanos(), FRAME_W, FRAME_H);
+                g2d.dispose();
+            }
+        } finally {
+            session.getHandler().dispose();
+        }
+        return true;
+    }
+
+    /** 对局进行中等待；有待准备的状态时先让出(返回false中止本次预热，稍后重做) */
+    private synchronized boolean awaitIdle() {
+        try {
+            while (gameActive && pendingPrepare.isEmpty()) wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return pendingPrepare.isEmpty();
+    }
+}